@@ -0,0 +1,83 @@
+package br.com.pereiraeng.html.loadtest;
+
+/**
+ * Histograma de latências (ns) em faixas log-lineares: valores até 63 têm uma
+ * faixa cada, e cada potência de dois acima disso é dividida em 32 faixas, de
+ * modo que os percentis têm erro relativo de no máximo ~3%, com memória fixa
+ * (cerca de 15 KB) qualquer que seja a quantidade de medidas. Cada
+ * <i>thread</i> usa o seu histograma, e eles são juntados no fim.
+ */
+final class Histogram {
+
+	private static final int SUB_BITS = 5, SUB = 1 << SUB_BITS;
+
+	private final long[] counts = new long[(64 - SUB_BITS) * SUB];
+
+	private long total, sum, max;
+
+	void record(long ns) {
+		if (ns < 0)
+			ns = 0;
+		counts[index(ns)]++;
+		total++;
+		sum += ns;
+		if (ns > max)
+			max = ns;
+	}
+
+	void add(Histogram other) {
+		for (int i = 0; i < counts.length; i++)
+			counts[i] += other.counts[i];
+		total += other.total;
+		sum += other.sum;
+		max = Math.max(max, other.max);
+	}
+
+	long getCount() {
+		return total;
+	}
+
+	long getMax() {
+		return max;
+	}
+
+	double getMean() {
+		return total == 0 ? 0 : (double) sum / total;
+	}
+
+	/**
+	 * Função que retorna o percentil indicado (o maior valor da faixa em que ele
+	 * cai)
+	 *
+	 * @param p fração das medidas (e.g., 0.999)
+	 * @return latência (ns)
+	 */
+	long getPercentile(double p) {
+		if (total == 0)
+			return 0;
+		long target = Math.max(1, (long) Math.ceil(p * total)), n = 0;
+		for (int i = 0; i < counts.length; i++) {
+			n += counts[i];
+			if (n >= target)
+				return i + 1 < counts.length ? Math.min(max, lowest(i + 1) - 1) : max;
+		}
+		return max;
+	}
+
+	private static int index(long v) {
+		if (v < 2 * SUB)
+			return (int) v;
+		int e = 63 - Long.numberOfLeadingZeros(v);
+		return (e - SUB_BITS + 1) * SUB + (int) ((v >>> (e - SUB_BITS)) & (SUB - 1));
+	}
+
+	/**
+	 * @return menor valor da faixa
+	 */
+	private static long lowest(int index) {
+		if (index < 2 * SUB)
+			return index;
+		int e = index / SUB + SUB_BITS - 1;
+		return (long) (SUB + index % SUB) << (e - SUB_BITS);
+	}
+}
@@ -0,0 +1,413 @@
+package br.com.pereiraeng.html.loadtest;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import br.com.pereiraeng.html.HTML;
+import br.com.pereiraeng.html.HTMLInput;
+import br.com.pereiraeng.html.TableLocator;
+
+/**
+ * Teste de carga de ponta a ponta: várias <i>threads</i> chamam as funções de
+ * {@link HTML} sobre as páginas de um diretório (lidas para a memória antes da
+ * medida, com a detecção da codificação de {@link HTMLInput}), sorteando a
+ * função segundo pesos e o documento uniformemente. Para cada quantidade de
+ * <i>threads</i>, há um aquecimento e depois a medida, da qual saem os
+ * documentos por segundo, os MB por segundo, os percentis 50, 99 e 99,9 da
+ * latência (no total e por função) e o tempo gasto pelo coletor de lixo.
+ * <p>
+ * Uso: <code>java ... LoadTest pasta [threads=1,4,8] [warmup=5] [duration=20]
+ * [mix=columns=4,tree=1,spechar=2,fromhtml=2] [report=loadtest.json]</code>
+ * (tempos em segundos). O relatório é um JSON com o ambiente, o corpus e uma
+ * entrada por quantidade de <i>threads</i>, para comparar execuções.
+ */
+public class LoadTest {
+
+	/**
+	 * Funções medidas
+	 */
+	enum Operation {
+		/**
+		 * {@link HTML#getColumnsContent(String, boolean, int, int...)} de todas as
+		 * colunas de uma tabela sorteada
+		 */
+		COLUMNS("columns"),
+		/**
+		 * {@link HTML#getTreeHTML(String)}
+		 */
+		TREE("tree"),
+		/**
+		 * {@link HTML#convertHTMLSpeChar(String)}
+		 */
+		SPECHAR("spechar"),
+		/**
+		 * {@link HTML#fromHTML(String)}
+		 */
+		FROMHTML("fromhtml");
+
+		final String key;
+
+		Operation(String key) {
+			this.key = key;
+		}
+
+		static Operation of(String key) {
+			for (Operation o : values())
+				if (o.key.equalsIgnoreCase(key))
+					return o;
+			throw new IllegalArgumentException("Fun\u00E7\u00E3o desconhecida: " + key);
+		}
+	}
+
+	/**
+	 * Documento do corpus
+	 */
+	private static final class Document {
+
+		final String html;
+
+		final long bytes;
+
+		final int tables;
+
+		Document(String html, long bytes) {
+			this.html = html;
+			this.bytes = bytes;
+			this.tables = TableLocator.locate(html).size();
+		}
+	}
+
+	private final List<Document> corpus;
+
+	private final long corpusBytes;
+
+	/**
+	 * funções e pesos acumulados, para o sorteio
+	 */
+	private final Operation[] ops;
+
+	private final int[] weights;
+
+	private final Map<String, Integer> mix;
+
+	/**
+	 * resultados das chamadas, para que não sejam descartadas pelo compilador
+	 */
+	static volatile long sink;
+
+	LoadTest(List<Document> corpus, Map<String, Integer> mix) {
+		this.corpus = corpus;
+		long b = 0;
+		for (Document d : corpus)
+			b += d.bytes;
+		this.corpusBytes = b;
+		this.mix = mix;
+		this.ops = new Operation[mix.size()];
+		this.weights = new int[mix.size()];
+		int i = 0, w = 0;
+		for (Map.Entry<String, Integer> e : mix.entrySet()) {
+			if (e.getValue() <= 0)
+				throw new IllegalArgumentException("Peso deve ser positivo: " + e.getKey());
+			ops[i] = Operation.of(e.getKey());
+			w += e.getValue();
+			weights[i++] = w;
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		if (args.length == 0) {
+			System.err.println("Uso: LoadTest pasta [threads=1,4] [warmup=5] [duration=20] "
+					+ "[mix=columns=4,tree=1,spechar=2,fromhtml=2] [report=loadtest.json]");
+			System.exit(2);
+		}
+		Map<String, String> opts = new LinkedHashMap<>();
+		opts.put("threads", "1," + Runtime.getRuntime().availableProcessors());
+		opts.put("warmup", "5");
+		opts.put("duration", "20");
+		opts.put("mix", "columns=1,tree=1,spechar=1,fromhtml=1");
+		opts.put("report", "loadtest.json");
+		for (int i = 1; i < args.length; i++) {
+			int eq = args[i].indexOf('=');
+			if (eq < 0 || !opts.containsKey(args[i].substring(0, eq)))
+				throw new IllegalArgumentException("Op\u00E7\u00E3o inv\u00E1lida: " + args[i]);
+			opts.put(args[i].substring(0, eq), args[i].substring(eq + 1));
+		}
+
+		LoadTest test = new LoadTest(load(Paths.get(args[0])), parseMix(opts.get("mix")));
+		if (test.corpus.isEmpty())
+			throw new IllegalArgumentException("Nenhum arquivo .html em " + args[0]);
+		System.out.printf("%d documentos, %.1f MB%n", test.corpus.size(), test.corpusBytes / 1e6);
+
+		long warmup = Long.parseLong(opts.get("warmup")) * 1000, duration = Long.parseLong(opts.get("duration")) * 1000;
+		List<Result> results = new ArrayList<>();
+		System.out.printf("%8s %10s %8s %10s %10s %10s %10s %8s%n", "threads", "docs/s", "MB/s", "p50 (\u00B5s)",
+				"p99 (\u00B5s)", "p999 (\u00B5s)", "max (\u00B5s)", "GC (ms)");
+		for (String t : opts.get("threads").split(",")) {
+			int threads = Integer.parseInt(t.trim());
+			test.run(threads, warmup);
+			Result r = test.run(threads, duration);
+			results.add(r);
+			System.out.printf("%8d %10.0f %8.1f %10.1f %10.1f %10.1f %10.1f %8d%n", threads, r.docsPerSecond(),
+					r.megabytesPerSecond(), r.all.getPercentile(0.5) / 1e3, r.all.getPercentile(0.99) / 1e3,
+					r.all.getPercentile(0.999) / 1e3, r.all.getMax() / 1e3, r.gcMillis);
+		}
+
+		Path report = Paths.get(opts.get("report"));
+		try (PrintWriter w = new PrintWriter(Files.newBufferedWriter(report, StandardCharsets.UTF_8))) {
+			test.report(w, args[0], results);
+		}
+		System.out.println("Relat\u00F3rio: " + report.toAbsolutePath());
+	}
+
+	/**
+	 * Função que lê os arquivos .html e .htm de um diretório (e subdiretórios)
+	 */
+	static List<Document> load(Path dir) throws IOException {
+		List<Path> files;
+		try (Stream<Path> s = Files.walk(dir)) {
+			files = s.filter(p -> {
+				String n = p.getFileName().toString().toLowerCase(Locale.ROOT);
+				return Files.isRegularFile(p) && (n.endsWith(".html") || n.endsWith(".htm"));
+			}).sorted().collect(Collectors.toList());
+		}
+		List<Document> out = new ArrayList<>(files.size());
+		for (Path p : files) {
+			byte[] b = Files.readAllBytes(p);
+			out.add(new Document(HTMLInput.decode(b, 0, b.length).toString(), b.length));
+		}
+		return out;
+	}
+
+	/**
+	 * Função que lê os pesos das funções (e.g., <code>columns=4,tree=1</code>)
+	 */
+	static Map<String, Integer> parseMix(String mix) {
+		Map<String, Integer> out = new LinkedHashMap<>();
+		for (String s : mix.split(",")) {
+			int eq = s.indexOf('=');
+			String key = (eq < 0 ? s : s.substring(0, eq)).trim().toLowerCase(Locale.ROOT);
+			Operation.of(key);
+			out.put(key, eq < 0 ? 1 : Integer.parseInt(s.substring(eq + 1).trim()));
+		}
+		return out;
+	}
+
+	// ============================== MEDIDA ==============================
+
+	/**
+	 * Resultado de uma medida
+	 */
+	static final class Result {
+
+		final int threads;
+
+		final double seconds;
+
+		long documents, bytes, gcMillis, gcCount;
+
+		final Histogram all = new Histogram();
+
+		final Map<Operation, Histogram> byOperation = new LinkedHashMap<>();
+
+		Result(int threads, double seconds) {
+			this.threads = threads;
+			this.seconds = seconds;
+		}
+
+		double docsPerSecond() {
+			return documents / seconds;
+		}
+
+		double megabytesPerSecond() {
+			return bytes / 1e6 / seconds;
+		}
+	}
+
+	/**
+	 * Função que executa as chamadas com a quantidade de <i>threads</i> indicada
+	 * durante o tempo indicado
+	 *
+	 * @param threads  quantidade de <i>threads</i>
+	 * @param duration tempo (ms)
+	 * @return resultado
+	 */
+	Result run(int threads, long duration) throws InterruptedException {
+		Worker[] workers = new Worker[threads];
+		CountDownLatch start = new CountDownLatch(1);
+		for (int i = 0; i < threads; i++) {
+			workers[i] = new Worker(start);
+			workers[i].setName("loadtest-" + i);
+			workers[i].start();
+		}
+		long gcTime = gcTime(), gcCount = gcCount();
+		long t0 = System.nanoTime(), deadline = t0 + duration * 1000000;
+		for (Worker w : workers)
+			w.deadline = deadline;
+		start.countDown();
+		for (Worker w : workers)
+			w.join();
+		Result r = new Result(threads, (System.nanoTime() - t0) / 1e9);
+		r.gcMillis = gcTime() - gcTime;
+		r.gcCount = gcCount() - gcCount;
+		for (Worker w : workers) {
+			if (w.error != null)
+				throw new IllegalStateException("Erro na thread " + w.getName(), w.error);
+			r.documents += w.documents;
+			r.bytes += w.bytes;
+			for (int i = 0; i < ops.length; i++) {
+				r.all.add(w.histograms[i]);
+				Histogram h = r.byOperation.get(ops[i]);
+				if (h == null)
+					r.byOperation.put(ops[i], h = new Histogram());
+				h.add(w.histograms[i]);
+			}
+		}
+		return r;
+	}
+
+	private final class Worker extends Thread {
+
+		private final CountDownLatch start;
+
+		volatile long deadline;
+
+		final Histogram[] histograms = new Histogram[ops.length];
+
+		long documents, bytes;
+
+		Throwable error;
+
+		Worker(CountDownLatch start) {
+			this.start = start;
+			for (int i = 0; i < histograms.length; i++)
+				histograms[i] = new Histogram();
+		}
+
+		@Override
+		public void run() {
+			try {
+				start.await();
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				long end = deadline, acc = 0, now;
+				do {
+					int w = random.nextInt(weights[weights.length - 1]), op = 0;
+					while (w >= weights[op])
+						op++;
+					Document d = corpus.get(random.nextInt(corpus.size()));
+					long t = System.nanoTime();
+					acc += call(ops[op], d, random);
+					now = System.nanoTime();
+					histograms[op].record(now - t);
+					documents++;
+					bytes += d.bytes;
+				} while (now < end);
+				sink += acc;
+			} catch (Throwable e) {
+				error = e;
+			}
+		}
+	}
+
+	private static long call(Operation op, Document d, ThreadLocalRandom random) {
+		switch (op) {
+		case COLUMNS:
+			if (d.tables == 0)
+				return 0;
+			List<String[]> rows = HTML.getColumnsContentL(d.html, true, random.nextInt(d.tables));
+			return rows == null ? 0 : rows.size();
+		case TREE:
+			return HTML.getTreeHTML(d.html).getChildCount();
+		case SPECHAR:
+			return HTML.convertHTMLSpeChar(d.html).length();
+		default:
+			return HTML.fromHTML(d.html).length();
+		}
+	}
+
+	private static long gcTime() {
+		long t = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+			t += Math.max(0, gc.getCollectionTime());
+		return t;
+	}
+
+	private static long gcCount() {
+		long n = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+			n += Math.max(0, gc.getCollectionCount());
+		return n;
+	}
+
+	// ============================== RELATÓRIO ==============================
+
+	void report(PrintWriter w, String dir, List<Result> results) {
+		Runtime rt = Runtime.getRuntime();
+		w.println("{");
+		w.printf(Locale.ROOT, "  \"java\": %s, \"vm\": %s, \"processors\": %d, \"maxHeapMB\": %d,%n",
+				quote(System.getProperty("java.version")), quote(System.getProperty("java.vm.name")),
+				rt.availableProcessors(), rt.maxMemory() >> 20);
+		w.printf(Locale.ROOT, "  \"gc\": [%s],%n", ManagementFactory.getGarbageCollectorMXBeans().stream()
+				.map(gc -> quote(gc.getName())).collect(Collectors.joining(", ")));
+		w.printf(Locale.ROOT, "  \"corpus\": {\"dir\": %s, \"documents\": %d, \"bytes\": %d},%n", quote(dir),
+				corpus.size(), corpusBytes);
+		w.printf(Locale.ROOT, "  \"mix\": {%s},%n", mix.entrySet().stream()
+				.map(e -> quote(e.getKey()) + ": " + e.getValue()).collect(Collectors.joining(", ")));
+		w.println("  \"runs\": [");
+		for (int i = 0; i < results.size(); i++) {
+			Result r = results.get(i);
+			w.printf(Locale.ROOT,
+					"    {\"threads\": %d, \"seconds\": %.3f, \"documents\": %d, \"bytes\": %d, "
+							+ "\"docsPerSecond\": %.1f, \"mbPerSecond\": %.2f, \"gcMillis\": %d, \"gcCount\": %d,%n",
+					r.threads, r.seconds, r.documents, r.bytes, r.docsPerSecond(), r.megabytesPerSecond(), r.gcMillis,
+					r.gcCount);
+			w.printf(Locale.ROOT, "     \"latency\": %s,%n", latency(r.all));
+			w.print("     \"operations\": {");
+			int k = 0;
+			for (Map.Entry<Operation, Histogram> e : r.byOperation.entrySet())
+				w.printf(Locale.ROOT, "%s%n       %s: %s", k++ > 0 ? "," : "", quote(e.getKey().key),
+						latency(e.getValue()));
+			w.printf("}}%s%n", i + 1 < results.size() ? "," : "");
+		}
+		w.println("  ]");
+		w.println("}");
+	}
+
+	/**
+	 * @return latências em µs
+	 */
+	private static String latency(Histogram h) {
+		return String.format(Locale.ROOT,
+				"{\"count\": %d, \"meanUs\": %.1f, \"p50Us\": %.1f, \"p99Us\": %.1f, \"p999Us\": %.1f, \"maxUs\": %.1f}",
+				h.getCount(), h.getMean() / 1e3, h.getPercentile(0.5) / 1e3, h.getPercentile(0.99) / 1e3,
+				h.getPercentile(0.999) / 1e3, h.getMax() / 1e3);
+	}
+
+	private static String quote(String s) {
+		StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c == '"' || c == '\\')
+				sb.append('\\').append(c);
+			else if (c < 0x20)
+				sb.append(String.format("\\u%04x", (int) c));
+			else
+				sb.append(c);
+		}
+		return sb.append('"').toString();
+	}
+}
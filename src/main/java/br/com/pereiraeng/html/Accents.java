@@ -0,0 +1,214 @@
+package br.com.pereiraeng.html;
+
+import java.text.Normalizer;
+
+/**
+ * Tabelas das letras latinas acentuadas: letra acentuada → entidade HTML
+ * (e.g., 'é' → <code>&amp;eacute;</code>), entidade → letra e letra → letra
+ * sem acento (para chaves de busca). As tabelas são montadas uma única vez,
+ * quando a classe é usada pela primeira vez, de modo que as conversões são
+ * feitas numa única passada, sem {@link Normalizer} e sem criar objetos por
+ * caractere.
+ * <p>
+ * Cobrem as letras do Latim-1, do Latim Estendido A e B e do Latim Estendido
+ * Adicional formadas por uma letra ASCII e um dos acentos com nome de entidade
+ * HTML (grave, agudo, circunflexo, til, trema, cedilha, anel, caron, mácron,
+ * breve, ogonek, ponto e agudo duplo).
+ */
+final class Accents {
+
+	/**
+	 * nomes dos acentos nas entidades e os caracteres combinantes
+	 * correspondentes
+	 */
+	private static final String[] NAMES = { "grave", "acute", "circ", "tilde", "uml", "cedil", "ring", "caron",
+			"macr", "breve", "ogon", "dot", "dblac" };
+
+	private static final char[] MARKS = { '\u0300', '\u0301', '\u0302', '\u0303', '\u0308', '\u0327', '\u030A',
+			'\u030C', '\u0304', '\u0306', '\u0328', '\u0307', '\u030B' };
+
+	/**
+	 * fim (exclusivo) dos caracteres cobertos pelas tabelas e dos caracteres com
+	 * nome de entidade (Latim-1 e Latim Estendido A)
+	 */
+	private static final int SIZE = 0x1F00, NAMED = 0x0180;
+
+	/**
+	 * letras do Latim Estendido A cujas entidades não existem
+	 */
+	private static final String UNNAMED = " Ebreve ebreve Ibreve ibreve Obreve obreve gcedil ";
+
+	/**
+	 * letra acentuada → nome da entidade (sem '&amp;' e ';'; <code>null</code> se
+	 * não houver entidade com nome)
+	 */
+	private static final String[] ENTITY = new String[SIZE];
+
+	/**
+	 * letra acentuada → letra sem acento (0 se não houver)
+	 */
+	private static final char[] FOLD = new char[SIZE];
+
+	/**
+	 * letras formadas por uma letra ASCII e um dos acentos com nome
+	 */
+	private static final boolean[] ACCENTED = new boolean[SIZE];
+
+	/**
+	 * letra ASCII (52) e acento → letra acentuada (0 se não houver)
+	 */
+	private static final char[] COMPOSE = new char[52 * NAMES.length];
+
+	static {
+		int[][] ranges = { { 0x00C0, 0x0250 }, { 0x1E00, 0x1F00 } };
+		for (int[] r : ranges)
+			for (int c = r[0]; c < r[1]; c++) {
+				String d = Normalizer.normalize(String.valueOf((char) c), Normalizer.Form.NFD);
+				char base = d.charAt(0);
+				if (d.length() < 2 || letter(base) < 0)
+					continue;
+				boolean marks = true;
+				for (int i = 1; i < d.length(); i++)
+					marks &= d.charAt(i) >= '\u0300' && d.charAt(i) < '\u0370';
+				if (!marks)
+					continue;
+				FOLD[c] = base;
+				if (d.length() == 2)
+					for (int m = 0; m < MARKS.length; m++)
+						if (MARKS[m] == d.charAt(1)) {
+							String name = base + NAMES[m];
+							ACCENTED[c] = true;
+							if (c < NAMED && !UNNAMED.contains(" " + name + " "))
+								ENTITY[c] = name;
+							COMPOSE[letter(base) * NAMES.length + m] = (char) c;
+						}
+			}
+		// letras sem decomposição
+		addFold("\u00C6\u00E6\u00D8\u00F8\u0152\u0153\u0110\u0111\u0141\u0142\u00D0\u00F0\u00DE\u00FE\u0131",
+				"AaOoOoDdLlDdTti");
+	}
+
+	private static void addFold(String from, String to) {
+		for (int i = 0; i < from.length(); i++)
+			FOLD[from.charAt(i)] = to.charAt(i);
+	}
+
+	private Accents() {
+	}
+
+	private static int letter(char c) {
+		if (c >= 'A' && c <= 'Z')
+			return c - 'A';
+		if (c >= 'a' && c <= 'z')
+			return 26 + c - 'a';
+		return -1;
+	}
+
+	/**
+	 * Função que retorna a letra acentuada de uma entidade (e.g.,
+	 * <code>eacute</code>)
+	 *
+	 * @param name nome da entidade (sem '&amp;' e ';')
+	 * @return letra acentuada, ou -1 se o nome não for de uma letra acentuada
+	 */
+	static int compose(CharSequence name) {
+		return compose(name, 0, name.length());
+	}
+
+	private static int compose(CharSequence src, int start, int end) {
+		if (end - start < 3)
+			return -1;
+		int l = letter(src.charAt(start));
+		if (l < 0)
+			return -1;
+		for (int m = 0; m < NAMES.length; m++)
+			if (DelimiterScanner.regionEquals(src, start + 1, end, NAMES[m])
+					&& start + 1 + NAMES[m].length() == end) {
+				char c = COMPOSE[l * NAMES.length + m];
+				return c == 0 ? -1 : c;
+			}
+		return -1;
+	}
+
+	/**
+	 * Função que substitui as letras acentuadas pelas entidades HTML
+	 *
+	 * @param text    texto
+	 * @param numeric <code>true</code> para entidades numéricas (e.g.,
+	 *                <code>&amp;#x00E9;</code>), <code>false</code> para entidades
+	 *                com nome (e.g., <code>&amp;eacute;</code>; as letras sem
+	 *                entidade com nome, como 'ẽ', ficam como estão)
+	 * @return texto convertido (o próprio texto, se não houver letras acentuadas)
+	 */
+	static String toEntities(String text, boolean numeric) {
+		StringBuilder out = null;
+		int p = 0;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c >= SIZE || (numeric ? !ACCENTED[c] : ENTITY[c] == null))
+				continue;
+			if (out == null)
+				out = new StringBuilder(text.length() + 32);
+			out.append(text, p, i).append('&');
+			if (numeric) {
+				out.append("#x");
+				for (int s = 12; s >= 0; s -= 4)
+					out.append(Character.toUpperCase(Character.forDigit((c >> s) & 0xF, 16)));
+			} else
+				out.append(ENTITY[c]);
+			out.append(';');
+			p = i + 1;
+		}
+		return out == null ? text : out.append(text, p, text.length()).toString();
+	}
+
+	/**
+	 * Função que substitui as entidades HTML das letras acentuadas pelas letras;
+	 * as demais entidades ficam como estão
+	 *
+	 * @param html texto em HTML
+	 * @return texto convertido (o próprio texto, se não houver entidades de letras
+	 *         acentuadas)
+	 */
+	static String fromEntities(String html) {
+		StringBuilder out = null;
+		int p = 0, n = html.length();
+		for (int amp = DelimiterScanner.indexOf(html, '&', 0, n); amp >= 0; amp = DelimiterScanner.indexOf(html,
+				'&', amp + 1, n)) {
+			int semi = amp + 1;
+			while (semi < n && semi - amp <= 7 && letter(html.charAt(semi)) >= 0)
+				semi++;
+			if (semi == n || html.charAt(semi) != ';')
+				continue;
+			int c = compose(html, amp + 1, semi);
+			if (c < 0)
+				continue;
+			if (out == null)
+				out = new StringBuilder(n);
+			out.append(html, p, amp).append((char) c);
+			p = semi + 1;
+		}
+		return out == null ? html : out.append(html, p, n).toString();
+	}
+
+	/**
+	 * Função que troca as letras acentuadas pelas letras ASCII correspondentes
+	 * (e.g., "ação" → "acao")
+	 *
+	 * @param text texto
+	 * @return texto sem acentos (o próprio texto, se não houver acentos)
+	 */
+	static String fold(String text) {
+		char[] out = null;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			char f = c < SIZE ? FOLD[c] : 0;
+			if (f == 0)
+				continue;
+			if (out == null)
+				out = text.toCharArray();
+			out[i] = f;
+		}
+		return out == null ? text : new String(out);
+	}
+}
@@ -0,0 +1,308 @@
+package br.com.pereiraeng.html;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Índice das posições dos documentos num arquivo com muitos documentos HTML
+ * concatenados. São reconhecidos dois formatos:
+ * <ul>
+ * <li>WARC: cada registro <code>response</code> ou <code>resource</code> é um
+ * documento (sem o cabeçalho HTTP, se houver); os demais registros são
+ * pulados pelo <code>Content-Length</code>, sem ler o conteúdo;</li>
+ * <li>HTML concatenado: cada documento termina no seu <code>&lt;/html&gt;</code>
+ * (o espaço entre dois documentos é ignorado, e o que sobrar no fim é o último
+ * documento).</li>
+ * </ul>
+ * O arquivo é percorrido em janelas mapeadas na memória (de modo que pode ter
+ * mais de 2 GB; cada documento, não), e o índice pode ser gravado para ser
+ * lido por outros processos (ver {@link ArchiveProcessor}).
+ */
+public final class ArchiveIndex {
+
+	private static final int MAGIC = 0x58444941; // "AIDX"
+
+	/**
+	 * tamanho das janelas mapeadas
+	 */
+	private static final int WINDOW = 256 << 20;
+
+	private static final String END = "</html>";
+
+	private final long[] starts, ends;
+
+	private final int count;
+
+	private ArchiveIndex(long[] starts, long[] ends, int count) {
+		this.starts = starts;
+		this.ends = ends;
+		this.count = count;
+	}
+
+	/**
+	 * Função que percorre o arquivo e monta o índice dos documentos
+	 *
+	 * @param archive arquivo
+	 * @return índice
+	 * @throws IOException se o arquivo não puder ser lido
+	 */
+	public static ArchiveIndex build(Path archive) throws IOException {
+		return build(archive, WINDOW);
+	}
+
+	/**
+	 * @param window tamanho das janelas mapeadas
+	 */
+	static ArchiveIndex build(Path archive, int window) throws IOException {
+		try (FileChannel ch = FileChannel.open(archive, StandardOpenOption.READ)) {
+			Builder b = new Builder(window);
+			ByteBuffer head = ByteBuffer.allocate(5);
+			ch.read(head, 0);
+			if (head.position() == 5 && "WARC/".equals(new String(head.array(), StandardCharsets.ISO_8859_1)))
+				b.warc(ch);
+			else
+				b.concatenated(ch);
+			return new ArchiveIndex(b.starts, b.ends, b.count);
+		}
+	}
+
+	/**
+	 * @return quantidade de documentos
+	 */
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * @param document índice do documento
+	 * @return posição do primeiro byte do documento
+	 */
+	public long getStart(int document) {
+		return starts[document];
+	}
+
+	/**
+	 * @param document índice do documento
+	 * @return posição seguinte ao último byte do documento
+	 */
+	public long getEnd(int document) {
+		return ends[document];
+	}
+
+	/**
+	 * Função que divide os documentos em fatias contíguas, com quantidades de
+	 * bytes parecidas
+	 *
+	 * @param shards quantidade de fatias (no máximo a quantidade de documentos)
+	 * @return índices dos documentos que começam cada fatia, mais a quantidade de
+	 *         documentos no fim (a fatia <code>i</code> vai do documento
+	 *         <code>out[i]</code> até <code>out[i + 1] - 1</code>)
+	 */
+	public int[] split(int shards) {
+		if (shards < 1)
+			throw new IllegalArgumentException(Integer.toString(shards));
+		shards = Math.max(1, Math.min(shards, count));
+		int[] out = new int[shards + 1];
+		if (count == 0)
+			return out;
+		long first = starts[0], total = ends[count - 1] - first;
+		int d = 0;
+		for (int s = 1; s < shards; s++) {
+			long target = first + total * s / shards;
+			// cada fatia tem ao menos um documento, e sobra ao menos um para cada uma
+			// das próximas
+			d = Math.max(d + 1, Math.min(count - (shards - s), lowerBound(target)));
+			out[s] = d;
+		}
+		out[shards] = count;
+		return out;
+	}
+
+	/**
+	 * @return primeiro documento que começa na posição indicada ou depois dela
+	 */
+	private int lowerBound(long position) {
+		int i = Arrays.binarySearch(starts, 0, count, position);
+		return i >= 0 ? i : -i - 1;
+	}
+
+	// ============================== GRAVAÇÃO ==============================
+
+	/**
+	 * Função que grava o índice num arquivo
+	 *
+	 * @param file arquivo do índice
+	 * @throws IOException se o arquivo não puder ser gravado
+	 */
+	public void write(Path file) throws IOException {
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(count);
+			for (int i = 0; i < count; i++) {
+				out.writeLong(starts[i]);
+				out.writeLong(ends[i]);
+			}
+		}
+	}
+
+	/**
+	 * Função que lê um índice gravado por {@link #write(Path)}
+	 *
+	 * @param file arquivo do índice
+	 * @return índice
+	 * @throws IOException se o arquivo não puder ser lido ou não for um índice
+	 */
+	public static ArchiveIndex read(Path file) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			if (in.readInt() != MAGIC)
+				throw new IOException("Arquivo n\u00E3o \u00E9 um \u00EDndice: " + file);
+			int n = in.readInt();
+			long[] starts = new long[n], ends = new long[n];
+			for (int i = 0; i < n; i++) {
+				starts[i] = in.readLong();
+				ends[i] = in.readLong();
+			}
+			return new ArchiveIndex(starts, ends, n);
+		} catch (EOFException e) {
+			throw new IOException("\u00CDndice incompleto: " + file, e);
+		}
+	}
+
+	// ============================== LEITURA ==============================
+
+	private static final class Builder {
+
+		private final int window;
+
+		long[] starts = new long[1024], ends = new long[1024];
+
+		int count;
+
+		Builder(int window) {
+			this.window = window;
+		}
+
+		void add(long start, long end) {
+			if (end <= start)
+				return;
+			if (end - start > Integer.MAX_VALUE)
+				throw new IllegalStateException("Documento maior que 2 GB na posi\u00E7\u00E3o " + start);
+			if (count == starts.length) {
+				starts = Arrays.copyOf(starts, count * 2);
+				ends = Arrays.copyOf(ends, count * 2);
+			}
+			starts[count] = start;
+			ends[count++] = end;
+		}
+
+		/**
+		 * Função que separa os documentos pelos <code>&lt;/html&gt;</code>, numa
+		 * janela mapeada de cada vez (se um documento não couber na janela, ela
+		 * cresce)
+		 */
+		void concatenated(FileChannel ch) throws IOException {
+			long size = ch.size(), pos = 0;
+			int length = window;
+			while (pos < size) {
+				int n = (int) Math.min(size - pos, length);
+				MappedByteBuffer bb = ch.map(FileChannel.MapMode.READ_ONLY, pos, n);
+				MappedText text = new MappedText(bb, StandardCharsets.ISO_8859_1);
+				int start = skipSpace(text, 0, n), p = start;
+				boolean found = false;
+				while ((p = DelimiterScanner.indexOf(text, '<', p, n)) >= 0) {
+					if (p + END.length() > n)
+						break;
+					if (HTMLTokenizer.regionMatches(text, p, p + END.length(), END)) {
+						p += END.length();
+						add(pos + start, pos + p);
+						start = p = skipSpace(text, p, n);
+						found = true;
+					} else
+						p++;
+				}
+				if (pos + n == size) {
+					add(pos + start, size); // resto sem </html>
+					break;
+				}
+				if (!found && start == 0) {
+					// documento maior que a janela
+					if (length == Integer.MAX_VALUE)
+						throw new IllegalStateException("Documento maior que 2 GB na posi\u00E7\u00E3o " + pos);
+					length = (int) Math.min(Integer.MAX_VALUE, 2L * length);
+				} else
+					length = window;
+				pos += start;
+			}
+		}
+
+		private static int skipSpace(CharSequence text, int p, int n) {
+			while (p < n && text.charAt(p) <= ' ')
+				p++;
+			return p;
+		}
+
+		/**
+		 * Função que percorre os registros WARC, lendo só os cabeçalhos
+		 */
+		void warc(FileChannel ch) throws IOException {
+			long size = ch.size(), pos = 0;
+			ByteBuffer buf = ByteBuffer.allocate(64 * 1024);
+			while (pos < size) {
+				buf.clear();
+				ch.read(buf, pos);
+				String head = new String(buf.array(), 0, buf.position(), StandardCharsets.ISO_8859_1);
+				int skip = 0;
+				while (skip < head.length() && head.charAt(skip) <= ' ')
+					skip++;
+				if (pos + skip >= size)
+					break; // só espaço depois do último registro
+				int headerEnd = head.indexOf("\r\n\r\n", skip);
+				if (!head.startsWith("WARC/", skip) || headerEnd < 0)
+					throw new IOException("Registro WARC inv\u00E1lido na posi\u00E7\u00E3o " + (pos + skip));
+				long length = -1;
+				String type = null;
+				for (String line : head.substring(skip, headerEnd).split("\r\n")) {
+					int colon = line.indexOf(':');
+					if (colon < 0)
+						continue;
+					String name = line.substring(0, colon).trim(), value = line.substring(colon + 1).trim();
+					if (name.equalsIgnoreCase("Content-Length"))
+						length = Long.parseLong(value);
+					else if (name.equalsIgnoreCase("WARC-Type"))
+						type = value;
+				}
+				if (length < 0)
+					throw new IOException("Registro WARC sem Content-Length na posi\u00E7\u00E3o " + (pos + skip));
+				long body = pos + headerEnd + 4, end = body + length;
+				if ("response".equalsIgnoreCase(type) || "resource".equalsIgnoreCase(type))
+					add(body + httpHeader(ch, body, length), end);
+				pos = end;
+			}
+		}
+
+		/**
+		 * @return tamanho do cabeçalho HTTP no começo do conteúdo (0 se não houver)
+		 */
+		private static int httpHeader(FileChannel ch, long body, long length) throws IOException {
+			ByteBuffer buf = ByteBuffer.allocate((int) Math.min(length, 64 * 1024));
+			ch.read(buf, body);
+			String head = new String(buf.array(), 0, buf.position(), StandardCharsets.ISO_8859_1);
+			if (!head.startsWith("HTTP/"))
+				return 0;
+			int end = head.indexOf("\r\n\r\n");
+			return end < 0 ? 0 : end + 4;
+		}
+	}
+}
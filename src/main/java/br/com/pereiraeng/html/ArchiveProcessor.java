@@ -0,0 +1,378 @@
+package br.com.pereiraeng.html;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Processamento de um arquivo com muitos documentos HTML concatenados (ver
+ * {@link ArchiveIndex}) em vários processos Java locais. O coordenador monta o
+ * índice, divide os documentos em fatias contíguas (algumas por processo, para
+ * equilibrar a carga) e entrega as fatias, uma de cada vez, aos processos
+ * trabalhadores, que mapeiam na memória os bytes da fatia, leem cada documento
+ * ({@link HTMLDocument#parse(ByteBuffer, NodeStore)}, com a detecção da
+ * codificação) e chamam a {@link Task tarefa} indicada, que escreve o seu
+ * resultado. Os resultados das fatias são juntados no fim, na ordem dos
+ * documentos no arquivo.
+ * <p>
+ * Cada processo tem o seu coletor de lixo e as suas próprias estruturas, de
+ * modo que a vazão cresce com a quantidade de processos; com mais de um nó
+ * NUMA, cada processo pode ser preso a um nó (pelo <code>numactl</code>), para
+ * que a memória fique perto dos núcleos que a usam.
+ * <p>
+ * Os processadores são montados pelo {@link Builder}.
+ */
+public final class ArchiveProcessor {
+
+	/**
+	 * Tarefa executada sobre cada documento, nos processos trabalhadores. A
+	 * classe deve ser pública, ter um construtor público sem parâmetros e estar no
+	 * <i>classpath</i> do coordenador.
+	 */
+	public interface Task {
+
+		/**
+		 * @param document índice do documento no arquivo
+		 * @param doc      documento (fechado após a chamada)
+		 * @param out      saída da fatia
+		 * @throws IOException se a saída não puder ser escrita
+		 */
+		public void process(int document, HTMLDocument doc, Writer out) throws IOException;
+	}
+
+	/**
+	 * tamanho máximo de cada trecho mapeado de uma fatia
+	 */
+	private static final int WINDOW = 256 << 20;
+
+	private static final String READY = "pronto", DONE = "ok";
+
+	private final int processes, shardsPerProcess, numaNodes;
+
+	private final String[] jvmOptions;
+
+	private ArchiveProcessor(Builder b) {
+		this.processes = b.processes;
+		this.shardsPerProcess = b.shardsPerProcess;
+		this.numaNodes = b.numaNodes;
+		this.jvmOptions = b.jvmOptions;
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	public int getProcesses() {
+		return processes;
+	}
+
+	public int getShardsPerProcess() {
+		return shardsPerProcess;
+	}
+
+	public int getNumaNodes() {
+		return numaNodes;
+	}
+
+	/**
+	 * Função que processa todos os documentos do arquivo
+	 *
+	 * @param archive arquivo com os documentos
+	 * @param task    classe da tarefa
+	 * @param output  arquivo com os resultados, na ordem dos documentos (UTF-8)
+	 * @return índice dos documentos
+	 * @throws IOException se algum arquivo não puder ser lido ou gravado, ou se
+	 *                     algum processo falhar
+	 */
+	public ArchiveIndex run(Path archive, Class<? extends Task> task, Path output) throws IOException {
+		ArchiveIndex index = ArchiveIndex.build(archive);
+		int[] shards = index.split(processes * shardsPerProcess);
+		int count = shards.length - 1;
+
+		Path dir = Files.createTempDirectory("archive");
+		try {
+			Path indexFile = dir.resolve("index");
+			index.write(indexFile);
+
+			AtomicInteger next = new AtomicInteger();
+			AtomicBoolean stop = new AtomicBoolean();
+			List<Coordinator> workers = new ArrayList<>();
+			for (int i = 0; i < Math.min(processes, count); i++) {
+				Coordinator c = new Coordinator(command(i, archive, indexFile, task, dir), shards, next, stop);
+				c.setName("archive-" + i);
+				c.start();
+				workers.add(c);
+			}
+			IOException error = null;
+			for (Coordinator c : workers) {
+				try {
+					c.join();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					stop.set(true);
+					throw new IOException("Processamento interrompido", e);
+				}
+				if (c.error != null && error == null)
+					error = c.error;
+			}
+			if (error != null)
+				throw error;
+
+			// junta os resultados na ordem das fatias
+			try (FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING)) {
+				for (int s = 0; s < count; s++)
+					try (FileChannel in = FileChannel.open(shardFile(dir, s), StandardOpenOption.READ)) {
+						for (long p = 0, n = in.size(); p < n;)
+							p += in.transferTo(p, n - p, out);
+					}
+			}
+		} finally {
+			try (Stream<Path> files = Files.list(dir)) {
+				for (Path p : (Iterable<Path>) files::iterator)
+					Files.delete(p);
+			}
+			Files.delete(dir);
+		}
+		return index;
+	}
+
+	/**
+	 * Função que monta a linha de comando de um processo trabalhador
+	 */
+	private List<String> command(int worker, Path archive, Path index, Class<? extends Task> task, Path dir) {
+		List<String> cmd = new ArrayList<>();
+		if (numaNodes > 1) {
+			int node = worker % numaNodes;
+			Collections.addAll(cmd, "numactl", "--cpunodebind=" + node, "--membind=" + node);
+		}
+		cmd.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+		Collections.addAll(cmd, jvmOptions);
+		Collections.addAll(cmd, "-cp", System.getProperty("java.class.path"), ArchiveProcessor.class.getName(),
+				archive.toString(), index.toString(), task.getName(), dir.toString());
+		return cmd;
+	}
+
+	static Path shardFile(Path dir, int shard) {
+		return dir.resolve(String.format("shard-%06d", shard));
+	}
+
+	/**
+	 * Linha de execução do coordenador que conversa com um processo trabalhador:
+	 * envia o número de uma fatia e espera a confirmação, até acabarem as fatias
+	 */
+	private static final class Coordinator extends Thread {
+
+		private final List<String> command;
+
+		private final int[] shards;
+
+		private final AtomicInteger next;
+
+		/**
+		 * verdadeiro se algum processo falhar
+		 */
+		private final AtomicBoolean stop;
+
+		IOException error;
+
+		Coordinator(List<String> command, int[] shards, AtomicInteger next, AtomicBoolean stop) {
+			this.command = command;
+			this.shards = shards;
+			this.next = next;
+			this.stop = stop;
+		}
+
+		@Override
+		public void run() {
+			Process p = null;
+			try {
+				p = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+				try (BufferedReader in = new BufferedReader(
+						new InputStreamReader(p.getInputStream(), StandardCharsets.UTF_8));
+						Writer out = new BufferedWriter(
+								new OutputStreamWriter(p.getOutputStream(), StandardCharsets.UTF_8))) {
+					expect(in, READY, -1);
+					for (int s; !stop.get() && (s = next.getAndIncrement()) < shards.length - 1;) {
+						out.write(s + " " + shards[s] + " " + shards[s + 1] + "\n");
+						out.flush();
+						expect(in, DONE + " " + s, s);
+					}
+				}
+				int exit = p.waitFor();
+				if (exit != 0 && error == null)
+					error = new IOException("Processo " + getName() + " terminou com c\u00F3digo " + exit);
+			} catch (IOException e) {
+				error = e;
+			} catch (InterruptedException e) {
+				error = new IOException("Processamento interrompido", e);
+			} finally {
+				if (error != null) {
+					stop.set(true); // os demais param na próxima fatia
+					if (p != null)
+						p.destroy();
+				}
+			}
+		}
+
+		private void expect(BufferedReader in, String line, int shard) throws IOException {
+			String l = in.readLine();
+			if (!line.equals(l))
+				throw new IOException("Falha no processo " + getName()
+						+ (shard >= 0 ? " na fatia " + shard : "") + (l == null ? "" : ": " + l));
+		}
+	}
+
+	// ============================== TRABALHADOR ==============================
+
+	/**
+	 * Processo trabalhador: <code>ArchiveProcessor arquivo índice tarefa
+	 * diretório</code>. Lê da entrada padrão as fatias a processar
+	 * (<code>fatia primeiro fim</code>), grava o resultado de cada uma no
+	 * diretório e confirma na saída padrão. O que a tarefa escrever na saída
+	 * padrão vai para a saída de erros.
+	 */
+	public static void main(String[] args) throws Exception {
+		PrintStream protocol = new PrintStream(System.out, true, "UTF-8");
+		System.setOut(System.err);
+		Path archive = Paths.get(args[0]), dir = Paths.get(args[3]);
+		ArchiveIndex index = ArchiveIndex.read(Paths.get(args[1]));
+		Task task = Class.forName(args[2]).asSubclass(Task.class).getDeclaredConstructor().newInstance();
+
+		BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+		try (FileChannel ch = FileChannel.open(archive, StandardOpenOption.READ)) {
+			protocol.println(READY);
+			for (String line; (line = in.readLine()) != null;) {
+				String[] f = line.split(" ");
+				int shard = Integer.parseInt(f[0]);
+				try (Writer out = Files.newBufferedWriter(shardFile(dir, shard), StandardCharsets.UTF_8)) {
+					processShard(ch, index, Integer.parseInt(f[1]), Integer.parseInt(f[2]), task, out);
+				} catch (Exception e) {
+					e.printStackTrace();
+					protocol.println("erro " + shard + " " + e);
+					System.exit(1);
+				}
+				protocol.println(DONE + " " + shard);
+			}
+		}
+	}
+
+	/**
+	 * Função que processa os documentos de uma fatia, mapeando na memória um
+	 * trecho de até {@value #WINDOW} bytes de cada vez (ou o documento inteiro,
+	 * se for maior)
+	 *
+	 * @param ch    arquivo com os documentos
+	 * @param index índice dos documentos
+	 * @param first primeiro documento da fatia
+	 * @param end   documento seguinte ao último da fatia
+	 * @param task  tarefa
+	 * @param out   saída da fatia
+	 * @throws IOException se o arquivo não puder ser lido ou a saída não puder ser
+	 *                     escrita
+	 */
+	static void processShard(FileChannel ch, ArchiveIndex index, int first, int end, Task task, Writer out)
+			throws IOException {
+		if (first >= end)
+			return;
+		long last = index.getEnd(end - 1), mapStart = 0;
+		ByteBuffer map = null;
+		for (int d = first; d < end; d++) {
+			long s = index.getStart(d), e = index.getEnd(d);
+			if (map == null || s < mapStart || e > mapStart + map.capacity()) {
+				mapStart = s;
+				map = ch.map(FileChannel.MapMode.READ_ONLY, s, Math.max(e - s, Math.min(WINDOW, last - s)));
+			}
+			ByteBuffer bytes = map.duplicate();
+			bytes.limit((int) (e - mapStart)).position((int) (s - mapStart));
+			try (HTMLDocument doc = HTMLDocument.parse(bytes, new HeapNodeStore(Math.max(16, (int) (e - s) / 64)))) {
+				task.process(d, doc, out);
+			}
+		}
+	}
+
+	// ============================== MONTADOR ==============================
+
+	/**
+	 * Montador dos processadores (por padrão, um processo por núcleo, quatro
+	 * fatias por processo e um só nó NUMA)
+	 */
+	public static class Builder {
+
+		private int processes = Runtime.getRuntime().availableProcessors(), shardsPerProcess = 4, numaNodes = 1;
+
+		private String[] jvmOptions = new String[0];
+
+		private Builder() {
+		}
+
+		/**
+		 * @param processes quantidade de processos trabalhadores
+		 * @return este montador
+		 */
+		public Builder processes(int processes) {
+			if (processes < 1)
+				throw new IllegalArgumentException(Integer.toString(processes));
+			this.processes = processes;
+			return this;
+		}
+
+		/**
+		 * @param shards quantidade de fatias por processo (mais fatias equilibram
+		 *               melhor a carga, com mais arquivos intermediários)
+		 * @return este montador
+		 */
+		public Builder shardsPerProcess(int shards) {
+			if (shards < 1)
+				throw new IllegalArgumentException(Integer.toString(shards));
+			this.shardsPerProcess = shards;
+			return this;
+		}
+
+		/**
+		 * @param nodes quantidade de nós NUMA; com mais de um, o processo
+		 *              <code>i</code> é preso ao nó <code>i % nodes</code> pelo
+		 *              <code>numactl</code>, que deve estar instalado
+		 * @return este montador
+		 */
+		public Builder numaNodes(int nodes) {
+			if (nodes < 1)
+				throw new IllegalArgumentException(Integer.toString(nodes));
+			this.numaNodes = nodes;
+			return this;
+		}
+
+		/**
+		 * @param options opções da JVM dos processos trabalhadores (e.g.,
+		 *                <code>"-Xmx2g"</code>)
+		 * @return este montador
+		 */
+		public Builder jvmOptions(String... options) {
+			this.jvmOptions = Arrays.copyOf(options, options.length);
+			return this;
+		}
+
+		public ArchiveProcessor build() {
+			return new ArchiveProcessor(this);
+		}
+	}
+}
@@ -0,0 +1,245 @@
+package br.com.pereiraeng.html;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Dicionário dos valores das células extraídas de tabelas: cada valor distinto
+ * é guardado uma única vez e identificado por um código. Os trechos do código
+ * HTML são procurados no dicionário sem criar objetos, de modo que as colunas
+ * com poucos valores distintos (e.g., situação, moeda, UF) custam uma única
+ * <code>String</code> por valor, e não uma por linha.
+ * <p>
+ * O dicionário pode ser usado numa única extração ou compartilhado entre
+ * várias (inclusive de documentos diferentes), mas não por várias
+ * <i>threads</i> ao mesmo tempo.
+ */
+public class CellDictionary {
+
+	/**
+	 * código das células vazias ou ausentes
+	 */
+	public static final int NULL = -1;
+
+	private String[] values = new String[64];
+
+	private int[] hashes = new int[64];
+
+	/**
+	 * posições da tabela de dispersão (código, ou -1 se vazia)
+	 */
+	private int[] slots = new int[128];
+
+	private int mask = 127, size;
+
+	public CellDictionary() {
+		Arrays.fill(slots, -1);
+	}
+
+	/**
+	 * Função que retorna o código de um trecho, incluindo-o no dicionário se
+	 * ainda não estiver
+	 *
+	 * @param src   texto
+	 * @param start posição inicial do trecho
+	 * @param end   posição final (exclusiva) do trecho
+	 * @return código do trecho
+	 */
+	public int code(CharSequence src, int start, int end) {
+		int h = hash(src, start, end);
+		for (int i = h & mask;; i = (i + 1) & mask) {
+			int c = slots[i];
+			if (c < 0) {
+				slots[i] = add(src.subSequence(start, end).toString(), h);
+				return slots[i];
+			}
+			if (hashes[c] == h && equals(values[c], src, start, end))
+				return c;
+		}
+	}
+
+	/**
+	 * Função que retorna o código de um valor, incluindo-o no dicionário se ainda
+	 * não estiver
+	 *
+	 * @param value valor (<code>null</code> para {@link #NULL})
+	 * @return código do valor
+	 */
+	public int code(String value) {
+		if (value == null)
+			return NULL;
+		int h = hash(value, 0, value.length());
+		for (int i = h & mask;; i = (i + 1) & mask) {
+			int c = slots[i];
+			if (c < 0) {
+				slots[i] = add(value, h);
+				return slots[i];
+			}
+			if (hashes[c] == h && values[c].equals(value))
+				return c;
+		}
+	}
+
+	/**
+	 * Função que retorna o valor guardado no dicionário igual a um trecho
+	 * (incluindo-o se ainda não estiver)
+	 *
+	 * @param src   texto
+	 * @param start posição inicial do trecho
+	 * @param end   posição final (exclusiva) do trecho
+	 * @return valor
+	 */
+	public String intern(CharSequence src, int start, int end) {
+		return values[code(src, start, end)];
+	}
+
+	/**
+	 * Função que retorna o valor de um código
+	 *
+	 * @param code código
+	 * @return valor (<code>null</code> para {@link #NULL})
+	 */
+	public String get(int code) {
+		return code == NULL ? null : values[code];
+	}
+
+	/**
+	 * @return quantidade de valores distintos
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return valores distintos, na ordem dos seus códigos
+	 */
+	public String[] getValues() {
+		return Arrays.copyOf(values, size);
+	}
+
+	/**
+	 * Função que retorna o código do conteúdo de uma célula de um documento
+	 *
+	 * @param doc    documento
+	 * @param cell   índice do nó da célula
+	 * @param remove <code>true</code> para só o conteúdo da célula (vazio é
+	 *               {@link #NULL}), <code>false</code> para manter as etiquetas
+	 * @return código
+	 */
+	int code(HTMLDocument doc, int cell, boolean remove) {
+		long s = doc.getPosition(cell, remove ? NodeStore.CONTENT_START : NodeStore.START);
+		long e = doc.getPosition(cell, remove ? NodeStore.CONTENT_END : NodeStore.END);
+		if (s == e && remove)
+			return NULL;
+		CharSequence src = doc.window(s, e);
+		int start = (int) (s - doc.windowStart(s)), end = (int) (e - s) + start;
+		// num arquivo mapeado, cada byte é um caractere só no Latim-1 e no ASCII
+		if (src instanceof MappedText && !isLatin1(((MappedText) src).getCharset())
+				&& !DelimiterScanner.isAscii(src, start, end))
+			return code(((MappedText) src).decode(start, end));
+		return code(src, start, end);
+	}
+
+	private static boolean isLatin1(Charset charset) {
+		return charset.equals(StandardCharsets.ISO_8859_1) || charset.equals(StandardCharsets.US_ASCII);
+	}
+
+	private int add(String value, int h) {
+		if (size == values.length) {
+			values = Arrays.copyOf(values, size * 2);
+			hashes = Arrays.copyOf(hashes, size * 2);
+		}
+		values[size] = value;
+		hashes[size] = h;
+		int c = size++;
+		if (size * 2 > slots.length)
+			rehash();
+		return c;
+	}
+
+	private void rehash() {
+		slots = new int[slots.length * 2];
+		Arrays.fill(slots, -1);
+		mask = slots.length - 1;
+		for (int c = 0; c < size; c++) {
+			int i = hashes[c] & mask;
+			while (slots[i] >= 0)
+				i = (i + 1) & mask;
+			slots[i] = c;
+		}
+	}
+
+	private static int hash(CharSequence src, int start, int end) {
+		int h = 0;
+		for (int i = start; i < end; i++)
+			h = 31 * h + src.charAt(i);
+		return h ^ (h >>> 16);
+	}
+
+	private static boolean equals(String value, CharSequence src, int start, int end) {
+		if (value.length() != end - start)
+			return false;
+		for (int i = 0; i < value.length(); i++)
+			if (value.charAt(i) != src.charAt(start + i))
+				return false;
+		return true;
+	}
+
+	/**
+	 * Colunas de uma tabela codificadas por um dicionário: para cada coluna, o
+	 * código do valor de cada linha
+	 */
+	public static final class Columns {
+
+		private final int[][] codes;
+
+		private final int rows;
+
+		private final CellDictionary dictionary;
+
+		Columns(int[][] codes, int rows, CellDictionary dictionary) {
+			this.codes = codes;
+			this.rows = rows;
+			this.dictionary = dictionary;
+		}
+
+		public int getRowCount() {
+			return rows;
+		}
+
+		public int getColumnCount() {
+			return codes.length;
+		}
+
+		/**
+		 * @param row    índice da linha
+		 * @param column índice da coluna (na ordem em que foram pedidas)
+		 * @return código do valor, ou {@link CellDictionary#NULL}
+		 */
+		public int getCode(int row, int column) {
+			return codes[column][row];
+		}
+
+		/**
+		 * @param row    índice da linha
+		 * @param column índice da coluna (na ordem em que foram pedidas)
+		 * @return valor, ou <code>null</code> se a célula for vazia ou ausente
+		 */
+		public String get(int row, int column) {
+			return dictionary.get(codes[column][row]);
+		}
+
+		/**
+		 * @param column índice da coluna (na ordem em que foram pedidas)
+		 * @return códigos dos valores da coluna, linha a linha
+		 */
+		public int[] getCodes(int column) {
+			return codes[column];
+		}
+
+		public CellDictionary getDictionary() {
+			return dictionary;
+		}
+	}
+}
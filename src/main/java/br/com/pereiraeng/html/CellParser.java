@@ -0,0 +1,409 @@
+package br.com.pereiraeng.html;
+
+import java.text.DecimalFormatSymbols;
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * Classe que converte o conteúdo de células de tabelas HTML diretamente em
+ * números, lendo os caracteres do código (sem criar uma <code>String</code> por
+ * célula). Etiquetas aninhadas (e.g., <code>&lt;b&gt;</code>) são ignoradas,
+ * assim como espaços e <code>&amp;nbsp;</code>; os separadores decimal e de
+ * milhar são os da {@link Locale localidade} indicada (e.g.,
+ * <code>1.234,56</code> no Brasil).
+ * <p>
+ * Os objetos desta classe guardam o estado da última conversão e, portanto,
+ * não devem ser compartilhados entre <i>threads</i>.
+ * </p>
+ */
+public class CellParser {
+
+	/**
+	 * Separadores do Brasil: <code>1.234,56</code>
+	 */
+	public static final Locale BRAZIL = new Locale("pt", "BR");
+
+	private static final double[] POW10 = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12,
+			1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+	/**
+	 * Caractere devolvido para entidades HTML que não têm significado numérico
+	 */
+	private static final char INVALID = '\uFFFF';
+
+	/**
+	 * Códigos e prefixos de moeda aceitos antes do número
+	 */
+	private static final String[] CURRENCY_CODES = { "R$", "US$", "U$", "EUR", "USD", "BRL", "GBP" };
+
+	private final char decimal, grouping;
+
+	/**
+	 * Indica se o separador de milhar é um espaço (e.g., na França)
+	 */
+	private final boolean spaceGrouping;
+
+	// estado da leitura
+	private CharSequence src;
+
+	private int pos, end;
+
+	/**
+	 * letras lidas antes do número, comparadas com {@link #CURRENCY_CODES}
+	 */
+	private final char[] prefix = new char[4];
+
+	private boolean valid;
+
+	/**
+	 * @param decimal  separador decimal
+	 * @param grouping separador de milhar
+	 */
+	public CellParser(char decimal, char grouping) {
+		this.decimal = decimal;
+		this.grouping = grouping;
+		this.spaceGrouping = Character.isSpaceChar(grouping);
+	}
+
+	/**
+	 * @param locale localidade de onde são tirados os separadores decimal e de
+	 *               milhar
+	 */
+	public CellParser(Locale locale) {
+		this(DecimalFormatSymbols.getInstance(locale).getDecimalSeparator(),
+				DecimalFormatSymbols.getInstance(locale).getGroupingSeparator());
+	}
+
+	/**
+	 * Função que indica se a última conversão foi bem-sucedida (células vazias ou
+	 * com texto não numérico são consideradas valores faltantes)
+	 *
+	 * @return <code>true</code> se a última conversão produziu um valor
+	 */
+	public boolean isValid() {
+		return valid;
+	}
+
+	// ============================== NÚMEROS ==============================
+
+	/**
+	 * Função que converte um trecho do código em um número real. Aceita sinal
+	 * (inclusive parênteses contábeis), símbolo de moeda antes do número, expoente
+	 * (<code>1,5E3</code>) e '%' no final, caso em que o valor é dividido por cem.
+	 *
+	 * @param src   código HTML
+	 * @param start posição inicial
+	 * @param end   posição final (exclusiva)
+	 * @return número, ou {@link Double#NaN} se o conteúdo não for numérico
+	 */
+	public double parseDouble(CharSequence src, int start, int end) {
+		reset(src, start, end);
+		long mantissa = 0;
+		int exp = 0, digits = 0;
+		boolean negative = false, fraction = false, percent = false, parenthesis = false, overflow = false;
+
+		char c = skipPrefix();
+		if (c == '-' || c == '\u2212' || c == '+' || c == '(') {
+			negative = c != '+';
+			parenthesis = c == '(';
+			c = next();
+			while (c == ' ')
+				c = next();
+		}
+		for (;; c = next()) {
+			if (c >= '0' && c <= '9') {
+				if (mantissa < 100_000_000_000_000_000L) {
+					mantissa = mantissa * 10 + (c - '0');
+					if (fraction)
+						exp--;
+				} else {
+					overflow = true;
+					if (!fraction)
+						exp++;
+				}
+				digits++;
+			} else if (c == decimal && !fraction)
+				fraction = true;
+			else if ((c == grouping || (c == ' ' && spaceGrouping)) && !fraction && digits > 0)
+				continue;
+			else
+				break;
+		}
+		if (digits == 0)
+			return invalid();
+
+		if ((c == 'e' || c == 'E') && pos < end) {
+			c = next();
+			boolean expNegative = c == '-' || c == '\u2212';
+			if (expNegative || c == '+')
+				c = next();
+			int e = 0, ed = 0;
+			for (; c >= '0' && c <= '9'; c = next(), ed++)
+				e = Math.min(e * 10 + (c - '0'), 9999);
+			if (ed == 0)
+				return invalid();
+			exp += expNegative ? -e : e;
+		}
+		for (;; c = next()) {
+			if (c == '%' && !percent) {
+				percent = true;
+				exp -= 2;
+			} else if (c == ')' && parenthesis)
+				parenthesis = false;
+			else if (c != ' ')
+				break;
+		}
+		if (c != 0 || parenthesis)
+			return invalid();
+
+		valid = true;
+		double v;
+		if (!overflow && mantissa < (1L << 53) && exp >= -22 && exp <= 22)
+			v = exp < 0 ? mantissa / POW10[-exp] : mantissa * POW10[exp];
+		else
+			v = Double.parseDouble(mantissa + "E" + exp);
+		return negative ? -v : v;
+	}
+
+	/**
+	 * Função que converte um trecho do código em um número inteiro (os dígitos
+	 * depois do separador decimal devem ser zeros)
+	 *
+	 * @param src   código HTML
+	 * @param start posição inicial
+	 * @param end   posição final (exclusiva)
+	 * @return número, ou zero se o conteúdo não for numérico (ver
+	 *         {@link #isValid()})
+	 */
+	public long parseLong(CharSequence src, int start, int end) {
+		reset(src, start, end);
+		long v = 0;
+		int digits = 0;
+		boolean negative = false, fraction = false;
+
+		char c = skipPrefix();
+		if (c == '-' || c == '\u2212' || c == '+') {
+			negative = c != '+';
+			c = next();
+		}
+		for (;; c = next()) {
+			if (c >= '0' && c <= '9') {
+				if (fraction) {
+					if (c != '0')
+						return invalidLong();
+				} else {
+					if (v > (Long.MAX_VALUE - (c - '0')) / 10)
+						return invalidLong();
+					v = v * 10 + (c - '0');
+					digits++;
+				}
+			} else if (c == decimal && !fraction)
+				fraction = true;
+			else if ((c == grouping || (c == ' ' && spaceGrouping)) && !fraction && digits > 0)
+				continue;
+			else
+				break;
+		}
+		while (c == ' ')
+			c = next();
+		if (digits == 0 || c != 0)
+			return invalidLong();
+		valid = true;
+		return negative ? -v : v;
+	}
+
+	/**
+	 * Função que converte um trecho do código em um número inteiro de 32 bits
+	 *
+	 * @param src   código HTML
+	 * @param start posição inicial
+	 * @param end   posição final (exclusiva)
+	 * @return número, ou zero se o conteúdo não for numérico ou não couber em um
+	 *         <code>int</code> (ver {@link #isValid()})
+	 */
+	public int parseInt(CharSequence src, int start, int end) {
+		long v = parseLong(src, start, end);
+		if (v < Integer.MIN_VALUE || v > Integer.MAX_VALUE) {
+			valid = false;
+			return 0;
+		}
+		return (int) v;
+	}
+
+	// ============================== DATAS ==============================
+
+	/**
+	 * Função que converte um trecho do código em uma data, segundo um padrão
+	 * numérico com os campos <code>d</code>, <code>M</code> e <code>y</code> (e.g.,
+	 * <code>dd/MM/yyyy</code> ou <code>yyyy-MM-dd</code>)
+	 *
+	 * @param src     código HTML
+	 * @param start   posição inicial
+	 * @param end     posição final (exclusiva)
+	 * @param pattern padrão da data
+	 * @return dia contado a partir de 1970-01-01 (ver
+	 *         {@link LocalDate#toEpochDay()}), ou zero se o conteúdo não for uma
+	 *         data (ver {@link #isValid()})
+	 */
+	public long parseEpochDay(CharSequence src, int start, int end, String pattern) {
+		reset(src, start, end);
+		int day = 0, month = 0, year = 0;
+		char c = next();
+		while (c == ' ')
+			c = next();
+		for (int i = 0; i < pattern.length();) {
+			char f = pattern.charAt(i);
+			if (f == 'd' || f == 'M' || f == 'y') {
+				int n = 0, width = 0;
+				while (i < pattern.length() && pattern.charAt(i) == f) {
+					i++;
+					width++;
+				}
+				int v = 0;
+				// campo com a largura do padrão, ou menos (e.g., "1/2/2020" com "dd/MM/yyyy")
+				while (c >= '0' && c <= '9' && n < Math.max(width, 2)) {
+					v = v * 10 + (c - '0');
+					n++;
+					c = next();
+				}
+				if (n == 0)
+					return invalidLong();
+				if (f == 'd')
+					day = v;
+				else if (f == 'M')
+					month = v;
+				else
+					year = width == 2 && n == 2 ? 2000 + v : v;
+			} else {
+				if (c != f)
+					return invalidLong();
+				c = next();
+				i++;
+			}
+		}
+		while (c == ' ')
+			c = next();
+		if (c != 0 || month < 1 || month > 12 || day < 1 || day > 31)
+			return invalidLong();
+		try {
+			long d = LocalDate.of(year, month, day).toEpochDay();
+			valid = true;
+			return d;
+		} catch (RuntimeException e) {
+			return invalidLong();
+		}
+	}
+
+	// ============================== LEITURA ==============================
+
+	private void reset(CharSequence src, int start, int end) {
+		this.src = src;
+		this.pos = start;
+		this.end = end;
+		this.valid = false;
+	}
+
+	private double invalid() {
+		valid = false;
+		return Double.NaN;
+	}
+
+	private long invalidLong() {
+		valid = false;
+		return 0L;
+	}
+
+	/**
+	 * Função que pula os espaços e o símbolo de moeda antes do número: um
+	 * caractere da categoria de símbolos de moeda (e.g., "$", "€") ou um dos
+	 * {@link #CURRENCY_CODES códigos conhecidos} (e.g., "R$", "EUR"). Qualquer
+	 * outra letra antes do número (e.g., "Total 2019") torna o conteúdo não
+	 * numérico.
+	 */
+	private char skipPrefix() {
+		char c = next();
+		while (c == ' ')
+			c = next();
+		if (Character.getType(c) == Character.CURRENCY_SYMBOL)
+			c = next();
+		else if (Character.isLetter(c)) {
+			int n = 0;
+			while (n < prefix.length && (Character.isLetter(c) || c == '$')) {
+				prefix[n++] = c;
+				c = next();
+				if (prefix[n - 1] == '$')
+					break;
+			}
+			if (Character.isLetter(c) || !isCurrencyCode(n))
+				return INVALID;
+		}
+		while (c == ' ')
+			c = next();
+		return c;
+	}
+
+	private boolean isCurrencyCode(int n) {
+		outer: for (String code : CURRENCY_CODES) {
+			if (code.length() != n)
+				continue;
+			for (int i = 0; i < n; i++)
+				if (code.charAt(i) != prefix[i])
+					continue outer;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Função que retorna o próximo caractere significativo: etiquetas são puladas,
+	 * espaços (inclusive <code>&amp;nbsp;</code>) são devolvidos como ' ' e as
+	 * entidades numéricas são decodificadas
+	 *
+	 * @return próximo caractere, ou zero no fim do trecho
+	 */
+	private char next() {
+		while (pos < end) {
+			char c = src.charAt(pos++);
+			if (c == '<') {
+				int gt = DelimiterScanner.indexOf(src, '>', pos, end);
+				pos = gt < 0 ? end : gt + 1;
+			} else if (c == '&')
+				return entity();
+			else if (Character.isWhitespace(c) || c == '\u00a0')
+				return ' ';
+			else
+				return c;
+		}
+		return 0;
+	}
+
+	private char entity() {
+		int semi = -1;
+		for (int i = pos; i < end && i < pos + 10; i++)
+			if (src.charAt(i) == ';') {
+				semi = i;
+				break;
+			}
+		if (semi < 0)
+			return '&';
+		int s = pos;
+		pos = semi + 1;
+		int code;
+		if (s < semi && src.charAt(s) == '#') {
+			code = 0;
+			boolean hex = s + 1 < semi && (src.charAt(s + 1) == 'x' || src.charAt(s + 1) == 'X');
+			for (int i = s + (hex ? 2 : 1); i < semi; i++) {
+				int d = Character.digit(src.charAt(i), hex ? 16 : 10);
+				if (d < 0)
+					return INVALID;
+				code = code * (hex ? 16 : 10) + d;
+			}
+		} else if (HTMLTokenizer.regionMatches(src, s, semi, "nbsp"))
+			return ' ';
+		else if (HTMLTokenizer.regionMatches(src, s, semi, "minus"))
+			return '\u2212';
+		else
+			return INVALID;
+		return code == 0xA0 || Character.isWhitespace(code) ? ' ' : (char) code;
+	}
+}
@@ -0,0 +1,74 @@
+package br.com.pereiraeng.html;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Sequência de caracteres sobre um vetor de caracteres, sem a cópia para uma
+ * <code>String</code>. Os trechos ({@link #subSequence(int, int)}) são
+ * <code>String</code>s criadas diretamente do vetor.
+ */
+public class CharArrayText implements CharSequence {
+
+	private final char[] chars;
+
+	private final int length;
+
+	/**
+	 * @param chars  vetor de caracteres (não é copiado)
+	 * @param length quantidade de caracteres usados do vetor
+	 */
+	public CharArrayText(char[] chars, int length) {
+		this.chars = chars;
+		this.length = length;
+	}
+
+	/**
+	 * Função que lê todos os caracteres de um {@link Reader} (sem
+	 * <code>BufferedReader</code>: a leitura é feita em blocos diretamente no
+	 * vetor). O {@link Reader} não é fechado.
+	 *
+	 * @param reader  fonte dos caracteres
+	 * @param initial tamanho inicial do vetor
+	 * @return sequência de caracteres
+	 * @throws IOException se houver erro de leitura
+	 */
+	public static CharArrayText read(Reader reader, int initial) throws IOException {
+		char[] buf = new char[Math.max(initial, 1024)];
+		int n = 0, r;
+		while ((r = reader.read(buf, n, buf.length - n)) >= 0) {
+			n += r;
+			if (n == buf.length)
+				buf = Arrays.copyOf(buf, buf.length * 2);
+		}
+		return new CharArrayText(buf, n);
+	}
+
+	/**
+	 * @return vetor de caracteres (não é copiado)
+	 */
+	public char[] getChars() {
+		return chars;
+	}
+
+	@Override
+	public int length() {
+		return length;
+	}
+
+	@Override
+	public char charAt(int index) {
+		return chars[index];
+	}
+
+	@Override
+	public CharSequence subSequence(int start, int end) {
+		return new String(chars, start, end - start);
+	}
+
+	@Override
+	public String toString() {
+		return new String(chars, 0, length);
+	}
+}
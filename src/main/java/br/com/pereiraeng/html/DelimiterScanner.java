@@ -0,0 +1,191 @@
+package br.com.pereiraeng.html;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Classe que procura os delimitadores do HTML ('&lt;', '&gt;', '&amp;' etc.)
+ * em longos trechos de texto. Cada tipo de sequência de caracteres é lida da
+ * forma mais rápida possível:
+ * <ul>
+ * <li><code>String</code>: {@link String#indexOf(int, int)}, que a JVM
+ * substitui por instruções vetoriais;</li>
+ * <li>{@link MappedText}: oito bytes por vez, lidos como um <code>long</code> e
+ * comparados todos de uma vez (<i>SWAR</i>, <i>SIMD within a
+ * register</i>);</li>
+ * <li>{@link CharArrayText}: laço direto sobre o vetor de caracteres;</li>
+ * <li>demais: caractere a caractere.</li>
+ * </ul>
+ */
+public final class DelimiterScanner {
+
+	private static final long ONES = 0x0101010101010101L, LOW7 = 0x7F7F7F7F7F7F7F7FL;
+
+	private DelimiterScanner() {
+	}
+
+	/**
+	 * Função que procura um caractere num trecho
+	 *
+	 * @param src  sequência de caracteres
+	 * @param c    caractere procurado
+	 * @param from posição inicial
+	 * @param to   posição final (exclusiva)
+	 * @return posição do caractere, ou -1 se ele não estiver no trecho
+	 */
+	public static int indexOf(CharSequence src, char c, int from, int to) {
+		if (from >= to)
+			return -1;
+		if (src instanceof String) {
+			int i = ((String) src).indexOf(c, from);
+			return i < to ? i : -1;
+		}
+		if (src instanceof MappedText) {
+			MappedText mt = (MappedText) src;
+			if (c > 0xFF)
+				return -1;
+			return indexOf(mt.buffer(), mt.offset(), c, c, from, to);
+		}
+		if (src instanceof CharArrayText) {
+			char[] a = ((CharArrayText) src).getChars();
+			for (int i = from; i < to; i++)
+				if (a[i] == c)
+					return i;
+			return -1;
+		}
+		for (int i = from; i < to; i++)
+			if (src.charAt(i) == c)
+				return i;
+		return -1;
+	}
+
+	/**
+	 * Função que procura o primeiro de dois caracteres num trecho (e.g., '&lt;' ou
+	 * '&amp;' no texto)
+	 *
+	 * @param src  sequência de caracteres
+	 * @param a    um caractere procurado
+	 * @param b    outro caractere procurado
+	 * @param from posição inicial
+	 * @param to   posição final (exclusiva)
+	 * @return posição do primeiro dos caracteres, ou -1 se nenhum deles estiver
+	 *         no trecho
+	 */
+	public static int indexOfAny(CharSequence src, char a, char b, int from, int to) {
+		if (from >= to)
+			return -1;
+		if (src instanceof MappedText) {
+			MappedText mt = (MappedText) src;
+			if (a > 0xFF)
+				a = b;
+			else if (b > 0xFF)
+				b = a;
+			if (a > 0xFF)
+				return -1;
+			return indexOf(mt.buffer(), mt.offset(), a, b, from, to);
+		}
+		if (src instanceof CharArrayText) {
+			char[] chars = ((CharArrayText) src).getChars();
+			for (int i = from; i < to; i++)
+				if (chars[i] == a || chars[i] == b)
+					return i;
+			return -1;
+		}
+		for (int i = from; i < to; i++) {
+			char c = src.charAt(i);
+			if (c == a || c == b)
+				return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * Função que procura uma palavra num trecho
+	 *
+	 * @param src  sequência de caracteres
+	 * @param s    palavra procurada
+	 * @param from posição inicial
+	 * @param to   posição final (exclusiva)
+	 * @return posição da palavra, ou -1 se ela não estiver no trecho
+	 */
+	public static int indexOf(CharSequence src, String s, int from, int to) {
+		char first = s.charAt(0);
+		while ((from = indexOf(src, first, from, to)) >= 0) {
+			if (regionEquals(src, from, to, s))
+				return from;
+			from++;
+		}
+		return -1;
+	}
+
+	static boolean regionEquals(CharSequence src, int p, int to, String s) {
+		if (p + s.length() > to)
+			return false;
+		for (int i = 0; i < s.length(); i++)
+			if (src.charAt(p + i) != s.charAt(i))
+				return false;
+		return true;
+	}
+
+	/**
+	 * Função que verifica se um trecho só tem caracteres ASCII (num
+	 * {@link MappedText}, oito bytes por vez)
+	 *
+	 * @param src  sequência de caracteres
+	 * @param from posição inicial
+	 * @param to   posição final (exclusiva)
+	 * @return <code>true</code> se todos os caracteres forem menores que 0x80
+	 */
+	static boolean isAscii(CharSequence src, int from, int to) {
+		if (src instanceof MappedText) {
+			MappedText mt = (MappedText) src;
+			ByteBuffer bb = mt.buffer();
+			int i = mt.offset() + from, end = mt.offset() + to;
+			long acc = 0;
+			for (; i <= end - 8; i += 8)
+				acc |= bb.getLong(i);
+			for (; i < end; i++)
+				acc |= bb.get(i);
+			return (acc & ~LOW7) == 0;
+		}
+		for (int i = from; i < to; i++)
+			if (src.charAt(i) >= 0x80)
+				return false;
+		return true;
+	}
+
+	// -------------------- SWAR --------------------
+
+	/**
+	 * Função que procura, oito bytes por vez, o primeiro byte igual a
+	 * <code>a</code> ou a <code>b</code>
+	 */
+	private static int indexOf(ByteBuffer bb, int offset, char a, char b, int from, int to) {
+		long pa = ONES * a, pb = ONES * b;
+		boolean big = bb.order() == ByteOrder.BIG_ENDIAN;
+		int i = offset + from, end = offset + to;
+		for (; i <= end - 8; i += 8) {
+			long w = bb.getLong(i);
+			long m = zeroBytes(w ^ pa) | zeroBytes(w ^ pb);
+			if (m != 0)
+				return i - offset + ((big ? Long.numberOfLeadingZeros(m) : Long.numberOfTrailingZeros(m)) >>> 3);
+		}
+		for (; i < end; i++) {
+			int c = bb.get(i) & 0xFF;
+			if (c == a || c == b)
+				return i - offset;
+		}
+		return -1;
+	}
+
+	/**
+	 * Função que marca (com o bit mais significativo) os bytes nulos de uma
+	 * palavra. Ao contrário da forma usual <code>(x - 0x01..) &amp; ~x</code>,
+	 * esta não propaga o "empresta um" entre os bytes, de modo que não há marcas
+	 * falsas e a primeira marca pode ser tomada em qualquer ordem dos bytes.
+	 */
+	static long zeroBytes(long x) {
+		long t = (x & LOW7) + LOW7;
+		return ~(t | x | LOW7);
+	}
+}
@@ -0,0 +1,267 @@
+package br.com.pereiraeng.html;
+
+import java.io.Reader;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Serviço que executa muitas extrações concorrentes, cada uma lendo o código
+ * HTML de um {@link Reader} (arquivo em rede, servidor HTTP local etc.). Uma
+ * {@link StreamExtraction} recebe os eventos do {@link HTMLTokenizer} à medida
+ * que o código é lido, em blocos de tamanho fixo (como no
+ * {@link HTMLSanitizer}), sem guardar o documento; uma {@link Extraction}
+ * precisa do documento inteiro na memória, pois consulta um
+ * {@link HTMLDocument} com acesso aleatório. A leitura é bloqueante e feita sem
+ * blocos <code>synchronized</code> nem <i>buffers</i> em
+ * <code>ThreadLocal</code>, de modo que as tarefas podem rodar em
+ * <i>threads</i> virtuais (Java 21 ou superior) sem prender as <i>threads</i>
+ * portadoras. Em versões anteriores do Java, usa-se um conjunto fixo de
+ * <i>threads</i>.
+ */
+public class ExtractionService implements AutoCloseable {
+
+	/**
+	 * Extração feita sobre o documento lido. O {@link HTMLDocument} tem acesso
+	 * aleatório ao código, que por isso é lido inteiro para a memória antes da
+	 * extração; quando basta uma passada sobre o código, use uma
+	 * {@link StreamExtraction}.
+	 *
+	 * @param <T> tipo do resultado
+	 */
+	@FunctionalInterface
+	public static interface Extraction<T> {
+		public T extract(HTMLDocument doc) throws Exception;
+	}
+
+	/**
+	 * Extração feita sobre os eventos do {@link HTMLTokenizer}, à medida que o
+	 * código é lido. As posições dos eventos referem-se ao bloco corrente, cujo
+	 * vetor é reaproveitado no bloco seguinte: o que tiver de ser guardado deve
+	 * ser copiado durante a chamada. Cada leitura precisa de uma instância própria.
+	 *
+	 * @param <T> tipo do resultado
+	 */
+	public static interface StreamExtraction<T> extends TokenHandler {
+
+		/**
+		 * Função chamada no fim do código
+		 *
+		 * @return resultado da extração
+		 * @throws Exception se houver erro de extração
+		 */
+		public T finish() throws Exception;
+	}
+
+	/**
+	 * Tamanho inicial do vetor de leitura de cada documento
+	 */
+	private static final int INITIAL_BUFFER = 64 * 1024;
+
+	private final ExecutorService executor;
+
+	private final boolean virtual;
+
+	private ExtractionService(ExecutorService executor, boolean virtual) {
+		this.executor = executor;
+		this.virtual = virtual;
+	}
+
+	/**
+	 * Função que cria o serviço com uma <i>thread</i> virtual por tarefa, se o Java
+	 * em execução as tiver, ou com um conjunto fixo de <i>threads</i> (uma por
+	 * processador)
+	 *
+	 * @return serviço
+	 */
+	public static ExtractionService create() {
+		return create(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Função que cria o serviço com uma <i>thread</i> virtual por tarefa, se o Java
+	 * em execução as tiver, ou com um conjunto fixo de <i>threads</i>
+	 *
+	 * @param threads quantidade de <i>threads</i> do conjunto fixo, usado quando
+	 *                não há <i>threads</i> virtuais
+	 * @return serviço
+	 */
+	public static ExtractionService create(int threads) {
+		ExecutorService virtual = newVirtualThreadExecutor();
+		if (virtual != null)
+			return new ExtractionService(virtual, true);
+		return new ExtractionService(Executors.newFixedThreadPool(threads), false);
+	}
+
+	/**
+	 * Função que cria o serviço sobre um {@link ExecutorService} qualquer
+	 *
+	 * @param executor executor das tarefas (fechado juntamente com o serviço)
+	 * @return serviço
+	 */
+	public static ExtractionService create(ExecutorService executor) {
+		return new ExtractionService(executor, false);
+	}
+
+	/**
+	 * Função que cria, por reflexão (o código é compilado para o Java 8), o
+	 * executor de <i>threads</i> virtuais do Java 21
+	 *
+	 * @return executor, ou <code>null</code> se não houver <i>threads</i> virtuais
+	 */
+	static ExecutorService newVirtualThreadExecutor() {
+		try {
+			Method m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) m.invoke(null);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @return <code>true</code> se as tarefas rodam em <i>threads</i> virtuais
+	 */
+	public boolean isVirtual() {
+		return virtual;
+	}
+
+	/**
+	 * Função que agenda uma extração
+	 *
+	 * @param source  fonte do código HTML, aberta (e fechada) dentro da tarefa
+	 * @param extract extração feita sobre o documento
+	 * @param <T>     tipo do resultado
+	 * @return resultado futuro da extração
+	 */
+	public <T> Future<T> submit(Callable<? extends Reader> source, Extraction<T> extract) {
+		return executor.submit(() -> extract(source, extract));
+	}
+
+	/**
+	 * Função que agenda uma extração feita durante a leitura
+	 *
+	 * @param source  fonte do código HTML, aberta (e fechada) dentro da tarefa
+	 * @param extract extração feita sobre os eventos do código
+	 * @param <T>     tipo do resultado
+	 * @return resultado futuro da extração
+	 */
+	public <T> Future<T> submit(Callable<? extends Reader> source, StreamExtraction<T> extract) {
+		return executor.submit(() -> stream(source, extract));
+	}
+
+	/**
+	 * Função que executa uma extração para cada fonte e espera por todas
+	 *
+	 * @param sources fontes do código HTML
+	 * @param extract extração feita sobre cada documento
+	 * @param <T>     tipo do resultado
+	 * @return resultados, na ordem das fontes
+	 * @throws InterruptedException se a espera for interrompida
+	 * @throws ExecutionException   se alguma extração falhar
+	 */
+	public <T> List<T> extractAll(List<? extends Callable<? extends Reader>> sources, Extraction<T> extract)
+			throws InterruptedException, ExecutionException {
+		List<Future<T>> futures = new ArrayList<>(sources.size());
+		for (Callable<? extends Reader> s : sources)
+			futures.add(submit(s, extract));
+		return join(futures);
+	}
+
+	/**
+	 * Função que executa uma extração durante a leitura de cada fonte e espera por
+	 * todas
+	 *
+	 * @param sources fontes do código HTML
+	 * @param extract fábrica das extrações (uma por fonte)
+	 * @param <T>     tipo do resultado
+	 * @return resultados, na ordem das fontes
+	 * @throws InterruptedException se a espera for interrompida
+	 * @throws ExecutionException   se alguma extração falhar
+	 */
+	public <T> List<T> streamAll(List<? extends Callable<? extends Reader>> sources,
+			Supplier<? extends StreamExtraction<T>> extract) throws InterruptedException, ExecutionException {
+		List<Future<T>> futures = new ArrayList<>(sources.size());
+		for (Callable<? extends Reader> s : sources)
+			futures.add(submit(s, extract.get()));
+		return join(futures);
+	}
+
+	private static <T> List<T> join(List<Future<T>> futures) throws InterruptedException, ExecutionException {
+		List<T> out = new ArrayList<>(futures.size());
+		for (Future<T> f : futures)
+			out.add(f.get());
+		return out;
+	}
+
+	/**
+	 * Função que lê e processa um documento na <i>thread</i> corrente. Como o
+	 * {@link HTMLDocument} tem acesso aleatório, o código é lido inteiro para a
+	 * memória; quando basta uma passada, use
+	 * {@link #stream(Callable, StreamExtraction)}.
+	 *
+	 * @param source  fonte do código HTML
+	 * @param extract extração feita sobre o documento
+	 * @param <T>     tipo do resultado
+	 * @return resultado da extração
+	 * @throws Exception se houver erro de leitura ou de extração
+	 */
+	public static <T> T extract(Callable<? extends Reader> source, Extraction<T> extract) throws Exception {
+		CharArrayText text;
+		try (Reader r = source.call()) {
+			text = CharArrayText.read(r, INITIAL_BUFFER);
+		}
+		try (HTMLDocument doc = HTMLDocument.parse(text)) {
+			return extract.extract(doc);
+		}
+	}
+
+	/**
+	 * Função que lê um documento na <i>thread</i> corrente, repassando os eventos
+	 * do {@link HTMLTokenizer} à extração em blocos de tamanho fixo: a memória
+	 * usada não depende do tamanho do documento, só do tamanho da maior etiqueta ou
+	 * comentário
+	 *
+	 * @param source  fonte do código HTML
+	 * @param extract extração feita sobre os eventos do código
+	 * @param <T>     tipo do resultado
+	 * @return resultado da extração
+	 * @throws Exception se houver erro de leitura ou de extração
+	 */
+	public static <T> T stream(Callable<? extends Reader> source, StreamExtraction<T> extract) throws Exception {
+		try (Reader r = source.call()) {
+			StreamFilter.tokenize(r, extract, null);
+		}
+		return extract.finish();
+	}
+
+	/**
+	 * Função que encerra o serviço, esperando pelo fim das tarefas agendadas (como
+	 * <code>ExecutorService.close()</code> do Java 19): se a <i>thread</i> for
+	 * interrompida durante a espera, as tarefas são canceladas e a interrupção é
+	 * mantida
+	 */
+	@Override
+	public void close() {
+		executor.shutdown();
+		boolean terminated = executor.isTerminated(), interrupted = false;
+		while (!terminated) {
+			try {
+				terminated = executor.awaitTermination(1, TimeUnit.DAYS);
+			} catch (InterruptedException e) {
+				if (!interrupted) {
+					executor.shutdownNow();
+					interrupted = true;
+				}
+			}
+		}
+		if (interrupted)
+			Thread.currentThread().interrupt();
+	}
+}
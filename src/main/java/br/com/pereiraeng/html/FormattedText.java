@@ -0,0 +1,427 @@
+package br.com.pereiraeng.html;
+
+import java.awt.Color;
+import java.awt.font.TextAttribute;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.text.AttributedString;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Conversão entre o código HTML com os {@link HTML#GROUPS grupos} de formatação
+ * (<code>big</code>, <code>span</code>, <code>sub</code> e <code>sup</code>) e
+ * uma lista de trechos de texto, cada um com a sua formatação (e.g., para
+ * escrever rótulos de gráficos). A leitura é feita numa única passada, com uma
+ * pilha dos grupos abertos (ao contrário dos padrões de
+ * {@link HTML#getGroupFormatterPattern(String)}, que verificam o resto do
+ * código a cada caractere): as demais etiquetas são ignoradas (mantendo-se o
+ * seu conteúdo), <code>br</code> vira quebra de linha e as entidades são
+ * decodificadas. A escrita é a operação inversa.
+ */
+public final class FormattedText {
+
+	private static final String BIG = "big", SPAN = "span", SUB = "sub", SUP = "sup", BR = "br";
+
+	private FormattedText() {
+	}
+
+	/**
+	 * Trecho de texto com formatação uniforme
+	 */
+	public static final class Run {
+
+		private final String text;
+
+		private final int big, script;
+
+		private final Map<String, String> style;
+
+		/**
+		 * @param text   texto
+		 * @param big    quantidade de <code>big</code> em que o trecho está
+		 * @param script nível do trecho em relação à linha de base (positivo para
+		 *               <code>sup</code>, negativo para <code>sub</code>)
+		 * @param style  declarações de estilo dos <code>span</code> em que o trecho
+		 *               está (propriedade em minúsculas → valor)
+		 */
+		public Run(String text, int big, int script, Map<String, String> style) {
+			this.text = text;
+			this.big = big;
+			this.script = script;
+			this.style = style.isEmpty() ? Collections.emptyMap()
+					: Collections.unmodifiableMap(new LinkedHashMap<>(style));
+		}
+
+		private Run(String text, Run format) {
+			this.text = text;
+			this.big = format.big;
+			this.script = format.script;
+			this.style = format.style;
+		}
+
+		public String getText() {
+			return text;
+		}
+
+		public int getBig() {
+			return big;
+		}
+
+		public int getScript() {
+			return script;
+		}
+
+		public Map<String, String> getStyle() {
+			return style;
+		}
+
+		/**
+		 * Função que verifica se dois trechos têm a mesma formatação
+		 */
+		boolean sameFormat(Run o) {
+			return big == o.big && script == o.script && style.equals(o.style);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Run))
+				return false;
+			Run o = (Run) obj;
+			return text.equals(o.text) && sameFormat(o);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(text, big, script, style);
+		}
+
+		@Override
+		public String toString() {
+			return text + " [big=" + big + ", script=" + script + ", style=" + style + "]";
+		}
+	}
+
+	// ============================== LEITURA ==============================
+
+	/**
+	 * Função que lê o código HTML e retorna os trechos de texto com a sua
+	 * formatação. Trechos vizinhos com a mesma formatação são juntados.
+	 *
+	 * @param html código HTML
+	 * @return trechos de texto
+	 */
+	public static List<Run> parse(CharSequence html) {
+		Collector r = new Collector();
+		HTMLTokenizer.tokenize(html, r);
+		r.flush();
+		return r.runs;
+	}
+
+	/**
+	 * Função que lê o código HTML e retorna o texto com os atributos de
+	 * {@link TextAttribute} correspondentes à formatação (ver
+	 * {@link #toAttributedString(List, float)})
+	 *
+	 * @param html     código HTML
+	 * @param fontSize tamanho da fonte do texto sem formatação
+	 * @return texto com atributos
+	 */
+	public static AttributedString toAttributedString(CharSequence html, float fontSize) {
+		return toAttributedString(parse(html), fontSize);
+	}
+
+	/**
+	 * Função que converte os trechos de texto num texto com atributos:
+	 * <code>sup</code>/<code>sub</code> em {@link TextAttribute#SUPERSCRIPT},
+	 * <code>big</code> (20% maior a cada nível) e <code>font-size</code> (em
+	 * <code>px</code> ou <code>pt</code>) em {@link TextAttribute#SIZE},
+	 * <code>color</code> em {@link TextAttribute#FOREGROUND},
+	 * <code>font-weight: bold</code> em {@link TextAttribute#WEIGHT} e
+	 * <code>font-style: italic</code> em {@link TextAttribute#POSTURE}
+	 *
+	 * @param runs     trechos de texto
+	 * @param fontSize tamanho da fonte do texto sem formatação
+	 * @return texto com atributos
+	 */
+	public static AttributedString toAttributedString(List<Run> runs, float fontSize) {
+		StringBuilder sb = new StringBuilder();
+		for (Run r : runs)
+			sb.append(r.text);
+		AttributedString out = new AttributedString(sb.toString());
+		int p = 0;
+		for (Run r : runs) {
+			int end = p + r.text.length();
+			if (p == end)
+				continue;
+			if (r.script != 0)
+				out.addAttribute(TextAttribute.SUPERSCRIPT, r.script, p, end);
+			float size = fontSize;
+			String v = r.style.get("font-size");
+			if (v != null)
+				size = fontSize(v, size);
+			for (int i = 0; i < r.big; i++)
+				size *= 1.2f;
+			if (size != fontSize)
+				out.addAttribute(TextAttribute.SIZE, size, p, end);
+			if ((v = r.style.get("color")) != null) {
+				Color c = color(v);
+				if (c != null)
+					out.addAttribute(TextAttribute.FOREGROUND, c, p, end);
+			}
+			if ("bold".equals(r.style.get("font-weight")))
+				out.addAttribute(TextAttribute.WEIGHT, TextAttribute.WEIGHT_BOLD, p, end);
+			if ("italic".equals(r.style.get("font-style")))
+				out.addAttribute(TextAttribute.POSTURE, TextAttribute.POSTURE_OBLIQUE, p, end);
+			p = end;
+		}
+		return out;
+	}
+
+	private static float fontSize(String value, float size) {
+		String n = value.endsWith("px") || value.endsWith("pt") ? value.substring(0, value.length() - 2) : value;
+		try {
+			return Float.parseFloat(n.trim());
+		} catch (NumberFormatException e) {
+			return size; // tamanho relativo (e.g., em, %), não suportado
+		}
+	}
+
+	private static Color color(String value) {
+		try {
+			return HTMLColors.html2color(value);
+		} catch (RuntimeException e) {
+			return null; // cor não reconhecida
+		}
+	}
+
+	/**
+	 * Receptor dos eventos do {@link HTMLTokenizer}, que mantém a pilha dos grupos
+	 * abertos
+	 */
+	private static class Collector implements TokenHandler {
+
+		private final List<Run> runs = new ArrayList<>();
+
+		/**
+		 * grupos abertos e a formatação em vigor dentro de cada um
+		 */
+		private String[] names = new String[16];
+
+		private Run[] formats = new Run[16];
+
+		private int top;
+
+		private final StringBuilder text = new StringBuilder();
+
+		Collector() {
+			formats[0] = new Run("", 0, 0, Collections.<String, String>emptyMap());
+		}
+
+		@Override
+		public void text(CharSequence src, int start, int end) {
+			text.append(src, start, end);
+		}
+
+		@Override
+		public void startTag(CharSequence src, int start, int nameStart, int nameEnd, int attrStart, int attrEnd,
+				int end, boolean selfClosing) {
+			String name = src.subSequence(nameStart, nameEnd).toString().toLowerCase(Locale.ROOT);
+			if (BR.equals(name)) {
+				text.append('\n');
+				return;
+			}
+			if (selfClosing)
+				return;
+			Run f = formats[top];
+			Map<String, String> style = f.style;
+			int big = f.big, script = f.script;
+			switch (name) {
+			case BIG:
+				big++;
+				break;
+			case SUB:
+				script--;
+				break;
+			case SUP:
+				script++;
+				break;
+			case SPAN:
+				style = style(src, attrStart, attrEnd, style);
+				break;
+			default:
+				return; // não é grupo de formatação
+			}
+			push(name, new Run("", big, script, style));
+		}
+
+		@Override
+		public void endTag(CharSequence src, int start, int nameStart, int nameEnd, int end) {
+			int l = top;
+			while (l > 0 && !regionEqualsIgnoreCase(src, nameStart, nameEnd, names[l]))
+				l--;
+			if (l > 0) {
+				flush();
+				top = l - 1;
+			}
+		}
+
+		@Override
+		public void comment(CharSequence src, int start, int end) {
+		}
+
+		private void push(String name, Run format) {
+			flush();
+			if (++top == names.length) {
+				names = Arrays.copyOf(names, top * 2);
+				formats = Arrays.copyOf(formats, top * 2);
+			}
+			names[top] = name;
+			formats[top] = format;
+		}
+
+		/**
+		 * Função que fecha o trecho corrente
+		 */
+		void flush() {
+			if (text.length() == 0)
+				return;
+			String s = HTML.convertHTMLSpeChar(text.toString());
+			text.setLength(0);
+			Run f = formats[top];
+			int last = runs.size() - 1;
+			if (last >= 0 && runs.get(last).sameFormat(f))
+				runs.set(last, new Run(runs.get(last).text + s, f));
+			else
+				runs.add(new Run(s, f));
+		}
+	}
+
+	/**
+	 * Função que junta às declarações herdadas as do atributo <code>style</code>
+	 */
+	private static Map<String, String> style(CharSequence src, int attrStart, int attrEnd,
+			Map<String, String> inherited) {
+		int[] attr = new int[4];
+		for (int p = attrStart; (p = HTMLTokenizer.nextAttribute(src, p, attrEnd, attr)) >= 0;)
+			if (regionEqualsIgnoreCase(src, attr[0], attr[1], "style")) {
+				Map<String, String> out = new LinkedHashMap<>(inherited);
+				String value = HTML.convertHTMLSpeChar(src.subSequence(attr[2], attr[3]).toString());
+				for (String d : value.split(";")) {
+					int c = d.indexOf(':');
+					if (c > 0)
+						out.put(d.substring(0, c).trim().toLowerCase(Locale.ROOT), d.substring(c + 1).trim());
+				}
+				return out;
+			}
+		return inherited;
+	}
+
+	private static boolean regionEqualsIgnoreCase(CharSequence src, int start, int end, String s) {
+		if (end - start != s.length())
+			return false;
+		for (int i = 0; i < s.length(); i++)
+			if (Character.toLowerCase(src.charAt(start + i)) != s.charAt(i))
+				return false;
+		return true;
+	}
+
+	// ============================== ESCRITA ==============================
+
+	/**
+	 * Função que escreve os trechos de texto em código HTML (ver
+	 * {@link #write(List, Appendable)})
+	 *
+	 * @param runs trechos de texto
+	 * @return código HTML
+	 */
+	public static String toHTML(List<Run> runs) {
+		StringBuilder sb = new StringBuilder();
+		try {
+			write(runs, sb);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e); // não ocorre com StringBuilder
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Função que escreve os trechos de texto em código HTML, à medida que são
+	 * lidos. Os grupos são aninhados na ordem <code>big</code>,
+	 * <code>span</code>, <code>sub</code>/<code>sup</code>, e entre dois trechos só
+	 * são fechados e abertos os grupos que mudam. É a função inversa de
+	 * {@link #parse(CharSequence)}.
+	 *
+	 * @param runs trechos de texto
+	 * @param out  destino do código HTML
+	 * @throws IOException se houver erro de escrita
+	 */
+	public static void write(Iterable<Run> runs, Appendable out) throws IOException {
+		List<String> open = new ArrayList<>(), next = new ArrayList<>();
+		for (Run r : runs) {
+			if (r.text.isEmpty())
+				continue;
+			next.clear();
+			for (int i = 0; i < r.big; i++)
+				next.add("<big>");
+			if (!r.style.isEmpty()) {
+				StringBuilder s = new StringBuilder("<span style=\"");
+				for (Map.Entry<String, String> e : r.style.entrySet())
+					escape(s.append(e.getKey()).append(": "), e.getValue()).append(';');
+				next.add(s.append("\">").toString());
+			}
+			for (int i = 0; i < Math.abs(r.script); i++)
+				next.add(r.script > 0 ? "<sup>" : "<sub>");
+
+			int common = 0;
+			while (common < open.size() && common < next.size() && open.get(common).equals(next.get(common)))
+				common++;
+			close(open, common, out);
+			for (int i = common; i < next.size(); i++) {
+				out.append(next.get(i));
+				open.add(next.get(i));
+			}
+			escape(out, r.text);
+		}
+		close(open, 0, out);
+	}
+
+	private static void close(List<String> open, int level, Appendable out) throws IOException {
+		for (int i = open.size() - 1; i >= level; i--) {
+			String tag = open.remove(i);
+			out.append("</").append(tag, 1, tag.startsWith("<span") ? 5 : tag.length() - 1).append('>');
+		}
+	}
+
+	private static <A extends Appendable> A escape(A out, String text) throws IOException {
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			switch (c) {
+			case '&':
+				out.append("&amp;");
+				break;
+			case '<':
+				out.append("&lt;");
+				break;
+			case '>':
+				out.append("&gt;");
+				break;
+			case '"':
+				out.append("&quot;");
+				break;
+			case '\n':
+				out.append("<br>");
+				break;
+			default:
+				out.append(c);
+			}
+		}
+		return out;
+	}
+}
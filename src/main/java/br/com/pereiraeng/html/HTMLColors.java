@@ -0,0 +1,584 @@
+package br.com.pereiraeng.html;
+
+import java.awt.Color;
+import java.util.Arrays;
+
+import br.com.pereiraeng.core.ColorUtils;
+
+/**
+ * Conversão entre cores e seus nomes (ou a forma rgb) na linguagem de marcação
+ * HTML. Fica fora de {@link HTML} para que o AWT ({@link Color}) só seja
+ * carregado por quem usa as cores.
+ */
+public final class HTMLColors {
+
+	private HTMLColors() {
+	}
+
+	/**
+	 * cores com nome, em ordem crescente do número (as cores com dois nomes, e.g.,
+	 * <code>Aqua</code> e <code>Cyan</code>, aparecem só uma vez)
+	 */
+	private static final int[] NAMED_RGB = {
+			0x000000, 0x000080, 0x00008B, 0x0000CD, 0x0000FF, 0x006400, 0x008000, 0x008080, 0x008B8B, 0x00BFFF,
+			0x00CED1, 0x00FA9A, 0x00FF00, 0x00FF7F, 0x00FFFF, 0x191970, 0x1E90FF, 0x20B2AA, 0x228B22, 0x2E8B57,
+			0x2F4F4F, 0x32CD32, 0x3CB371, 0x40E0D0, 0x4169E1, 0x4682B4, 0x483D8B, 0x48D1CC, 0x4B0082, 0x556B2F,
+			0x5F9EA0, 0x6495ED, 0x663399, 0x66CDAA, 0x696969, 0x6A5ACD, 0x6B8E23, 0x708090, 0x778899, 0x7B68EE,
+			0x7CFC00, 0x7FFF00, 0x7FFFD4, 0x800000, 0x800080, 0x808000, 0x808080, 0x87CEEB, 0x87CEFA, 0x8A2BE2,
+			0x8B0000, 0x8B008B, 0x8B4513, 0x8FBC8F, 0x90EE90, 0x9370DB, 0x9400D3, 0x98FB98, 0x9932CC, 0x9ACD32,
+			0xA0522D, 0xA52A2A, 0xA9A9A9, 0xADD8E6, 0xADFF2F, 0xAFEEEE, 0xB0C4DE, 0xB0E0E6, 0xB22222, 0xB8860B,
+			0xBA55D3, 0xBC8F8F, 0xBDB76B, 0xC0C0C0, 0xC71585, 0xCD5C5C, 0xCD853F, 0xD2691E, 0xD2B48C, 0xD3D3D3,
+			0xD8BFD8, 0xDA70D6, 0xDAA520, 0xDB7093, 0xDC143C, 0xDCDCDC, 0xDDA0DD, 0xDEB887, 0xE0FFFF, 0xE6E6FA,
+			0xE9967A, 0xEE82EE, 0xEEE8AA, 0xF08080, 0xF0E68C, 0xF0F8FF, 0xF0FFF0, 0xF0FFFF, 0xF4A460, 0xF5DEB3,
+			0xF5F5DC, 0xF5F5F5, 0xF5FFFA, 0xF8F8FF, 0xFA8072, 0xFAEBD7, 0xFAF0E6, 0xFAFAD2, 0xFDF5E6, 0xFF0000,
+			0xFF00FF, 0xFF1493, 0xFF4500, 0xFF6347, 0xFF69B4, 0xFF7F50, 0xFF8C00, 0xFFA07A, 0xFFA500, 0xFFB6C1,
+			0xFFC0CB, 0xFFD700, 0xFFDAB9, 0xFFDEAD, 0xFFE4B5, 0xFFE4C4, 0xFFE4E1, 0xFFEBCD, 0xFFEFD5, 0xFFF0F5,
+			0xFFF5EE, 0xFFF8DC, 0xFFFACD, 0xFFFAF0, 0xFFFAFA, 0xFFFF00, 0xFFFFE0, 0xFFFFF0, 0xFFFFFF };
+
+	private static final String[] NAMED = {
+			"Black", "Navy", "DarkBlue", "MediumBlue", "Blue", "DarkGreen", "Green", "Teal", "DarkCyan",
+			"DeepSkyBlue", "DarkTurquoise", "MediumSpringGreen", "Lime", "SpringGreen", "Cyan", "MidnightBlue",
+			"DodgerBlue", "LightSeaGreen", "ForestGreen", "SeaGreen", "DarkSlateGray", "LimeGreen",
+			"MediumSeaGreen", "Turquoise", "RoyalBlue", "SteelBlue", "DarkSlateBlue", "MediumTurquoise", "Indigo",
+			"DarkOliveGreen", "CadetBlue", "CornflowerBlue", "RebeccaPurple", "MediumAquaMarine", "DimGray",
+			"SlateBlue", "OliveDrab", "SlateGray", "LightSlateGray", "MediumSlateBlue", "LawnGreen", "Chartreuse",
+			"Aquamarine", "Maroon", "Purple", "Olive", "Gray", "SkyBlue", "LightSkyBlue", "BlueViolet", "DarkRed",
+			"DarkMagenta", "SaddleBrown", "DarkSeaGreen", "LightGreen", "MediumPurple", "DarkViolet", "PaleGreen",
+			"DarkOrchid", "YellowGreen", "Sienna", "Brown", "DarkGray", "LightBlue", "GreenYellow",
+			"PaleTurquoise", "LightSteelBlue", "PowderBlue", "FireBrick", "DarkGoldenRod", "MediumOrchid",
+			"RosyBrown", "DarkKhaki", "Silver", "MediumVioletRed", "IndianRed", "Peru", "Chocolate", "Tan",
+			"LightGray", "Thistle", "Orchid", "GoldenRod", "PaleVioletRed", "Crimson", "Gainsboro", "Plum",
+			"BurlyWood", "LightCyan", "Lavender", "DarkSalmon", "Violet", "PaleGoldenRod", "LightCoral", "Khaki",
+			"AliceBlue", "HoneyDew", "Azure", "SandyBrown", "Wheat", "Beige", "WhiteSmoke", "MintCream",
+			"GhostWhite", "Salmon", "AntiqueWhite", "Linen", "LightGoldenRodYellow", "OldLace", "Red", "Magenta",
+			"DeepPink", "OrangeRed", "Tomato", "HotPink", "Coral", "DarkOrange", "LightSalmon", "Orange",
+			"LightPink", "Pink", "Gold", "PeachPuff", "NavajoWhite", "Moccasin", "Bisque", "MistyRose",
+			"BlanchedAlmond", "PapayaWhip", "LavenderBlush", "SeaShell", "Cornsilk", "LemonChiffon", "FloralWhite",
+			"Snow", "Yellow", "LightYellow", "Ivory", "White" };
+
+	/**
+	 * Função que converte uma cor numa sequência de caracteres que a identifica na
+	 * linguagem de marcação HTML. É a função inversa de
+	 * {@link #html2color(String)}.
+	 * 
+	 * @param c cor
+	 * @return sequência de caracteres que designa a cor (seja o nome dela, seja na
+	 *         forma rgb)
+	 */
+	public static String color2html(Color c) {
+		String out = rgb2html(ColorUtils.color2rgb(c));
+		if (out == null)
+			out = ColorUtils.color2html(c);
+		return out;
+	}
+
+	/**
+	 * Função que converte um número inteiro que representa uma cor numa sequência
+	 * de caracteres que a identifica na linguagem de marcação HTML. É a função
+	 * inversa de {@link #html2rgb(String)}.
+	 * 
+	 * @param rgb inteiro cujo valor varia entre 0 (preto) e 16777215 (branco,
+	 *            0xFFFFFF)
+	 * @return nome da cor, tal como aceita na linguagem de marcação HTML
+	 */
+	private static String rgb2html(int rgb) {
+		int i = Arrays.binarySearch(NAMED_RGB, rgb);
+		return i < 0 ? null : NAMED[i];
+	}
+
+	// -------------------- COR COM NOME MAIS PRÓXIMA --------------------
+
+	/**
+	 * Função que retorna o nome da cor HTML mais próxima da cor dada, segundo a
+	 * distância no espaço de cores CIELAB (&Delta;E 1976), que acompanha a
+	 * diferença percebida pelo olho melhor que a distância entre os valores rgb.
+	 * A transparência é ignorada.
+	 * 
+	 * @param c cor
+	 * @return nome da cor mais próxima (o próprio nome, se a cor tiver nome)
+	 * @see #nearestNames(int[], int, int, String[])
+	 */
+	public static String nearestName(Color c) {
+		return nearestName(c.getRGB());
+	}
+
+	/**
+	 * Função que retorna o nome da cor HTML mais próxima da cor dada (ver
+	 * {@link #nearestName(Color)})
+	 * 
+	 * @param rgb cor no formato <code>0xRRGGBB</code> (o byte mais alto, de
+	 *            transparência, é ignorado)
+	 * @return nome da cor mais próxima
+	 */
+	public static String nearestName(int rgb) {
+		rgb &= 0xFFFFFF;
+		int i = Arrays.binarySearch(NAMED_RGB, rgb);
+		return NAMED[i >= 0 ? i : Lattice.nearest(rgb)];
+	}
+
+	/**
+	 * Função que retorna os nomes das cores HTML mais próximas de um vetor de
+	 * cores (e.g., os <i>pixels</i> de uma imagem ou uma paleta), sem criar
+	 * objetos
+	 * 
+	 * @param pixels cores no formato <code>0xAARRGGBB</code> (a transparência é
+	 *               ignorada)
+	 * @param from   índice da primeira cor
+	 * @param to     índice seguinte ao da última cor
+	 * @param out    vetor que recebe os nomes, nos mesmos índices das cores
+	 */
+	public static void nearestNames(int[] pixels, int from, int to, String[] out) {
+		for (int i = from; i < to; i++)
+			out[i] = nearestName(pixels[i]);
+	}
+
+	/**
+	 * Função que troca cada cor de um vetor pela cor HTML com nome mais próxima,
+	 * preservando a transparência
+	 * 
+	 * @param pixels cores no formato <code>0xAARRGGBB</code>
+	 * @param from   índice da primeira cor
+	 * @param to     índice seguinte ao da última cor
+	 */
+	public static void snapToNamed(int[] pixels, int from, int to) {
+		for (int i = from; i < to; i++) {
+			int rgb = pixels[i] & 0xFFFFFF;
+			int n = Arrays.binarySearch(NAMED_RGB, rgb);
+			if (n < 0)
+				pixels[i] = (pixels[i] & 0xFF000000) | NAMED_RGB[Lattice.nearest(rgb)];
+		}
+	}
+
+	/**
+	 * Grade de 64&times;64&times;64 células do cubo rgb, cada uma com o índice da
+	 * cor com nome mais próxima (em CIELAB) do centro da célula. Cada célula é
+	 * calculada na primeira consulta que cai nela (as seguintes são só um acesso
+	 * ao vetor), de modo que não há custo de montagem. A resposta pode diferir da
+	 * cor exatamente mais próxima só quando a cor está a menos de meia célula (2
+	 * níveis por canal) da fronteira entre duas cores com nome.
+	 */
+	private static final class Lattice {
+
+		private static final int BITS = 6, SHIFT = 8 - BITS, SIZE = 1 << BITS;
+
+		/**
+		 * bits de cada canal que indicam a célula e deslocamento até o centro dela
+		 */
+		private static final int MASK = 0xFFFFFF & ~(((1 << SHIFT) - 1) * 0x010101),
+				CENTER = (1 << (SHIFT - 1)) * 0x010101;
+
+		/**
+		 * célula ainda não calculada
+		 */
+		private static final int UNKNOWN = 0xFF;
+
+		/**
+		 * índice da cor com nome de cada célula (o vetor pode ser escrito por várias
+		 * <i>threads</i> ao mesmo tempo, pois todas escrevem o mesmo valor)
+		 */
+		private static final byte[] CELLS = new byte[SIZE * SIZE * SIZE];
+
+		/**
+		 * cores com nome em CIELAB
+		 */
+		private static final double[] L = new double[NAMED_RGB.length], A = new double[NAMED_RGB.length],
+				B = new double[NAMED_RGB.length];
+
+		static {
+			Arrays.fill(CELLS, (byte) UNKNOWN);
+			for (int i = 0; i < NAMED_RGB.length; i++) {
+				int rgb = NAMED_RGB[i];
+				double r = linear(rgb >> 16 & 0xFF), g = linear(rgb >> 8 & 0xFF), b = linear(rgb & 0xFF);
+				double fx = fx(r, g, b), fy = fy(r, g, b), fz = fz(r, g, b);
+				L[i] = 116 * fy - 16;
+				A[i] = 500 * (fx - fy);
+				B[i] = 200 * (fy - fz);
+			}
+		}
+
+		/**
+		 * Função que retorna o índice da cor com nome mais próxima
+		 */
+		static int nearest(int rgb) {
+			int cell = ((rgb >> (16 + SHIFT)) << BITS | ((rgb >> (8 + SHIFT)) & (SIZE - 1))) << BITS
+					| ((rgb >> SHIFT) & (SIZE - 1));
+			int out = CELLS[cell] & 0xFF;
+			if (out == UNKNOWN) {
+				out = search((rgb & MASK) + CENTER);
+				CELLS[cell] = (byte) out;
+			}
+			return out;
+		}
+
+		/**
+		 * Função que procura a cor com nome mais próxima (&Delta;E 1976)
+		 */
+		private static int search(int rgb) {
+			double r = linear(rgb >> 16 & 0xFF), g = linear(rgb >> 8 & 0xFF), b = linear(rgb & 0xFF);
+			double fx = fx(r, g, b), fy = fy(r, g, b), fz = fz(r, g, b);
+			double l = 116 * fy - 16, a = 500 * (fx - fy), bb = 200 * (fy - fz);
+			int best = 0;
+			double min = Double.MAX_VALUE;
+			for (int i = 0; i < L.length; i++) {
+				double dl = l - L[i], da = a - A[i], db = bb - B[i];
+				double d = dl * dl + da * da + db * db;
+				if (d < min) {
+					min = d;
+					best = i;
+				}
+			}
+			return best;
+		}
+
+		// conversão de sRGB linear (iluminante D65) para CIELAB
+
+		private static double fx(double r, double g, double b) {
+			return f((0.4124 * r + 0.3576 * g + 0.1805 * b) / 0.95047);
+		}
+
+		private static double fy(double r, double g, double b) {
+			return f(0.2126 * r + 0.7152 * g + 0.0722 * b);
+		}
+
+		private static double fz(double r, double g, double b) {
+			return f((0.0193 * r + 0.1192 * g + 0.9505 * b) / 1.08883);
+		}
+
+		private static double linear(int c) {
+			double v = c / 255.;
+			return v <= 0.04045 ? v / 12.92 : Math.pow((v + 0.055) / 1.055, 2.4);
+		}
+
+		private static double f(double t) {
+			return t > 216. / 24389 ? Math.cbrt(t) : (24389. / 27 * t + 16) / 116;
+		}
+	}
+
+	/**
+	 * Função que converte uma sequência de caracteres que a identifica na linguagem
+	 * de marcação HTML na cor correspondente. É a função inversa de
+	 * {@link #color2html(Color)}.
+	 * 
+	 * @param html sequência de caracteres que designa a cor (seja o nome dela, seja
+	 *             na forma rgb)
+	 * @return cor correspondente
+	 */
+	public static Color html2color(String html) {
+		int rgb = html2rgb(html);
+		if (rgb == -1) // se não for o nome da cor, pode estar na forma rgb(X,Y,Z)
+			return ColorUtils.html2color(html);
+		else
+			return ColorUtils.rgb2color(rgb);
+	}
+
+	/**
+	 * Função que converte uma sequência de caracteres que a identifica na linguagem
+	 * de marcação HTML num número inteiro que representa a cor. É a função inversa
+	 * de {@link #rgb2html(int)}.
+	 * 
+	 * @param html nome da cor, tal como aceita na linguagem de marcação HTML
+	 * @return inteiro correspondente entre 0 (preto) e 16777215 (branco, 0xFFFFFF)
+	 */
+	private static int html2rgb(String html) {
+		switch (html) {
+		case "Black":
+			return 0x000000;
+		case "Navy":
+			return 0x000080;
+		case "DarkBlue":
+			return 0x00008B;
+		case "MediumBlue":
+			return 0x0000CD;
+		case "Blue":
+			return 0x0000FF;
+		case "DarkGreen":
+			return 0x006400;
+		case "Green":
+			return 0x008000;
+		case "Teal":
+			return 0x008080;
+		case "DarkCyan":
+			return 0x008B8B;
+		case "DeepSkyBlue":
+			return 0x00BFFF;
+		case "DarkTurquoise":
+			return 0x00CED1;
+		case "MediumSpringGreen":
+			return 0x00FA9A;
+		case "Lime":
+			return 0x00FF00;
+		case "SpringGreen":
+			return 0x00FF7F;
+		case "Aqua":
+			return 0x00FFFF;
+		case "Cyan":
+			return 0x00FFFF;
+		case "MidnightBlue":
+			return 0x191970;
+		case "DodgerBlue":
+			return 0x1E90FF;
+		case "LightSeaGreen":
+			return 0x20B2AA;
+		case "ForestGreen":
+			return 0x228B22;
+		case "SeaGreen":
+			return 0x2E8B57;
+		case "DarkSlateGray":
+			return 0x2F4F4F;
+		case "DarkSlateGrey":
+			return 0x2F4F4F;
+		case "LimeGreen":
+			return 0x32CD32;
+		case "MediumSeaGreen":
+			return 0x3CB371;
+		case "Turquoise":
+			return 0x40E0D0;
+		case "RoyalBlue":
+			return 0x4169E1;
+		case "SteelBlue":
+			return 0x4682B4;
+		case "DarkSlateBlue":
+			return 0x483D8B;
+		case "MediumTurquoise":
+			return 0x48D1CC;
+		case "Indigo":
+			return 0x4B0082;
+		case "DarkOliveGreen":
+			return 0x556B2F;
+		case "CadetBlue":
+			return 0x5F9EA0;
+		case "CornflowerBlue":
+			return 0x6495ED;
+		case "RebeccaPurple":
+			return 0x663399;
+		case "MediumAquaMarine":
+			return 0x66CDAA;
+		case "DimGray":
+			return 0x696969;
+		case "DimGrey":
+			return 0x696969;
+		case "SlateBlue":
+			return 0x6A5ACD;
+		case "OliveDrab":
+			return 0x6B8E23;
+		case "SlateGray":
+			return 0x708090;
+		case "SlateGrey":
+			return 0x708090;
+		case "LightSlateGray":
+			return 0x778899;
+		case "LightSlateGrey":
+			return 0x778899;
+		case "MediumSlateBlue":
+			return 0x7B68EE;
+		case "LawnGreen":
+			return 0x7CFC00;
+		case "Chartreuse":
+			return 0x7FFF00;
+		case "Aquamarine":
+			return 0x7FFFD4;
+		case "Maroon":
+			return 0x800000;
+		case "Purple":
+			return 0x800080;
+		case "Olive":
+			return 0x808000;
+		case "Gray":
+			return 0x808080;
+		case "Grey":
+			return 0x808080;
+		case "SkyBlue":
+			return 0x87CEEB;
+		case "LightSkyBlue":
+			return 0x87CEFA;
+		case "BlueViolet":
+			return 0x8A2BE2;
+		case "DarkRed":
+			return 0x8B0000;
+		case "DarkMagenta":
+			return 0x8B008B;
+		case "SaddleBrown":
+			return 0x8B4513;
+		case "DarkSeaGreen":
+			return 0x8FBC8F;
+		case "LightGreen":
+			return 0x90EE90;
+		case "MediumPurple":
+			return 0x9370DB;
+		case "DarkViolet":
+			return 0x9400D3;
+		case "PaleGreen":
+			return 0x98FB98;
+		case "DarkOrchid":
+			return 0x9932CC;
+		case "YellowGreen":
+			return 0x9ACD32;
+		case "Sienna":
+			return 0xA0522D;
+		case "Brown":
+			return 0xA52A2A;
+		case "DarkGray":
+			return 0xA9A9A9;
+		case "DarkGrey":
+			return 0xA9A9A9;
+		case "LightBlue":
+			return 0xADD8E6;
+		case "GreenYellow":
+			return 0xADFF2F;
+		case "PaleTurquoise":
+			return 0xAFEEEE;
+		case "LightSteelBlue":
+			return 0xB0C4DE;
+		case "PowderBlue":
+			return 0xB0E0E6;
+		case "FireBrick":
+			return 0xB22222;
+		case "DarkGoldenRod":
+			return 0xB8860B;
+		case "MediumOrchid":
+			return 0xBA55D3;
+		case "RosyBrown":
+			return 0xBC8F8F;
+		case "DarkKhaki":
+			return 0xBDB76B;
+		case "Silver":
+			return 0xC0C0C0;
+		case "MediumVioletRed":
+			return 0xC71585;
+		case "IndianRed":
+			return 0xCD5C5C;
+		case "Peru":
+			return 0xCD853F;
+		case "Chocolate":
+			return 0xD2691E;
+		case "Tan":
+			return 0xD2B48C;
+		case "LightGray":
+			return 0xD3D3D3;
+		case "LightGrey":
+			return 0xD3D3D3;
+		case "Thistle":
+			return 0xD8BFD8;
+		case "Orchid":
+			return 0xDA70D6;
+		case "GoldenRod":
+			return 0xDAA520;
+		case "PaleVioletRed":
+			return 0xDB7093;
+		case "Crimson":
+			return 0xDC143C;
+		case "Gainsboro":
+			return 0xDCDCDC;
+		case "Plum":
+			return 0xDDA0DD;
+		case "BurlyWood":
+			return 0xDEB887;
+		case "LightCyan":
+			return 0xE0FFFF;
+		case "Lavender":
+			return 0xE6E6FA;
+		case "DarkSalmon":
+			return 0xE9967A;
+		case "Violet":
+			return 0xEE82EE;
+		case "PaleGoldenRod":
+			return 0xEEE8AA;
+		case "LightCoral":
+			return 0xF08080;
+		case "Khaki":
+			return 0xF0E68C;
+		case "AliceBlue":
+			return 0xF0F8FF;
+		case "HoneyDew":
+			return 0xF0FFF0;
+		case "Azure":
+			return 0xF0FFFF;
+		case "SandyBrown":
+			return 0xF4A460;
+		case "Wheat":
+			return 0xF5DEB3;
+		case "Beige":
+			return 0xF5F5DC;
+		case "WhiteSmoke":
+			return 0xF5F5F5;
+		case "MintCream":
+			return 0xF5FFFA;
+		case "GhostWhite":
+			return 0xF8F8FF;
+		case "Salmon":
+			return 0xFA8072;
+		case "AntiqueWhite":
+			return 0xFAEBD7;
+		case "Linen":
+			return 0xFAF0E6;
+		case "LightGoldenRodYellow":
+			return 0xFAFAD2;
+		case "OldLace":
+			return 0xFDF5E6;
+		case "Red":
+			return 0xFF0000;
+		case "Fuchsia":
+			return 0xFF00FF;
+		case "Magenta":
+			return 0xFF00FF;
+		case "DeepPink":
+			return 0xFF1493;
+		case "OrangeRed":
+			return 0xFF4500;
+		case "Tomato":
+			return 0xFF6347;
+		case "HotPink":
+			return 0xFF69B4;
+		case "Coral":
+			return 0xFF7F50;
+		case "DarkOrange":
+			return 0xFF8C00;
+		case "LightSalmon":
+			return 0xFFA07A;
+		case "Orange":
+			return 0xFFA500;
+		case "LightPink":
+			return 0xFFB6C1;
+		case "Pink":
+			return 0xFFC0CB;
+		case "Gold":
+			return 0xFFD700;
+		case "PeachPuff":
+			return 0xFFDAB9;
+		case "NavajoWhite":
+			return 0xFFDEAD;
+		case "Moccasin":
+			return 0xFFE4B5;
+		case "Bisque":
+			return 0xFFE4C4;
+		case "MistyRose":
+			return 0xFFE4E1;
+		case "BlanchedAlmond":
+			return 0xFFEBCD;
+		case "PapayaWhip":
+			return 0xFFEFD5;
+		case "LavenderBlush":
+			return 0xFFF0F5;
+		case "SeaShell":
+			return 0xFFF5EE;
+		case "Cornsilk":
+			return 0xFFF8DC;
+		case "LemonChiffon":
+			return 0xFFFACD;
+		case "FloralWhite":
+			return 0xFFFAF0;
+		case "Snow":
+			return 0xFFFAFA;
+		case "Yellow":
+			return 0xFFFF00;
+		case "LightYellow":
+			return 0xFFFFE0;
+		case "Ivory":
+			return 0xFFFFF0;
+		case "White":
+			return 0xFFFFFF;
+		default:
+			return -1;
+		}
+	}
+}
@@ -0,0 +1,1585 @@
+package br.com.pereiraeng.html;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import javax.swing.tree.DefaultMutableTreeNode;
+
+/**
+ * Documento HTML lido uma única vez e guardado na forma de vetores de inteiros
+ * (ver {@link NodeStore}), que apontam para posições no código original. A
+ * estrutura pode ficar na memória do Java ({@link HeapNodeStore}) ou fora dela
+ * ({@link OffHeapNodeStore}, {@link MappedText}), de modo que documentos de
+ * vários GB não pressionam o coletor de lixo. Os arquivos maiores que 2 GB são
+ * mapeados em várias janelas ({@link SegmentedText}) e lidos uma janela de cada
+ * vez; as posições dos seus nós passam de 32 bits e são lidas por
+ * {@link #getPosition(int, int)}. As consultas de tabelas e de
+ * árvore de {@link HTML} têm aqui suas equivalentes, sem nova leitura do código.
+ */
+public class HTMLDocument implements Closeable {
+
+	/**
+	 * Tipos de nós
+	 */
+	public static final int DOCUMENT = 0, ELEMENT = 1, TEXT = 2;
+
+	private static final String[] VOID_ELEMENTS = { "area", "base", "br", "col", "embed", "hr", "img", "input",
+			"link", "meta", "param", "source", "track", "wbr" };
+
+	private final CharSequence source;
+
+	/**
+	 * código dos documentos maiores que 2 GB (<code>source</code> é
+	 * <code>null</code>)
+	 */
+	private final SegmentedText segments;
+
+	private final NodeStore store;
+
+	private final NameTable names;
+
+	private final boolean ownsSource;
+
+	private int[] tables;
+
+	private volatile AttributeIndex attributes;
+
+	private final int tableId, trId, tdId, thId;
+
+	private HTMLDocument(CharSequence source, NodeStore store, boolean ownsSource) {
+		this(source, null, store, ownsSource);
+	}
+
+	private HTMLDocument(CharSequence source, SegmentedText segments, NodeStore store, boolean ownsSource) {
+		this.source = source;
+		this.segments = segments;
+		this.store = store;
+		this.ownsSource = ownsSource;
+		this.names = new NameTable();
+		this.tableId = names.intern("table");
+		this.trId = names.intern("tr");
+		this.tdId = names.intern("td");
+		this.thId = names.intern("th");
+	}
+
+	/**
+	 * Função que lê o código HTML e guarda sua estrutura na memória do Java
+	 *
+	 * @param html código HTML
+	 * @return documento
+	 */
+	public static HTMLDocument parse(CharSequence html) {
+		return parse(html, new HeapNodeStore(Math.max(16, html.length() / 64)));
+	}
+
+	/**
+	 * Função que lê o código HTML e guarda sua estrutura no repositório indicado
+	 *
+	 * @param html  código HTML
+	 * @param store repositório dos nós (vazio), fechado juntamente com o documento
+	 * @return documento
+	 */
+	public static HTMLDocument parse(CharSequence html, NodeStore store) {
+		return parse(html, store, ParseLimits.NONE);
+	}
+
+	/**
+	 * Função que lê o código HTML respeitando os limites de recursos indicados
+	 *
+	 * @param html   código HTML
+	 * @param limits limites de recursos
+	 * @return documento
+	 * @throws ParseLimitExceededException se algum limite for ultrapassado; o
+	 *                                     documento parcial vem na exceção
+	 */
+	public static HTMLDocument parse(CharSequence html, ParseLimits limits) {
+		return parse(html, new HeapNodeStore(Math.max(16, Math.min(html.length(), limits.getMaxNodes()) / 64)),
+				limits);
+	}
+
+	/**
+	 * Função que lê o código HTML respeitando os limites de recursos indicados e
+	 * guarda sua estrutura no repositório indicado
+	 *
+	 * @param html   código HTML
+	 * @param store  repositório dos nós (vazio), fechado juntamente com o
+	 *               documento
+	 * @param limits limites de recursos
+	 * @return documento
+	 * @throws ParseLimitExceededException se algum limite for ultrapassado; o
+	 *                                     documento parcial vem na exceção
+	 */
+	public static HTMLDocument parse(CharSequence html, NodeStore store, ParseLimits limits) {
+		return parse(html, store, limits, ParsePlan.ALL);
+	}
+
+	/**
+	 * Função que lê só as partes do código HTML indicadas no plano (ver
+	 * {@link ParsePlan})
+	 *
+	 * @param html código HTML
+	 * @param plan plano de leitura
+	 * @return documento com os nós das partes selecionadas
+	 */
+	public static HTMLDocument parse(CharSequence html, ParsePlan plan) {
+		return parse(html, new HeapNodeStore(16), ParseLimits.NONE, plan);
+	}
+
+	/**
+	 * Função que lê só as partes do código HTML indicadas no plano, respeitando
+	 * os limites de recursos indicados e guardando sua estrutura no repositório
+	 * indicado
+	 *
+	 * @param html   código HTML
+	 * @param store  repositório dos nós (vazio), fechado juntamente com o
+	 *               documento
+	 * @param limits limites de recursos
+	 * @param plan   plano de leitura
+	 * @return documento com os nós das partes selecionadas
+	 * @throws ParseLimitExceededException se algum limite for ultrapassado; o
+	 *                                     documento parcial vem na exceção
+	 */
+	public static HTMLDocument parse(CharSequence html, NodeStore store, ParseLimits limits, ParsePlan plan) {
+		HTMLDocument doc = new HTMLDocument(html, store, false);
+		doc.build(limits, plan);
+		return doc;
+	}
+
+	/**
+	 * Função que lê o código HTML em bytes, detectando sua codificação (ver
+	 * {@link HTMLInput}). O fluxo não é fechado.
+	 *
+	 * @param in bytes do código HTML
+	 * @return documento
+	 * @throws IOException se houver erro de leitura
+	 */
+	public static HTMLDocument parse(InputStream in) throws IOException {
+		return parse(HTMLInput.read(in));
+	}
+
+	/**
+	 * Função que mapeia um arquivo HTML na memória, detectando sua codificação
+	 * (ver {@link HTMLInput}), e guarda sua estrutura fora da memória do Java. Nas
+	 * codificações compatíveis com ASCII, o arquivo é lido diretamente sobre os
+	 * bytes mapeados (sem a marca de ordem de bytes); em UTF-16, é decodificado
+	 * antes (o que limita esses arquivos a 2 GB). O documento deve ser
+	 * {@link #close() fechado} após o uso.
+	 *
+	 * @param file arquivo
+	 * @return documento
+	 * @throws IOException se o arquivo não puder ser lido, ou se for um arquivo
+	 *                     em UTF-16 maior que 2 GB
+	 */
+	public static HTMLDocument open(Path file) throws IOException {
+		if (Files.size(file) <= Integer.MAX_VALUE)
+			return parse(MappedText.map(file, StandardCharsets.ISO_8859_1).getBuffer(), OffHeapNodeStore.direct());
+		// um byte a mais: a detecção sabe que o começo foi cortado
+		byte[] head = new byte[HTMLInput.SNIFF_LENGTH + 1];
+		try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+			ch.map(FileChannel.MapMode.READ_ONLY, 0, head.length).get(head);
+		}
+		Charset charset = HTMLInput.detect(head, 0, head.length);
+		if (charset.equals(StandardCharsets.UTF_16LE) || charset.equals(StandardCharsets.UTF_16BE))
+			throw new IOException("Arquivo em UTF-16 maior que 2 GB: " + file);
+		HTMLDocument doc = new HTMLDocument(null,
+				SegmentedText.map(file, charset, HTMLInput.bomLength(head, 0, head.length, charset)),
+				OffHeapNodeStore.direct(), true);
+		doc.build(ParseLimits.NONE, ParsePlan.ALL);
+		return doc;
+	}
+
+	/**
+	 * Função que lê o código HTML em bytes (e.g., um trecho de arquivo mapeado),
+	 * da posição até o limite do {@link ByteBuffer}, detectando sua codificação
+	 * (ver {@link HTMLInput}). Nas codificações compatíveis com ASCII, o código é
+	 * lido diretamente sobre os bytes (sem a marca de ordem de bytes); em UTF-16,
+	 * é decodificado antes.
+	 *
+	 * @param bytes código HTML
+	 * @param store repositório dos nós (vazio), fechado juntamente com o documento
+	 * @return documento
+	 */
+	public static HTMLDocument parse(ByteBuffer bytes, NodeStore store) {
+		bytes = bytes.slice();
+		Charset charset = HTMLInput.detect(bytes);
+		byte[] head = new byte[Math.min(bytes.remaining(), 3)];
+		bytes.duplicate().get(head);
+		bytes.position(HTMLInput.bomLength(head, 0, head.length, charset));
+		HTMLDocument doc;
+		if (charset.equals(StandardCharsets.UTF_16LE) || charset.equals(StandardCharsets.UTF_16BE))
+			doc = new HTMLDocument(charset.decode(bytes), store, false);
+		else
+			doc = new HTMLDocument(new MappedText(bytes.slice(), charset), store, true);
+		doc.build(ParseLimits.NONE, ParsePlan.ALL);
+		return doc;
+	}
+
+	/**
+	 * Função que mapeia um arquivo HTML na memória e guarda sua estrutura fora da
+	 * memória do Java. O documento deve ser {@link #close() fechado} após o uso.
+	 *
+	 * @param file    arquivo
+	 * @param charset codificação do arquivo
+	 * @return documento
+	 * @throws IOException se o arquivo não puder ser lido
+	 */
+	public static HTMLDocument open(Path file, Charset charset) throws IOException {
+		return open(file, charset, OffHeapNodeStore.direct());
+	}
+
+	/**
+	 * Função que mapeia um arquivo HTML na memória e guarda sua estrutura no
+	 * repositório indicado. O documento deve ser {@link #close() fechado} após o
+	 * uso.
+	 *
+	 * @param file    arquivo
+	 * @param charset codificação do arquivo
+	 * @param store   repositório dos nós (vazio)
+	 * @return documento
+	 * @throws IOException se o arquivo não puder ser lido
+	 */
+	public static HTMLDocument open(Path file, Charset charset, NodeStore store) throws IOException {
+		return open(file, charset, store, ParseLimits.NONE);
+	}
+
+	/**
+	 * Função que mapeia um arquivo HTML na memória respeitando os limites de
+	 * recursos indicados. O documento deve ser {@link #close() fechado} após o
+	 * uso, inclusive o documento parcial que vem na exceção.
+	 *
+	 * @param file    arquivo
+	 * @param charset codificação do arquivo
+	 * @param store   repositório dos nós (vazio)
+	 * @param limits  limites de recursos
+	 * @return documento
+	 * @throws IOException                 se o arquivo não puder ser lido
+	 * @throws ParseLimitExceededException se algum limite for ultrapassado; o
+	 *                                     documento parcial vem na exceção
+	 */
+	public static HTMLDocument open(Path file, Charset charset, NodeStore store, ParseLimits limits)
+			throws IOException {
+		return open(file, charset, store, limits, ParsePlan.ALL);
+	}
+
+	/**
+	 * Função que mapeia um arquivo HTML na memória e lê só as partes indicadas no
+	 * plano (ver {@link ParsePlan}). O documento deve ser {@link #close() fechado}
+	 * após o uso.
+	 *
+	 * @param file    arquivo
+	 * @param charset codificação do arquivo
+	 * @param store   repositório dos nós (vazio)
+	 * @param limits  limites de recursos
+	 * @param plan    plano de leitura
+	 * @return documento com os nós das partes selecionadas
+	 * @throws IOException                 se o arquivo não puder ser lido
+	 * @throws ParseLimitExceededException se algum limite for ultrapassado; o
+	 *                                     documento parcial vem na exceção
+	 */
+	public static HTMLDocument open(Path file, Charset charset, NodeStore store, ParseLimits limits,
+			ParsePlan plan) throws IOException {
+		HTMLDocument doc = Files.size(file) <= Integer.MAX_VALUE
+				? new HTMLDocument(MappedText.map(file, charset), store, true)
+				: new HTMLDocument(null, SegmentedText.map(file, charset), store, true);
+		doc.build(limits, plan);
+		return doc;
+	}
+
+	/**
+	 * Função que remonta um documento já lido (ver {@link HTMLSnapshot})
+	 *
+	 * @param source     código HTML
+	 * @param store      repositório dos nós
+	 * @param names      nomes, na ordem dos seus números
+	 * @param tables     nós das tabelas
+	 * @param ownsSource <code>true</code> se o código for um {@link MappedText} a
+	 *                   ser fechado com o documento
+	 * @return documento
+	 * @throws IllegalArgumentException se os nomes não começarem pelos nomes
+	 *                                  internados por todo documento
+	 */
+	static HTMLDocument restore(CharSequence source, NodeStore store, String[] names, int[] tables,
+			boolean ownsSource) {
+		HTMLDocument doc = new HTMLDocument(source, store, ownsSource);
+		for (int i = 0; i < names.length; i++)
+			if (doc.names.intern(names[i]) != i)
+				throw new IllegalArgumentException(names[i]);
+		doc.tables = tables;
+		return doc;
+	}
+
+	NodeStore getStore() {
+		return store;
+	}
+
+	/**
+	 * Função que lê o código; se algum limite for ultrapassado, os elementos
+	 * abertos são fechados na posição em que a leitura parou e o documento parcial
+	 * é anexado à exceção
+	 */
+	private void build(ParseLimits limits, ParsePlan plan) {
+		Builder b = new Builder(limits.start(), plan);
+		try {
+			b.read();
+			b.finish(length());
+		} catch (Done e) {
+			b.finish(length());
+		} catch (ParseLimitExceededException e) {
+			b.finish(b.base + e.getPosition());
+			throw e.withPartialResult(this);
+		}
+	}
+
+	// ============================== NÓS ==============================
+
+	/**
+	 * Função que retorna o nó raiz, do tipo {@link #DOCUMENT}, que contém todos os
+	 * demais
+	 *
+	 * @return índice do nó raiz
+	 */
+	public int getRoot() {
+		return 0;
+	}
+
+	/**
+	 * Função que retorna a quantidade de nós. Os nós são numerados na ordem em que
+	 * aparecem no documento.
+	 *
+	 * @return quantidade de nós
+	 */
+	public int size() {
+		return store.size();
+	}
+
+	public int getKind(int node) {
+		return store.get(node, NodeStore.KIND);
+	}
+
+	/**
+	 * Função que retorna o nome (em minúsculas) do elemento
+	 *
+	 * @param node índice do nó
+	 * @return nome do elemento, ou <code>null</code> se o nó não for um elemento
+	 */
+	public String getName(int node) {
+		return getKind(node) == ELEMENT ? names.getName(store.get(node, NodeStore.NAME)) : null;
+	}
+
+	/**
+	 * Função que retorna o número que identifica o nome do elemento na
+	 * {@link #getNames() tabela de nomes}
+	 *
+	 * @param node índice do nó
+	 * @return número do nome, ou -1 se o nó não for um elemento
+	 */
+	public int getNameId(int node) {
+		return getKind(node) == ELEMENT ? store.get(node, NodeStore.NAME) : -1;
+	}
+
+	public NameTable getNames() {
+		return names;
+	}
+
+	public int getParent(int node) {
+		return node == 0 ? -1 : store.get(node, NodeStore.PARENT);
+	}
+
+	/**
+	 * @param node índice do nó
+	 * @return primeiro filho, ou -1 se não houver
+	 */
+	public int getFirstChild(int node) {
+		int c = store.get(node, NodeStore.FIRST_CHILD);
+		return c == 0 ? -1 : c;
+	}
+
+	/**
+	 * @param node índice do nó
+	 * @return próximo irmão, ou -1 se não houver
+	 */
+	public int getNextSibling(int node) {
+		int s = store.get(node, NodeStore.NEXT_SIBLING);
+		return s == 0 ? -1 : s;
+	}
+
+	public int getDepth(int node) {
+		return store.get(node, NodeStore.DEPTH);
+	}
+
+	/**
+	 * @param node índice do nó
+	 * @return posição no código do início do nó (o '&lt;' da etiqueta de
+	 *         abertura)
+	 * @throws ArithmeticException se a posição passar de 2 GB (ver
+	 *                             {@link #getPosition(int, int)})
+	 */
+	public int getStart(int node) {
+		return intPosition(node, NodeStore.START);
+	}
+
+	/**
+	 * @param node índice do nó
+	 * @return posição no código seguinte ao fim do nó (o '&gt;' da etiqueta de
+	 *         fechamento)
+	 * @throws ArithmeticException se a posição passar de 2 GB (ver
+	 *                             {@link #getPosition(int, int)})
+	 */
+	public int getEnd(int node) {
+		return intPosition(node, NodeStore.END);
+	}
+
+	public int getContentStart(int node) {
+		return intPosition(node, NodeStore.CONTENT_START);
+	}
+
+	public int getContentEnd(int node) {
+		return intPosition(node, NodeStore.CONTENT_END);
+	}
+
+	/**
+	 * Função que retorna uma posição do nó no código, inclusive nos documentos
+	 * maiores que 2 GB
+	 *
+	 * @param node  índice do nó
+	 * @param field campo do nó (de {@link NodeStore#START} a
+	 *              {@link NodeStore#ATTR_END})
+	 * @return posição no código
+	 */
+	public long getPosition(int node, int field) {
+		return segments == null ? store.get(node, field) : store.getPosition(node, field);
+	}
+
+	private int intPosition(int node, int field) {
+		return segments == null ? store.get(node, field) : Math.toIntExact(store.getPosition(node, field));
+	}
+
+	/**
+	 * Função que retorna o índice seguinte ao último descendente do nó (como os
+	 * nós estão na ordem do documento, os descendentes são os nós entre
+	 * <code>node + 1</code> e este índice)
+	 *
+	 * @param node índice do nó
+	 * @return índice seguinte ao último descendente
+	 */
+	public int getSubtreeEnd(int node) {
+		for (int m = node; m >= 0; m = getParent(m)) {
+			int s = store.get(m, NodeStore.NEXT_SIBLING);
+			if (s != 0)
+				return s;
+		}
+		return size();
+	}
+
+	/**
+	 * Função que retorna os atributos do elemento tal como estão no código
+	 *
+	 * @param node índice do nó
+	 * @return atributos, ou <code>null</code> se não houver
+	 */
+	public String getAttributes(int node) {
+		long s = getPosition(node, NodeStore.ATTR_START), e = getPosition(node, NodeStore.ATTR_END);
+		return s < e ? text(s, e) : null;
+	}
+
+	/**
+	 * Função que retorna o valor de um atributo do elemento
+	 *
+	 * @param node índice do nó
+	 * @param name nome do atributo (em minúsculas)
+	 * @return valor do atributo (sem aspas), "" se o atributo não tiver valor, ou
+	 *         <code>null</code> se o elemento não tiver esse atributo
+	 */
+	public String getAttribute(int node, String name) {
+		AttributeIndex x = attributes();
+		int a = x.find(node, x.names.get(name));
+		return a < 0 ? null : value(node, x, a);
+	}
+
+	/**
+	 * Função que retorna o valor inteiro de um atributo do elemento (e.g.,
+	 * <code>colspan</code>)
+	 *
+	 * @param node         índice do nó
+	 * @param name         nome do atributo (em minúsculas)
+	 * @param defaultValue valor retornado se o atributo não existir ou não for um
+	 *                     número inteiro
+	 * @return valor do atributo
+	 */
+	public int getIntAttribute(int node, String name, int defaultValue) {
+		AttributeIndex x = attributes();
+		int a = x.find(node, x.names.get(name));
+		if (a < 0)
+			return defaultValue;
+		long base = getPosition(node, NodeStore.ATTR_START);
+		int v = 0, n = 0;
+		for (long i = base + x.attrs[a + 1], e = base + x.attrs[a + 2]; i < e; i++) {
+			char c = charAt(i);
+			if (c >= '0' && c <= '9' && v < 100_000_000) {
+				v = v * 10 + (c - '0');
+				n++;
+			} else if (!Character.isWhitespace(c))
+				break;
+		}
+		return n == 0 ? defaultValue : v;
+	}
+
+	/**
+	 * Função que retorna a quantidade de atributos do elemento
+	 *
+	 * @param node índice do nó
+	 * @return quantidade de atributos (inclusive os repetidos)
+	 */
+	public int getAttributeCount(int node) {
+		int[] o = attributes().offsets;
+		return (o[node + 1] - o[node]) / AttributeIndex.FIELDS;
+	}
+
+	/**
+	 * Função que retorna a tabela dos nomes dos atributos, separada da
+	 * {@link #getNames() tabela dos nomes dos elementos}. Os nomes entram nela
+	 * quando os atributos do documento são lidos pela primeira vez.
+	 *
+	 * @return tabela de nomes (só para consulta)
+	 */
+	public NameTable getAttributeNames() {
+		return attributes().names;
+	}
+
+	/**
+	 * @param node  índice do nó
+	 * @param index índice do atributo, na ordem do código
+	 * @return número do nome do atributo na {@link #getAttributeNames() tabela de
+	 *         nomes dos atributos}
+	 */
+	public int getAttributeNameId(int node, int index) {
+		AttributeIndex x = attributes();
+		return x.attrs[x.attribute(node, index)];
+	}
+
+	/**
+	 * @param node  índice do nó
+	 * @param index índice do atributo, na ordem do código
+	 * @return nome do atributo (em minúsculas)
+	 */
+	public String getAttributeName(int node, int index) {
+		AttributeIndex x = attributes();
+		return x.names.getName(x.attrs[x.attribute(node, index)]);
+	}
+
+	/**
+	 * @param node  índice do nó
+	 * @param index índice do atributo, na ordem do código
+	 * @return valor do atributo (sem aspas), ou "" se o atributo não tiver valor
+	 */
+	public String getAttributeValue(int node, int index) {
+		AttributeIndex x = attributes();
+		return value(node, x, x.attribute(node, index));
+	}
+
+	private String value(int node, AttributeIndex x, int a) {
+		long base = getPosition(node, NodeStore.ATTR_START);
+		return text(base + x.attrs[a + 1], base + x.attrs[a + 2]);
+	}
+
+	/**
+	 * Função que procura um atributo do elemento pelo número do seu nome
+	 *
+	 * @param node   índice do nó
+	 * @param nameId número do nome do atributo na {@link #getAttributeNames()
+	 *               tabela de nomes dos atributos}
+	 * @return índice do primeiro atributo com esse nome, ou -1 se não houver
+	 */
+	public int getAttributeIndex(int node, int nameId) {
+		AttributeIndex x = attributes();
+		int a = x.find(node, nameId);
+		return a < 0 ? -1 : (a - x.offsets[node]) / AttributeIndex.FIELDS;
+	}
+
+	/**
+	 * Função que verifica se dois elementos têm os mesmos atributos, com os
+	 * mesmos valores (em qualquer ordem), comparando só os números dos nomes e os
+	 * trechos dos valores no código. Os atributos na mesma ordem são comparados
+	 * numa única passada; nos demais casos, os atributos dos dois elementos são
+	 * ordenados pelos números dos nomes.
+	 *
+	 * @param a índice de um nó
+	 * @param b índice do outro nó
+	 * @return <code>true</code> se os atributos forem iguais
+	 */
+	public boolean sameAttributes(int a, int b) {
+		AttributeIndex x = attributes();
+		int[] o = x.offsets, attrs = x.attrs;
+		int i = o[a], j = o[b], n = o[a + 1] - i;
+		if (n != o[b + 1] - j)
+			return false;
+		int k = 0;
+		while (k < n && attrs[i + k] == attrs[j + k])
+			k += AttributeIndex.FIELDS;
+		long ba = getPosition(a, NodeStore.ATTR_START), bb = getPosition(b, NodeStore.ATTR_START);
+		if (k < n) {
+			// ordens diferentes
+			long[] sa = x.sorted(a), sb = x.sorted(b);
+			for (int m = 0; m < sa.length; m++)
+				if ((int) (sa[m] >>> 32) != (int) (sb[m] >>> 32))
+					return false;
+			for (int m = 0; m < sa.length; m++) {
+				int p = (int) sa[m], q = (int) sb[m];
+				if (!sameRange(ba + attrs[p + 1], ba + attrs[p + 2], bb + attrs[q + 1], bb + attrs[q + 2]))
+					return false;
+			}
+			return true;
+		}
+		for (k = 0; k < n; k += AttributeIndex.FIELDS)
+			if (!sameRange(ba + attrs[i + k + 1], ba + attrs[i + k + 2], bb + attrs[j + k + 1],
+					bb + attrs[j + k + 2]))
+				return false;
+		return true;
+	}
+
+	private boolean sameRange(long s1, long e1, long s2, long e2) {
+		if (e1 - s1 != e2 - s2)
+			return false;
+		while (s1 < e1)
+			if (charAt(s1++) != charAt(s2++))
+				return false;
+		return true;
+	}
+
+	/**
+	 * Função que lê (na primeira chamada) os atributos de todos os elementos. O
+	 * índice pronto é publicado pelo campo <code>volatile</code> e não muda
+	 * mais, de modo que as consultas podem ser feitas por várias <i>threads</i>
+	 * ao mesmo tempo.
+	 */
+	private AttributeIndex attributes() {
+		AttributeIndex x = attributes;
+		if (x == null)
+			synchronized (this) {
+				if ((x = attributes) == null)
+					attributes = x = new AttributeIndex(this);
+			}
+		return x;
+	}
+
+	/**
+	 * Atributos de todos os elementos, lidos uma única vez: os atributos do nó
+	 * <code>n</code> ocupam as posições <code>offsets[n]</code> a
+	 * <code>offsets[n + 1]</code> (exclusiva) de <code>attrs</code>, cada um com
+	 * {@value #FIELDS} inteiros (número do nome e posições inicial e final do
+	 * valor, contadas a partir do início dos atributos do nó). Os nomes ficam
+	 * numa tabela própria, e não na dos elementos, para que a leitura dos
+	 * atributos não mude o documento.
+	 */
+	private static final class AttributeIndex {
+
+		private static final int FIELDS = 3;
+
+		private final NameTable names = new NameTable();
+
+		private final int[] offsets, attrs;
+
+		private AttributeIndex(HTMLDocument doc) {
+			int n = doc.size();
+			int[] o = new int[n + 1], out = new int[Math.max(16, n)], a = new int[4];
+			int k = 0;
+			for (int node = 0; node < n; node++) {
+				o[node] = k;
+				if (doc.getKind(node) != ELEMENT)
+					continue;
+				long s = doc.getPosition(node, NodeStore.ATTR_START), e = doc.getPosition(node, NodeStore.ATTR_END);
+				CharSequence src = doc.window(s, e);
+				int start = (int) (s - doc.windowStart(s)), end = (int) (e - s) + start;
+				for (int p = start; (p = HTMLTokenizer.nextAttribute(src, p, end, a)) >= 0;) {
+					if (k + FIELDS > out.length)
+						out = Arrays.copyOf(out, out.length * 2);
+					out[k++] = names.intern(src, a[0], a[1]);
+					out[k++] = a[2] - start;
+					out[k++] = a[3] - start;
+				}
+			}
+			o[n] = k;
+			this.offsets = o;
+			this.attrs = Arrays.copyOf(out, k);
+		}
+
+		/**
+		 * @return posição do atributo em <code>attrs</code>
+		 */
+		private int attribute(int node, int index) {
+			int a = offsets[node] + index * FIELDS;
+			if (index < 0 || a >= offsets[node + 1])
+				throw new IndexOutOfBoundsException(Integer.toString(index));
+			return a;
+		}
+
+		/**
+		 * Função que procura um atributo pelo número do nome
+		 *
+		 * @return posição do atributo em <code>attrs</code>, ou -1 se não houver
+		 */
+		private int find(int node, int nameId) {
+			if (nameId < 0)
+				return -1;
+			for (int i = offsets[node], e = offsets[node + 1]; i < e; i += FIELDS)
+				if (attrs[i] == nameId)
+					return i;
+			return -1;
+		}
+
+		/**
+		 * Função que ordena os atributos de um nó pelo número do nome (e, entre os
+		 * repetidos, pela ordem do código)
+		 *
+		 * @return número do nome (32 bits mais significativos) e posição em
+		 *         <code>attrs</code> de cada atributo
+		 */
+		private long[] sorted(int node) {
+			int s = offsets[node];
+			long[] out = new long[(offsets[node + 1] - s) / FIELDS];
+			for (int m = 0; m < out.length; m++, s += FIELDS)
+				out[m] = (long) attrs[s] << 32 | s;
+			Arrays.sort(out);
+			return out;
+		}
+	}
+
+	/**
+	 * Função que retorna o texto do nó: o próprio texto, se for um nó de texto, ou
+	 * o conteúdo sem as etiquetas, se for um elemento
+	 *
+	 * @param node índice do nó
+	 * @return texto
+	 */
+	public String getText(int node) {
+		if (getKind(node) == TEXT)
+			return text(getPosition(node, NodeStore.START), getPosition(node, NodeStore.END));
+		return stripTags(getPosition(node, NodeStore.CONTENT_START), getPosition(node, NodeStore.CONTENT_END));
+	}
+
+	/**
+	 * @param node índice do nó
+	 * @return código HTML do conteúdo do nó (sem as etiquetas do próprio nó)
+	 */
+	public String getInnerHTML(int node) {
+		return text(getPosition(node, NodeStore.CONTENT_START), getPosition(node, NodeStore.CONTENT_END));
+	}
+
+	/**
+	 * @param node índice do nó
+	 * @return código HTML do nó (com as etiquetas do próprio nó)
+	 */
+	public String getOuterHTML(int node) {
+		return text(getPosition(node, NodeStore.START), getPosition(node, NodeStore.END));
+	}
+
+	/**
+	 * Função que procura todos os elementos com um dado nome
+	 *
+	 * @param name nome do elemento
+	 * @return índices dos elementos, na ordem do documento
+	 */
+	public int[] getElements(String name) {
+		return getElements(0, name);
+	}
+
+	/**
+	 * Função que procura os descendentes de um nó com um dado nome
+	 *
+	 * @param node índice do nó
+	 * @param name nome do elemento
+	 * @return índices dos elementos, na ordem do documento
+	 */
+	public int[] getElements(int node, String name) {
+		int id = names.get(name);
+		if (id < 0)
+			return new int[0];
+		int[] out = new int[16];
+		int n = 0;
+		for (int i = node + 1, end = getSubtreeEnd(node); i < end; i++)
+			if (store.get(i, NodeStore.KIND) == ELEMENT && store.get(i, NodeStore.NAME) == id) {
+				if (n == out.length)
+					out = Arrays.copyOf(out, n * 2);
+				out[n++] = i;
+			}
+		return Arrays.copyOf(out, n);
+	}
+
+	/**
+	 * @return código HTML
+	 * @throws UnsupportedOperationException se o documento for maior que 2 GB,
+	 *                                       cujo código não cabe numa
+	 *                                       {@link CharSequence}
+	 */
+	public CharSequence getSource() {
+		if (segments != null)
+			throw new UnsupportedOperationException("Documento maior que 2 GB");
+		return source;
+	}
+
+	// ============================== TABELAS ==============================
+
+	/**
+	 * Função que retorna a quantidade de tabelas (inclusive as aninhadas) do
+	 * documento
+	 *
+	 * @return quantidade de tabelas
+	 */
+	public int getTableCount() {
+		return tables().length;
+	}
+
+	/**
+	 * Função que retorna o nó de uma tabela. As tabelas são numeradas na ordem de
+	 * suas etiquetas de abertura, como em {@link HTML#getCellContent(String, int, int, int)}.
+	 *
+	 * @param tableIndex índice da tabela
+	 * @return índice do nó, ou -1 se a tabela não existir
+	 */
+	public int getTable(int tableIndex) {
+		int[] ts = tables();
+		return tableIndex >= 0 && tableIndex < ts.length ? ts[tableIndex] : -1;
+	}
+
+	int[] tables() {
+		if (tables == null)
+			tables = getElements("table");
+		return tables;
+	}
+
+	/**
+	 * Função que retorna as linhas de uma tabela, sem as linhas das tabelas
+	 * aninhadas
+	 *
+	 * @param table índice do nó da tabela
+	 * @return índices dos nós das linhas
+	 */
+	public int[] getRows(int table) {
+		int[] out = new int[16];
+		int n = 0;
+		for (int i = table + 1, end = getSubtreeEnd(table); i < end;) {
+			int id = getNameId(i);
+			if (id == trId) {
+				if (n == out.length)
+					out = Arrays.copyOf(out, n * 2);
+				out[n++] = i;
+				i = getSubtreeEnd(i);
+			} else if (id == tableId)
+				i = getSubtreeEnd(i);
+			else
+				i++;
+		}
+		return Arrays.copyOf(out, n);
+	}
+
+	/**
+	 * Função que retorna as células (<code>td</code> e <code>th</code>) de uma
+	 * linha
+	 *
+	 * @param row índice do nó da linha
+	 * @return índices dos nós das células
+	 */
+	public int[] getCells(int row) {
+		int[] out = new int[8];
+		int n = 0;
+		for (int c = getFirstChild(row); c >= 0; c = getNextSibling(c)) {
+			int id = getNameId(c);
+			if (id == tdId || id == thId) {
+				if (n == out.length)
+					out = Arrays.copyOf(out, n * 2);
+				out[n++] = c;
+			}
+		}
+		return Arrays.copyOf(out, n);
+	}
+
+	/**
+	 * Função equivalente a {@link HTML#getCellContent(String, int, int, int)}
+	 *
+	 * @param tableIndex  índice da tabela
+	 * @param rowIndex    índice da linha
+	 * @param columnIndex índice da coluna
+	 * @return conteúdo da célula procurada (sem etiquetas), ou <code>null</code>
+	 *         se a tabela, a coluna ou a linha não existem
+	 */
+	public String getCellContent(int tableIndex, int rowIndex, int columnIndex) {
+		int cell = getCell(tableIndex, rowIndex, columnIndex);
+		return cell < 0 ? null : getText(cell);
+	}
+
+	/**
+	 * Função que retorna o nó de uma célula
+	 *
+	 * @param tableIndex  índice da tabela
+	 * @param rowIndex    índice da linha
+	 * @param columnIndex índice da coluna
+	 * @return índice do nó da célula, ou -1 se a tabela, a coluna ou a linha não
+	 *         existem
+	 */
+	public int getCell(int tableIndex, int rowIndex, int columnIndex) {
+		int table = getTable(tableIndex);
+		if (table < 0)
+			return -1;
+		int[] rows = getRows(table);
+		if (rowIndex < 0 || rowIndex >= rows.length)
+			return -1;
+		int[] cells = getCells(rows[rowIndex]);
+		return columnIndex >= 0 && columnIndex < cells.length ? cells[columnIndex] : -1;
+	}
+
+	/**
+	 * Função equivalente a {@link HTML#getColumnsContentL(String, boolean, int, int...)}
+	 *
+	 * @param remove       <code>true</code> para remover os prefixos e sufixos
+	 *                     <...> e </...>, <code>false</code> para manter
+	 * @param tableIndex   índice da tabela
+	 * @param columnsIndex vetor com os índices das colunas (vetor de tamanho zero
+	 *                     para pegar todas as colunas)
+	 * @return lista com o conteúdo das célula das colunas indicadas, ou
+	 *         <code>null</code> se a tabela não existir
+	 */
+	public List<String[]> getColumnsContentL(boolean remove, int tableIndex, int... columnsIndex) {
+		return getColumnsContentL(remove, null, tableIndex, columnsIndex);
+	}
+
+	/**
+	 * Função equivalente a {@link #getColumnsContentL(boolean, int, int...)}, mas
+	 * que guarda uma única <code>String</code> para cada valor distinto das
+	 * células
+	 *
+	 * @param remove       <code>true</code> para remover os prefixos e sufixos
+	 *                     <...> e </...>, <code>false</code> para manter
+	 * @param dictionary   dicionário dos valores, que pode ser compartilhado entre
+	 *                     várias extrações (<code>null</code> para não
+	 *                     compartilhar os valores)
+	 * @param tableIndex   índice da tabela
+	 * @param columnsIndex vetor com os índices das colunas (vetor de tamanho zero
+	 *                     para pegar todas as colunas)
+	 * @return lista com o conteúdo das célula das colunas indicadas, ou
+	 *         <code>null</code> se a tabela não existir
+	 */
+	public List<String[]> getColumnsContentL(boolean remove, CellDictionary dictionary, int tableIndex,
+			int... columnsIndex) {
+		int table = getTable(tableIndex);
+		if (table < 0)
+			return null;
+		LinkedList<String[]> out = new LinkedList<>();
+		for (int row : getRows(table)) {
+			int[] cells = getCells(row);
+			String[] r;
+			if (columnsIndex.length > 0) {
+				r = new String[columnsIndex.length];
+				for (int i = 0; i < columnsIndex.length; i++)
+					if (columnsIndex[i] < cells.length)
+						r[i] = cellContent(cells[columnsIndex[i]], remove, dictionary);
+			} else {
+				r = new String[cells.length];
+				for (int i = 0; i < cells.length; i++)
+					r[i] = cellContent(cells[i], remove, dictionary);
+			}
+			out.add(r);
+		}
+		return out;
+	}
+
+	/**
+	 * Função que extrai colunas de uma tabela codificadas por um dicionário: cada
+	 * célula vira o código do seu valor, e cada valor distinto é guardado uma
+	 * única vez no dicionário
+	 *
+	 * @param remove       <code>true</code> para remover os prefixos e sufixos
+	 *                     <...> e </...>, <code>false</code> para manter
+	 * @param dictionary   dicionário dos valores, que pode ser compartilhado entre
+	 *                     várias extrações (<code>null</code> para um dicionário
+	 *                     novo)
+	 * @param tableIndex   índice da tabela
+	 * @param columnsIndex vetor com os índices das colunas (vetor de tamanho zero
+	 *                     para pegar todas as colunas)
+	 * @return colunas codificadas, ou <code>null</code> se a tabela não existir
+	 */
+	public CellDictionary.Columns getEncodedColumns(boolean remove, CellDictionary dictionary, int tableIndex,
+			int... columnsIndex) {
+		int table = getTable(tableIndex);
+		if (table < 0)
+			return null;
+		if (dictionary == null)
+			dictionary = new CellDictionary();
+		int[] rows = getRows(table);
+		int[][] cells = new int[rows.length][];
+		int columns = columnsIndex.length;
+		for (int r = 0; r < rows.length; r++) {
+			cells[r] = getCells(rows[r]);
+			if (columnsIndex.length == 0)
+				columns = Math.max(columns, cells[r].length);
+		}
+		int[][] codes = new int[columns][rows.length];
+		for (int c = 0; c < columns; c++) {
+			int column = columnsIndex.length > 0 ? columnsIndex[c] : c;
+			for (int r = 0; r < rows.length; r++)
+				codes[c][r] = column < cells[r].length ? dictionary.code(this, cells[r][column], remove)
+						: CellDictionary.NULL;
+		}
+		return new CellDictionary.Columns(codes, rows.length, dictionary);
+	}
+
+	/**
+	 * Função equivalente a {@link HTML#getColumnsContent(String, boolean, int, int...)}
+	 *
+	 * @param remove       <code>true</code> para remover os prefixos e sufixos
+	 *                     <...> e </...>, <code>false</code> para manter
+	 * @param tableIndex   índice da tabela
+	 * @param columnsIndex vetor com os índices das colunas (vetor de tamanho zero
+	 *                     para pegar todas as colunas)
+	 * @return matriz com o conteúdo das célula das colunas indicadas, ou
+	 *         <code>null</code> se a tabela não existir
+	 */
+	public String[][] getColumnsContent(boolean remove, int tableIndex, int... columnsIndex) {
+		List<String[]> list = getColumnsContentL(remove, tableIndex, columnsIndex);
+		return list == null ? null : list.toArray(new String[list.size()][]);
+	}
+
+	/**
+	 * Função que lê o esquema de uma tabela: os nomes das colunas, das linhas de
+	 * cabeçalho do começo da tabela (ver {@link TableSchema})
+	 *
+	 * @param tableIndex índice da tabela
+	 * @param cache      esquemas já lidos, que pode ser compartilhado entre
+	 *                   documentos (<code>null</code> para ler sempre)
+	 * @return esquema, ou <code>null</code> se a tabela não existir
+	 */
+	public TableSchema getSchema(int tableIndex, TableSchema.Cache cache) {
+		int table = getTable(tableIndex);
+		return table < 0 ? null
+				: TableSchema.of(this, getRows(table), TableGrid.build(this, table, TableGrid.SpanMode.REPEAT), cache);
+	}
+
+	/**
+	 * Função que procura uma tabela e retorna o conteúdo das colunas indicadas
+	 * pelos nomes (ver {@link TableSchema}), sem as linhas de cabeçalho. As linhas
+	 * da tabela são percorridas uma única vez, para montar a sua
+	 * {@link TableGrid grade} (uma célula com <code>rowspan</code> ou
+	 * <code>colspan</code> aparece em todas as colunas que cobre), e o cabeçalho
+	 * é lido só se o leiaute não estiver no cache.
+	 *
+	 * @param remove      <code>true</code> para remover os prefixos e sufixos
+	 *                    <...> e </...>, <code>false</code> para manter
+	 * @param cache       esquemas já lidos, que pode ser compartilhado entre
+	 *                    documentos (<code>null</code> para ler sempre)
+	 * @param tableIndex  índice da tabela
+	 * @param columnNames nomes das colunas (vetor de tamanho zero para pegar todas
+	 *                    as colunas); as colunas sem cabeçalho com o nome
+	 *                    indicado vêm vazias (<code>null</code>)
+	 * @return lista com o conteúdo das célula das colunas indicadas, ou
+	 *         <code>null</code> se a tabela não existir
+	 */
+	public List<String[]> getNamedColumnsContentL(boolean remove, TableSchema.Cache cache, int tableIndex,
+			String... columnNames) {
+		int table = getTable(tableIndex);
+		if (table < 0)
+			return null;
+		TableGrid grid = TableGrid.build(this, table, TableGrid.SpanMode.REPEAT);
+		TableSchema schema = TableSchema.of(this, getRows(table), grid, cache);
+		int[] columns = schema.indicesOf(columnNames);
+		if (columns.length == 0) {
+			columns = new int[grid.getColumnCount()];
+			for (int i = 0; i < columns.length; i++)
+				columns[i] = i;
+		}
+		LinkedList<String[]> out = new LinkedList<>();
+		for (int r = schema.getHeaderRows(); r < grid.getRowCount(); r++) {
+			String[] row = new String[columns.length];
+			for (int i = 0; i < columns.length; i++) {
+				int cell = grid.getCell(r, columns[i]);
+				if (cell >= 0)
+					row[i] = cellContent(cell, remove, null);
+			}
+			out.add(row);
+		}
+		return out;
+	}
+
+	/**
+	 * Função equivalente a
+	 * {@link #getNamedColumnsContentL(boolean, TableSchema.Cache, int, String...)},
+	 * que retorna uma matriz
+	 *
+	 * @param remove      <code>true</code> para remover os prefixos e sufixos
+	 *                    <...> e </...>, <code>false</code> para manter
+	 * @param cache       esquemas já lidos (<code>null</code> para ler sempre)
+	 * @param tableIndex  índice da tabela
+	 * @param columnNames nomes das colunas
+	 * @return matriz com o conteúdo das célula das colunas indicadas, ou
+	 *         <code>null</code> se a tabela não existir
+	 */
+	public String[][] getNamedColumnsContent(boolean remove, TableSchema.Cache cache, int tableIndex,
+			String... columnNames) {
+		List<String[]> list = getNamedColumnsContentL(remove, cache, tableIndex, columnNames);
+		return list == null ? null : list.toArray(new String[list.size()][]);
+	}
+
+	/**
+	 * @return número do nome, ou -1 se nenhum elemento do documento tiver esse
+	 *         nome
+	 */
+	int nameId(String name) {
+		return names.get(name);
+	}
+
+	String cellContent(int cell, boolean remove) {
+		return cellContent(cell, remove, null);
+	}
+
+	private String cellContent(int cell, boolean remove, CellDictionary dictionary) {
+		if (dictionary != null)
+			return dictionary.get(dictionary.code(this, cell, remove));
+		if (!remove)
+			return getOuterHTML(cell);
+		String s = getInnerHTML(cell);
+		return s.isEmpty() ? null : s;
+	}
+
+	// ============================== ÁRVORE ==============================
+
+	/**
+	 * Função que monta a árvore no formato de {@link HTML#getTreeHTML(String)} a
+	 * partir do primeiro elemento do documento (ver {@link HTMLTree})
+	 *
+	 * @return árvore que organiza o código HTML
+	 * @deprecated usar {@link HTMLTree#toTree(HTMLDocument)}
+	 */
+	@Deprecated
+	public DefaultMutableTreeNode toTree() {
+		return HTMLTree.toTree(this);
+	}
+
+	/**
+	 * Função que monta a árvore no formato de {@link HTML#getTreeHTML(String)} a
+	 * partir de um nó (ver {@link HTMLTree})
+	 *
+	 * @param node índice do nó
+	 * @return árvore que organiza o código HTML
+	 * @deprecated usar {@link HTMLTree#toTree(HTMLDocument, int)}
+	 */
+	@Deprecated
+	public DefaultMutableTreeNode toTree(int node) {
+		return HTMLTree.toTree(this, node);
+	}
+
+	// ============================== TEXTO ==============================
+
+	/**
+	 * Função que retorna um trecho do código (decodificado, se for o caso de um
+	 * {@link MappedText})
+	 *
+	 * @param start posição inicial
+	 * @param end   posição final (exclusiva)
+	 * @return trecho do código
+	 */
+	public String text(int start, int end) {
+		return text((long) start, (long) end);
+	}
+
+	/**
+	 * Função que retorna um trecho do código, inclusive nos documentos maiores
+	 * que 2 GB (em que o trecho não pode passar de
+	 * {@value SegmentedText#WINDOW_STRIDE} bytes)
+	 *
+	 * @param start posição inicial
+	 * @param end   posição final (exclusiva)
+	 * @return trecho do código
+	 */
+	public String text(long start, long end) {
+		if (segments != null)
+			return segments.decode(start, end);
+		if (source instanceof MappedText)
+			return ((MappedText) source).decode((int) start, (int) end);
+		return source.subSequence((int) start, (int) end).toString();
+	}
+
+	private String stripTags(long start, long end) {
+		CharSequence src = window(start, end);
+		long o = windowStart(start);
+		int p = (int) (start - o), e = (int) (end - o);
+		StringBuilder sb = new StringBuilder(e - p);
+		while (p < e) {
+			int lt = DelimiterScanner.indexOf(src, '<', p, e);
+			if (lt < 0)
+				lt = e;
+			if (p < lt)
+				sb.append(text(o + p, o + lt));
+			if (lt == e)
+				break;
+			int gt = DelimiterScanner.indexOf(src, '>', lt, e);
+			p = gt < 0 ? e : gt + 1;
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * @return tamanho do código
+	 */
+	private long length() {
+		return segments == null ? source.length() : segments.length();
+	}
+
+	char charAt(long index) {
+		return segments == null ? source.charAt((int) index) : segments.charAt(index);
+	}
+
+	/**
+	 * Função que retorna a sequência de caracteres que contém um trecho do
+	 * código: o próprio código ou, nos documentos maiores que 2 GB, a janela
+	 * mapeada (ver {@link SegmentedText#window(long, long)}). A posição
+	 * <code>p</code> do código é a posição <code>p - </code>{@link #windowStart(long)
+	 * windowStart(start)} da sequência.
+	 *
+	 * @param start posição inicial
+	 * @param end   posição final (exclusiva)
+	 * @return sequência de caracteres
+	 */
+	CharSequence window(long start, long end) {
+		return segments == null ? source : segments.window(start, end);
+	}
+
+	/**
+	 * @param start posição inicial de um trecho
+	 * @return posição do código em que começa a {@link #window(long, long)
+	 *         sequência} do trecho
+	 */
+	long windowStart(long start) {
+		return segments == null ? 0 : segments.windowStart(start);
+	}
+
+	/**
+	 * Função que libera a estrutura do documento (e o arquivo mapeado, se o
+	 * documento foi {@link #open(Path, Charset) aberto a partir de um arquivo})
+	 */
+	@Override
+	public void close() {
+		store.close();
+		if (segments != null)
+			segments.close();
+		else if (ownsSource)
+			((MappedText) source).close();
+	}
+
+	// ============================== LEITURA ==============================
+
+	static boolean isVoid(String name) {
+		return Arrays.binarySearch(VOID_ELEMENTS, name) >= 0;
+	}
+
+	/**
+	 * Receptor que monta os nós a partir dos eventos do {@link HTMLTokenizer}
+	 */
+	private class Builder implements TokenHandler {
+
+		private int[] stack = new int[64], stackNames = new int[64], last = new int[64];
+
+		private int top;
+
+		private final int tbodyId = names.intern("tbody"), theadId = names.intern("thead"),
+				tfootId = names.intern("tfoot"), liId = names.intern("li"), ulId = names.intern("ul"),
+				olId = names.intern("ol"), optionId = names.intern("option"), selectId = names.intern("select"),
+				dtId = names.intern("dt"), ddId = names.intern("dd"), dlId = names.intern("dl"),
+				pId = names.intern("p");
+
+		private final int[] cells = { tdId, thId }, rowBounds = { trId, tableId }, rows = { trId },
+				sectionBounds = { tableId, theadId, tbodyId, tfootId }, sections = { theadId, tbodyId, tfootId },
+				tables = { tableId }, items = { liId }, lists = { ulId, olId }, options = { optionId },
+				selects = { selectId }, definitions = { dtId, ddId }, definitionLists = { dlId };
+
+		private final boolean[] voids = new boolean[64];
+
+		private final ParseLimits.Budget budget;
+
+		private final ParsePlan plan;
+
+		/**
+		 * elementos selecionados pelo nome (por número do nome), nível na pilha da
+		 * raiz da parte selecionada que está sendo lida (0 se nenhuma) e
+		 * quantidade de tabelas já lidas
+		 */
+		private boolean[] selected;
+
+		private int keepLevel, tableCount;
+
+		/**
+		 * posição do código em que começa a sequência lida (a janela, nos
+		 * documentos maiores que 2 GB)
+		 */
+		private long base;
+
+		Builder(ParseLimits.Budget budget, ParsePlan plan) {
+			this.budget = budget;
+			this.plan = plan;
+			String[] elements = plan.getElements();
+			if (elements != null) {
+				int[] ids = new int[elements.length];
+				for (int i = 0; i < ids.length; i++)
+					ids[i] = names.intern(elements[i]);
+				selected = new boolean[names.size()];
+				for (int id : ids)
+					selected[id] = true;
+			}
+			store.add(); // raiz
+			store.set(0, NodeStore.KIND, DOCUMENT);
+			store.set(0, NodeStore.NAME, -1);
+			store.set(0, NodeStore.PARENT, -1);
+			position(0, NodeStore.END, length());
+			position(0, NodeStore.CONTENT_END, length());
+			for (String v : VOID_ELEMENTS)
+				markVoid(names.intern(v));
+		}
+
+		private void markVoid(int id) {
+			if (id < voids.length)
+				voids[id] = true;
+		}
+
+		private boolean isVoidId(int id) {
+			return id < voids.length ? voids[id] : isVoid(names.getName(id));
+		}
+
+		private boolean keeping() {
+			return keepLevel > 0 || plan.isAll();
+		}
+
+		/**
+		 * Função que lê o código; os documentos maiores que 2 GB são lidos uma
+		 * janela de cada vez, cada uma até a última etiqueta completa, e a janela
+		 * seguinte começa nela
+		 */
+		void read() {
+			if (segments == null) {
+				budget.checkInput(source.length());
+				HTMLTokenizer.tokenize(source, this);
+				return;
+			}
+			long n = segments.length();
+			budget.checkInput((int) Math.min(n, Integer.MAX_VALUE));
+			for (long p = 0;;) {
+				base = segments.windowStart(p);
+				MappedText w = segments.window(p, p);
+				int from = (int) (p - base);
+				if (base + w.length() == n) {
+					HTMLTokenizer.tokenize(w, from, w.length(), this);
+					return;
+				}
+				int q = HTMLTokenizer.tokenize(w, from, w.length(), this, true);
+				if (q == from)
+					// etiqueta, comentário ou texto bruto de mais de 1 GB: lido
+					// como se terminasse no fim da janela
+					q = HTMLTokenizer.tokenize(w, from, w.length(), this, false);
+				p = base + q;
+			}
+		}
+
+		/**
+		 * Função que escreve uma posição da sequência lida num campo do nó
+		 */
+		private void position(int node, int field, long pos) {
+			if (segments == null)
+				store.set(node, field, (int) pos);
+			else
+				store.setPosition(node, field, pos);
+		}
+
+		@Override
+		public void text(CharSequence src, int start, int end) {
+			budget.step(start);
+			if (!plan.hasText() || !keeping())
+				return;
+			int p = start;
+			while (p < end && Character.isWhitespace(src.charAt(p)))
+				p++;
+			if (p == end)
+				return; // só espaços
+			budget.checkNodes(store.size() + 1, start);
+			int node = add(TEXT, -1, start, end);
+			position(node, NodeStore.CONTENT_START, base + start);
+			position(node, NodeStore.CONTENT_END, base + end);
+		}
+
+		@Override
+		public void startTag(CharSequence src, int start, int nameStart, int nameEnd, int attrStart, int attrEnd,
+				int end, boolean selfClosing) {
+			budget.step(start);
+			int id = names.intern(src, nameStart, nameEnd);
+			closeImplied(id, base + start);
+			budget.checkDepth(top + 1, start);
+			int table = id == tableId ? tableCount++ : -1;
+			boolean open = !selfClosing && !isVoidId(id), root = !keeping() && isSelected(id, table);
+			if (keeping() || root) {
+				budget.checkNodes(store.size() + 1, start);
+				int node = add(ELEMENT, id, start, end);
+				position(node, NodeStore.ATTR_START, base + attrStart);
+				position(node, NodeStore.ATTR_END, base + attrEnd);
+				position(node, NodeStore.CONTENT_START, base + end);
+				if (!open)
+					position(node, NodeStore.CONTENT_END, base + end);
+				else {
+					push(node, id);
+					if (root)
+						keepLevel = top;
+				}
+			} else if (open)
+				push(0, id); // elemento fora das partes selecionadas: sem nó
+			if (table >= 0 && !keeping() && plan.isDone(table))
+				throw Done.INSTANCE;
+		}
+
+		private boolean isSelected(int id, int table) {
+			if (!plan.hasDepth(top))
+				return false;
+			if (!plan.hasSelection())
+				return true;
+			return (table >= 0 && plan.hasTable(table)) || (selected != null && id < selected.length && selected[id]);
+		}
+
+		@Override
+		public void endTag(CharSequence src, int start, int nameStart, int nameEnd, int end) {
+			budget.step(start);
+			int id = names.get(src, nameStart, nameEnd);
+			if (id < 0)
+				return;
+			for (int l = top; l > 0; l--)
+				if (stackNames[l] == id) {
+					popTo(l + 1, base + start);
+					if (stack[l] != 0) {
+						position(stack[l], NodeStore.CONTENT_END, base + start);
+						position(stack[l], NodeStore.END, base + end);
+					}
+					setTop(l - 1);
+					return;
+				}
+		}
+
+		@Override
+		public void comment(CharSequence src, int start, int end) {
+			budget.step(start);
+		}
+
+		void finish(long pos) {
+			popTo(1, pos);
+			setTop(0);
+		}
+
+		private int add(int kind, int name, int start, int end) {
+			int node = store.add();
+			int parent = stack[top];
+			// as partes selecionadas fora de outras são filhas da raiz
+			int level = parent == 0 ? 0 : top;
+			store.set(node, NodeStore.KIND, kind);
+			store.set(node, NodeStore.NAME, name);
+			position(node, NodeStore.START, base + start);
+			position(node, NodeStore.END, base + end);
+			store.set(node, NodeStore.PARENT, parent);
+			store.set(node, NodeStore.DEPTH, top);
+			if (last[level] == 0)
+				store.set(parent, NodeStore.FIRST_CHILD, node);
+			else
+				store.set(last[level], NodeStore.NEXT_SIBLING, node);
+			last[level] = node;
+			return node;
+		}
+
+		private void push(int node, int id) {
+			if (++top == stack.length) {
+				stack = Arrays.copyOf(stack, top * 2);
+				stackNames = Arrays.copyOf(stackNames, top * 2);
+				last = Arrays.copyOf(last, top * 2);
+			}
+			stack[top] = node;
+			stackNames[top] = id;
+			last[top] = 0;
+		}
+
+		/**
+		 * Função que fecha implicitamente os elementos dos níveis
+		 * <code>level</code> até o topo da pilha
+		 */
+		private void popTo(int level, long pos) {
+			for (int l = top; l >= level; l--)
+				if (stack[l] != 0) {
+					position(stack[l], NodeStore.CONTENT_END, pos);
+					position(stack[l], NodeStore.END, pos);
+				}
+			if (level <= top)
+				setTop(level - 1);
+		}
+
+		private void setTop(int t) {
+			top = t;
+			if (top < keepLevel) {
+				keepLevel = 0;
+				if (tableCount > 0 && plan.isDone(tableCount - 1))
+					throw Done.INSTANCE;
+			}
+		}
+
+		/**
+		 * Função que fecha os elementos cuja etiqueta de fechamento é opcional (e.g.,
+		 * um <code>td</code> aberto é fechado pelo <code>td</code> seguinte)
+		 */
+		private void closeImplied(int id, long pos) {
+			int l = -1;
+			if (id == tdId || id == thId)
+				l = findOpen(cells, rowBounds);
+			else if (id == trId)
+				l = findOpen(rows, sectionBounds);
+			else if (id == theadId || id == tbodyId || id == tfootId)
+				l = findOpen(sections, tables);
+			else if (id == liId)
+				l = findOpen(items, lists);
+			else if (id == optionId)
+				l = findOpen(options, selects);
+			else if (id == dtId || id == ddId)
+				l = findOpen(definitions, definitionLists);
+			else if ((id == pId || id == tableId || id == ulId || id == olId || id == dlId) && top > 0
+					&& stackNames[top] == pId)
+				l = top;
+			if (l > 0)
+				popTo(l, pos);
+		}
+
+		private int findOpen(int[] targets, int[] boundaries) {
+			for (int l = top; l > 0; l--) {
+				int n = stackNames[l];
+				for (int t : targets)
+					if (n == t)
+						return l;
+				for (int b : boundaries)
+					if (n == b)
+						return -1;
+			}
+			return -1;
+		}
+	}
+
+	/**
+	 * Sinal de que o {@link ParsePlan plano de leitura} já foi cumprido e o
+	 * restante do código não precisa ser lido
+	 */
+	private static final class Done extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+
+		static final Done INSTANCE = new Done();
+
+		private Done() {
+			super(null, null, false, false);
+		}
+	}
+}
@@ -0,0 +1,457 @@
+package br.com.pereiraeng.html;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Leitura de código HTML em bytes (arquivos, respostas HTTP), com a detecção da
+ * codificação: primeiro pela marca de ordem de bytes (BOM), depois pelo
+ * <code>&lt;meta charset&gt;</code> (ou <code>&lt;meta http-equiv&gt;</code>)
+ * nos primeiros {@value #SNIFF_LENGTH} bytes e, por fim, pela validade dos
+ * primeiros bytes em UTF-8 (senão, Windows-1252, que inclui o Latim-1). Como
+ * nos navegadores, "ISO-8859-1" e "US-ASCII" são lidos como Windows-1252.
+ * <p>
+ * Os bytes são decodificados numa única passada, sem <code>String</code>
+ * intermediária: ASCII, Latim-1, Windows-1252 e UTF-8 por laços diretos sobre
+ * os bytes, e as demais codificações pelo {@link java.nio.charset.CharsetDecoder}
+ * do Java.
+ */
+public final class HTMLInput {
+
+	/**
+	 * Quantidade de bytes examinados para a detecção da codificação
+	 */
+	public static final int SNIFF_LENGTH = 1024;
+
+	public static final Charset WINDOWS_1252 = Charset.forName("windows-1252");
+
+	/**
+	 * caracteres dos bytes 0x80 a 0x9F em Windows-1252 (os demais são iguais ao
+	 * Latim-1)
+	 */
+	private static final char[] C1 = new char[32];
+
+	static {
+		byte[] b = new byte[32];
+		for (int i = 0; i < 32; i++)
+			b[i] = (byte) (0x80 + i);
+		new String(b, WINDOWS_1252).getChars(0, 32, C1, 0);
+	}
+
+	private static final int BUFFER = 8 * 1024;
+
+	private HTMLInput() {
+	}
+
+	// ============================== DETECÇÃO ==============================
+
+	/**
+	 * Função que detecta a codificação pela marca de ordem de bytes ou pelo
+	 * <code>&lt;meta&gt;</code> nos primeiros {@value #SNIFF_LENGTH} bytes
+	 *
+	 * @param b   bytes
+	 * @param off posição inicial
+	 * @param len quantidade de bytes
+	 * @return codificação, ou <code>null</code> se não for declarada
+	 */
+	public static Charset sniff(byte[] b, int off, int len) {
+		Charset bom = bom(b, off, len);
+		if (bom != null)
+			return bom;
+		return meta(new String(b, off, Math.min(len, SNIFF_LENGTH), StandardCharsets.ISO_8859_1));
+	}
+
+	/**
+	 * Função que detecta a codificação como {@link #sniff(byte[], int, int)} e,
+	 * se ela não for declarada, pela validade dos bytes em UTF-8
+	 *
+	 * @param b   bytes
+	 * @param off posição inicial
+	 * @param len quantidade de bytes
+	 * @return codificação
+	 */
+	public static Charset detect(byte[] b, int off, int len) {
+		return detect(b, off, len, len > SNIFF_LENGTH);
+	}
+
+	/**
+	 * @param truncated <code>true</code> se os bytes forem só o começo do código
+	 */
+	private static Charset detect(byte[] b, int off, int len, boolean truncated) {
+		Charset cs = sniff(b, off, len);
+		if (cs != null)
+			return cs;
+		return isUTF8(b, off, Math.min(len, SNIFF_LENGTH), truncated || len > SNIFF_LENGTH) ? StandardCharsets.UTF_8
+				: WINDOWS_1252;
+	}
+
+	/**
+	 * Função que detecta a codificação dos bytes de um {@link ByteBuffer} (e.g.,
+	 * um arquivo mapeado), a partir da sua posição
+	 *
+	 * @param bb bytes
+	 * @return codificação
+	 */
+	public static Charset detect(ByteBuffer bb) {
+		byte[] head = new byte[Math.min(bb.remaining(), SNIFF_LENGTH)];
+		bb.duplicate().get(head);
+		return detect(head, 0, head.length);
+	}
+
+	/**
+	 * Função que retorna o tamanho da marca de ordem de bytes de uma codificação
+	 *
+	 * @param b       bytes
+	 * @param off     posição inicial
+	 * @param len     quantidade de bytes
+	 * @param charset codificação
+	 * @return tamanho da marca, ou 0 se os bytes não começarem por ela
+	 */
+	static int bomLength(byte[] b, int off, int len, Charset charset) {
+		Charset bom = bom(b, off, len);
+		if (bom == null || !bom.equals(charset))
+			return 0;
+		return bom.equals(StandardCharsets.UTF_8) ? 3 : 2;
+	}
+
+	private static Charset bom(byte[] b, int off, int len) {
+		if (len >= 3 && b[off] == (byte) 0xEF && b[off + 1] == (byte) 0xBB && b[off + 2] == (byte) 0xBF)
+			return StandardCharsets.UTF_8;
+		if (len >= 2 && b[off] == (byte) 0xFF && b[off + 1] == (byte) 0xFE)
+			return StandardCharsets.UTF_16LE;
+		if (len >= 2 && b[off] == (byte) 0xFE && b[off + 1] == (byte) 0xFF)
+			return StandardCharsets.UTF_16BE;
+		return null;
+	}
+
+	/**
+	 * Função que procura a codificação declarada num <code>&lt;meta&gt;</code>
+	 */
+	private static Charset meta(String head) {
+		Charset[] out = new Charset[1];
+		HTMLTokenizer.tokenize(head, 0, head.length(), new TokenHandler() {
+
+			@Override
+			public void startTag(CharSequence src, int start, int nameStart, int nameEnd, int attrStart,
+					int attrEnd, int end, boolean selfClosing) {
+				if (out[0] != null || !HTMLTokenizer.regionMatches(src, nameStart, nameEnd, "meta"))
+					return;
+				long cs = HTMLTokenizer.findAttribute(src, attrStart, attrEnd, "charset");
+				if (cs >= 0) {
+					out[0] = charset(src.subSequence((int) (cs >>> 32), (int) cs).toString());
+					return;
+				}
+				long equiv = HTMLTokenizer.findAttribute(src, attrStart, attrEnd, "http-equiv");
+				long content = HTMLTokenizer.findAttribute(src, attrStart, attrEnd, "content");
+				if (equiv < 0 || content < 0 || !HTMLTokenizer.regionMatches(src, (int) (equiv >>> 32), (int) equiv,
+						"content-type"))
+					return;
+				String c = src.subSequence((int) (content >>> 32), (int) content).toString();
+				int i = c.toLowerCase(Locale.ROOT).indexOf("charset=");
+				if (i >= 0) {
+					int s = i + 8, e = s;
+					while (e < c.length() && c.charAt(e) != ';' && !Character.isWhitespace(c.charAt(e)))
+						e++;
+					out[0] = charset(c.substring(s, e).replace("\"", "").replace("'", ""));
+				}
+			}
+
+			@Override
+			public void endTag(CharSequence src, int start, int nameStart, int nameEnd, int end) {
+			}
+
+			@Override
+			public void text(CharSequence src, int start, int end) {
+			}
+
+			@Override
+			public void comment(CharSequence src, int start, int end) {
+			}
+		}, true);
+		return out[0];
+	}
+
+	/**
+	 * Função que retorna a codificação de um nome declarado no código, com as
+	 * trocas feitas pelos navegadores
+	 *
+	 * @return codificação, ou <code>null</code> se não for conhecida
+	 */
+	private static Charset charset(String label) {
+		label = label.trim().toLowerCase(Locale.ROOT);
+		switch (label) {
+		case "iso-8859-1":
+		case "iso8859-1":
+		case "latin1":
+		case "l1":
+		case "us-ascii":
+		case "ascii":
+			return WINDOWS_1252;
+		case "utf-16":
+		case "utf-16le":
+		case "utf-16be":
+			return StandardCharsets.UTF_8; // o <meta> só é lido em codificações compatíveis com ASCII
+		default:
+			try {
+				return Charset.forName(label);
+			} catch (IllegalArgumentException e) {
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * Função que verifica se os bytes são UTF-8 válido (se o trecho tiver sido
+	 * cortado, uma sequência incompleta no fim é aceita)
+	 */
+	static boolean isUTF8(byte[] b, int off, int len, boolean truncated) {
+		int end = off + len;
+		for (int i = off; i < end;) {
+			int c = b[i] & 0xFF;
+			int n = c < 0x80 ? 0 : c >= 0xC2 && c < 0xE0 ? 1 : c >= 0xE0 && c < 0xF0 ? 2 : c >= 0xF0 && c < 0xF5 ? 3 : -1;
+			if (n < 0)
+				return false;
+			i++;
+			for (int k = 0; k < n; k++, i++)
+				if (i < end ? (b[i] & 0xC0) != 0x80 : !truncated)
+					return false;
+		}
+		return true;
+	}
+
+	// ============================== LEITURA ==============================
+
+	/**
+	 * Função que detecta a codificação de um fluxo e retorna o leitor dos seus
+	 * caracteres (sem a marca de ordem de bytes). O fluxo é fechado juntamente com
+	 * o leitor.
+	 *
+	 * @param in bytes do código HTML
+	 * @return leitor dos caracteres
+	 * @throws IOException se houver erro de leitura
+	 */
+	public static Reader newReader(InputStream in) throws IOException {
+		byte[] buf = new byte[BUFFER];
+		int n = 0, r = 0;
+		while (n < SNIFF_LENGTH && (r = in.read(buf, n, buf.length - n)) >= 0)
+			n += r;
+		return newReader(in, buf, n, detect(buf, 0, n, r >= 0));
+	}
+
+	/**
+	 * Função que retorna o leitor dos caracteres de um fluxo numa codificação
+	 * conhecida (sem a marca de ordem de bytes, se houver). O fluxo é fechado
+	 * juntamente com o leitor.
+	 *
+	 * @param in      bytes do código HTML
+	 * @param charset codificação
+	 * @return leitor dos caracteres
+	 * @throws IOException se houver erro de leitura
+	 */
+	public static Reader newReader(InputStream in, Charset charset) throws IOException {
+		byte[] buf = new byte[BUFFER];
+		int n = 0, r;
+		while (n < 3 && (r = in.read(buf, n, buf.length - n)) >= 0)
+			n += r;
+		return newReader(in, buf, n, charset);
+	}
+
+	private static Reader newReader(InputStream in, byte[] buf, int n, Charset charset) {
+		int bom = bomLength(buf, 0, n, charset);
+		if (charset.equals(StandardCharsets.UTF_8))
+			return new Decoder(in, buf, bom, n, Decoder.UTF8);
+		if (charset.equals(StandardCharsets.ISO_8859_1))
+			return new Decoder(in, buf, bom, n, Decoder.LATIN1);
+		if (charset.equals(WINDOWS_1252) || charset.equals(StandardCharsets.US_ASCII))
+			return new Decoder(in, buf, bom, n, Decoder.CP1252);
+		return new InputStreamReader(new SequenceInputStream(new ByteArrayInputStream(buf, bom, n - bom), in),
+				charset.newDecoder());
+	}
+
+	/**
+	 * Função que lê todo o código de um fluxo, detectando a codificação. O fluxo
+	 * não é fechado.
+	 *
+	 * @param in bytes do código HTML
+	 * @return caracteres do código
+	 * @throws IOException se houver erro de leitura
+	 */
+	public static CharArrayText read(InputStream in) throws IOException {
+		return CharArrayText.read(newReader(new Unclosed(in)), 64 * 1024);
+	}
+
+	/**
+	 * Função que decodifica o código em bytes, detectando a codificação
+	 *
+	 * @param b   bytes
+	 * @param off posição inicial
+	 * @param len quantidade de bytes
+	 * @return caracteres do código
+	 */
+	public static CharArrayText decode(byte[] b, int off, int len) {
+		try {
+			return CharArrayText.read(newReader(new ByteArrayInputStream(b, off, len)), len + 16);
+		} catch (IOException e) {
+			throw new IllegalStateException(e); // não ocorre com ByteArrayInputStream
+		}
+	}
+
+	/**
+	 * Fluxo que não fecha o fluxo original
+	 */
+	private static final class Unclosed extends java.io.FilterInputStream {
+
+		Unclosed(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+
+	/**
+	 * Leitor de bytes em ASCII, Latim-1, Windows-1252 ou UTF-8, com laços diretos
+	 * sobre os bytes (as sequências inválidas de UTF-8 viram U+FFFD)
+	 */
+	private static final class Decoder extends Reader {
+
+		static final int LATIN1 = 0, CP1252 = 1, UTF8 = 2;
+
+		private final InputStream in;
+
+		private final int mode;
+
+		private byte[] buf;
+
+		private int pos, limit;
+
+		private boolean eof;
+
+		/**
+		 * segunda metade de um par substituto que não coube no vetor
+		 */
+		private int pending = -1;
+
+		Decoder(InputStream in, byte[] buf, int pos, int limit, int mode) {
+			this.in = in;
+			this.buf = buf;
+			this.pos = pos;
+			this.limit = limit;
+			this.mode = mode;
+		}
+
+		/**
+		 * Função que garante ao menos <code>n</code> bytes no vetor (se o fluxo
+		 * ainda tiver)
+		 */
+		private boolean fill(int n) throws IOException {
+			if (limit - pos >= n)
+				return true;
+			if (eof)
+				return false;
+			System.arraycopy(buf, pos, buf, 0, limit - pos);
+			limit -= pos;
+			pos = 0;
+			while (limit < n) {
+				int r = in.read(buf, limit, buf.length - limit);
+				if (r < 0) {
+					eof = true;
+					return false;
+				}
+				limit += r;
+			}
+			return true;
+		}
+
+		@Override
+		public int read(char[] cbuf, int off, int len) throws IOException {
+			if (len == 0)
+				return 0;
+			int o = off, end = off + len;
+			if (pending >= 0) {
+				cbuf[o++] = (char) pending;
+				pending = -1;
+			}
+			while (o < end) {
+				if (pos == limit && !fill(1))
+					break;
+				if (mode == UTF8) {
+					// ASCII
+					int p = pos, stop = Math.min(limit, p + (end - o));
+					byte b;
+					while (p < stop && (b = buf[p]) >= 0) {
+						cbuf[o++] = (char) b;
+						p++;
+					}
+					pos = p;
+					if (o < end && pos < limit)
+						o = utf8(cbuf, o, end);
+				} else {
+					int n = Math.min(limit - pos, end - o);
+					for (int i = 0; i < n; i++) {
+						int c = buf[pos + i] & 0xFF;
+						cbuf[o + i] = mode == CP1252 && c >= 0x80 && c < 0xA0 ? C1[c - 0x80] : (char) c;
+					}
+					pos += n;
+					o += n;
+				}
+			}
+			return o == off ? -1 : o - off;
+		}
+
+		/**
+		 * Função que decodifica uma sequência de UTF-8 com mais de um byte
+		 *
+		 * @return nova posição no vetor de caracteres
+		 */
+		private int utf8(char[] cbuf, int o, int end) throws IOException {
+			int c = buf[pos] & 0xFF;
+			int n = c >= 0xC2 && c < 0xE0 ? 1 : c >= 0xE0 && c < 0xF0 ? 2 : c >= 0xF0 && c < 0xF5 ? 3 : -1;
+			if (n < 0) {
+				pos++;
+				cbuf[o] = '\uFFFD';
+				return o + 1;
+			}
+			fill(n + 1);
+			int cp = c & (0x3F >> n), k = 1;
+			for (; k <= n && pos + k < limit; k++) {
+				int d = buf[pos + k];
+				if ((d & 0xC0) != 0x80)
+					break;
+				cp = (cp << 6) | (d & 0x3F);
+			}
+			if (k <= n || (n == 2 && (cp < 0x800 || (cp >= 0xD800 && cp < 0xE000)))
+					|| (n == 3 && (cp < 0x10000 || cp > 0x10FFFF))) {
+				pos += k; // sequência inválida: um U+FFFD
+				cbuf[o] = '\uFFFD';
+				return o + 1;
+			}
+			pos += n + 1;
+			if (cp < 0x10000) {
+				cbuf[o] = (char) cp;
+				return o + 1;
+			}
+			cbuf[o++] = Character.highSurrogate(cp);
+			if (o < end)
+				cbuf[o++] = Character.lowSurrogate(cp);
+			else
+				pending = Character.lowSurrogate(cp);
+			return o;
+		}
+
+		@Override
+		public void close() throws IOException {
+			buf = null;
+			in.close();
+		}
+	}
+}
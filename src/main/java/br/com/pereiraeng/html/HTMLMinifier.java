@@ -0,0 +1,460 @@
+package br.com.pereiraeng.html;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Classe que reduz o tamanho de um código HTML numa única passada, lendo-o de
+ * um {@link Reader} e escrevendo-o num {@link Writer} à medida que é lido
+ * (como o {@link HTMLSanitizer}). Aplica-se a mesma junção de
+ * {@link HTML#otimizarHTML(javax.swing.tree.DefaultMutableTreeNode)} (elementos
+ * de formatação vizinhos e iguais, e.g., <code>&lt;b&gt;a&lt;/b&gt;&lt;b&gt;b&lt;/b&gt;</code>
+ * vira <code>&lt;b&gt;ab&lt;/b&gt;</code>), além de:
+ * <ul>
+ * <li>redução de cada sequência de espaços a um só espaço, e remoção dos
+ * espaços junto aos elementos de bloco (exceto dentro de <code>pre</code>,
+ * <code>textarea</code>, <code>script</code> e <code>style</code>);</li>
+ * <li>remoção das etiquetas de fechamento opcionais (e.g.,
+ * <code>&lt;/td&gt;</code> seguido de <code>&lt;td&gt;</code> ou de
+ * <code>&lt;/tr&gt;</code>);</li>
+ * <li>remoção das aspas dos valores de atributos que não precisam delas, e dos
+ * espaços nas declarações de <code>style</code>;</li>
+ * <li>remoção dos comentários (exceto os condicionais,
+ * <code>&lt;!--[if ...]&gt;</code>).</li>
+ * </ul>
+ * As etiquetas de fechamento ficam retidas até que se saiba se podem ser
+ * removidas ou juntadas, mas nunca mais do que {@value #MAX_PENDING} de uma
+ * vez.
+ */
+public class HTMLMinifier {
+
+	/**
+	 * Quantidade máxima de etiquetas de fechamento retidas
+	 */
+	public static final int MAX_PENDING = 32;
+
+	private static final int BLOCK = 1, FORMATTING = 2, PRESERVE = 4, VOID = 8, PARENT_END = 16, FOREIGN = 32;
+
+	private static final Set<String> BLOCK_ELEMENTS = set("address", "article", "aside", "blockquote", "body",
+			"br", "caption", "col", "colgroup", "dd", "details", "div", "dl", "dt", "fieldset", "figcaption", "figure",
+			"footer", "form", "h1", "h2", "h3", "h4", "h5", "h6", "head", "header", "hr", "html", "li", "link", "main",
+			"meta", "nav", "ol", "optgroup", "option", "p", "pre", "section", "select", "table", "tbody", "td",
+			"tfoot", "th", "thead", "title", "tr", "ul");
+
+	private static final Set<String> FORMATTING_ELEMENTS = set("b", "big", "code", "del", "em", "font", "i", "ins",
+			"mark", "s", "small", "span", "strong", "sub", "sup", "tt", "u");
+
+	private static final Set<String> PRESERVE_ELEMENTS = set("pre", "textarea", "script", "style");
+
+	/**
+	 * elementos de conteúdo estrangeiro, dentro dos quais a barra de
+	 * <code>&lt;circle/&gt;</code> fecha o elemento
+	 */
+	private static final Set<String> FOREIGN_ELEMENTS = set("svg", "math");
+
+	/**
+	 * elementos cuja etiqueta de fechamento pode ser omitida quando o elemento pai
+	 * termina logo em seguida
+	 */
+	private static final Set<String> PARENT_END_ELEMENTS = set("li", "dd", "p", "option", "optgroup", "tbody",
+			"tfoot", "tr", "td", "th", "body", "html");
+
+	/**
+	 * elementos pais que exigem o fechamento explícito de <code>p</code>
+	 */
+	private static final Set<String> P_PARENTS = set("a", "audio", "del", "ins", "map", "noscript", "video");
+
+	/**
+	 * elementos cuja etiqueta de fechamento pode ser omitida quando seguida da
+	 * abertura de um dos elementos associados
+	 */
+	private static final Map<String, Set<String>> CLOSED_BY = new HashMap<>();
+
+	static {
+		Set<String> p = set("address", "article", "aside", "blockquote", "details", "div", "dl", "fieldset",
+				"figcaption", "figure", "footer", "form", "h1", "h2", "h3", "h4", "h5", "h6", "header", "hr", "main",
+				"nav", "ol", "p", "pre", "section", "table", "ul");
+		CLOSED_BY.put("p", p);
+		CLOSED_BY.put("li", set("li"));
+		CLOSED_BY.put("dt", set("dt", "dd"));
+		CLOSED_BY.put("dd", set("dt", "dd"));
+		CLOSED_BY.put("option", set("option", "optgroup"));
+		CLOSED_BY.put("optgroup", set("optgroup"));
+		CLOSED_BY.put("thead", set("tbody", "tfoot"));
+		CLOSED_BY.put("tbody", set("tbody", "tfoot"));
+		CLOSED_BY.put("tr", set("tr"));
+		CLOSED_BY.put("td", set("td", "th"));
+		CLOSED_BY.put("th", set("td", "th"));
+		CLOSED_BY.put("head", set("body"));
+	}
+
+	private static Set<String> set(String... names) {
+		return Collections.unmodifiableSet(new HashSet<>(Arrays.asList(names)));
+	}
+
+	private HTMLMinifier() {
+	}
+
+	/**
+	 * Função que reduz um código HTML
+	 *
+	 * @param html código HTML
+	 * @return código reduzido
+	 */
+	public static String minify(String html) {
+		return new Minifier().run(html);
+	}
+
+	/**
+	 * Função que reduz um código HTML. Nenhum dos dois fluxos é fechado.
+	 *
+	 * @param in  código HTML
+	 * @param out código reduzido
+	 * @throws IOException se houver erro de leitura ou de escrita
+	 */
+	public static void minify(Reader in, Writer out) throws IOException {
+		new Minifier().run(in, out);
+	}
+
+	/**
+	 * Receptor dos eventos do {@link HTMLTokenizer}, que escreve o código reduzido
+	 */
+	private static class Minifier extends StreamFilter {
+
+		private final NameTable names = new NameTable();
+
+		private int[] flags = new int[32];
+
+		private final int[] attr = new int[4];
+
+		private final StringBuilder attrs = new StringBuilder();
+
+		/**
+		 * elementos abertos e seus atributos
+		 */
+		private int[] open = new int[16];
+
+		private String[] openAttrs = new String[16];
+
+		private int top = -1;
+
+		/**
+		 * quantidade de elementos abertos cujo texto não é alterado
+		 */
+		private int preserve;
+
+		/**
+		 * quantidade de elementos <code>svg</code> e <code>math</code> abertos
+		 */
+		private int foreign;
+
+		/**
+		 * etiquetas de fechamento retidas e os atributos dos elementos que elas
+		 * fecham
+		 */
+		private final int[] pending = new int[MAX_PENDING];
+
+		private final String[] pendingAttrs = new String[MAX_PENDING];
+
+		private int pendingCount;
+
+		/**
+		 * se há espaço retido e se o último trecho escrito foi uma etiqueta de bloco
+		 */
+		private boolean space, afterBlock = true;
+
+		@Override
+		public void startTag(CharSequence src, int start, int nameStart, int nameEnd, int attrStart, int attrEnd,
+				int end, boolean selfClosing) {
+			int id = id(src, nameStart, nameEnd);
+			String key = attributes(src, attrStart, attrEnd);
+			boolean block = is(id, BLOCK);
+
+			// fechamento implícito (e.g., <li> dentro de <li>)
+			if (top >= 0 && closedBy(open[top], id))
+				pop();
+
+			if (pendingCount > 0 && !space) {
+				int last = pendingCount - 1;
+				if (pending[last] == id && is(id, FORMATTING) && key.equals(pendingAttrs[last])) {
+					// junção: </b><b> some e o elemento continua aberto
+					pendingCount--;
+					push(id, key);
+					afterBlock = false;
+					return;
+				}
+			}
+			writeSpace(block);
+			if (pendingCount > 0) {
+				if (closedBy(pending[pendingCount - 1], id))
+					pendingCount--;
+				flushPending();
+			}
+
+			sb.append('<').append(names.getName(id)).append(key);
+			if (selfClosing && (foreign > 0 || is(id, FOREIGN))) {
+				// dentro de svg e math, <circle/> fecha o elemento; sem aspas, a barra
+				// seria lida como parte do último valor (r=1/)
+				if (bareValue(key))
+					sb.append(' ');
+				sb.append("/>");
+			} else {
+				// a barra de <div/> é ignorada pelo navegador: o elemento continua
+				// aberto até o seu fechamento, como qualquer outro
+				sb.append('>');
+				if (!is(id, VOID))
+					push(id, key);
+			}
+			afterBlock = block;
+		}
+
+		@Override
+		public void endTag(CharSequence src, int start, int nameStart, int nameEnd, int end) {
+			int id = names.get(src, nameStart, nameEnd);
+			int i = top;
+			while (i >= 0 && open[i] != id)
+				i--;
+			if (i < 0)
+				return; // fechamento sem abertura
+			boolean parentEnd = i == top, block = is(id, BLOCK);
+			// elementos fechados implicitamente no código original
+			while (top > i)
+				pop();
+			String key = openAttrs[top];
+			pop();
+
+			writeSpace(block);
+			if (pendingCount > 0) {
+				int last = pending[pendingCount - 1];
+				if (!is(last, FORMATTING)) {
+					if (parentEnd && is(last, PARENT_END)
+							&& !("p".equals(names.getName(last)) && P_PARENTS.contains(names.getName(id))))
+						pendingCount--;
+					flushPending();
+				} else if (!is(id, FORMATTING))
+					flushPending();
+			}
+
+			if (is(id, FORMATTING) || is(id, PARENT_END) || CLOSED_BY.containsKey(names.getName(id))) {
+				if (pendingCount == MAX_PENDING)
+					flushPending();
+				pending[pendingCount] = id;
+				pendingAttrs[pendingCount++] = key;
+			} else {
+				flushPending();
+				sb.append("</").append(names.getName(id)).append('>');
+			}
+			afterBlock = block;
+		}
+
+		@Override
+		public void text(CharSequence src, int start, int end) {
+			if (preserve > 0) {
+				flushPending();
+				sb.append(src, start, end);
+				afterBlock = false;
+				return;
+			}
+			for (int i = start; i < end; i++) {
+				char c = src.charAt(i);
+				if (Character.isWhitespace(c))
+					space = true;
+				else {
+					writeSpace(false);
+					if (pendingCount > 0)
+						flushPending();
+					sb.append(c);
+					afterBlock = false;
+				}
+			}
+		}
+
+		@Override
+		public void comment(CharSequence src, int start, int end) {
+			if (DelimiterScanner.regionEquals(src, start, end, "<!--")
+					&& !DelimiterScanner.regionEquals(src, start, end, "<!--[if"))
+				return;
+			// <!DOCTYPE ...>, <?...?> e comentários condicionais
+			writeSpace(true);
+			flushPending();
+			sb.append(src, start, end);
+			afterBlock = true;
+		}
+
+		@Override
+		void finish() {
+			// o fim do código fecha o elemento pai
+			while (pendingCount > 0 && is(pending[pendingCount - 1], PARENT_END))
+				pendingCount--;
+			flushPending();
+		}
+
+		/**
+		 * Função que escreve o espaço retido, a menos que ele esteja junto a uma
+		 * etiqueta de bloco
+		 *
+		 * @param block se o próximo trecho é uma etiqueta de bloco
+		 */
+		private void writeSpace(boolean block) {
+			if (!space)
+				return;
+			space = false;
+			if (block || afterBlock)
+				return;
+			flushPending();
+			sb.append(' ');
+		}
+
+		private void flushPending() {
+			for (int i = 0; i < pendingCount; i++)
+				sb.append("</").append(names.getName(pending[i])).append('>');
+			pendingCount = 0;
+		}
+
+		private void push(int id, String key) {
+			if (++top == open.length) {
+				open = Arrays.copyOf(open, top * 2);
+				openAttrs = Arrays.copyOf(openAttrs, top * 2);
+			}
+			open[top] = id;
+			openAttrs[top] = key;
+			if (is(id, PRESERVE))
+				preserve++;
+			if (is(id, FOREIGN))
+				foreign++;
+		}
+
+		private void pop() {
+			if (is(open[top], PRESERVE))
+				preserve--;
+			if (is(open[top], FOREIGN))
+				foreign--;
+			openAttrs[top--] = null;
+		}
+
+		/**
+		 * @param key atributos reescritos
+		 * @return <code>true</code> se o último atributo tiver valor sem aspas
+		 */
+		private static boolean bareValue(String key) {
+			int n = key.length();
+			if (n == 0 || key.charAt(n - 1) == '"' || key.charAt(n - 1) == '\'')
+				return false;
+			return key.indexOf('=', key.lastIndexOf(' ')) >= 0;
+		}
+
+		private boolean closedBy(int id, int next) {
+			Set<String> s = CLOSED_BY.get(names.getName(id));
+			return s != null && s.contains(names.getName(next));
+		}
+
+		private boolean is(int id, int flag) {
+			return id >= 0 && (flags[id] & flag) != 0;
+		}
+
+		private int id(CharSequence src, int start, int end) {
+			int id = names.intern(src, start, end);
+			if (id >= flags.length)
+				flags = Arrays.copyOf(flags, flags.length * 2);
+			if (flags[id] == 0) {
+				String n = names.getName(id);
+				int f = Integer.MIN_VALUE; // já calculado
+				if (BLOCK_ELEMENTS.contains(n))
+					f |= BLOCK;
+				if (FORMATTING_ELEMENTS.contains(n))
+					f |= FORMATTING;
+				if (PRESERVE_ELEMENTS.contains(n))
+					f |= PRESERVE;
+				if (HTMLDocument.isVoid(n))
+					f |= VOID;
+				if (PARENT_END_ELEMENTS.contains(n))
+					f |= PARENT_END;
+				if (FOREIGN_ELEMENTS.contains(n))
+					f |= FOREIGN;
+				flags[id] = f;
+			}
+			return id;
+		}
+
+		/**
+		 * Função que reescreve os atributos na forma mais curta
+		 *
+		 * @return atributos (cada um precedido de espaço), ou "" se não houver
+		 */
+		private String attributes(CharSequence src, int start, int end) {
+			if (start == end)
+				return "";
+			attrs.setLength(0);
+			for (int p = start; (p = HTMLTokenizer.nextAttribute(src, p, end, attr)) >= 0;) {
+				attrs.append(' ');
+				int n = attrs.length();
+				for (int i = attr[0]; i < attr[1]; i++)
+					attrs.append(Character.toLowerCase(src.charAt(i)));
+				if (attr[2] == attr[3])
+					continue; // vazio: basta o nome
+				String value = src.subSequence(attr[2], attr[3]).toString();
+				if ("style".contentEquals(attrs.subSequence(n, attrs.length())))
+					value = compactStyle(value);
+				attrs.append('=');
+				appendValue(value);
+			}
+			return attrs.toString();
+		}
+
+		private void appendValue(String value) {
+			boolean bare = value.length() > 0 && value.charAt(value.length() - 1) != '/';
+			boolean dq = false, sq = false;
+			for (int i = 0; i < value.length(); i++) {
+				char c = value.charAt(i);
+				if (c == '"')
+					dq = true;
+				else if (c == '\'')
+					sq = true;
+				if (Character.isWhitespace(c) || c == '"' || c == '\'' || c == '=' || c == '<' || c == '>'
+						|| c == '`')
+					bare = false;
+			}
+			if (bare)
+				attrs.append(value);
+			else if (dq && !sq)
+				attrs.append('\'').append(value).append('\'');
+			else
+				attrs.append('"').append(dq ? value.replace("\"", "&quot;") : value).append('"');
+		}
+	}
+
+	/**
+	 * Função que remove os espaços desnecessários de uma declaração de estilo
+	 * (e.g., "color: red; font-size: 10px;" vira "color:red;font-size:10px")
+	 *
+	 * @param style declaração de estilo
+	 * @return declaração sem espaços desnecessários
+	 */
+	static String compactStyle(String style) {
+		for (int i = 0; i < style.length(); i++) {
+			char c = style.charAt(i);
+			if (c == '(' || c == '"' || c == '\'' || c == '\\')
+				return style.trim(); // url(...), textos etc.: não se mexe
+		}
+		StringBuilder sb = new StringBuilder(style.length());
+		for (String d : style.split(";")) {
+			int colon = d.indexOf(':');
+			if (colon < 0) {
+				if (d.trim().length() > 0)
+					sb.append(d.trim()).append(';');
+				continue;
+			}
+			sb.append(d.substring(0, colon).trim()).append(':').append(d.substring(colon + 1).trim()).append(';');
+		}
+		if (sb.length() > 0)
+			sb.setLength(sb.length() - 1);
+		return sb.toString();
+	}
+}
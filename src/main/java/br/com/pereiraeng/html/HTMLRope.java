@@ -0,0 +1,299 @@
+package br.com.pereiraeng.html;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Documento HTML montado como uma lista de trechos guardados por referência
+ * (sem cópia), e.g., o {@link HTML#getHead(String, String, String) cabeçalho},
+ * várias tabelas e o {@link HTML#TAIL fim}. Os trechos só são copiados uma vez,
+ * ao escrever o documento: num {@link WritableByteChannel}, são codificados em
+ * blocos de tamanho fixo e enviados de uma só vez para o canal (escrita
+ * "gather", se o canal a suportar), de modo que a memória usada é a dos trechos,
+ * e não um múltiplo dela.
+ * <p>
+ * Um documento não pode ser alterado por várias <i>threads</i> ao mesmo tempo,
+ * mas cada <i>thread</i> pode montar o seu e depois juntá-lo ao documento
+ * principal com {@link #append(HTMLRope)}, também por referência. Os trechos
+ * (inclusive as tabelas, que só são escritas em HTML ao escrever o documento)
+ * não devem ser alterados até lá.
+ */
+public class HTMLRope {
+
+	/**
+	 * Tamanho de cada bloco codificado e quantidade de blocos enviados de uma vez
+	 * para o canal
+	 */
+	static final int BLOCK = 64 * 1024, BLOCKS = 16;
+
+	/**
+	 * trechos: {@link CharSequence}, {@link HTMLRope} ou tabela
+	 * (<code>List</code>)
+	 */
+	private Object[] parts = new Object[16];
+
+	private int size;
+
+	private long length;
+
+	/**
+	 * Função que acrescenta um trecho, por referência
+	 *
+	 * @param s trecho
+	 * @return este documento
+	 */
+	public HTMLRope append(CharSequence s) {
+		if (s.length() > 0) {
+			add(s);
+			length += s.length();
+		}
+		return this;
+	}
+
+	/**
+	 * Função que acrescenta outro documento, por referência (e.g., montado por
+	 * outra <i>thread</i>). O outro documento não pode conter este.
+	 *
+	 * @param rope documento
+	 * @return este documento
+	 */
+	public HTMLRope append(HTMLRope rope) {
+		if (rope == this)
+			throw new IllegalArgumentException("rope appended to itself");
+		add(rope);
+		return this;
+	}
+
+	/**
+	 * Função que acrescenta uma tabela, escrita em HTML (como em
+	 * {@link HTML#toHTML(List, Appendable)}) só ao escrever o documento
+	 *
+	 * @param table lista de linhas, cada uma sendo uma lista com o conteúdo das
+	 *              células
+	 * @return este documento
+	 */
+	public HTMLRope appendTable(List<?> table) {
+		add(new Table(table));
+		return this;
+	}
+
+	/**
+	 * Função que junta vários documentos (e.g., montados em paralelo) num só, na
+	 * ordem da lista
+	 *
+	 * @param ropes documentos
+	 * @return documento que contém os demais, por referência
+	 */
+	public static HTMLRope concat(List<HTMLRope> ropes) {
+		HTMLRope out = new HTMLRope();
+		for (HTMLRope r : ropes)
+			out.append(r);
+		return out;
+	}
+
+	private void add(Object part) {
+		if (size == parts.length)
+			parts = Arrays.copyOf(parts, size * 2);
+		parts[size++] = part;
+	}
+
+	/**
+	 * Função que retorna a quantidade de caracteres dos trechos de texto (sem
+	 * contar as tabelas, que ainda não foram escritas)
+	 *
+	 * @return quantidade de caracteres
+	 */
+	public long length() {
+		long out = length;
+		for (int i = 0; i < size; i++)
+			if (parts[i] instanceof HTMLRope)
+				out += ((HTMLRope) parts[i]).length();
+		return out;
+	}
+
+	// ============================== ESCRITA ==============================
+
+	/**
+	 * Função que escreve o documento
+	 *
+	 * @param out destino
+	 * @throws IOException se houver erro de escrita
+	 */
+	public void writeTo(Appendable out) throws IOException {
+		for (int i = 0; i < size; i++) {
+			Object p = parts[i];
+			if (p instanceof CharSequence)
+				out.append((CharSequence) p);
+			else if (p instanceof HTMLRope)
+				((HTMLRope) p).writeTo(out);
+			else
+				HTML.toHTML(((Table) p).rows, out);
+		}
+	}
+
+	/**
+	 * Função que escreve o documento num canal (e.g., um
+	 * {@link java.nio.channels.FileChannel}), que não é fechado
+	 *
+	 * @param channel canal
+	 * @param charset codificação
+	 * @return quantidade de bytes escritos
+	 * @throws IOException se houver erro de escrita, ou se algum caractere não
+	 *                     puder ser codificado
+	 */
+	public long writeTo(WritableByteChannel channel, Charset charset) throws IOException {
+		ChannelSink sink = new ChannelSink(channel, charset);
+		writeTo(sink);
+		return sink.finish();
+	}
+
+	/**
+	 * Função que junta os trechos numa <code>String</code> (só para documentos
+	 * pequenos; os grandes devem ser escritos com
+	 * {@link #writeTo(WritableByteChannel, Charset)})
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder((int) Math.min(Integer.MAX_VALUE - 8, length()));
+		try {
+			writeTo(sb);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e); // não ocorre com StringBuilder
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Tabela escrita só ao escrever o documento
+	 */
+	private static final class Table {
+
+		private final List<?> rows;
+
+		Table(List<?> rows) {
+			this.rows = rows;
+		}
+	}
+
+	/**
+	 * Destino que codifica os caracteres em blocos de {@value HTMLRope#BLOCK}
+	 * bytes e envia {@value HTMLRope#BLOCKS} blocos de uma vez para o canal
+	 */
+	private static final class ChannelSink implements Appendable {
+
+		private final WritableByteChannel channel;
+
+		private final CharsetEncoder encoder;
+
+		private final CharBuffer chars = CharBuffer.allocate(8 * 1024);
+
+		private final ByteBuffer[] blocks = new ByteBuffer[BLOCKS];
+
+		private int block;
+
+		private long written;
+
+		ChannelSink(WritableByteChannel channel, Charset charset) {
+			this.channel = channel;
+			this.encoder = charset.newEncoder().onMalformedInput(CodingErrorAction.REPORT)
+					.onUnmappableCharacter(CodingErrorAction.REPORT);
+			for (int i = 0; i < BLOCKS; i++)
+				blocks[i] = ByteBuffer.allocateDirect(BLOCK);
+		}
+
+		@Override
+		public Appendable append(CharSequence csq) throws IOException {
+			return append(csq, 0, csq.length());
+		}
+
+		@Override
+		public Appendable append(CharSequence csq, int start, int end) throws IOException {
+			while (start < end) {
+				int n = Math.min(chars.remaining(), end - start);
+				if (csq instanceof String)
+					((String) csq).getChars(start, start + n, chars.array(), chars.arrayOffset() + chars.position());
+				else
+					for (int i = 0; i < n; i++)
+						chars.array()[chars.arrayOffset() + chars.position() + i] = csq.charAt(start + i);
+				chars.position(chars.position() + n);
+				start += n;
+				if (!chars.hasRemaining())
+					encode(false);
+			}
+			return this;
+		}
+
+		@Override
+		public Appendable append(char c) throws IOException {
+			if (!chars.hasRemaining())
+				encode(false);
+			chars.put(c);
+			return this;
+		}
+
+		private void encode(boolean end) throws IOException {
+			chars.flip();
+			while (true) {
+				CoderResult r = encoder.encode(chars, blocks[block], end);
+				if (r.isOverflow())
+					nextBlock();
+				else if (r.isError())
+					r.throwException();
+				else
+					break;
+			}
+			chars.compact(); // um par substituto incompleto fica para o próximo trecho
+		}
+
+		private void nextBlock() throws IOException {
+			if (block + 1 == BLOCKS)
+				flush();
+			else
+				block++;
+		}
+
+		/**
+		 * Função que envia os blocos cheios (e o corrente) para o canal
+		 */
+		private void flush() throws IOException {
+			int n = block + 1;
+			for (int i = 0; i < n; i++)
+				blocks[i].flip();
+			if (channel instanceof GatheringByteChannel) {
+				GatheringByteChannel g = (GatheringByteChannel) channel;
+				while (blocks[n - 1].hasRemaining())
+					written += g.write(blocks, 0, n);
+			} else
+				for (int i = 0; i < n; i++)
+					while (blocks[i].hasRemaining())
+						written += channel.write(blocks[i]);
+			for (int i = 0; i < n; i++)
+				blocks[i].clear();
+			block = 0;
+		}
+
+		long finish() throws IOException {
+			encode(true);
+			if (chars.position() > 0)
+				throw new CharacterCodingException(); // par substituto incompleto
+			CoderResult r;
+			while ((r = encoder.flush(blocks[block])).isOverflow())
+				nextBlock();
+			if (r.isError())
+				r.throwException();
+			flush();
+			return written;
+		}
+	}
+}
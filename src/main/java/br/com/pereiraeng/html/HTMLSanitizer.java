@@ -0,0 +1,291 @@
+package br.com.pereiraeng.html;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Filtro que remove de um código HTML tudo o que não estiver na
+ * {@link SanitizerPolicy lista de permissões}, numa única passada e sem
+ * expressões regulares. O código é lido de um {@link Reader} em blocos de
+ * tamanho fixo e escrito num {@link Writer} à medida que é lido, de modo que a
+ * memória usada não depende do tamanho do código (só do tamanho da maior
+ * etiqueta ou comentário, limitado a {@value #MAX_CONSTRUCT} caracteres).
+ * <ul>
+ * <li>etiquetas não permitidas são removidas, mantendo-se o seu conteúdo
+ * (exceto o de <code>script</code>, <code>style</code> etc., que também é
+ * removido);</li>
+ * <li>atributos não permitidos, e atributos com endereço de esquema não
+ * permitido (e.g., <code>javascript:</code>, mesmo escrito com entidades), são
+ * removidos;</li>
+ * <li>comentários são removidos;</li>
+ * <li>as etiquetas de fechamento sem abertura são removidas e as que faltam são
+ * acrescentadas;</li>
+ * <li>'&lt;', '&gt;' e '&amp;' soltos no texto são escritos como
+ * entidades.</li>
+ * </ul>
+ * O filtro pode ser usado por várias <i>threads</i> ao mesmo tempo.
+ */
+public class HTMLSanitizer {
+
+	/**
+	 * Tipo de trecho removido
+	 */
+	public static enum Construct {
+		TAG, CONTENT, ATTRIBUTE, URL, COMMENT
+	}
+
+	/**
+	 * Receptor dos avisos de trechos removidos
+	 */
+	@FunctionalInterface
+	public static interface Listener {
+		/**
+		 * @param construct tipo de trecho
+		 * @param name      nome da etiqueta, ou etiqueta e atributo (e.g.,
+		 *                  "a.onclick")
+		 */
+		public void removed(Construct construct, String name);
+	}
+
+	/**
+	 * Tamanho máximo de uma etiqueta ou comentário; acima disso, o trecho é lido
+	 * como texto
+	 */
+	public static final int MAX_CONSTRUCT = StreamFilter.MAX_CONSTRUCT;
+
+	private final SanitizerPolicy policy;
+
+	private final Listener listener;
+
+	/**
+	 * @param policy lista de permissões
+	 */
+	public HTMLSanitizer(SanitizerPolicy policy) {
+		this(policy, null);
+	}
+
+	/**
+	 * @param policy   lista de permissões
+	 * @param listener receptor dos avisos de trechos removidos (pode ser
+	 *                 <code>null</code>)
+	 */
+	public HTMLSanitizer(SanitizerPolicy policy, Listener listener) {
+		this.policy = policy;
+		this.listener = listener;
+	}
+
+	/**
+	 * Função que filtra um código HTML
+	 *
+	 * @param html código HTML
+	 * @return código filtrado
+	 */
+	public String sanitize(String html) {
+		return new Filter().run(html);
+	}
+
+	/**
+	 * Função que filtra um código HTML. Nenhum dos dois fluxos é fechado.
+	 *
+	 * @param in  código HTML
+	 * @param out código filtrado
+	 * @throws IOException se houver erro de leitura ou de escrita
+	 */
+	public void sanitize(Reader in, Writer out) throws IOException {
+		new Filter().run(in, out);
+	}
+
+	private void report(Construct construct, String name) {
+		if (listener != null)
+			listener.removed(construct, name);
+	}
+
+	/**
+	 * Receptor dos eventos do {@link HTMLTokenizer}, que escreve o código filtrado
+	 */
+	private class Filter extends StreamFilter {
+
+		private final int[] attr = new int[4];
+
+		/**
+		 * etiquetas permitidas abertas
+		 */
+		private int[] open = new int[16];
+
+		private int top = -1;
+
+		/**
+		 * etiqueta cujo conteúdo está sendo descartado (ou -1) e quantas vezes ela
+		 * está aberta
+		 */
+		private int skipTag = -1, skipDepth;
+
+		@Override
+		public void startTag(CharSequence src, int start, int nameStart, int nameEnd, int attrStart, int attrEnd,
+				int end, boolean selfClosing) {
+			int id = policy.getId(src, nameStart, nameEnd);
+			if (skipTag >= 0) {
+				if (id == skipTag && !selfClosing)
+					skipDepth++;
+				return;
+			}
+			if (!policy.isTagAllowed(id)) {
+				if (listener != null)
+					report(Construct.TAG, lower(src, nameStart, nameEnd));
+				if (policy.isContentDropped(id) && !selfClosing && !policy.isVoid(id)) {
+					skipTag = id;
+					skipDepth = 1;
+					report(Construct.CONTENT, policy.getName(id));
+				}
+				return;
+			}
+
+			String name = policy.getName(id);
+			sb.append('<').append(name);
+			for (int p = attrStart; (p = HTMLTokenizer.nextAttribute(src, p, attrEnd, attr)) >= 0;)
+				attribute(src, id, name);
+			sb.append('>');
+
+			if (policy.isVoid(id))
+				return;
+			if (selfClosing)
+				sb.append("</").append(name).append('>');
+			else {
+				if (++top == open.length)
+					open = Arrays.copyOf(open, top * 2);
+				open[top] = id;
+			}
+		}
+
+		private void attribute(CharSequence src, int tag, String tagName) {
+			int id = policy.getId(src, attr[0], attr[1]);
+			if (!policy.isAttributeAllowed(tag, id)) {
+				if (listener != null)
+					report(Construct.ATTRIBUTE, tagName + "." + lower(src, attr[0], attr[1]));
+				return;
+			}
+			String value = HTML.convertHTMLSpeChar(src.subSequence(attr[2], attr[3]).toString());
+			if (policy.isUrlAttribute(id) && !policy.isSchemeAllowed(scheme(value))) {
+				report(Construct.URL, tagName + "." + policy.getName(id));
+				return;
+			}
+			sb.append(' ').append(policy.getName(id)).append("=\"");
+			for (int i = 0; i < value.length(); i++) {
+				char c = value.charAt(i);
+				switch (c) {
+				case '"':
+					sb.append("&quot;");
+					break;
+				case '&':
+					sb.append("&amp;");
+					break;
+				case '<':
+					sb.append("&lt;");
+					break;
+				case '>':
+					sb.append("&gt;");
+					break;
+				default:
+					sb.append(c);
+				}
+			}
+			sb.append('"');
+		}
+
+		@Override
+		public void endTag(CharSequence src, int start, int nameStart, int nameEnd, int end) {
+			int id = policy.getId(src, nameStart, nameEnd);
+			if (skipTag >= 0) {
+				if (id == skipTag && --skipDepth == 0)
+					skipTag = -1;
+				return;
+			}
+			if (!policy.isTagAllowed(id))
+				return;
+			int i = top;
+			while (i >= 0 && open[i] != id)
+				i--;
+			// fecha também as etiquetas abertas dentro desta
+			while (i >= 0 && top >= i)
+				close();
+		}
+
+		@Override
+		public void text(CharSequence src, int start, int end) {
+			if (skipTag >= 0)
+				return;
+			for (int i = start; i < end; i++) {
+				char c = src.charAt(i);
+				if (c == '<')
+					sb.append("&lt;");
+				else if (c == '>')
+					sb.append("&gt;");
+				else if (c == '&' && !isEntity(src, i + 1, end))
+					sb.append("&amp;");
+				else
+					sb.append(c);
+			}
+		}
+
+		@Override
+		public void comment(CharSequence src, int start, int end) {
+			if (skipTag < 0)
+				report(Construct.COMMENT, null);
+		}
+
+		private void close() {
+			sb.append("</").append(policy.getName(open[top--])).append('>');
+		}
+
+		@Override
+		void finish() {
+			while (top >= 0)
+				close();
+		}
+	}
+
+	// -------------------- AUXILIARES --------------------
+
+	/**
+	 * Função que verifica se a partir da posição há o nome ou o número de uma
+	 * entidade, terminado em ';'
+	 */
+	private static boolean isEntity(CharSequence src, int p, int end) {
+		int s = p;
+		if (p < end && src.charAt(p) == '#')
+			p++;
+		int d = p;
+		while (p < end && p - s < 32 && Character.isLetterOrDigit(src.charAt(p)))
+			p++;
+		return p > d && p < end && src.charAt(p) == ';';
+	}
+
+	/**
+	 * Função que retorna o esquema de um endereço, como o navegador o lê
+	 * (ignorando espaços e caracteres de controle)
+	 *
+	 * @param url endereço
+	 * @return esquema em minúsculas, ou <code>null</code> se o endereço for
+	 *         relativo
+	 */
+	static String scheme(String url) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < url.length(); i++) {
+			char c = url.charAt(i);
+			if (c == ':')
+				return sb.toString();
+			else if (c == '/' || c == '?' || c == '#')
+				return null;
+			else if (c > ' ')
+				sb.append(Character.toLowerCase(c));
+		}
+		return null;
+	}
+
+	private static String lower(CharSequence src, int start, int end) {
+		return src.subSequence(start, end).toString().toLowerCase(Locale.ROOT);
+	}
+}
@@ -0,0 +1,317 @@
+package br.com.pereiraeng.html;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Arquivo binário com um {@link HTMLDocument} já lido: o código, os nós, a
+ * tabela de nomes e os nós das tabelas. O arquivo é mapeado na memória e lido
+ * sem desserialização (os nós e o código são consultados diretamente nos bytes
+ * mapeados), de modo que reprocessar um documento custa só a leitura do disco
+ * em vez de uma nova leitura do código.
+ * <p>
+ * Formato (inteiros de 32 bits, <i>little-endian</i>):
+ * <ul>
+ * <li>cabeçalho de {@value #HEADER} bytes: {@link #MAGIC}, {@link #VERSION},
+ * opções (bit 0: código em bytes, de um {@link MappedText}; senão, em UTF-16),
+ * quantidades de nós, de nomes e de tabelas, tamanho do código, tamanho da
+ * tabela de nomes (bytes), CRC32 do restante do arquivo e um campo
+ * reservado;</li>
+ * <li>nós ({@link NodeStore#FIELDS} inteiros cada);</li>
+ * <li>nós das tabelas;</li>
+ * <li>nomes (tamanho e bytes UTF-8 de cada um; se o código estiver em bytes,
+ * segue o nome da sua codificação), completados com zeros até um múltiplo de
+ * 8 bytes;</li>
+ * <li>código.</li>
+ * </ul>
+ */
+public final class HTMLSnapshot {
+
+	/**
+	 * Primeiros bytes do arquivo ("PHS1")
+	 */
+	public static final int MAGIC = 0x31534850;
+
+	/**
+	 * Versão do formato
+	 */
+	public static final int VERSION = 2;
+
+	static final int HEADER = 40;
+
+	private static final int SOURCE_BYTES = 1;
+
+	private static final int NODE_BYTES = NodeStore.FIELDS * Integer.BYTES;
+
+	private HTMLSnapshot() {
+	}
+
+	// ============================== ESCRITA ==============================
+
+	/**
+	 * Função que grava o documento num arquivo (substituindo-o, se existir)
+	 *
+	 * @param doc  documento
+	 * @param file arquivo
+	 * @throws IOException                   se o arquivo não puder ser escrito
+	 * @throws UnsupportedOperationException se o documento for maior que 2 GB
+	 */
+	public static void write(HTMLDocument doc, Path file) throws IOException {
+		CharSequence source = doc.getSource();
+		NodeStore store = doc.getStore();
+		NameTable names = doc.getNames();
+		int[] tables = doc.tables();
+		boolean bytes = source instanceof MappedText;
+
+		// tabela de nomes
+		int stringCount = names.size() + (bytes ? 1 : 0);
+		byte[][] strings = new byte[stringCount][];
+		int stringBytes = 0;
+		for (int i = 0; i < stringCount; i++) {
+			String s = i < names.size() ? names.getName(i) : ((MappedText) source).getCharset().name();
+			strings[i] = s.getBytes(StandardCharsets.UTF_8);
+			stringBytes += Integer.BYTES + strings[i].length;
+		}
+		stringBytes = (stringBytes + 7) & ~7;
+
+		try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			Writer w = new Writer(ch);
+			w.position(HEADER);
+			for (int n = 0; n < store.size(); n++)
+				for (int f = 0; f < NodeStore.FIELDS; f++)
+					w.putInt(store.get(n, f));
+			for (int t : tables)
+				w.putInt(t);
+			int start = w.written;
+			for (byte[] s : strings) {
+				w.putInt(s.length);
+				w.put(s, 0, s.length);
+			}
+			while (w.written - start < stringBytes)
+				w.put(new byte[1], 0, 1);
+			if (bytes)
+				w.put(((MappedText) source).getBuffer());
+			else
+				for (int i = 0; i < source.length(); i++)
+					w.putChar(source.charAt(i));
+			w.flush();
+
+			ByteBuffer header = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(MAGIC).putInt(VERSION).putInt(bytes ? SOURCE_BYTES : 0).putInt(store.size())
+					.putInt(names.size()).putInt(tables.length).putInt(source.length()).putInt(stringBytes)
+					.putInt((int) w.crc.getValue()).putInt(0).flip();
+			while (header.hasRemaining())
+				ch.write(header, header.position());
+		}
+	}
+
+	/**
+	 * Escrita em blocos, com o cálculo do CRC32
+	 */
+	private static final class Writer {
+
+		private final FileChannel channel;
+
+		private final ByteBuffer buf = ByteBuffer.allocateDirect(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+
+		private final CRC32 crc = new CRC32();
+
+		private long position;
+
+		private int written;
+
+		Writer(FileChannel channel) {
+			this.channel = channel;
+		}
+
+		void position(long p) {
+			position = p;
+		}
+
+		void putInt(int v) throws IOException {
+			if (buf.remaining() < Integer.BYTES)
+				flush();
+			buf.putInt(v);
+			written += Integer.BYTES;
+		}
+
+		void putChar(char c) throws IOException {
+			if (buf.remaining() < Character.BYTES)
+				flush();
+			buf.putChar(c);
+		}
+
+		void put(byte[] b, int off, int len) throws IOException {
+			while (len > 0) {
+				if (!buf.hasRemaining())
+					flush();
+				int n = Math.min(len, buf.remaining());
+				buf.put(b, off, n);
+				off += n;
+				len -= n;
+				written += n;
+			}
+		}
+
+		void put(ByteBuffer src) throws IOException {
+			flush();
+			crc.update(src.duplicate());
+			while (src.hasRemaining())
+				position += channel.write(src, position);
+		}
+
+		void flush() throws IOException {
+			buf.flip();
+			crc.update(buf.duplicate());
+			while (buf.hasRemaining())
+				position += channel.write(buf, position);
+			buf.clear();
+		}
+	}
+
+	// ============================== LEITURA ==============================
+
+	/**
+	 * Função que mapeia um arquivo gravado por {@link #write(HTMLDocument, Path)},
+	 * verificando o seu CRC32. O documento deve ser {@link HTMLDocument#close()
+	 * fechado} após o uso e não pode ser alterado.
+	 *
+	 * @param file arquivo
+	 * @return documento
+	 * @throws IOException se o arquivo não puder ser lido, não for deste formato
+	 *                     ou desta versão, ou estiver corrompido
+	 */
+	public static HTMLDocument read(Path file) throws IOException {
+		return read(file, true);
+	}
+
+	/**
+	 * Função que mapeia um arquivo gravado por {@link #write(HTMLDocument, Path)}
+	 *
+	 * @param file   arquivo
+	 * @param verify <code>true</code> para verificar o CRC32 (que exige ler o
+	 *               arquivo inteiro)
+	 * @return documento
+	 * @throws IOException se o arquivo não puder ser lido, não for deste formato
+	 *                     ou desta versão, ou estiver corrompido
+	 */
+	public static HTMLDocument read(Path file, boolean verify) throws IOException {
+		ByteBuffer bb;
+		try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = ch.size();
+			if (size > Integer.MAX_VALUE)
+				throw new IOException("Arquivo maior que 2 GB: " + file);
+			if (size < HEADER)
+				throw new IOException("Arquivo truncado: " + file);
+			bb = ch.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+		}
+		if (bb.getInt(0) != MAGIC)
+			throw new IOException("Arquivo não é um documento HTML gravado: " + file);
+		int version = bb.getInt(4);
+		if (version != VERSION)
+			throw new IOException("Versão não suportada (" + version + "): " + file);
+		int flags = bb.getInt(8), nodes = bb.getInt(12), nameCount = bb.getInt(16), tableCount = bb.getInt(20),
+				sourceLength = bb.getInt(24), stringBytes = bb.getInt(28), crc = bb.getInt(32);
+		boolean bytes = (flags & SOURCE_BYTES) != 0;
+
+		long nodesAt = HEADER, tablesAt = nodesAt + (long) nodes * NODE_BYTES,
+				stringsAt = tablesAt + (long) tableCount * Integer.BYTES, sourceAt = stringsAt + stringBytes;
+		long end = sourceAt + (long) sourceLength * (bytes ? 1 : Character.BYTES);
+		if (nodes < 1 || nameCount < 0 || tableCount < 0 || sourceLength < 0 || stringBytes < 0
+				|| end != bb.capacity())
+			throw new IOException("Arquivo corrompido (tamanho): " + file);
+		if (verify) {
+			CRC32 c = new CRC32();
+			c.update(slice(bb, HEADER, bb.capacity()));
+			if ((int) c.getValue() != crc)
+				throw new IOException("Arquivo corrompido (CRC32): " + file);
+		}
+
+		int[] tables = new int[tableCount];
+		slice(bb, tablesAt, stringsAt).asIntBuffer().get(tables);
+
+		ByteBuffer s = slice(bb, stringsAt, sourceAt);
+		String[] names = new String[nameCount];
+		for (int i = 0; i < nameCount; i++)
+			names[i] = string(s);
+		Charset charset = bytes ? Charset.forName(string(s)) : null;
+
+		NodeStore store = new Flyweight(slice(bb, nodesAt, tablesAt).asIntBuffer(), nodes);
+		CharSequence source = bytes ? new MappedText(slice(bb, sourceAt, end), charset)
+				: slice(bb, sourceAt, end).asCharBuffer();
+		try {
+			return HTMLDocument.restore(source, store, names, tables, bytes);
+		} catch (IllegalArgumentException e) {
+			throw new IOException("Arquivo corrompido (nomes): " + file, e);
+		}
+	}
+
+	private static ByteBuffer slice(ByteBuffer bb, long from, long to) {
+		ByteBuffer out = bb.duplicate();
+		out.limit((int) to).position((int) from);
+		return out.slice().order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	private static String string(ByteBuffer s) throws IOException {
+		if (s.remaining() < Integer.BYTES)
+			throw new IOException("Tabela de nomes truncada");
+		int n = s.getInt();
+		if (n < 0 || n > s.remaining())
+			throw new IOException("Tabela de nomes truncada");
+		byte[] b = new byte[n];
+		s.get(b);
+		return new String(b, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Repositório de nós somente para leitura, lidos diretamente dos bytes
+	 * mapeados
+	 */
+	private static final class Flyweight implements NodeStore {
+
+		private IntBuffer ints;
+
+		private final int size;
+
+		Flyweight(IntBuffer ints, int size) {
+			this.ints = ints;
+			this.size = size;
+		}
+
+		@Override
+		public int add() {
+			throw new UnsupportedOperationException("Documento gravado não pode ser alterado");
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public int get(int node, int field) {
+			if (ints == null)
+				throw new IllegalStateException("Repositório de nós já foi fechado");
+			return ints.get(node * FIELDS + field);
+		}
+
+		@Override
+		public void set(int node, int field, int value) {
+			throw new UnsupportedOperationException("Documento gravado não pode ser alterado");
+		}
+
+		@Override
+		public void close() {
+			ints = null;
+		}
+	}
+}
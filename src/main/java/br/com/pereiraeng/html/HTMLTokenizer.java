@@ -0,0 +1,317 @@
+package br.com.pereiraeng.html;
+
+/**
+ * Classe que lê o código HTML em uma única passada, sem expressões regulares
+ * (os delimitadores são localizados pelo {@link DelimiterScanner}), e repassa
+ * as etiquetas, textos e comentários encontrados para um {@link TokenHandler}.
+ */
+public final class HTMLTokenizer {
+
+	private static final String[] RAW_TEXT = { "script", "style", "textarea", "title" };
+
+	private HTMLTokenizer() {
+	}
+
+	/**
+	 * Função que lê todo o código HTML
+	 *
+	 * @param src     código HTML
+	 * @param handler receptor dos eventos
+	 */
+	public static void tokenize(CharSequence src, TokenHandler handler) {
+		tokenize(src, 0, src.length(), handler);
+	}
+
+	/**
+	 * Função que lê um trecho do código HTML
+	 *
+	 * @param src     código HTML
+	 * @param from    posição inicial
+	 * @param to      posição final (exclusiva)
+	 * @param handler receptor dos eventos
+	 */
+	public static void tokenize(CharSequence src, int from, int to, TokenHandler handler) {
+		tokenize(src, from, to, handler, false);
+	}
+
+	/**
+	 * Função que lê um trecho do código HTML que pode ser só o começo do código
+	 * (e.g., um bloco lido de um {@link java.io.Reader}). No modo parcial, a
+	 * leitura para antes de uma etiqueta, comentário ou conteúdo de
+	 * <code>script</code>/<code>style</code> não terminados e antes de uma
+	 * entidade (<code>&amp;...;</code>) incompleta no fim do trecho: o que
+	 * sobrar deve ser lido de novo junto com o bloco seguinte.
+	 *
+	 * @param src     código HTML
+	 * @param from    posição inicial
+	 * @param to      posição final (exclusiva)
+	 * @param handler receptor dos eventos
+	 * @param partial <code>true</code> se o código puder continuar depois de
+	 *                <code>to</code>
+	 * @return posição até a qual o código foi lido (<code>to</code>, se não for
+	 *         parcial)
+	 */
+	public static int tokenize(CharSequence src, int from, int to, TokenHandler handler, boolean partial) {
+		int textStart = from, p = from, stop = to;
+		while (p < to) {
+			int lt = DelimiterScanner.indexOf(src, '<', p, to);
+			if (lt < 0)
+				break;
+			if (lt + 1 >= to) {
+				if (partial)
+					stop = lt;
+				break;
+			}
+
+			char c = src.charAt(lt + 1);
+			if (isLetter(c)) {
+				// etiqueta de abertura
+				int nameEnd = scanName(src, lt + 1, to);
+				int gt = findTagEnd(src, nameEnd, to);
+				boolean selfClosing = gt > nameEnd && src.charAt(gt - 1) == '/';
+				// o conteúdo de script, style etc. não contém etiquetas
+				boolean raw = gt >= 0 && !selfClosing && isRawText(src, lt + 1, nameEnd);
+				int close = raw ? indexOfClosing(src, lt + 1, nameEnd, gt + 1, to) : -1;
+				if (gt < 0 || (raw && close < 0 && partial)) {
+					if (partial)
+						stop = lt;
+					break;
+				}
+				if (raw && close < 0)
+					close = to;
+				if (textStart < lt)
+					handler.text(src, textStart, lt);
+				int attrStart = skipSpaces(src, nameEnd, gt);
+				int attrEnd = selfClosing ? gt - 1 : gt;
+				while (attrEnd > attrStart && Character.isWhitespace(src.charAt(attrEnd - 1)))
+					attrEnd--;
+				if (attrStart > attrEnd)
+					attrStart = attrEnd;
+				handler.startTag(src, lt, lt + 1, nameEnd, attrStart, attrEnd, gt + 1, selfClosing);
+				p = textStart = gt + 1;
+
+				if (raw) {
+					if (textStart < close)
+						handler.text(src, textStart, close);
+					p = textStart = close;
+				}
+			} else if (c == '/') {
+				int gt = DelimiterScanner.indexOf(src, '>', lt + 2, to);
+				if (gt < 0) {
+					if (partial)
+						stop = lt;
+					break;
+				}
+				if (textStart < lt)
+					handler.text(src, textStart, lt);
+				if (lt + 2 < gt && isLetter(src.charAt(lt + 2)))
+					handler.endTag(src, lt, lt + 2, scanName(src, lt + 2, gt), gt + 1);
+				else if (lt + 2 < gt)
+					handler.comment(src, lt, gt + 1);
+				p = textStart = gt + 1;
+			} else if (c == '!' || c == '?') {
+				if (partial && lt + 4 > to) {
+					stop = lt;
+					break;
+				}
+				int end;
+				if (c == '!' && DelimiterScanner.regionEquals(src, lt, to, "<!--")) {
+					int close = DelimiterScanner.indexOf(src, "-->", lt + 4, to);
+					end = close < 0 ? -1 : close + 3;
+				} else {
+					int gt = DelimiterScanner.indexOf(src, '>', lt + 2, to);
+					end = gt < 0 ? -1 : gt + 1;
+				}
+				if (end < 0) {
+					if (partial) {
+						stop = lt;
+						break;
+					}
+					end = to;
+				}
+				if (textStart < lt)
+					handler.text(src, textStart, lt);
+				handler.comment(src, lt, end);
+				p = textStart = end;
+			} else {
+				// '<' solto faz parte do texto
+				p = lt + 1;
+			}
+		}
+		if (partial && stop == to)
+			stop = entityStart(src, textStart, to);
+		if (textStart < stop)
+			handler.text(src, textStart, stop);
+		return Math.max(textStart, stop);
+	}
+
+	/**
+	 * Função que localiza uma entidade possivelmente incompleta no fim do texto
+	 *
+	 * @return posição do '&amp;' da entidade, ou <code>to</code> se não houver
+	 */
+	private static int entityStart(CharSequence src, int textStart, int to) {
+		for (int i = to - 1; i >= textStart && i >= to - 32; i--) {
+			char c = src.charAt(i);
+			if (c == '&')
+				return i;
+			if (!isNameChar(c) && c != '#')
+				break;
+		}
+		return to;
+	}
+
+	// -------------------- AUXILIARES --------------------
+
+	static boolean isLetter(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+	}
+
+	static boolean isNameChar(char c) {
+		return isLetter(c) || (c >= '0' && c <= '9') || c == '-' || c == ':' || c == '_';
+	}
+
+	static int scanName(CharSequence src, int p, int to) {
+		while (p < to && isNameChar(src.charAt(p)))
+			p++;
+		return p;
+	}
+
+	static int skipSpaces(CharSequence src, int p, int to) {
+		while (p < to && Character.isWhitespace(src.charAt(p)))
+			p++;
+		return p;
+	}
+
+	/**
+	 * Função que procura o '&gt;' que fecha uma etiqueta de abertura, ignorando
+	 * aqueles que estiverem dentro de valores de atributos entre aspas
+	 */
+	static int findTagEnd(CharSequence src, int p, int to) {
+		char quote = 0, last = 0;
+		for (; p < to; p++) {
+			char c = src.charAt(p);
+			if (quote != 0) {
+				if (c == quote)
+					quote = 0;
+			} else if (c == '>')
+				return p;
+			else if ((c == '"' || c == '\'') && last == '=')
+				quote = c;
+			if (!Character.isWhitespace(c))
+				last = c;
+		}
+		return -1;
+	}
+
+	/**
+	 * Função que procura um atributo no trecho dos atributos de uma etiqueta
+	 *
+	 * @param src   código HTML
+	 * @param start posição do início dos atributos
+	 * @param end   posição seguinte ao fim dos atributos
+	 * @param name  nome do atributo (em minúsculas)
+	 * @return posições inicial (32 bits mais significativos) e final do valor (sem
+	 *         aspas), ou -1 se não houver o atributo
+	 */
+	static long findAttribute(CharSequence src, int start, int end, String name) {
+		int[] a = new int[4];
+		for (int p = start; (p = nextAttribute(src, p, end, a)) >= 0;)
+			if (regionMatches(src, a[0], a[1], name))
+				return ((long) a[2] << 32) | a[3];
+		return -1;
+	}
+
+	/**
+	 * Função que lê o próximo atributo no trecho dos atributos de uma etiqueta
+	 *
+	 * @param src  código HTML
+	 * @param p    posição a partir da qual se procura o atributo
+	 * @param end  posição seguinte ao fim dos atributos
+	 * @param attr vetor que recebe as posições inicial e final do nome e do valor
+	 *             (sem aspas; vazio se o atributo não tiver valor)
+	 * @return posição seguinte ao atributo lido, ou -1 se não houver mais
+	 *         atributos
+	 */
+	static int nextAttribute(CharSequence src, int p, int end, int[] attr) {
+		while (p < end) {
+			p = skipSpaces(src, p, end);
+			int ns = p;
+			while (p < end && src.charAt(p) != '=' && src.charAt(p) != '/' && !Character.isWhitespace(src.charAt(p)))
+				p++;
+			int ne = p;
+			p = skipSpaces(src, p, end);
+			int vs = p, ve = p;
+			if (p < end && src.charAt(p) == '=') {
+				p = skipSpaces(src, p + 1, end);
+				char q = p < end ? src.charAt(p) : 0;
+				if (q == '"' || q == '\'') {
+					vs = p + 1;
+					ve = DelimiterScanner.indexOf(src, q, vs, end);
+					if (ve < 0)
+						ve = end;
+					p = Math.min(ve + 1, end);
+				} else {
+					vs = p;
+					while (p < end && !Character.isWhitespace(src.charAt(p)))
+						p++;
+					ve = p;
+				}
+			}
+			if (ns == ne)
+				p++; // '/' solto
+			else {
+				attr[0] = ns;
+				attr[1] = ne;
+				attr[2] = vs;
+				attr[3] = ve;
+				return p;
+			}
+		}
+		return -1;
+	}
+
+	private static boolean isRawText(CharSequence src, int nameStart, int nameEnd) {
+		for (String s : RAW_TEXT)
+			if (regionMatches(src, nameStart, nameEnd, s))
+				return true;
+		return false;
+	}
+
+	/**
+	 * Função que procura a etiqueta de fechamento <code>&lt;/name</code> (sem
+	 * distinção entre maiúsculas e minúsculas)
+	 */
+	private static int indexOfClosing(CharSequence src, int nameStart, int nameEnd, int p, int to) {
+		int len = nameEnd - nameStart;
+		while ((p = DelimiterScanner.indexOf(src, '<', p, to)) >= 0) {
+			if (p + 2 + len <= to && src.charAt(p + 1) == '/') {
+				int i = 0;
+				while (i < len && Character.toLowerCase(src.charAt(p + 2 + i)) == Character
+						.toLowerCase(src.charAt(nameStart + i)))
+					i++;
+				if (i == len && (p + 2 + len == to || !isNameChar(src.charAt(p + 2 + len))))
+					return p;
+			}
+			p++;
+		}
+		return -1;
+	}
+
+	/**
+	 * Função que compara, sem distinção entre maiúsculas e minúsculas, um trecho da
+	 * sequência com uma palavra em minúsculas
+	 */
+	static boolean regionMatches(CharSequence src, int start, int end, String lower) {
+		if (end - start != lower.length())
+			return false;
+		for (int i = 0; i < lower.length(); i++) {
+			char c = src.charAt(start + i);
+			if (c >= 'A' && c <= 'Z')
+				c += 'a' - 'A';
+			if (c != lower.charAt(i))
+				return false;
+		}
+		return true;
+	}
+}
@@ -0,0 +1,434 @@
+package br.com.pereiraeng.html;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.swing.tree.DefaultMutableTreeNode;
+
+/**
+ * Árvore do código HTML, em que cada nó tem como objeto um vetor com o nome e os
+ * atributos da etiqueta, ou o texto. Fica fora de {@link HTML} para que o Swing
+ * ({@link DefaultMutableTreeNode}) só seja carregado por quem usa as árvores.
+ */
+public final class HTMLTree {
+
+	private HTMLTree() {
+	}
+
+	/**
+	 * Função que transforma a sequência de caracteres do código HTML em uma árvore.
+	 * É a função inversa {@link #getHTMLfromTree(DefaultMutableTreeNode) dessa}.
+	 * 
+	 * @param html código HTML
+	 * @return árvore que organiza o código HTML
+	 */
+	public static DefaultMutableTreeNode getTreeHTML(String html) {
+		return getTreeHTML(html, ParseLimits.NONE);
+	}
+
+	/**
+	 * Função que transforma a sequência de caracteres do código HTML em uma árvore,
+	 * respeitando os limites de recursos indicados (cada caractere lido conta como
+	 * um passo, e cada etiqueta como um nó). As etiquetas são lidas pelo
+	 * {@link HTMLTokenizer}, de modo que os atributos podem ter qualquer nome e
+	 * valores entre aspas duplas, simples ou sem aspas; as etiquetas de fechamento
+	 * sobem até o elemento aberto com o mesmo nome (e são ignoradas se não houver
+	 * um), os elementos vazios (e.g., <code>&lt;img&gt;</code>) e os
+	 * auto-fechados não recebem filhos e os <code>&lt;br&gt;</code> viram quebras
+	 * de linha no texto.
+	 * 
+	 * @param html   código HTML
+	 * @param limits limites de recursos
+	 * @return árvore que organiza o código HTML
+	 * @throws ParseLimitExceededException se algum limite for ultrapassado; a raiz
+	 *                                     da árvore parcial vem na exceção
+	 */
+	public static DefaultMutableTreeNode getTreeHTML(String html, ParseLimits limits) {
+		ParseLimits.Budget budget = limits.start();
+		budget.checkInput(html.length());
+		TreeBuilder builder = new TreeBuilder(budget);
+		try {
+			HTMLTokenizer.tokenize(ParseLimits.guard(html, budget), builder);
+		} catch (ParseLimitExceededException e) {
+			throw e.withPartialResult(builder.root);
+		}
+		builder.flush();
+		return builder.root;
+	}
+
+	/**
+	 * Montagem da árvore a partir dos eventos do {@link HTMLTokenizer}
+	 */
+	private static final class TreeBuilder implements TokenHandler {
+
+		private final ParseLimits.Budget budget;
+
+		/**
+		 * elementos abertos (o primeiro é a raiz)
+		 */
+		private final List<DefaultMutableTreeNode> open = new ArrayList<>();
+
+		/**
+		 * texto ainda não colocado na árvore (os <code>&lt;br&gt;</code> entram
+		 * nele como quebras de linha)
+		 */
+		private final StringBuilder text = new StringBuilder();
+
+		private final int[] attr = new int[4];
+
+		private DefaultMutableTreeNode root;
+
+		private int nodes;
+
+		/**
+		 * se a raiz já foi fechada (o resto do código é ignorado)
+		 */
+		private boolean done;
+
+		private TreeBuilder(ParseLimits.Budget budget) {
+			this.budget = budget;
+		}
+
+		@Override
+		public void startTag(CharSequence src, int start, int nameStart, int nameEnd, int attrStart, int attrEnd,
+				int end, boolean selfClosing) {
+			if (done)
+				return;
+			String name = src.subSequence(nameStart, nameEnd).toString();
+			String lower = name.toLowerCase(Locale.ROOT);
+			if ("br".equals(lower)) {
+				// os br não são balanceados e não eram usados no 'passado' de maneira
+				// própria: viram quebras de linha
+				text.append("\n\n");
+				return;
+			}
+			flush();
+			boolean leaf = selfClosing || HTMLDocument.isVoid(lower);
+			budget.checkDepth(open.size() + 1, start);
+			budget.checkNodes(++nodes, start);
+			String attrib = HTMLTokenizer.nextAttribute(src, attrStart, attrEnd, attr) < 0 ? null
+					: src.subSequence(attrStart, attrEnd).toString();
+			DefaultMutableTreeNode c = new DefaultMutableTreeNode(new String[] { name, attrib });
+			if (root == null)
+				root = c;
+			else
+				open.get(open.size() - 1).add(c);
+			if (!leaf)
+				open.add(c);
+			else if (open.isEmpty())
+				done = true; // a raiz não tem filhos
+		}
+
+		@Override
+		public void endTag(CharSequence src, int start, int nameStart, int nameEnd, int end) {
+			if (done)
+				return;
+			for (int i = open.size() - 1; i >= 0; i--) {
+				String name = ((String[]) open.get(i).getUserObject())[0];
+				if (HTMLTokenizer.regionMatches(src, nameStart, nameEnd, name.toLowerCase(Locale.ROOT))) {
+					flush();
+					open.subList(i, open.size()).clear();
+					done = open.isEmpty();
+					return;
+				}
+			}
+		}
+
+		@Override
+		public void text(CharSequence src, int start, int end) {
+			if (!done)
+				text.append(src, start, end);
+		}
+
+		@Override
+		public void comment(CharSequence src, int start, int end) {
+		}
+
+		/**
+		 * Função que coloca o texto acumulado no elemento aberto
+		 */
+		private void flush() {
+			String s = text.toString().trim();
+			text.setLength(0);
+			if (!s.isEmpty() && !open.isEmpty())
+				open.get(open.size() - 1).add(new DefaultMutableTreeNode(s));
+		}
+	}
+
+	/**
+	 * Função que simplifica a árvore do código HTML: junta os irmãos vizinhos
+	 * com a mesma etiqueta e os mesmos atributos, separa os valores em comum do
+	 * primeiro atributo (e.g., os estilos de <code>style</code>) quando os demais
+	 * atributos são iguais e remove as etiquetas sem conteúdo. Os atributos de
+	 * cada nó são lidos uma única vez (com qualquer nome e com valores entre aspas
+	 * duplas, simples ou sem aspas) e comparados pelos números dos nomes e pelos
+	 * trechos dos valores.
+	 *
+	 * @param node árvore que organiza o código HTML
+	 */
+	public static void otimizarHTML(DefaultMutableTreeNode node) {
+		otimizarHTML(node, new Attributes());
+	}
+
+	private static void otimizarHTML(DefaultMutableTreeNode node, Attributes attributes) {
+		Object obj = node.getUserObject();
+		if (obj instanceof String[]) {
+			// se for um comando...
+			if (node.getChildCount() > 1) {
+				// ver se uma função é possível entre seus filhos
+				DefaultMutableTreeNode n1 = (DefaultMutableTreeNode) node.getChildAt(0);
+				Object obj1 = n1.getUserObject();
+				for (int i = 1; i < node.getChildCount();) {
+					DefaultMutableTreeNode n2 = (DefaultMutableTreeNode) node.getChildAt(i);
+					Object obj2 = n2.getUserObject();
+					boolean forward = false;
+					if (obj1 instanceof String[] && obj2 instanceof String[]) {
+						String[] s1 = (String[]) obj1;
+						String[] s2 = (String[]) obj2;
+						if (s1[0].equals(s2[0])) {
+							// mesmo comando
+							if (!(s1[1] == null ^ s2[1] == null)) {
+
+								if (attributes.same(s1[1], s2[1])) {
+									// se ambos forem vazios OU iguais
+									forward = true;
+									// repassa os filhos de n2 para n1...
+									while (n2.getChildCount() > 0)
+										n1.add((DefaultMutableTreeNode) n2.getChildAt(0));
+									// ... e remove n2
+									node.remove(i);
+								}
+
+								if (forward ? false : s1[1] != null) {
+									// ver se há atributos e valores em comum
+									int[] a1 = attributes.get(s1[1]), a2 = attributes.get(s2[1]);
+									if (a1.length > 0 && a2.length > 0 && a1[0] == a2[0]
+											&& attributes.same(s1[1], s2[1], false)) {
+										// se for o mesmo atributo (e os demais atributos forem
+										// iguais, já que eles vão para a intersecção)
+										String name = attributes.name(a1[0]);
+
+										StyleTable styles = attributes.styles;
+										StyleSet vals1 = styles.parse(s1[1].substring(a1[1], a1[2]));
+										StyleSet vals2 = styles.parse(s2[1].substring(a2[1], a2[2]));
+
+										StyleSet intersec = styles.intersection(vals1, vals2);
+										if (!intersec.isEmpty()) {
+											// há algo em comum
+											forward = true;
+
+											if (vals1 == vals2)
+												// mesmos valores, escritos de outra forma
+												s2[1] = s1[1];
+
+											String common = intersec != vals1 || intersec != vals2
+													? Attributes.replace(s1[1], a1, intersec.toString())
+													: null;
+
+											if (intersec != vals1) {
+												// se a intersecção não é 1,
+												// então 1 não está contido em 2
+												// -> split 1
+
+												// diferença
+												DefaultMutableTreeNode diff = new DefaultMutableTreeNode(new String[] {
+														s1[0], name + "=\"" + styles.difference(vals1, intersec) + "\"" });
+												n1.insert(diff, 0);
+
+												while (n1.getChildCount() > 1)
+													diff.add((DefaultMutableTreeNode) n1.getChildAt(1));
+
+												// intersecção
+												s1[1] = common;
+											}
+
+											if (intersec != vals2) {
+												// se a intersecção não é 2,
+												// então 2 não está contido em 1
+												// -> split 2
+
+												// diferença
+												DefaultMutableTreeNode diff = new DefaultMutableTreeNode(new String[] {
+														s2[0], name + "=\"" + styles.difference(vals2, intersec) + "\"" });
+												n2.insert(diff, 0);
+
+												while (n2.getChildCount() > 1)
+													diff.add((DefaultMutableTreeNode) n2.getChildAt(1));
+
+												// intersecção
+												s2[1] = common;
+											}
+										}
+									}
+								}
+							}
+						}
+					}
+					if (!forward) {
+						// move o contador para frente
+						n1 = n2;
+						obj1 = obj2;
+						i++;
+					}
+				}
+			} else if (node.getChildCount() == 0) {
+				// se for um comando que incide sobre texto nenhum, o nó se
+				// remove
+				((DefaultMutableTreeNode) node.getParent()).remove(node);
+			}
+			// inspecionar filhos
+			for (int i = 0; i < node.getChildCount(); i++)
+				otimizarHTML((DefaultMutableTreeNode) node.getChildAt(i), attributes);
+		}
+	}
+
+	/**
+	 * Atributos dos nós da árvore, lidos uma única vez por texto de atributos:
+	 * para cada atributo, o número do nome e as posições inicial e final do
+	 * valor; os valores do primeiro atributo (e.g., <code>style</code>) são
+	 * guardados numa {@link StyleTable}
+	 */
+	private static final class Attributes {
+
+		private static final int[] NONE = new int[0];
+
+		private final NameTable names = new NameTable();
+
+		private final StyleTable styles = new StyleTable();
+
+		private final Map<String, int[]> parsed = new IdentityHashMap<>();
+
+		private final int[] attr = new int[4];
+
+		int[] get(String attrib) {
+			if (attrib == null)
+				return NONE;
+			int[] out = parsed.get(attrib);
+			if (out == null) {
+				out = new int[12];
+				int k = 0;
+				for (int p = 0; (p = HTMLTokenizer.nextAttribute(attrib, p, attrib.length(), attr)) >= 0;) {
+					if (k == out.length)
+						out = Arrays.copyOf(out, k * 2);
+					out[k++] = names.intern(attrib, attr[0], attr[1]);
+					out[k++] = attr[2];
+					out[k++] = attr[3];
+				}
+				out = Arrays.copyOf(out, k);
+				parsed.put(attrib, out);
+			}
+			return out;
+		}
+
+		String name(int id) {
+			return names.getName(id);
+		}
+
+		/**
+		 * Função que troca o valor do primeiro atributo, mantendo os demais
+		 * atributos como estão
+		 *
+		 * @param attrib texto dos atributos
+		 * @param a      atributos lidos do texto (ver {@link #get(String)})
+		 * @param value  novo valor
+		 * @return texto dos atributos com o novo valor
+		 */
+		static String replace(String attrib, int[] a, String value) {
+			int start = a[1], end = a[2];
+			boolean quoted = start > 0 && (attrib.charAt(start - 1) == '"' || attrib.charAt(start - 1) == '\'');
+			if (quoted)
+				return attrib.substring(0, start) + value + attrib.substring(end);
+			// valor sem aspas (ou vazio): passa a ficar entre aspas duplas
+			return attrib.substring(0, start) + '"' + value + '"' + attrib.substring(end);
+		}
+
+		/**
+		 * Função que verifica se dois textos de atributos têm os mesmos atributos,
+		 * com os mesmos valores (em qualquer ordem)
+		 */
+		boolean same(String s1, String s2) {
+			return same(s1, s2, true);
+		}
+
+		/**
+		 * @param first se o primeiro atributo de cada texto também é comparado
+		 *              (senão, os textos podem diferir só no primeiro atributo)
+		 */
+		boolean same(String s1, String s2, boolean first) {
+			if (s1 == null || s2 == null)
+				return s1 == s2;
+			int[] a1 = get(s1), a2 = get(s2);
+			if (a1.length != a2.length)
+				return false;
+			int from = first ? 0 : 3;
+			outer: for (int i = from; i < a1.length; i += 3) {
+				for (int j = from; j < a2.length; j += 3)
+					if (a1[i] == a2[j]) {
+						int n = a1[i + 2] - a1[i + 1];
+						if (n != a2[j + 2] - a2[j + 1] || !s1.regionMatches(a1[i + 1], s2, a2[j + 1], n))
+							return false;
+						continue outer;
+					}
+				return false;
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Função recursiva que transforma a árvore organizadora do código HTML no
+	 * respectivo código. É a função inversa {@link #getTreeHTML(String) dessa}.
+	 * 
+	 * @param node árvore que organiza o código HTML
+	 * @return código HTML
+	 */
+	public static String getHTMLfromTree(DefaultMutableTreeNode node) {
+		Object obj = node.getUserObject();
+		if (obj instanceof String[]) {
+			String[] comm = (String[]) obj;
+			String s = String.format("<%s%s>\n", comm[0], comm[1] != null ? " " + comm[1] : "");
+			for (int i = 0; i < node.getChildCount(); i++)
+				s += getHTMLfromTree((DefaultMutableTreeNode) node.getChildAt(i));
+			s += "</" + comm[0] + ">\n";
+			if (s.startsWith("<html>"))
+				s = HTML.START + "\n" + s;
+			return s;
+		} else
+			return obj.toString() + "\n";
+	}
+
+	/**
+	 * Função que monta a árvore a partir do primeiro elemento de um documento já
+	 * lido
+	 *
+	 * @param doc documento
+	 * @return árvore que organiza o código HTML
+	 */
+	public static DefaultMutableTreeNode toTree(HTMLDocument doc) {
+		for (int c = doc.getFirstChild(0); c >= 0; c = doc.getNextSibling(c))
+			if (doc.getKind(c) == HTMLDocument.ELEMENT)
+				return toTree(doc, c);
+		return null;
+	}
+
+	/**
+	 * Função que monta a árvore a partir de um nó de um documento já lido
+	 *
+	 * @param doc  documento
+	 * @param node índice do nó
+	 * @return árvore que organiza o código HTML
+	 */
+	public static DefaultMutableTreeNode toTree(HTMLDocument doc, int node) {
+		if (doc.getKind(node) == HTMLDocument.TEXT)
+			return new DefaultMutableTreeNode(doc.getText(node).trim());
+		DefaultMutableTreeNode out = new DefaultMutableTreeNode(
+				new String[] { doc.getName(node), doc.getAttributes(node) });
+		for (int c = doc.getFirstChild(node); c >= 0; c = doc.getNextSibling(c))
+			out.add(toTree(doc, c));
+		return out;
+	}
+}
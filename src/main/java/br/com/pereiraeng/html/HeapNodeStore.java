@@ -0,0 +1,59 @@
+package br.com.pereiraeng.html;
+
+import java.util.Arrays;
+
+/**
+ * Repositório de nós num único vetor de inteiros na memória do Java
+ */
+public class HeapNodeStore implements NodeStore {
+
+	private int[] data;
+
+	private int size;
+
+	public HeapNodeStore() {
+		this(256);
+	}
+
+	/**
+	 * @param capacity quantidade de nós esperada
+	 */
+	public HeapNodeStore(int capacity) {
+		this.data = new int[Math.max(capacity, 16) * FIELDS];
+	}
+
+	@Override
+	public int add() {
+		int offset = size * FIELDS;
+		if (offset + FIELDS > data().length)
+			data = Arrays.copyOf(data, data.length * 2);
+		return size++;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public int get(int node, int field) {
+		return data()[node * FIELDS + field];
+	}
+
+	@Override
+	public void set(int node, int field, int value) {
+		data()[node * FIELDS + field] = value;
+	}
+
+	private int[] data() {
+		int[] d = data;
+		if (d == null)
+			throw new IllegalStateException("Reposit\u00F3rio de n\u00F3s j\u00E1 foi fechado");
+		return d;
+	}
+
+	@Override
+	public void close() {
+		data = null;
+	}
+}
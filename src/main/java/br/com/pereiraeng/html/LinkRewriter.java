@@ -0,0 +1,305 @@
+package br.com.pereiraeng.html;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Classe que troca os endereços dos atributos <code>href</code> e
+ * <code>src</code> de um código HTML segundo uma tabela (endereço antigo →
+ * endereço novo), numa única passada, qualquer que seja o tamanho da tabela
+ * (ao contrário de aplicar um {@link HTML#getLinkPattern(String, String)
+ * padrão} por endereço). A tabela é compilada uma única vez num autômato de
+ * Aho-Corasick, que pode ser usado em vários documentos e por várias
+ * <i>threads</i> ao mesmo tempo.
+ * <p>
+ * Em cada valor de atributo, os trechos iguais a algum endereço da tabela são
+ * trocados, do mais à esquerda para o mais à direita e, entre os que começam
+ * na mesma posição, pelo mais longo (e.g., com a tabela
+ * <code>{"http://a.com" → "https://b.com"}</code>, o valor
+ * <code>http://a.com/x.html</code> vira <code>https://b.com/x.html</code>).
+ * Os endereços são comparados com o código tal como está escrito (sem decodificar
+ * entidades) e os novos endereços são escritos tal como foram dados, exceto
+ * pelas aspas, escritas como entidades. O restante do código é copiado sem
+ * alterações.
+ */
+public class LinkRewriter {
+
+	private static final String[] ATTRIBUTES = { "href", "src" };
+
+	/**
+	 * transições da raiz para os caracteres ASCII
+	 */
+	private final int[] rootNext = new int[128];
+
+	/**
+	 * transições de cada estado (caracteres em ordem crescente e estados de
+	 * destino)
+	 */
+	private final char[][] labels;
+
+	private final int[][] targets;
+
+	/**
+	 * estado de falha, profundidade (tamanho do prefixo lido) e endereço mais
+	 * longo que termina em cada estado (ou -1)
+	 */
+	private final int[] fail, depth, out;
+
+	private final int[] keyLength;
+
+	private final String[] replacements;
+
+	private LinkRewriter(List<TreeMap<Character, Integer>> trie, int[] depth, int[] terminal, String[] keys,
+			String[] replacements) {
+		int n = trie.size();
+		this.labels = new char[n][];
+		this.targets = new int[n][];
+		for (int s = 0; s < n; s++) {
+			TreeMap<Character, Integer> t = trie.get(s);
+			labels[s] = new char[t.size()];
+			targets[s] = new int[t.size()];
+			int i = 0;
+			for (Map.Entry<Character, Integer> e : t.entrySet()) {
+				labels[s][i] = e.getKey();
+				targets[s][i++] = e.getValue();
+			}
+		}
+		this.depth = depth;
+		this.replacements = replacements;
+		this.keyLength = new int[keys.length];
+		for (int k = 0; k < keys.length; k++)
+			keyLength[k] = keys[k].length();
+		for (int c = 0; c < rootNext.length; c++)
+			rootNext[c] = Math.max(0, find(0, (char) c));
+
+		// estados de falha, em largura
+		this.fail = new int[n];
+		this.out = new int[n];
+		out[0] = -1;
+		int[] queue = new int[n];
+		int head = 0, tail = 0;
+		for (int v : targets[0]) {
+			fail[v] = 0;
+			out[v] = terminal[v];
+			queue[tail++] = v;
+		}
+		while (head < tail) {
+			int u = queue[head++];
+			for (int i = 0; i < labels[u].length; i++) {
+				char c = labels[u][i];
+				int v = targets[u][i];
+				int f = fail[u], t;
+				while ((t = find(f, c)) < 0 && f != 0)
+					f = fail[f];
+				fail[v] = Math.max(0, t);
+				out[v] = terminal[v] >= 0 ? terminal[v] : out[fail[v]];
+				queue[tail++] = v;
+			}
+		}
+	}
+
+	/**
+	 * Função que compila a tabela de endereços
+	 *
+	 * @param links tabela (endereço antigo → endereço novo); os endereços antigos
+	 *              não podem ser vazios
+	 * @return autômato que troca os endereços
+	 */
+	public static LinkRewriter compile(Map<String, String> links) {
+		List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+		trie.add(new TreeMap<>());
+		int[] depth = new int[64], terminal = new int[64];
+		terminal[0] = -1;
+		String[] keys = new String[links.size()], replacements = new String[links.size()];
+		int k = 0;
+		for (Map.Entry<String, String> e : links.entrySet()) {
+			String key = e.getKey();
+			if (key.isEmpty())
+				throw new IllegalArgumentException("empty URL");
+			int s = 0;
+			for (int i = 0; i < key.length(); i++) {
+				Integer t = trie.get(s).get(key.charAt(i));
+				if (t == null) {
+					t = trie.size();
+					trie.add(new TreeMap<>());
+					if (t == depth.length) {
+						depth = Arrays.copyOf(depth, t * 2);
+						terminal = Arrays.copyOf(terminal, t * 2);
+					}
+					depth[t] = i + 1;
+					terminal[t] = -1;
+					trie.get(s).put(key.charAt(i), t);
+				}
+				s = t;
+			}
+			terminal[s] = k;
+			keys[k] = key;
+			replacements[k++] = e.getValue();
+		}
+		return new LinkRewriter(trie, Arrays.copyOf(depth, trie.size()), terminal, keys, replacements);
+	}
+
+	/**
+	 * Função que troca os endereços de um código HTML
+	 *
+	 * @param html código HTML
+	 * @return código com os endereços trocados
+	 */
+	public String rewrite(String html) {
+		return new Filter().run(html);
+	}
+
+	/**
+	 * Função que troca os endereços de um código HTML. Nenhum dos dois fluxos é
+	 * fechado.
+	 *
+	 * @param in  código HTML
+	 * @param out código com os endereços trocados
+	 * @throws IOException se houver erro de leitura ou de escrita
+	 */
+	public void rewrite(Reader in, Writer out) throws IOException {
+		new Filter().run(in, out);
+	}
+
+	// ============================== AUTÔMATO ==============================
+
+	/**
+	 * Função que retorna a transição direta de um estado, ou -1 se não houver
+	 */
+	private int find(int state, char c) {
+		int i = Arrays.binarySearch(labels[state], c);
+		return i < 0 ? -1 : targets[state][i];
+	}
+
+	private int next(int state, char c) {
+		while (true) {
+			if (state == 0)
+				return c < 128 ? rootNext[c] : Math.max(0, find(0, c));
+			int t = find(state, c);
+			if (t >= 0)
+				return t;
+			state = fail[state];
+		}
+	}
+
+	/**
+	 * Função que procura o endereço da tabela que começa mais à esquerda no trecho
+	 * (e, entre os que começam na mesma posição, o mais longo)
+	 *
+	 * @param src   código HTML
+	 * @param from  posição inicial do trecho
+	 * @param to    posição final (exclusiva) do trecho
+	 * @param found vetor que recebe as posições inicial e final do endereço
+	 * @return número do endereço, ou -1 se não houver nenhum
+	 */
+	int match(CharSequence src, int from, int to, int[] found) {
+		int state = 0, best = -1;
+		for (int i = from; i < to;) {
+			state = next(state, src.charAt(i++));
+			int k = out[state];
+			if (k >= 0) {
+				int s = i - keyLength[k];
+				if (best < 0 || s <= found[0]) {
+					best = k;
+					found[0] = s;
+					found[1] = i;
+				}
+			}
+			// nenhum endereço que ainda possa ser lido começa antes do encontrado
+			if (best >= 0 && i - depth[state] > found[0])
+				break;
+		}
+		return best;
+	}
+
+	/**
+	 * Receptor dos eventos do {@link HTMLTokenizer}, que copia o código trocando os
+	 * endereços
+	 */
+	private class Filter extends StreamFilter {
+
+		private final int[] attr = new int[4], found = new int[2];
+
+		@Override
+		public void startTag(CharSequence src, int start, int nameStart, int nameEnd, int attrStart, int attrEnd,
+				int end, boolean selfClosing) {
+			int copied = start;
+			for (int p = attrStart; (p = HTMLTokenizer.nextAttribute(src, p, attrEnd, attr)) >= 0;) {
+				if (attr[2] == attr[3] || !isLinkAttribute(src, attr[0], attr[1]))
+					continue;
+				int k = match(src, attr[2], attr[3], found);
+				if (k < 0)
+					continue;
+				char q = src.charAt(attr[2] - 1);
+				boolean quoted = q == '"' || q == '\'';
+				if (!quoted)
+					q = '"';
+				sb.append(src, copied, attr[2]);
+				if (!quoted)
+					sb.append(q);
+				int v = attr[2];
+				do {
+					append(src, v, found[0], q, !quoted);
+					append(replacements[k], 0, replacements[k].length(), q, true);
+					v = found[1];
+				} while ((k = match(src, v, attr[3], found)) >= 0);
+				append(src, v, attr[3], q, !quoted);
+				if (!quoted)
+					sb.append(q);
+				copied = attr[3];
+			}
+			sb.append(src, copied, end);
+		}
+
+		private void append(CharSequence s, int start, int end, char quote, boolean escape) {
+			if (!escape) {
+				sb.append(s, start, end);
+				return;
+			}
+			for (int i = start; i < end; i++) {
+				char c = s.charAt(i);
+				if (c == quote)
+					sb.append(c == '"' ? "&quot;" : "&#39;");
+				else
+					sb.append(c);
+			}
+		}
+
+		@Override
+		public void endTag(CharSequence src, int start, int nameStart, int nameEnd, int end) {
+			sb.append(src, start, end);
+		}
+
+		@Override
+		public void text(CharSequence src, int start, int end) {
+			sb.append(src, start, end);
+		}
+
+		@Override
+		public void comment(CharSequence src, int start, int end) {
+			sb.append(src, start, end);
+		}
+
+		@Override
+		void finish() {
+		}
+	}
+
+	private static boolean isLinkAttribute(CharSequence src, int start, int end) {
+		for (String a : ATTRIBUTES)
+			if (end - start == a.length()) {
+				int i = 0;
+				while (i < a.length() && Character.toLowerCase(src.charAt(start + i)) == a.charAt(i))
+					i++;
+				if (i == a.length())
+					return true;
+			}
+		return false;
+	}
+}
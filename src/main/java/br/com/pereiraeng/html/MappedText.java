@@ -0,0 +1,125 @@
+package br.com.pereiraeng.html;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Sequência de caracteres sobre bytes fora da memória do Java (tipicamente um
+ * arquivo mapeado). Cada byte é visto como um caractere (como em ISO-8859-1), o
+ * que basta para localizar as etiquetas, pois os delimitadores do HTML são
+ * todos ASCII; o texto propriamente dito é decodificado com a codificação real
+ * pela função {@link #decode(int, int)}.
+ */
+public class MappedText implements CharSequence, Closeable {
+
+	private ByteBuffer buffer;
+
+	private final Charset charset;
+
+	private final int offset, length;
+
+	/**
+	 * @param buffer  bytes do texto (da posição zero até o limite)
+	 * @param charset codificação do texto
+	 */
+	public MappedText(ByteBuffer buffer, Charset charset) {
+		this(buffer, charset, 0, buffer.limit());
+	}
+
+	private MappedText(ByteBuffer buffer, Charset charset, int offset, int length) {
+		this.buffer = buffer;
+		this.charset = charset;
+		this.offset = offset;
+		this.length = length;
+	}
+
+	/**
+	 * Função que mapeia um arquivo na memória. O tamanho máximo é de 2 GB; os
+	 * arquivos maiores são mapeados em várias janelas por {@link SegmentedText}.
+	 *
+	 * @param file    arquivo
+	 * @param charset codificação do arquivo
+	 * @return sequência de caracteres
+	 * @throws IOException se o arquivo não puder ser lido
+	 */
+	public static MappedText map(Path file, Charset charset) throws IOException {
+		try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = ch.size();
+			if (size > Integer.MAX_VALUE)
+				throw new IOException("Arquivo maior que 2 GB: " + file);
+			return new MappedText(ch.map(FileChannel.MapMode.READ_ONLY, 0, size), charset);
+		}
+	}
+
+	public Charset getCharset() {
+		return charset;
+	}
+
+	/**
+	 * Função que retorna os bytes do texto
+	 *
+	 * @return cópia independente (mesmo conteúdo) do {@link ByteBuffer}
+	 */
+	public ByteBuffer getBuffer() {
+		ByteBuffer bb = buffer().duplicate();
+		bb.limit(offset + length).position(offset);
+		return bb.slice();
+	}
+
+	@Override
+	public int length() {
+		return length;
+	}
+
+	@Override
+	public char charAt(int index) {
+		return (char) (buffer().get(offset + index) & 0xFF);
+	}
+
+	@Override
+	public CharSequence subSequence(int start, int end) {
+		return new MappedText(buffer(), charset, offset + start, end - start);
+	}
+
+	/**
+	 * Função que decodifica um trecho do texto
+	 *
+	 * @param start posição inicial
+	 * @param end   posição final (exclusiva)
+	 * @return texto decodificado
+	 */
+	public String decode(int start, int end) {
+		ByteBuffer bb = buffer().duplicate();
+		bb.limit(offset + end).position(offset + start);
+		return charset.decode(bb).toString();
+	}
+
+	@Override
+	public String toString() {
+		return decode(0, length);
+	}
+
+	/**
+	 * Função que solta a referência aos bytes; o mapeamento é desfeito quando o
+	 * {@link ByteBuffer} for coletado
+	 */
+	@Override
+	public void close() {
+		buffer = null;
+	}
+
+	int offset() {
+		return offset;
+	}
+
+	ByteBuffer buffer() {
+		if (buffer == null)
+			throw new IllegalStateException("Texto já foi fechado");
+		return buffer;
+	}
+}
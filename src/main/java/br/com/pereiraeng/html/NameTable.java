@@ -0,0 +1,153 @@
+package br.com.pereiraeng.html;
+
+import java.util.Arrays;
+
+/**
+ * Tabela que associa a cada nome (de etiqueta, de atributo etc.) um número
+ * inteiro. Os nomes são guardados em minúsculas e a consulta é feita
+ * diretamente sobre um trecho de uma sequência de caracteres, sem a criação de
+ * objetos quando o nome já está na tabela.
+ */
+public final class NameTable {
+
+	private String[] names = new String[32];
+
+	private int[] slots = new int[64];
+
+	private int size;
+
+	public NameTable() {
+		Arrays.fill(slots, -1);
+	}
+
+	/**
+	 * Função que retorna o número que identifica o nome, inserindo-o na tabela se
+	 * ainda não estiver lá
+	 *
+	 * @param src   sequência de caracteres
+	 * @param start posição do primeiro caractere do nome
+	 * @param end   posição seguinte ao último caractere do nome
+	 * @return número que identifica o nome
+	 */
+	public int intern(CharSequence src, int start, int end) {
+		int h = hash(src, start, end);
+		int mask = slots.length - 1;
+		for (int i = h & mask;; i = (i + 1) & mask) {
+			int id = slots[i];
+			if (id < 0) {
+				id = add(lower(src, start, end));
+				if (size * 2 > slots.length)
+					rehash();
+				else
+					slots[i] = id;
+				return id;
+			}
+			if (equals(names[id], src, start, end))
+				return id;
+		}
+	}
+
+	/**
+	 * Função que retorna o número que identifica o nome, inserindo-o na tabela se
+	 * ainda não estiver lá
+	 *
+	 * @param name nome
+	 * @return número que identifica o nome
+	 */
+	public int intern(String name) {
+		return intern(name, 0, name.length());
+	}
+
+	/**
+	 * Função que procura o nome na tabela, sem inseri-lo
+	 *
+	 * @param src   sequência de caracteres
+	 * @param start posição do primeiro caractere do nome
+	 * @param end   posição seguinte ao último caractere do nome
+	 * @return número que identifica o nome, ou -1 se ele não estiver na tabela
+	 */
+	public int get(CharSequence src, int start, int end) {
+		int mask = slots.length - 1;
+		for (int i = hash(src, start, end) & mask;; i = (i + 1) & mask) {
+			int id = slots[i];
+			if (id < 0 || equals(names[id], src, start, end))
+				return id;
+		}
+	}
+
+	/**
+	 * Função que procura o nome na tabela, sem inseri-lo
+	 *
+	 * @param name nome
+	 * @return número que identifica o nome, ou -1 se ele não estiver na tabela
+	 */
+	public int get(String name) {
+		return get(name, 0, name.length());
+	}
+
+	/**
+	 * Função que retorna o nome (em minúsculas) associado a um número
+	 *
+	 * @param id número que identifica o nome
+	 * @return nome
+	 */
+	public String getName(int id) {
+		return id < 0 ? null : names[id];
+	}
+
+	/**
+	 * Função que retorna a quantidade de nomes na tabela
+	 *
+	 * @return quantidade de nomes
+	 */
+	public int size() {
+		return size;
+	}
+
+	private int add(String name) {
+		if (size == names.length)
+			names = Arrays.copyOf(names, size * 2);
+		names[size] = name;
+		return size++;
+	}
+
+	private void rehash() {
+		slots = new int[slots.length * 2];
+		Arrays.fill(slots, -1);
+		int mask = slots.length - 1;
+		for (int id = 0; id < size; id++) {
+			String n = names[id];
+			int i = hash(n, 0, n.length()) & mask;
+			while (slots[i] >= 0)
+				i = (i + 1) & mask;
+			slots[i] = id;
+		}
+	}
+
+	private static char lower(char c) {
+		return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+	}
+
+	private static int hash(CharSequence src, int start, int end) {
+		int h = 0;
+		for (int i = start; i < end; i++)
+			h = 31 * h + lower(src.charAt(i));
+		return h ^ (h >>> 16);
+	}
+
+	private static String lower(CharSequence src, int start, int end) {
+		char[] cs = new char[end - start];
+		for (int i = 0; i < cs.length; i++)
+			cs[i] = lower(src.charAt(start + i));
+		return new String(cs);
+	}
+
+	private static boolean equals(String name, CharSequence src, int start, int end) {
+		if (name.length() != end - start)
+			return false;
+		for (int i = 0; i < name.length(); i++)
+			if (name.charAt(i) != lower(src.charAt(start + i)))
+				return false;
+		return true;
+	}
+}
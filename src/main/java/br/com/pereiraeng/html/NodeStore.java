@@ -0,0 +1,103 @@
+package br.com.pereiraeng.html;
+
+import java.io.Closeable;
+
+/**
+ * Interface dos repositórios dos nós de um {@link HTMLDocument}. Cada nó é um
+ * registro de {@link #FIELDS} números inteiros, identificado pela sua posição
+ * (os nós são criados na ordem em que aparecem no documento). As posições no
+ * código (de {@link #START} a {@link #ATTR_END}) são lidas e escritas por
+ * {@link #getPosition(int, int)} e {@link #setPosition(int, int, long)}: os 32
+ * bits menos significativos ficam no próprio campo e os
+ * {@value #HIGH_BITS} seguintes, no campo {@link #HIGH}, de modo que os
+ * documentos podem ter até 128 GB.
+ */
+public interface NodeStore extends Closeable {
+
+	/**
+	 * Campos de cada nó
+	 */
+	public static final int KIND = 0, NAME = 1, START = 2, END = 3, CONTENT_START = 4, CONTENT_END = 5,
+			ATTR_START = 6, ATTR_END = 7, PARENT = 8, FIRST_CHILD = 9, NEXT_SIBLING = 10, DEPTH = 11, HIGH = 12;
+
+	/**
+	 * Quantidade de campos de cada nó
+	 */
+	public static final int FIELDS = 13;
+
+	/**
+	 * Quantidade de bits de cada posição guardados no campo {@link #HIGH}
+	 */
+	public static final int HIGH_BITS = 5;
+
+	static final int HIGH_MASK = (1 << HIGH_BITS) - 1;
+
+	/**
+	 * Função que cria um novo nó, com todos os campos iguais a zero
+	 *
+	 * @return índice do nó criado
+	 */
+	public int add();
+
+	/**
+	 * Função que retorna a quantidade de nós
+	 *
+	 * @return quantidade de nós
+	 */
+	public int size();
+
+	/**
+	 * Função que lê um campo de um nó
+	 *
+	 * @param node  índice do nó
+	 * @param field campo
+	 * @return valor do campo
+	 */
+	public int get(int node, int field);
+
+	/**
+	 * Função que escreve um campo de um nó
+	 *
+	 * @param node  índice do nó
+	 * @param field campo
+	 * @param value valor do campo
+	 */
+	public void set(int node, int field, int value);
+
+	/**
+	 * Função que lê uma posição no código
+	 *
+	 * @param node  índice do nó
+	 * @param field campo (de {@link #START} a {@link #ATTR_END})
+	 * @return posição
+	 */
+	public default long getPosition(int node, int field) {
+		long high = (get(node, HIGH) >>> (field - START) * HIGH_BITS) & HIGH_MASK;
+		return high << 32 | (get(node, field) & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Função que escreve uma posição no código
+	 *
+	 * @param node  índice do nó
+	 * @param field campo (de {@link #START} a {@link #ATTR_END})
+	 * @param value posição
+	 * @throws IllegalArgumentException se a posição não couber no campo
+	 */
+	public default void setPosition(int node, int field, long value) {
+		if (value < 0 || (value >>> 32) > HIGH_MASK)
+			throw new IllegalArgumentException(Long.toString(value));
+		set(node, field, (int) value);
+		int shift = (field - START) * HIGH_BITS, high = get(node, HIGH);
+		int h = (high & ~(HIGH_MASK << shift)) | (int) (value >>> 32) << shift;
+		if (h != high)
+			set(node, HIGH, h);
+	}
+
+	/**
+	 * Função que libera a memória ocupada pelos nós. Após seu fechamento, o
+	 * repositório não pode mais ser usado.
+	 */
+	@Override
+	public void close();
+}
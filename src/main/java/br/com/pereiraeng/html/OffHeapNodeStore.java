@@ -0,0 +1,203 @@
+package br.com.pereiraeng.html;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Repositório de nós fora da memória do Java, em segmentos de tamanho fixo
+ * alocados com {@link ByteBuffer#allocateDirect(int)} ou mapeados em um
+ * arquivo. Assim, documentos muito grandes não pressionam o coletor de lixo.
+ * Os segmentos são liberados (e desmapeados) no {@link #close() fechamento},
+ * que não pode ocorrer enquanto outra <i>thread</i> lê o repositório.
+ */
+public class OffHeapNodeStore implements NodeStore {
+
+	/**
+	 * Quantidade de nós por segmento (potência de dois)
+	 */
+	private static final int SEGMENT_SHIFT = 14, SEGMENT_NODES = 1 << SEGMENT_SHIFT,
+			SEGMENT_MASK = SEGMENT_NODES - 1;
+
+	private static final int NODE_BYTES = FIELDS * Integer.BYTES,
+			SEGMENT_BYTES = SEGMENT_NODES * NODE_BYTES;
+
+	/**
+	 * <code>sun.misc.Unsafe.invokeCleaner</code> (Java 9 ou superior), que libera
+	 * a memória direta e os mapeamentos sem esperar pelo coletor de lixo, e a
+	 * respectiva instância; <code>null</code> se não estiver disponível
+	 */
+	private static final Method INVOKE_CLEANER;
+
+	private static final Object UNSAFE;
+
+	static {
+		Method m = null;
+		Object u = null;
+		try {
+			Class<?> c = Class.forName("sun.misc.Unsafe");
+			Field f = c.getDeclaredField("theUnsafe");
+			f.setAccessible(true);
+			u = f.get(null);
+			m = c.getMethod("invokeCleaner", ByteBuffer.class);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			m = null;
+		}
+		INVOKE_CLEANER = m;
+		UNSAFE = m == null ? null : u;
+	}
+
+	private List<ByteBuffer> segments = new ArrayList<>();
+
+	private final FileChannel channel;
+
+	private final Path file;
+
+	private final boolean deleteOnClose;
+
+	private int size;
+
+	private OffHeapNodeStore(FileChannel channel, Path file, boolean deleteOnClose) {
+		this.channel = channel;
+		this.file = file;
+		this.deleteOnClose = deleteOnClose;
+	}
+
+	/**
+	 * Função que cria um repositório em memória direta
+	 *
+	 * @return repositório
+	 */
+	public static OffHeapNodeStore direct() {
+		return new OffHeapNodeStore(null, null, false);
+	}
+
+	/**
+	 * Função que cria um repositório mapeado em um arquivo temporário, apagado no
+	 * fechamento
+	 *
+	 * @return repositório
+	 * @throws IOException se o arquivo não puder ser criado
+	 */
+	public static OffHeapNodeStore mapped() throws IOException {
+		return mapped(Files.createTempFile("pereira-html", ".nodes"), true);
+	}
+
+	/**
+	 * Função que cria um repositório mapeado em um arquivo
+	 *
+	 * @param file          arquivo
+	 * @param deleteOnClose <code>true</code> para apagar o arquivo no fechamento
+	 * @return repositório
+	 * @throws IOException se o arquivo não puder ser aberto
+	 */
+	public static OffHeapNodeStore mapped(Path file, boolean deleteOnClose) throws IOException {
+		FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		return new OffHeapNodeStore(ch, file, deleteOnClose);
+	}
+
+	@Override
+	public int add() {
+		int node = size;
+		int s = node >>> SEGMENT_SHIFT;
+		if (s == segments().size())
+			segments.add(allocate(s));
+		size++;
+		return node;
+	}
+
+	private ByteBuffer allocate(int segment) {
+		ByteBuffer bb;
+		if (channel == null)
+			bb = ByteBuffer.allocateDirect(SEGMENT_BYTES);
+		else
+			try {
+				bb = channel.map(FileChannel.MapMode.READ_WRITE, (long) segment * SEGMENT_BYTES, SEGMENT_BYTES);
+				// o conteúdo do trecho acrescentado ao arquivo não é especificado (e um
+				// arquivo reaproveitado tem os nós de antes), mas os nós novos começam
+				// zerados
+				for (int i = 0; i < SEGMENT_BYTES; i += Long.BYTES)
+					bb.putLong(i, 0L);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		return bb.order(ByteOrder.nativeOrder());
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public int get(int node, int field) {
+		return segments().get(node >>> SEGMENT_SHIFT).getInt((node & SEGMENT_MASK) * NODE_BYTES + field * 4);
+	}
+
+	@Override
+	public void set(int node, int field, int value) {
+		segments().get(node >>> SEGMENT_SHIFT).putInt((node & SEGMENT_MASK) * NODE_BYTES + field * 4, value);
+	}
+
+	private List<ByteBuffer> segments() {
+		if (segments == null)
+			throw new IllegalStateException("Reposit\u00F3rio de n\u00F3s j\u00E1 foi fechado");
+		return segments;
+	}
+
+	/**
+	 * Função que libera os segmentos: a memória direta e os mapeamentos são
+	 * devolvidos ao sistema na hora (no Java 8, só quando os respectivos objetos
+	 * forem coletados). Se o arquivo mapeado tiver de ser apagado e o sistema não
+	 * permitir apagar um arquivo ainda mapeado, ele é apagado no fim da JVM.
+	 */
+	@Override
+	public void close() {
+		if (segments == null)
+			return;
+		List<ByteBuffer> released = segments;
+		segments = null;
+		boolean freed = true;
+		for (ByteBuffer bb : released)
+			freed &= free(bb);
+		released.clear();
+		if (channel != null)
+			try {
+				channel.close();
+				if (deleteOnClose)
+					try {
+						Files.deleteIfExists(file);
+					} catch (IOException e) {
+						if (freed)
+							throw e;
+						file.toFile().deleteOnExit();
+					}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+	}
+
+	/**
+	 * @return <code>true</code> se a memória do segmento foi liberada
+	 */
+	private static boolean free(ByteBuffer bb) {
+		if (INVOKE_CLEANER == null)
+			return false;
+		try {
+			INVOKE_CLEANER.invoke(UNSAFE, bb);
+			return true;
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			return false;
+		}
+	}
+}
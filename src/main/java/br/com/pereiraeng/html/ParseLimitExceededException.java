@@ -0,0 +1,65 @@
+package br.com.pereiraeng.html;
+
+/**
+ * Exceção lançada quando a leitura de um código HTML ultrapassa um dos
+ * {@link ParseLimits limites de recursos}. Traz o limite ultrapassado, a
+ * posição do código em que a leitura parou e o resultado parcial (e.g., o
+ * {@link HTMLDocument} com os nós lidos até ali, todos fechados nessa posição).
+ */
+public class ParseLimitExceededException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Limites
+	 */
+	public static enum Limit {
+		INPUT_SIZE, DEPTH, NODES, STEPS, TIME, CANCELLED
+	}
+
+	private final Limit limit;
+
+	private final int position;
+
+	private transient Object partialResult;
+
+	public ParseLimitExceededException(Limit limit, int position) {
+		super(limit + " limit exceeded at position " + position);
+		this.limit = limit;
+		this.position = position;
+	}
+
+	public Limit getLimit() {
+		return limit;
+	}
+
+	/**
+	 * @return posição do código em que a leitura parou
+	 */
+	public int getPosition() {
+		return position;
+	}
+
+	/**
+	 * Função que retorna o resultado parcial da leitura. Se for um documento
+	 * {@link HTMLDocument#open(java.nio.file.Path, java.nio.charset.Charset)
+	 * mapeado}, cabe a quem trata a exceção fechá-lo.
+	 *
+	 * @return resultado parcial (e.g., {@link HTMLDocument} ou árvore), ou
+	 *         <code>null</code> se não houver
+	 */
+	public Object getPartialResult() {
+		return partialResult;
+	}
+
+	/**
+	 * Função que anexa o resultado parcial
+	 *
+	 * @param partialResult resultado parcial
+	 * @return esta exceção
+	 */
+	ParseLimitExceededException withPartialResult(Object partialResult) {
+		this.partialResult = partialResult;
+		return this;
+	}
+}
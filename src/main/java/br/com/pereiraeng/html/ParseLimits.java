@@ -0,0 +1,290 @@
+package br.com.pereiraeng.html;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Limites de recursos para a leitura de um código HTML: tamanho máximo do
+ * código, profundidade máxima de aninhamento, quantidade máxima de nós,
+ * quantidade máxima de passos e tempo máximo. A leitura verifica os limites
+ * à medida que avança e, ao ultrapassar algum, para imediatamente com uma
+ * {@link ParseLimitExceededException}, que traz o resultado parcial. A leitura
+ * também para se a <i>thread</i> for interrompida ou se a condição de
+ * cancelamento indicada se tornar verdadeira (o cancelamento é cooperativo:
+ * tempo e cancelamento são verificados a cada {@value #CHECK_INTERVAL}
+ * passos).
+ * <p>
+ * Os limites são montados pelo {@link Builder} e podem ser compartilhados entre
+ * <i>threads</i>; cada leitura tem a sua própria contagem.
+ */
+public class ParseLimits {
+
+	/**
+	 * Sem limites
+	 */
+	public static final ParseLimits NONE = builder().build();
+
+	/**
+	 * Quantidade de passos entre duas verificações do tempo e do cancelamento
+	 */
+	public static final int CHECK_INTERVAL = 256;
+
+	private final int maxInputLength, maxDepth, maxNodes;
+
+	private final long maxSteps, timeoutNanos;
+
+	private final BooleanSupplier cancelled;
+
+	private ParseLimits(Builder b) {
+		this.maxInputLength = b.maxInputLength;
+		this.maxDepth = b.maxDepth;
+		this.maxNodes = b.maxNodes;
+		this.maxSteps = b.maxSteps;
+		this.timeoutNanos = b.timeoutNanos;
+		this.cancelled = b.cancelled;
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	public int getMaxInputLength() {
+		return maxInputLength;
+	}
+
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	public int getMaxNodes() {
+		return maxNodes;
+	}
+
+	public long getMaxSteps() {
+		return maxSteps;
+	}
+
+	/**
+	 * @return tempo máximo em nanossegundos, ou 0 se não houver
+	 */
+	public long getTimeoutNanos() {
+		return timeoutNanos;
+	}
+
+	/**
+	 * Função que envolve um texto de modo que cada leitura de caractere conte como
+	 * um passo. Serve para limitar as funções que usam expressões regulares sobre
+	 * o código (cujo retrocesso pode ser exponencial em códigos malformados): a
+	 * expressão, aplicada ao texto envolvido, para com uma
+	 * {@link ParseLimitExceededException} ao ultrapassar os limites de passos ou de
+	 * tempo.
+	 *
+	 * @param text texto
+	 * @return texto envolvido, cuja contagem começa agora (ou o próprio texto, se
+	 *         não houver limites)
+	 * @throws ParseLimitExceededException se o texto for maior que o permitido
+	 */
+	public CharSequence guard(CharSequence text) {
+		Budget budget = start();
+		budget.checkInput(text.length());
+		return guard(text, budget);
+	}
+
+	/**
+	 * Função que envolve um texto com uma contagem já começada (e.g., para que
+	 * várias expressões aplicadas em sequência tenham uma única contagem)
+	 */
+	static CharSequence guard(CharSequence text, Budget budget) {
+		return budget.limits == NONE ? text : new GuardedText(text, budget);
+	}
+
+	/**
+	 * Função que começa a contagem de uma leitura
+	 */
+	Budget start() {
+		return new Budget(this);
+	}
+
+	// ============================== CONTAGEM ==============================
+
+	/**
+	 * Contagem de passos e de tempo de uma leitura (não pode ser compartilhada
+	 * entre <i>threads</i>)
+	 */
+	static final class Budget {
+
+		private final ParseLimits limits;
+
+		private final long start;
+
+		private long steps;
+
+		private Budget(ParseLimits limits) {
+			this.limits = limits;
+			this.start = limits.timeoutNanos > 0 ? System.nanoTime() : 0L;
+		}
+
+		/**
+		 * Função que conta um passo
+		 *
+		 * @param position posição do código em que a leitura está
+		 */
+		void step(int position) {
+			if (++steps > limits.maxSteps)
+				throw new ParseLimitExceededException(ParseLimitExceededException.Limit.STEPS, position);
+			if ((steps & (CHECK_INTERVAL - 1)) == 0)
+				check(position);
+		}
+
+		/**
+		 * Função que verifica o tempo e o cancelamento
+		 */
+		void check(int position) {
+			if (limits.timeoutNanos > 0 && System.nanoTime() - start > limits.timeoutNanos)
+				throw new ParseLimitExceededException(ParseLimitExceededException.Limit.TIME, position);
+			if (Thread.currentThread().isInterrupted()
+					|| (limits.cancelled != null && limits.cancelled.getAsBoolean()))
+				throw new ParseLimitExceededException(ParseLimitExceededException.Limit.CANCELLED, position);
+		}
+
+		void checkInput(int length) {
+			if (length > limits.maxInputLength)
+				throw new ParseLimitExceededException(ParseLimitExceededException.Limit.INPUT_SIZE, 0);
+		}
+
+		void checkDepth(int depth, int position) {
+			if (depth > limits.maxDepth)
+				throw new ParseLimitExceededException(ParseLimitExceededException.Limit.DEPTH, position);
+		}
+
+		void checkNodes(int nodes, int position) {
+			if (nodes > limits.maxNodes)
+				throw new ParseLimitExceededException(ParseLimitExceededException.Limit.NODES, position);
+		}
+	}
+
+	/**
+	 * Texto em que cada leitura de caractere conta como um passo
+	 */
+	private static final class GuardedText implements CharSequence {
+
+		private final CharSequence text;
+
+		private final Budget budget;
+
+		GuardedText(CharSequence text, Budget budget) {
+			this.text = text;
+			this.budget = budget;
+		}
+
+		@Override
+		public int length() {
+			return text.length();
+		}
+
+		@Override
+		public char charAt(int index) {
+			budget.step(index);
+			return text.charAt(index);
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			return new GuardedText(text.subSequence(start, end), budget);
+		}
+
+		@Override
+		public String toString() {
+			return text.toString();
+		}
+	}
+
+	// ============================== MONTADOR ==============================
+
+	/**
+	 * Montador dos limites; os limites não indicados ficam livres
+	 */
+	public static class Builder {
+
+		private int maxInputLength = Integer.MAX_VALUE, maxDepth = Integer.MAX_VALUE, maxNodes = Integer.MAX_VALUE;
+
+		private long maxSteps = Long.MAX_VALUE, timeoutNanos;
+
+		private BooleanSupplier cancelled;
+
+		private Builder() {
+		}
+
+		/**
+		 * @param chars quantidade máxima de caracteres do código
+		 * @return este montador
+		 */
+		public Builder maxInputLength(int chars) {
+			this.maxInputLength = positive(chars);
+			return this;
+		}
+
+		/**
+		 * @param depth profundidade máxima de aninhamento dos elementos
+		 * @return este montador
+		 */
+		public Builder maxDepth(int depth) {
+			this.maxDepth = positive(depth);
+			return this;
+		}
+
+		/**
+		 * @param nodes quantidade máxima de nós (contando a raiz)
+		 * @return este montador
+		 */
+		public Builder maxNodes(int nodes) {
+			this.maxNodes = positive(nodes);
+			return this;
+		}
+
+		/**
+		 * @param steps quantidade máxima de passos (um por evento do leitor ou, nos
+		 *              textos {@link ParseLimits#guard(CharSequence) envolvidos},
+		 *              um por caractere lido)
+		 * @return este montador
+		 */
+		public Builder maxSteps(long steps) {
+			if (steps <= 0)
+				throw new IllegalArgumentException(Long.toString(steps));
+			this.maxSteps = steps;
+			return this;
+		}
+
+		/**
+		 * @param timeout tempo máximo da leitura
+		 * @param unit    unidade do tempo
+		 * @return este montador
+		 */
+		public Builder timeout(long timeout, TimeUnit unit) {
+			if (timeout <= 0)
+				throw new IllegalArgumentException(Long.toString(timeout));
+			this.timeoutNanos = unit.toNanos(timeout);
+			return this;
+		}
+
+		/**
+		 * @param cancelled condição de cancelamento, consultada periodicamente
+		 *                  durante a leitura
+		 * @return este montador
+		 */
+		public Builder cancelWhen(BooleanSupplier cancelled) {
+			this.cancelled = cancelled;
+			return this;
+		}
+
+		private static int positive(int n) {
+			if (n <= 0)
+				throw new IllegalArgumentException(Integer.toString(n));
+			return n;
+		}
+
+		public ParseLimits build() {
+			return new ParseLimits(this);
+		}
+	}
+}
@@ -0,0 +1,199 @@
+package br.com.pereiraeng.html;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Plano de leitura de um código HTML: indica quais partes do documento serão
+ * usadas (algumas tabelas, alguns elementos, uma faixa de profundidade, os
+ * textos ou não), de modo que a leitura só monta os nós dessas partes. O
+ * restante do código é apenas percorrido pelo {@link HTMLTokenizer}, sem criar
+ * nós, e a leitura termina assim que não houver mais nada a montar (e.g., logo
+ * após a última tabela pedida).
+ * <p>
+ * Um elemento é selecionado se for uma das tabelas indicadas ou tiver um dos
+ * nomes indicados (qualquer elemento, se nenhuma das duas listas for dada) e
+ * estiver na faixa de profundidade indicada; os elementos selecionados são
+ * guardados com todos os seus descendentes, como filhos da raiz do documento.
+ * As tabelas são numeradas na ordem do código original (inclusive as
+ * aninhadas), mas, no documento lido, só as tabelas guardadas são numeradas
+ * (e.g., com {@code tables(2)}, a terceira tabela do código é a tabela 0 do
+ * documento).
+ * <p>
+ * Os planos são montados pelo {@link Builder} e podem ser compartilhados entre
+ * <i>threads</i>.
+ */
+public class ParsePlan {
+
+	/**
+	 * Documento inteiro
+	 */
+	public static final ParsePlan ALL = builder().build();
+
+	private final int[] tables;
+
+	private final String[] elements;
+
+	private final int minDepth, maxDepth;
+
+	private final boolean text;
+
+	private ParsePlan(Builder b) {
+		this.tables = b.tables;
+		this.elements = b.elements;
+		this.minDepth = b.minDepth;
+		this.maxDepth = b.maxDepth;
+		this.text = b.text;
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * @return índices das tabelas selecionadas, em ordem crescente, ou
+	 *         <code>null</code> se não houver seleção por tabela
+	 */
+	public int[] getTables() {
+		return tables == null ? null : tables.clone();
+	}
+
+	/**
+	 * @return nomes dos elementos selecionados, ou <code>null</code> se não houver
+	 *         seleção por nome
+	 */
+	public String[] getElements() {
+		return elements == null ? null : elements.clone();
+	}
+
+	public int getMinDepth() {
+		return minDepth;
+	}
+
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	/**
+	 * @return <code>true</code> se os nós de texto forem guardados
+	 */
+	public boolean hasText() {
+		return text;
+	}
+
+	/**
+	 * @return <code>true</code> se todos os elementos forem guardados
+	 */
+	boolean isAll() {
+		return tables == null && elements == null && minDepth == 0 && maxDepth == Integer.MAX_VALUE;
+	}
+
+	/**
+	 * @return <code>true</code> se houver seleção por tabela ou por nome
+	 */
+	boolean hasSelection() {
+		return tables != null || elements != null;
+	}
+
+	/**
+	 * Função que verifica se uma tabela está selecionada
+	 *
+	 * @param ordinal índice da tabela no código
+	 */
+	boolean hasTable(int ordinal) {
+		return tables != null && Arrays.binarySearch(tables, ordinal) >= 0;
+	}
+
+	/**
+	 * Função que verifica se depois de uma tabela ainda pode haver algo a
+	 * selecionar
+	 *
+	 * @param ordinal índice da tabela no código
+	 */
+	boolean isDone(int ordinal) {
+		return elements == null && tables != null && ordinal >= tables[tables.length - 1];
+	}
+
+	boolean hasDepth(int depth) {
+		return depth >= minDepth && depth <= maxDepth;
+	}
+
+	// ============================== MONTADOR ==============================
+
+	/**
+	 * Montador dos planos (por padrão, o documento inteiro, com os textos)
+	 */
+	public static class Builder {
+
+		private int[] tables;
+
+		private String[] elements;
+
+		private int minDepth, maxDepth = Integer.MAX_VALUE;
+
+		private boolean text = true;
+
+		private Builder() {
+		}
+
+		/**
+		 * @param tableIndices índices das tabelas, na ordem do código (inclusive as
+		 *                     aninhadas)
+		 * @return este montador
+		 */
+		public Builder tables(int... tableIndices) {
+			if (tableIndices.length == 0)
+				throw new IllegalArgumentException("Nenhuma tabela indicada");
+			int[] t = tableIndices.clone();
+			Arrays.sort(t);
+			if (t[0] < 0)
+				throw new IllegalArgumentException(Integer.toString(t[0]));
+			this.tables = t;
+			return this;
+		}
+
+		/**
+		 * @param names nomes dos elementos (e.g., <code>"a"</code>)
+		 * @return este montador
+		 */
+		public Builder elements(String... names) {
+			if (names.length == 0)
+				throw new IllegalArgumentException("Nenhum elemento indicado");
+			String[] e = new String[names.length];
+			for (int i = 0; i < names.length; i++)
+				e[i] = names[i].toLowerCase(Locale.ROOT);
+			this.elements = e;
+			return this;
+		}
+
+		/**
+		 * @param min profundidade mínima dos elementos selecionados (os filhos da
+		 *            raiz têm profundidade 0)
+		 * @param max profundidade máxima dos elementos selecionados
+		 * @return este montador
+		 */
+		public Builder depth(int min, int max) {
+			if (min < 0 || max < min)
+				throw new IllegalArgumentException(min + ", " + max);
+			this.minDepth = min;
+			this.maxDepth = max;
+			return this;
+		}
+
+		/**
+		 * @param text <code>false</code> para não guardar os nós de texto (o
+		 *             conteúdo dos elementos continua acessível por
+		 *             {@link HTMLDocument#getText(int)} e
+		 *             {@link HTMLDocument#getInnerHTML(int)})
+		 * @return este montador
+		 */
+		public Builder text(boolean text) {
+			this.text = text;
+			return this;
+		}
+
+		public ParsePlan build() {
+			return new ParsePlan(this);
+		}
+	}
+}
@@ -0,0 +1,228 @@
+package br.com.pereiraeng.html;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Lista das etiquetas, atributos e esquemas de endereço (<i>URL</i>)
+ * permitidos pelo {@link HTMLSanitizer}. A política é montada uma única vez
+ * pelo {@link Builder} e depois só consultada (podendo ser compartilhada entre
+ * <i>threads</i>): os nomes ficam numa {@link NameTable} e as permissões em
+ * vetores indexados pelo número de cada nome.
+ */
+public class SanitizerPolicy {
+
+	/**
+	 * Política com as etiquetas de formatação de texto, listas, tabelas e links
+	 * (<code>http</code>, <code>https</code> e <code>mailto</code>)
+	 */
+	public static final SanitizerPolicy BASIC = builder()
+			.allowTags("a", "b", "i", "u", "s", "em", "strong", "small", "big", "sub", "sup", "span", "br", "p", "div",
+					"ul", "ol", "li", "table", "thead", "tbody", "tfoot", "tr", "td", "th", "caption", "h1", "h2", "h3",
+					"h4", "h5", "h6", "blockquote", "pre", "code", "hr", "img")
+			.allowAttributes("title").allowAttributesOn("a", "href")
+			.allowAttributesOn("img", "src", "alt", "width", "height").allowAttributesOn("td", "colspan", "rowspan")
+			.allowAttributesOn("th", "colspan", "rowspan")
+			.allowUrlSchemes("http", "https", "mailto").build();
+
+	private final NameTable names;
+
+	/**
+	 * permissões por número de nome: etiqueta permitida, conteúdo descartado,
+	 * atributo permitido em qualquer etiqueta, atributo com endereço e elemento
+	 * vazio (e.g., <code>br</code>)
+	 */
+	private final boolean[] tags, dropContent, globalAttributes, urlAttributes, voids;
+
+	/**
+	 * atributos permitidos em cada etiqueta (número da etiqueta → números dos
+	 * atributos)
+	 */
+	private final Map<Integer, Set<Integer>> tagAttributes;
+
+	private final Set<String> schemes;
+
+	private SanitizerPolicy(Builder b) {
+		this.names = b.names;
+		int n = names.size();
+		this.tags = toArray(b.tags, n);
+		this.dropContent = toArray(b.dropContent, n);
+		this.globalAttributes = toArray(b.globalAttributes, n);
+		this.urlAttributes = toArray(b.urlAttributes, n);
+		this.voids = new boolean[n];
+		for (int i = 0; i < n; i++)
+			voids[i] = HTMLDocument.isVoid(names.getName(i));
+		this.tagAttributes = new HashMap<>(b.tagAttributes);
+		this.schemes = new HashSet<>(b.schemes);
+	}
+
+	private static boolean[] toArray(Set<Integer> ids, int size) {
+		boolean[] out = new boolean[size];
+		for (int id : ids)
+			out[id] = true;
+		return out;
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	// ============================== CONSULTA ==============================
+
+	/**
+	 * Função que retorna o número de um nome (etiqueta ou atributo) da política
+	 *
+	 * @param src   código HTML
+	 * @param start posição inicial do nome
+	 * @param end   posição final (exclusiva) do nome
+	 * @return número do nome, ou -1 se ele não for citado pela política
+	 */
+	int getId(CharSequence src, int start, int end) {
+		int id = names.get(src, start, end);
+		return id < tags.length ? id : -1;
+	}
+
+	boolean isTagAllowed(int tag) {
+		return tag >= 0 && tags[tag];
+	}
+
+	boolean isContentDropped(int tag) {
+		return tag >= 0 && dropContent[tag];
+	}
+
+	boolean isVoid(int tag) {
+		return tag >= 0 && voids[tag];
+	}
+
+	boolean isAttributeAllowed(int tag, int attribute) {
+		if (attribute < 0)
+			return false;
+		if (globalAttributes[attribute])
+			return true;
+		Set<Integer> s = tagAttributes.get(tag);
+		return s != null && s.contains(attribute);
+	}
+
+	boolean isUrlAttribute(int attribute) {
+		return attribute >= 0 && urlAttributes[attribute];
+	}
+
+	/**
+	 * @param scheme esquema do endereço (em minúsculas), ou <code>null</code> se o
+	 *               endereço for relativo
+	 * @return <code>true</code> se o esquema for permitido (endereços relativos
+	 *         sempre o são)
+	 */
+	boolean isSchemeAllowed(String scheme) {
+		return scheme == null || schemes.contains(scheme);
+	}
+
+	String getName(int id) {
+		return names.getName(id);
+	}
+
+	// ============================== MONTAGEM ==============================
+
+	/**
+	 * Montador da política. Os nomes são convertidos para minúsculas. O montador
+	 * não deve ser alterado depois de {@link #build()}.
+	 */
+	public static class Builder {
+
+		private final NameTable names = new NameTable();
+
+		private final Set<Integer> tags = new HashSet<>(), dropContent = new HashSet<>(),
+				globalAttributes = new HashSet<>(), urlAttributes = new HashSet<>();
+
+		private final Map<Integer, Set<Integer>> tagAttributes = new HashMap<>();
+
+		private final Set<String> schemes = new HashSet<>();
+
+		private Builder() {
+			for (String s : new String[] { "script", "style", "iframe", "object", "embed", "noscript", "template",
+					"textarea", "title", "head" })
+				dropContent.add(id(s));
+			for (String s : new String[] { "href", "src", "action", "formaction", "background", "cite", "poster",
+					"srcset" })
+				urlAttributes.add(id(s));
+		}
+
+		private int id(String name) {
+			return names.intern(name.toLowerCase(Locale.ROOT));
+		}
+
+		/**
+		 * @param names etiquetas permitidas
+		 * @return este montador
+		 */
+		public Builder allowTags(String... names) {
+			for (String s : names)
+				tags.add(id(s));
+			return this;
+		}
+
+		/**
+		 * @param names atributos permitidos em todas as etiquetas
+		 * @return este montador
+		 */
+		public Builder allowAttributes(String... names) {
+			for (String s : names)
+				globalAttributes.add(id(s));
+			return this;
+		}
+
+		/**
+		 * @param tag   etiqueta
+		 * @param names atributos permitidos nesta etiqueta
+		 * @return este montador
+		 */
+		public Builder allowAttributesOn(String tag, String... names) {
+			Set<Integer> s = tagAttributes.computeIfAbsent(id(tag), k -> new HashSet<>());
+			for (String n : names)
+				s.add(id(n));
+			return this;
+		}
+
+		/**
+		 * @param schemes esquemas de endereço permitidos nos atributos com endereços
+		 *                (e.g., "https")
+		 * @return este montador
+		 */
+		public Builder allowUrlSchemes(String... schemes) {
+			for (String s : schemes)
+				this.schemes.add(s.toLowerCase(Locale.ROOT));
+			return this;
+		}
+
+		/**
+		 * @param names etiquetas não permitidas cujo conteúdo também é descartado
+		 *              (por padrão, <code>script</code>, <code>style</code>,
+		 *              <code>iframe</code> etc.)
+		 * @return este montador
+		 */
+		public Builder dropContent(String... names) {
+			for (String s : names)
+				dropContent.add(id(s));
+			return this;
+		}
+
+		/**
+		 * @param names atributos cujo valor é um endereço, e cujo esquema é
+		 *              verificado (por padrão, <code>href</code>, <code>src</code>
+		 *              etc.)
+		 * @return este montador
+		 */
+		public Builder urlAttributes(String... names) {
+			for (String s : names)
+				urlAttributes.add(id(s));
+			return this;
+		}
+
+		public SanitizerPolicy build() {
+			return new SanitizerPolicy(this);
+		}
+	}
+}
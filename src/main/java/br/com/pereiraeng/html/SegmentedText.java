@@ -0,0 +1,145 @@
+package br.com.pereiraeng.html;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Texto de um arquivo de qualquer tamanho, mapeado na memória em várias
+ * janelas. Como as posições de uma {@link CharSequence} são inteiros de 32 bits,
+ * cada janela é um {@link MappedText} de até 2 GB; as janelas começam a cada
+ * {@value #WINDOW_STRIDE} bytes e se sobrepõem, de modo que qualquer trecho de
+ * até {@value #WINDOW_STRIDE} bytes cabe inteiro numa delas (a que começa antes
+ * do início do trecho). As posições no texto são <code>long</code>.
+ */
+public final class SegmentedText implements Closeable {
+
+	/**
+	 * Distância entre os inícios de duas janelas vizinhas (e tamanho máximo dos
+	 * trechos lidos de uma vez)
+	 */
+	public static final int WINDOW_STRIDE = 1 << 30;
+
+	private static final int SHIFT = 30;
+
+	private final MappedText[] windows;
+
+	private final long length;
+
+	private final Charset charset;
+
+	private SegmentedText(MappedText[] windows, long length, Charset charset) {
+		this.windows = windows;
+		this.length = length;
+		this.charset = charset;
+	}
+
+	/**
+	 * Função que mapeia um arquivo na memória
+	 *
+	 * @param file    arquivo
+	 * @param charset codificação do arquivo
+	 * @return texto
+	 * @throws IOException se o arquivo não puder ser lido
+	 */
+	public static SegmentedText map(Path file, Charset charset) throws IOException {
+		return map(file, charset, 0);
+	}
+
+	/**
+	 * Função que mapeia um arquivo na memória, a partir de uma posição (e.g., após
+	 * a marca de ordem de bytes)
+	 *
+	 * @param file    arquivo
+	 * @param charset codificação do arquivo
+	 * @param skip    quantidade de bytes iniciais fora do texto
+	 * @return texto
+	 * @throws IOException se o arquivo não puder ser lido
+	 */
+	static SegmentedText map(Path file, Charset charset, long skip) throws IOException {
+		try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+			long length = Math.max(0, ch.size() - skip);
+			MappedText[] windows = new MappedText[(int) Math.max(1, (length + WINDOW_STRIDE - 1) >>> SHIFT)];
+			for (int k = 0; k < windows.length; k++) {
+				long start = (long) k << SHIFT;
+				windows[k] = new MappedText(ch.map(FileChannel.MapMode.READ_ONLY, skip + start,
+						Math.min(length - start, Integer.MAX_VALUE)), charset);
+			}
+			return new SegmentedText(windows, length, charset);
+		}
+	}
+
+	public long length() {
+		return length;
+	}
+
+	public Charset getCharset() {
+		return charset;
+	}
+
+	/**
+	 * @param index posição
+	 * @return byte da posição, visto como um caractere (ver {@link MappedText})
+	 */
+	public char charAt(long index) {
+		if (index < 0 || index >= length)
+			throw new IndexOutOfBoundsException(Long.toString(index));
+		return windows[(int) (index >>> SHIFT)].charAt((int) (index & (WINDOW_STRIDE - 1)));
+	}
+
+	/**
+	 * Função que retorna a janela que contém um trecho do texto. A posição
+	 * <code>p</code> do texto é a posição <code>p - </code>{@link #windowStart(long)
+	 * windowStart(start)} da janela.
+	 *
+	 * @param start posição inicial
+	 * @param end   posição final (exclusiva)
+	 * @return janela
+	 * @throws IllegalArgumentException se o trecho for maior que
+	 *                                  {@value #WINDOW_STRIDE} bytes
+	 */
+	public MappedText window(long start, long end) {
+		if (start < 0 || start > end || end > length)
+			throw new IndexOutOfBoundsException(start + ", " + end);
+		int k = (int) (start >>> SHIFT);
+		if (k == windows.length)
+			k--; // trecho vazio no fim do texto
+		MappedText w = windows[k];
+		if (end - ((long) k << SHIFT) > w.length())
+			throw new IllegalArgumentException("Trecho maior que a janela: " + start + ", " + end);
+		return w;
+	}
+
+	/**
+	 * @param start posição inicial de um trecho
+	 * @return posição do texto em que começa a {@link #window(long, long) janela}
+	 *         do trecho
+	 */
+	public long windowStart(long start) {
+		return Math.min(start >>> SHIFT, windows.length - 1) << SHIFT;
+	}
+
+	/**
+	 * Função que decodifica um trecho do texto
+	 *
+	 * @param start posição inicial
+	 * @param end   posição final (exclusiva)
+	 * @return texto decodificado
+	 */
+	public String decode(long start, long end) {
+		long o = windowStart(start);
+		return window(start, end).decode((int) (start - o), (int) (end - o));
+	}
+
+	/**
+	 * Função que solta as referências às janelas (ver {@link MappedText#close()})
+	 */
+	@Override
+	public void close() {
+		for (MappedText w : windows)
+			w.close();
+	}
+}
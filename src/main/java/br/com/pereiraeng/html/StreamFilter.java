@@ -0,0 +1,106 @@
+package br.com.pereiraeng.html;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Receptor dos eventos do {@link HTMLTokenizer} que lê o código HTML de um
+ * {@link Reader} em blocos de tamanho fixo e escreve o resultado num
+ * {@link Writer} a cada bloco. O que sobra no fim de um bloco (uma etiqueta,
+ * comentário ou entidade incompleta) é lido de novo com o bloco seguinte, de
+ * modo que a memória usada não depende do tamanho do código, só do tamanho da
+ * maior etiqueta ou comentário (limitado a {@link #MAX_CONSTRUCT} caracteres;
+ * acima disso, o trecho é lido como texto).
+ */
+abstract class StreamFilter implements TokenHandler {
+
+	static final int BUFFER = 8 * 1024;
+
+	static final int MAX_CONSTRUCT = 1024 * 1024;
+
+	/**
+	 * resultado do bloco corrente
+	 */
+	protected final StringBuilder sb = new StringBuilder(BUFFER);
+
+	/**
+	 * Função que lê todo o código, escrevendo o resultado. Nenhum dos dois fluxos
+	 * é fechado.
+	 *
+	 * @param in  código HTML
+	 * @param out resultado
+	 * @throws IOException se houver erro de leitura ou de escrita
+	 */
+	void run(Reader in, Writer out) throws IOException {
+		tokenize(in, this, () -> flush(out));
+		finish();
+		flush(out);
+	}
+
+	/**
+	 * Função que lê todo o código de um {@link Reader} em blocos, repassando os
+	 * eventos de cada bloco ao receptor. As posições dos eventos referem-se ao
+	 * bloco corrente, cujo vetor é reaproveitado no bloco seguinte: o receptor deve
+	 * copiar, durante a chamada, o que precisar guardar. O fluxo não é fechado.
+	 *
+	 * @param in      código HTML
+	 * @param handler receptor dos eventos
+	 * @param block   chamado no fim de cada bloco (pode ser <code>null</code>)
+	 * @throws IOException se houver erro de leitura ou se <code>block</code>
+	 *                     lançá-lo
+	 */
+	static void tokenize(Reader in, TokenHandler handler, Flushable block) throws IOException {
+		char[] buf = new char[BUFFER];
+		int n = 0, r;
+		while ((r = in.read(buf, n, buf.length - n)) >= 0) {
+			n += r;
+			CharArrayText text = new CharArrayText(buf, n);
+			int used = HTMLTokenizer.tokenize(text, 0, n, handler, true);
+			if (used == 0 && n == buf.length) {
+				if (buf.length < MAX_CONSTRUCT)
+					buf = Arrays.copyOf(buf, buf.length * 2);
+				else
+					used = HTMLTokenizer.tokenize(text, 0, n, handler, false);
+			}
+			System.arraycopy(buf, used, buf, 0, n - used);
+			n -= used;
+			if (block != null)
+				block.flush();
+		}
+		HTMLTokenizer.tokenize(new CharArrayText(buf, n), 0, n, handler, false);
+	}
+
+	/**
+	 * Função que lê todo o código de uma <code>String</code>
+	 *
+	 * @param html código HTML
+	 * @return resultado
+	 */
+	String run(String html) {
+		StringWriter out = new StringWriter(html.length());
+		try {
+			run(new StringReader(html), out);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e); // não ocorre com StringReader
+		}
+		return out.toString();
+	}
+
+	/**
+	 * Função chamada no fim do código, para fechar o que tiver ficado aberto
+	 */
+	abstract void finish();
+
+	private void flush(Writer out) throws IOException {
+		if (sb.length() > 0) {
+			out.append(sb);
+			sb.setLength(0);
+		}
+	}
+}
@@ -0,0 +1,104 @@
+package br.com.pereiraeng.html;
+
+import java.util.Arrays;
+
+/**
+ * Conjunto de declarações de estilo (e.g., <code>color: red</code>), imutável e
+ * único na sua {@link StyleTable tabela}: dois conjuntos com as mesmas
+ * declarações são o mesmo objeto, de modo que a igualdade é a identidade. As
+ * declarações são guardadas como bits (um por declaração distinta da tabela,
+ * sem palavras nulas no fim), e a interseção e a diferença são feitas palavra a
+ * palavra.
+ */
+public final class StyleSet {
+
+	final StyleTable table;
+
+	final long[] bits;
+
+	private final int hash, size;
+
+	/**
+	 * texto do atributo <code>style</code>, montado na primeira chamada de
+	 * {@link #toString()}
+	 */
+	private String text;
+
+	StyleSet(StyleTable table, long[] bits) {
+		this.table = table;
+		this.bits = bits;
+		this.hash = Arrays.hashCode(bits);
+		int n = 0;
+		for (long w : bits)
+			n += Long.bitCount(w);
+		this.size = n;
+	}
+
+	/**
+	 * @return quantidade de declarações
+	 */
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * @param id número da declaração na tabela
+	 * @return <code>true</code> se o conjunto tiver a declaração
+	 */
+	public boolean contains(int id) {
+		int w = id >>> 6;
+		return w < bits.length && (bits[w] & (1L << id)) != 0;
+	}
+
+	/**
+	 * @param other outro conjunto da mesma tabela
+	 * @return <code>true</code> se todas as declarações do outro conjunto
+	 *         estiverem neste
+	 */
+	public boolean containsAll(StyleSet other) {
+		for (int i = 0; i < other.bits.length; i++)
+			if ((other.bits[i] & ~(i < bits.length ? bits[i] : 0L)) != 0)
+				return false;
+		return true;
+	}
+
+	/**
+	 * @return números das declarações, em ordem crescente
+	 */
+	public int[] getIds() {
+		int[] out = new int[size];
+		int k = 0;
+		for (int i = 0; i < bits.length; i++)
+			for (long w = bits[i]; w != 0; w &= w - 1)
+				out[k++] = (i << 6) + Long.numberOfTrailingZeros(w);
+		return out;
+	}
+
+	/**
+	 * @return declarações no formato do atributo <code>style</code> (e.g.,
+	 *         <code>"color: red; font-size: 2px;"</code>), na ordem em que
+	 *         apareceram pela primeira vez na tabela
+	 */
+	@Override
+	public String toString() {
+		if (text == null) {
+			StringBuilder sb = new StringBuilder();
+			for (int id : getIds()) {
+				if (sb.length() > 0)
+					sb.append(' ');
+				sb.append(table.getDeclaration(id)).append(';');
+			}
+			text = sb.toString();
+		}
+		return text;
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+}
@@ -0,0 +1,206 @@
+package br.com.pereiraeng.html;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tabela que guarda uma única vez cada declaração de estilo (e.g.,
+ * <code>color: red</code>) e cada {@link StyleSet conjunto de declarações}. Cada
+ * texto do atributo <code>style</code> é lido uma única vez; os documentos
+ * gerados, que repetem as mesmas poucas combinações de estilos em muitos
+ * elementos, passam a compartilhar os mesmos objetos.
+ * <p>
+ * A tabela não pode ser usada por várias <i>threads</i> ao mesmo tempo.
+ */
+public final class StyleTable {
+
+	private final Map<String, Integer> ids = new HashMap<>();
+
+	private String[] declarations = new String[32];
+
+	private int declarationCount;
+
+	/**
+	 * conjuntos únicos, numa tabela de dispersão com endereçamento aberto
+	 */
+	private StyleSet[] sets = new StyleSet[64];
+
+	private int setCount;
+
+	/**
+	 * texto do atributo → conjunto
+	 */
+	private final Map<String, StyleSet> parsed = new HashMap<>();
+
+	private final StyleSet empty;
+
+	public StyleTable() {
+		empty = intern(new long[0]);
+	}
+
+	/**
+	 * @return conjunto sem declarações
+	 */
+	public StyleSet getEmpty() {
+		return empty;
+	}
+
+	/**
+	 * Função que lê o valor de um atributo <code>style</code> (declarações
+	 * separadas por ';'; os espaços nas pontas de cada declaração e as
+	 * declarações vazias são ignorados)
+	 *
+	 * @param style valor do atributo (sem aspas)
+	 * @return conjunto das declarações
+	 */
+	public StyleSet parse(String style) {
+		StyleSet out = parsed.get(style);
+		if (out == null) {
+			long[] bits = new long[(declarationCount >>> 6) + 1];
+			int start = 0;
+			while (start <= style.length()) {
+				int end = style.indexOf(';', start);
+				if (end < 0)
+					end = style.length();
+				int s = start, e = end;
+				while (s < e && Character.isWhitespace(style.charAt(s)))
+					s++;
+				while (e > s && Character.isWhitespace(style.charAt(e - 1)))
+					e--;
+				if (s < e) {
+					int id = declaration(style.substring(s, e));
+					if (id >>> 6 >= bits.length)
+						bits = Arrays.copyOf(bits, (id >>> 6) + 1);
+					bits[id >>> 6] |= 1L << id;
+				}
+				start = end + 1;
+			}
+			out = intern(bits);
+			parsed.put(style, out);
+		}
+		return out;
+	}
+
+	/**
+	 * @param a um conjunto
+	 * @param b outro conjunto
+	 * @return declarações que estão nos dois conjuntos
+	 */
+	public StyleSet intersection(StyleSet a, StyleSet b) {
+		check(a, b);
+		if (a == b)
+			return a;
+		long[] bits = new long[Math.min(a.bits.length, b.bits.length)];
+		for (int i = 0; i < bits.length; i++)
+			bits[i] = a.bits[i] & b.bits[i];
+		return intern(bits);
+	}
+
+	/**
+	 * @param a um conjunto
+	 * @param b outro conjunto
+	 * @return declarações de <code>a</code> que não estão em <code>b</code>
+	 */
+	public StyleSet difference(StyleSet a, StyleSet b) {
+		check(a, b);
+		if (a == b)
+			return empty;
+		long[] bits = a.bits.clone();
+		for (int i = 0; i < Math.min(bits.length, b.bits.length); i++)
+			bits[i] &= ~b.bits[i];
+		return intern(bits);
+	}
+
+	/**
+	 * @param a um conjunto
+	 * @param b outro conjunto
+	 * @return declarações que estão em algum dos conjuntos
+	 */
+	public StyleSet union(StyleSet a, StyleSet b) {
+		check(a, b);
+		if (a == b)
+			return a;
+		long[] bits = Arrays.copyOf(a.bits, Math.max(a.bits.length, b.bits.length));
+		for (int i = 0; i < b.bits.length; i++)
+			bits[i] |= b.bits[i];
+		return intern(bits);
+	}
+
+	/**
+	 * @param id número da declaração
+	 * @return declaração (e.g., <code>color: red</code>)
+	 */
+	public String getDeclaration(int id) {
+		return declarations[id];
+	}
+
+	/**
+	 * @return quantidade de declarações distintas
+	 */
+	public int getDeclarationCount() {
+		return declarationCount;
+	}
+
+	/**
+	 * @return quantidade de conjuntos distintos
+	 */
+	public int getSetCount() {
+		return setCount;
+	}
+
+	private void check(StyleSet a, StyleSet b) {
+		if (a.table != this || b.table != this)
+			throw new IllegalArgumentException("Conjunto de estilos de outra tabela");
+	}
+
+	private int declaration(String d) {
+		Integer id = ids.get(d);
+		if (id == null) {
+			if (declarationCount == declarations.length)
+				declarations = Arrays.copyOf(declarations, declarationCount * 2);
+			declarations[declarationCount] = d;
+			id = declarationCount++;
+			ids.put(d, id);
+		}
+		return id;
+	}
+
+	/**
+	 * Função que retorna o conjunto único com os bits indicados (sem as palavras
+	 * nulas do fim), criando-o se ainda não existir
+	 */
+	private StyleSet intern(long[] bits) {
+		int n = bits.length;
+		while (n > 0 && bits[n - 1] == 0)
+			n--;
+		if (n < bits.length)
+			bits = Arrays.copyOf(bits, n);
+		int mask = sets.length - 1;
+		for (int i = Arrays.hashCode(bits) & mask;; i = (i + 1) & mask) {
+			StyleSet s = sets[i];
+			if (s == null) {
+				s = new StyleSet(this, bits);
+				sets[i] = s;
+				if (++setCount * 2 > sets.length)
+					rehash();
+				return s;
+			}
+			if (Arrays.equals(s.bits, bits))
+				return s;
+		}
+	}
+
+	private void rehash() {
+		StyleSet[] old = sets;
+		sets = new StyleSet[old.length * 2];
+		int mask = sets.length - 1;
+		for (StyleSet s : old)
+			if (s != null) {
+				int i = s.hashCode() & mask;
+				while (sets[i] != null)
+					i = (i + 1) & mask;
+				sets[i] = s;
+			}
+	}
+}
@@ -0,0 +1,301 @@
+package br.com.pereiraeng.html;
+
+import java.util.Arrays;
+
+/**
+ * Classe que compara uma tabela em duas versões de um documento (e.g., duas
+ * leituras sucessivas da mesma página de preços), indicando as linhas
+ * incluídas, excluídas e alteradas. As linhas das duas versões são associadas
+ * pelas colunas-chave e comparadas por um <i>hash</i> de 64 bits calculado
+ * diretamente sobre o código das células, sem criar <code>String</code>s: só as
+ * linhas alteradas precisam ser lidas depois, com {@link #getOldRow(int)} e
+ * {@link #getNewRow(int)}.
+ * <p>
+ * Duas linhas com o mesmo <i>hash</i> são consideradas iguais (a chance de
+ * duas linhas diferentes terem o mesmo <i>hash</i> é desprezível); as chaves,
+ * por outro lado, são sempre conferidas caractere a caractere. O código é
+ * comparado tal como está no documento, de modo que as duas versões devem ser
+ * lidas da mesma forma (e.g., ambas com {@link HTMLDocument#open(java.nio.file.Path, java.nio.charset.Charset)}
+ * e a mesma codificação).
+ */
+public final class TableDiff {
+
+	private static final long SEED = 0xCBF29CE484222325L, PRIME = 0x100000001B3L;
+
+	/**
+	 * separadores (não-caracteres) entre células e para células ausentes
+	 */
+	private static final char CELL = '\uFFFF', MISSING = '\uFFFE';
+
+	private final HTMLDocument oldDoc, newDoc;
+
+	private final int[] oldRows, newRows;
+
+	private final boolean remove;
+
+	private final int[] inserted, deleted, changedOld, changedNew;
+
+	private TableDiff(HTMLDocument oldDoc, int[] oldRows, HTMLDocument newDoc, int[] newRows, boolean remove,
+			int[] inserted, int[] deleted, int[] changedOld, int[] changedNew) {
+		this.oldDoc = oldDoc;
+		this.oldRows = oldRows;
+		this.newDoc = newDoc;
+		this.newRows = newRows;
+		this.remove = remove;
+		this.inserted = inserted;
+		this.deleted = deleted;
+		this.changedOld = changedOld;
+		this.changedNew = changedNew;
+	}
+
+	/**
+	 * Função que compara uma tabela em duas versões de um documento
+	 *
+	 * @param oldDoc     versão anterior
+	 * @param oldTable   índice da tabela na versão anterior
+	 * @param newDoc     versão nova
+	 * @param newTable   índice da tabela na versão nova
+	 * @param remove     <code>true</code> para comparar só o conteúdo das células
+	 *                   (sem as etiquetas <code>td</code> e <code>th</code>, como
+	 *                   em {@link HTMLDocument#getColumnsContentL(boolean, int, int...)}),
+	 *                   <code>false</code> para comparar também as etiquetas
+	 * @param keyColumns índices das colunas que identificam cada linha (vetor de
+	 *                   tamanho zero para identificar as linhas por todas as
+	 *                   colunas; nesse caso, não há linhas alteradas, só incluídas
+	 *                   e excluídas). Linhas com a mesma chave são associadas na
+	 *                   ordem em que aparecem.
+	 * @return diferenças, ou <code>null</code> se alguma das tabelas não existir
+	 */
+	public static TableDiff compare(HTMLDocument oldDoc, int oldTable, HTMLDocument newDoc, int newTable,
+			boolean remove, int... keyColumns) {
+		int ot = oldDoc.getTable(oldTable), nt = newDoc.getTable(newTable);
+		if (ot < 0 || nt < 0)
+			return null;
+		int[] oldRows = oldDoc.getRows(ot), newRows = newDoc.getRows(nt);
+
+		// versão anterior: chave → linhas (encadeadas na ordem do documento)
+		int[][] oldCells = new int[oldRows.length][];
+		long[] oldHash = new long[oldRows.length];
+		int[] next = new int[oldRows.length];
+		LongIntMap heads = new LongIntMap(oldRows.length);
+		int[] tails = new int[oldRows.length];
+		for (int r = 0; r < oldRows.length; r++) {
+			oldCells[r] = oldDoc.getCells(oldRows[r]);
+			oldHash[r] = hash(oldDoc, oldCells[r], remove, null);
+			long key = keyColumns.length == 0 ? oldHash[r] : hash(oldDoc, oldCells[r], remove, keyColumns);
+			next[r] = -1;
+			int slot = heads.slot(key);
+			if (heads.isEmpty(slot))
+				heads.put(slot, key, r);
+			else
+				next[tails[heads.get(slot)]] = r;
+			tails[heads.get(slot)] = r;
+		}
+
+		// versão nova
+		boolean[] matched = new boolean[oldRows.length];
+		int[] inserted = new int[newRows.length], changedOld = new int[newRows.length],
+				changedNew = new int[newRows.length];
+		int ni = 0, nc = 0;
+		for (int r = 0; r < newRows.length; r++) {
+			int[] cells = newDoc.getCells(newRows[r]);
+			long h = hash(newDoc, cells, remove, null);
+			long key = keyColumns.length == 0 ? h : hash(newDoc, cells, remove, keyColumns);
+			int slot = heads.slot(key), o = -1;
+			if (!heads.isEmpty(slot)) {
+				for (o = heads.get(slot); o >= 0; o = next[o])
+					if (!matched[o] && sameKey(oldDoc, oldCells[o], newDoc, cells, remove, keyColumns))
+						break;
+				if (o == heads.get(slot) && o >= 0)
+					heads.put(slot, key, next[o] >= 0 ? next[o] : o);
+			}
+			if (o < 0)
+				inserted[ni++] = r;
+			else {
+				matched[o] = true;
+				if (oldHash[o] != h) {
+					changedOld[nc] = o;
+					changedNew[nc++] = r;
+				}
+			}
+		}
+		int[] deleted = new int[oldRows.length];
+		int nd = 0;
+		for (int r = 0; r < oldRows.length; r++)
+			if (!matched[r])
+				deleted[nd++] = r;
+		return new TableDiff(oldDoc, oldRows, newDoc, newRows, remove, Arrays.copyOf(inserted, ni),
+				Arrays.copyOf(deleted, nd), Arrays.copyOf(changedOld, nc), Arrays.copyOf(changedNew, nc));
+	}
+
+	/**
+	 * @return <code>true</code> se as duas versões da tabela tiverem as mesmas
+	 *         linhas
+	 */
+	public boolean isEmpty() {
+		return inserted.length == 0 && deleted.length == 0 && changedOld.length == 0;
+	}
+
+	/**
+	 * @return índices (na versão nova) das linhas incluídas
+	 */
+	public int[] getInserted() {
+		return inserted;
+	}
+
+	/**
+	 * @return índices (na versão anterior) das linhas excluídas
+	 */
+	public int[] getDeleted() {
+		return deleted;
+	}
+
+	/**
+	 * @return índices (na versão anterior) das linhas alteradas, na mesma ordem
+	 *         de {@link #getChangedNew()}
+	 */
+	public int[] getChangedOld() {
+		return changedOld;
+	}
+
+	/**
+	 * @return índices (na versão nova) das linhas alteradas, na mesma ordem de
+	 *         {@link #getChangedOld()}
+	 */
+	public int[] getChangedNew() {
+		return changedNew;
+	}
+
+	/**
+	 * Função que lê uma linha da versão anterior
+	 *
+	 * @param rowIndex índice da linha
+	 * @return conteúdo das células, como em
+	 *         {@link HTMLDocument#getColumnsContentL(boolean, int, int...)}
+	 */
+	public String[] getOldRow(int rowIndex) {
+		return row(oldDoc, oldRows[rowIndex]);
+	}
+
+	/**
+	 * Função que lê uma linha da versão nova
+	 *
+	 * @param rowIndex índice da linha
+	 * @return conteúdo das células, como em
+	 *         {@link HTMLDocument#getColumnsContentL(boolean, int, int...)}
+	 */
+	public String[] getNewRow(int rowIndex) {
+		return row(newDoc, newRows[rowIndex]);
+	}
+
+	private String[] row(HTMLDocument doc, int row) {
+		int[] cells = doc.getCells(row);
+		String[] out = new String[cells.length];
+		for (int i = 0; i < cells.length; i++)
+			out[i] = doc.cellContent(cells[i], remove);
+		return out;
+	}
+
+	// ============================== HASH ==============================
+
+	/**
+	 * Função que calcula o <i>hash</i> (FNV-1a de 64 bits) do código de algumas
+	 * células de uma linha
+	 *
+	 * @param doc     documento
+	 * @param cells   índices dos nós das células
+	 * @param remove  <code>true</code> para só o conteúdo das células
+	 * @param columns índices das colunas, ou <code>null</code> para todas
+	 * @return <i>hash</i>
+	 */
+	static long hash(HTMLDocument doc, int[] cells, boolean remove, int[] columns) {
+		long h = SEED;
+		int n = columns == null ? cells.length : columns.length;
+		for (int i = 0; i < n; i++) {
+			int c = columns == null ? i : columns[i];
+			if (c >= cells.length) {
+				h = (h ^ MISSING) * PRIME;
+				continue;
+			}
+			int cell = cells[c];
+			for (long p = start(doc, cell, remove), end = end(doc, cell, remove); p < end; p++)
+				h = (h ^ doc.charAt(p)) * PRIME;
+			h = (h ^ CELL) * PRIME;
+		}
+		return h;
+	}
+
+	private static boolean sameKey(HTMLDocument a, int[] ca, HTMLDocument b, int[] cb, boolean remove,
+			int[] columns) {
+		int n = columns.length == 0 ? Math.max(ca.length, cb.length) : columns.length;
+		for (int i = 0; i < n; i++) {
+			int c = columns.length == 0 ? i : columns[i];
+			if (c >= ca.length || c >= cb.length) {
+				if (c < ca.length || c < cb.length)
+					return false;
+				continue;
+			}
+			long pa = start(a, ca[c], remove), ea = end(a, ca[c], remove);
+			long pb = start(b, cb[c], remove), eb = end(b, cb[c], remove);
+			if (ea - pa != eb - pb)
+				return false;
+			while (pa < ea)
+				if (a.charAt(pa++) != b.charAt(pb++))
+					return false;
+		}
+		return true;
+	}
+
+	private static long start(HTMLDocument doc, int cell, boolean remove) {
+		return doc.getPosition(cell, remove ? NodeStore.CONTENT_START : NodeStore.START);
+	}
+
+	private static long end(HTMLDocument doc, int cell, boolean remove) {
+		return doc.getPosition(cell, remove ? NodeStore.CONTENT_END : NodeStore.END);
+	}
+
+	/**
+	 * Tabela de dispersão de chaves <code>long</code> para índices, com
+	 * endereçamento aberto
+	 */
+	private static final class LongIntMap {
+
+		private final long[] keys;
+
+		private final int[] values;
+
+		private final int mask;
+
+		LongIntMap(int expected) {
+			int n = Integer.highestOneBit(Math.max(4, expected * 2 - 1)) << 1;
+			keys = new long[n];
+			values = new int[n];
+			Arrays.fill(values, -1);
+			mask = n - 1;
+		}
+
+		/**
+		 * Função que retorna a posição da chave, ou a posição vazia onde ela deve
+		 * ser guardada
+		 */
+		int slot(long key) {
+			int i = (int) (key ^ (key >>> 32)) & mask;
+			while (values[i] >= 0 && keys[i] != key)
+				i = (i + 1) & mask;
+			return i;
+		}
+
+		boolean isEmpty(int slot) {
+			return values[slot] < 0;
+		}
+
+		int get(int slot) {
+			return values[slot];
+		}
+
+		void put(int slot, long key, int value) {
+			keys[slot] = key;
+			values[slot] = value;
+		}
+	}
+}
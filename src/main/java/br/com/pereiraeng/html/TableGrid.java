@@ -0,0 +1,227 @@
+package br.com.pereiraeng.html;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Grade densa de uma tabela HTML, na qual as células com <code>rowspan</code>
+ * e <code>colspan</code> ocupam todas as posições que cobrem, de modo que os
+ * índices das colunas ficam alinhados. A grade é montada numa única passada
+ * pelas linhas da tabela, com um vetor que guarda, para cada coluna, quantas
+ * linhas ainda estão cobertas por uma célula de cima; a consulta de uma célula
+ * <code>(r,c)</code> é direta.
+ */
+public class TableGrid {
+
+	/**
+	 * Tratamento das posições cobertas por uma célula que não são a sua posição
+	 * de origem (canto superior esquerdo)
+	 */
+	public static enum SpanMode {
+		/**
+		 * a célula é repetida em todas as posições que cobre
+		 */
+		REPEAT,
+		/**
+		 * as posições cobertas ficam vazias
+		 */
+		BLANK;
+	}
+
+	/**
+	 * Limites das extensões, como na especificação do HTML
+	 */
+	private static final int MAX_COLSPAN = 1000, MAX_ROWSPAN = 65534;
+
+	private final HTMLDocument doc;
+
+	private final int rows, columns;
+
+	/**
+	 * nó de cada posição (linha a linha), ou -1 se vazia
+	 */
+	private final int[] cells;
+
+	/**
+	 * posições que são a origem de uma célula
+	 */
+	private final BitSet origins;
+
+	private TableGrid(HTMLDocument doc, int rows, int columns, int[] cells, BitSet origins) {
+		this.doc = doc;
+		this.rows = rows;
+		this.columns = columns;
+		this.cells = cells;
+		this.origins = origins;
+	}
+
+	/**
+	 * Função que monta a grade de uma tabela
+	 *
+	 * @param doc        documento
+	 * @param tableIndex índice da tabela
+	 * @param mode       tratamento das posições cobertas
+	 * @return grade, ou <code>null</code> se a tabela não existir
+	 */
+	public static TableGrid of(HTMLDocument doc, int tableIndex, SpanMode mode) {
+		int table = doc.getTable(tableIndex);
+		return table < 0 ? null : build(doc, table, mode);
+	}
+
+	/**
+	 * Função que monta a grade de uma tabela
+	 *
+	 * @param doc   documento
+	 * @param table índice do nó da tabela
+	 * @param mode  tratamento das posições cobertas
+	 * @return grade
+	 */
+	public static TableGrid build(HTMLDocument doc, int table, SpanMode mode) {
+		int[] rowNodes = doc.getRows(table);
+		int n = rowNodes.length;
+
+		// para cada coluna, quantas linhas ainda estão cobertas e por qual nó
+		int[] pending = new int[16], pendingNode = new int[16];
+		// nas linhas provisórias, as posições cobertas guardam -(nó + 2)
+		int[][] slots = new int[n][];
+		int width = 0;
+
+		for (int r = 0; r < n; r++) {
+			int[] row = new int[Math.max(width, 4)];
+			Arrays.fill(row, -1);
+			int c = 0;
+			for (int cell : doc.getCells(rowNodes[r])) {
+				// pula as colunas cobertas pelas linhas de cima
+				while (c < pending.length && pending[c] > 0) {
+					row = put(row, c, covered(pendingNode[c]));
+					pending[c]--;
+					c++;
+				}
+				int cs = clamp(doc.getIntAttribute(cell, "colspan", 1), 1, MAX_COLSPAN);
+				int rs = doc.getIntAttribute(cell, "rowspan", 1);
+				rs = rs == 0 ? n - r : clamp(rs, 1, Math.min(MAX_ROWSPAN, n - r));
+				if (c + cs > pending.length) {
+					pending = Arrays.copyOf(pending, Math.max(pending.length * 2, c + cs));
+					pendingNode = Arrays.copyOf(pendingNode, pending.length);
+				}
+				for (int k = 0; k < cs; k++) {
+					row = put(row, c + k, k == 0 ? cell : covered(cell));
+					if (rs > 1) {
+						pending[c + k] = rs - 1;
+						pendingNode[c + k] = cell;
+					}
+				}
+				c += cs;
+			}
+			// colunas à direita cobertas pelas linhas de cima
+			for (int j = c; j < pending.length; j++)
+				if (pending[j] > 0) {
+					row = put(row, j, covered(pendingNode[j]));
+					pending[j]--;
+					c = j + 1;
+				}
+			slots[r] = row;
+			width = Math.max(width, c);
+		}
+
+		// grade densa
+		int[] cells = new int[n * width];
+		BitSet origins = new BitSet(n * width);
+		for (int r = 0; r < n; r++) {
+			int[] row = slots[r];
+			for (int c = 0; c < width; c++) {
+				int node = c < row.length ? row[c] : -1;
+				if (node >= 0)
+					origins.set(r * width + c);
+				else if (node < -1)
+					node = mode == SpanMode.REPEAT ? -node - 2 : -1;
+				cells[r * width + c] = node;
+			}
+		}
+		return new TableGrid(doc, n, width, cells, origins);
+	}
+
+	private static int covered(int node) {
+		return -node - 2;
+	}
+
+	private static int[] put(int[] row, int c, int node) {
+		if (c >= row.length) {
+			int old = row.length;
+			row = Arrays.copyOf(row, Math.max(old * 2, c + 1));
+			Arrays.fill(row, old, row.length, -1);
+		}
+		row[c] = node;
+		return row;
+	}
+
+	private static int clamp(int v, int min, int max) {
+		return v < min ? min : (v > max ? max : v);
+	}
+
+	// ============================== CONSULTA ==============================
+
+	public int getRowCount() {
+		return rows;
+	}
+
+	public int getColumnCount() {
+		return columns;
+	}
+
+	/**
+	 * Função que retorna o nó da célula que ocupa uma posição da grade
+	 *
+	 * @param row    índice da linha
+	 * @param column índice da coluna
+	 * @return índice do nó da célula, ou -1 se a posição estiver vazia (ou for
+	 *         coberta por outra célula, no modo {@link SpanMode#BLANK})
+	 */
+	public int getCell(int row, int column) {
+		if (row < 0 || row >= rows || column < 0 || column >= columns)
+			return -1;
+		return cells[row * columns + column];
+	}
+
+	/**
+	 * Função que indica se a posição é a origem (canto superior esquerdo) de uma
+	 * célula
+	 *
+	 * @param row    índice da linha
+	 * @param column índice da coluna
+	 * @return <code>true</code> se a posição for a origem de uma célula
+	 */
+	public boolean isOrigin(int row, int column) {
+		return origins.get(row * columns + column);
+	}
+
+	/**
+	 * Função que retorna o conteúdo (sem etiquetas) de uma posição da grade
+	 *
+	 * @param row    índice da linha
+	 * @param column índice da coluna
+	 * @return conteúdo, ou <code>null</code> se a posição estiver vazia
+	 */
+	public String getText(int row, int column) {
+		int cell = getCell(row, column);
+		return cell < 0 ? null : doc.getText(cell);
+	}
+
+	/**
+	 * Função que retorna o conteúdo de toda a grade, alinhado pelas colunas
+	 *
+	 * @param remove <code>true</code> para remover as etiquetas,
+	 *               <code>false</code> para manter o código da célula
+	 * @return matriz com o conteúdo das posições (<code>null</code> nas vazias)
+	 */
+	public String[][] toArray(boolean remove) {
+		String[][] out = new String[rows][columns];
+		for (int r = 0; r < rows; r++)
+			for (int c = 0; c < columns; c++) {
+				int cell = cells[r * columns + c];
+				if (cell >= 0)
+					out[r][c] = remove ? doc.getText(cell) : doc.getOuterHTML(cell);
+			}
+		return out;
+	}
+}
@@ -0,0 +1,228 @@
+package br.com.pereiraeng.html;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Índice das tabelas de um código HTML, montado numa única passada. Para cada
+ * tabela guardam-se, num vetor de inteiros, as posições de início e fim (e do
+ * seu conteúdo), a profundidade de aninhamento e a tabela que a contém. As
+ * tabelas são numeradas na ordem de suas etiquetas de abertura (como em
+ * {@link HTML#getCellContent(String, int, int, int)}) e podem ser localizadas,
+ * sem nova leitura do código, pelo índice, pelo caminho (e.g., segunda tabela
+ * de fora, primeira de dentro) ou pelo atributo <code>id</code>.
+ */
+public class TableLocator {
+
+	private static final int START = 0, CONTENT_START = 1, CONTENT_END = 2, END = 3, PARENT = 4, DEPTH = 5;
+
+	private static final int FIELDS = 6;
+
+	private int[] data = new int[16 * FIELDS];
+
+	private int size;
+
+	/**
+	 * filhos de cada tabela: os de <code>t</code> estão em
+	 * <code>children[childStart[t + 1] .. childStart[t + 2]]</code> (a posição 0
+	 * é a das tabelas de fora)
+	 */
+	private int[] childStart, children;
+
+	private final Map<String, Integer> ids = new HashMap<>();
+
+	private TableLocator() {
+	}
+
+	/**
+	 * Função que localiza todas as tabelas do código
+	 *
+	 * @param html código HTML
+	 * @return índice das tabelas
+	 */
+	public static TableLocator locate(CharSequence html) {
+		TableLocator out = new TableLocator();
+		Scanner s = out.new Scanner();
+		HTMLTokenizer.tokenize(html, s);
+		s.finish(html.length());
+		out.index();
+		return out;
+	}
+
+	/**
+	 * Receptor que anota as etiquetas <code>table</code>
+	 */
+	private class Scanner implements TokenHandler {
+
+		private int[] open = new int[8];
+
+		private int top = -1;
+
+		@Override
+		public void startTag(CharSequence src, int start, int nameStart, int nameEnd, int attrStart, int attrEnd,
+				int end, boolean selfClosing) {
+			if (!HTMLTokenizer.regionMatches(src, nameStart, nameEnd, "table"))
+				return;
+			if (size * FIELDS == data.length)
+				data = Arrays.copyOf(data, data.length * 2);
+			int t = size++, o = t * FIELDS;
+			data[o + START] = start;
+			data[o + CONTENT_START] = end;
+			data[o + CONTENT_END] = data[o + END] = -1;
+			data[o + PARENT] = top < 0 ? -1 : open[top];
+			data[o + DEPTH] = top + 1;
+
+			long id = HTMLTokenizer.findAttribute(src, attrStart, attrEnd, "id");
+			if (id >= 0)
+				ids.putIfAbsent(src.subSequence((int) (id >>> 32), (int) id).toString(), t);
+
+			if (selfClosing)
+				data[o + CONTENT_END] = data[o + END] = end;
+			else {
+				if (++top == open.length)
+					open = Arrays.copyOf(open, top * 2);
+				open[top] = t;
+			}
+		}
+
+		@Override
+		public void endTag(CharSequence src, int start, int nameStart, int nameEnd, int end) {
+			if (top >= 0 && HTMLTokenizer.regionMatches(src, nameStart, nameEnd, "table")) {
+				int o = open[top--] * FIELDS;
+				data[o + CONTENT_END] = start;
+				data[o + END] = end;
+			}
+		}
+
+		@Override
+		public void text(CharSequence src, int start, int end) {
+		}
+
+		@Override
+		public void comment(CharSequence src, int start, int end) {
+		}
+
+		void finish(int length) {
+			// tabelas não fechadas vão até o fim do código
+			for (; top >= 0; top--) {
+				int o = open[top] * FIELDS;
+				data[o + CONTENT_END] = data[o + END] = length;
+			}
+		}
+	}
+
+	/**
+	 * Função que monta as listas de filhos de cada tabela
+	 */
+	private void index() {
+		childStart = new int[size + 2];
+		for (int t = 0; t < size; t++)
+			childStart[getParent(t) + 2]++;
+		for (int i = 1; i < childStart.length; i++)
+			childStart[i] += childStart[i - 1];
+		children = new int[size];
+		int[] fill = Arrays.copyOf(childStart, childStart.length);
+		for (int t = 0; t < size; t++)
+			children[fill[getParent(t) + 1]++] = t;
+	}
+
+	// ============================== CONSULTA ==============================
+
+	/**
+	 * @return quantidade de tabelas (inclusive as aninhadas)
+	 */
+	public int size() {
+		return size;
+	}
+
+	public int getStart(int table) {
+		return data[table * FIELDS + START];
+	}
+
+	public int getEnd(int table) {
+		return data[table * FIELDS + END];
+	}
+
+	public int getContentStart(int table) {
+		return data[table * FIELDS + CONTENT_START];
+	}
+
+	public int getContentEnd(int table) {
+		return data[table * FIELDS + CONTENT_END];
+	}
+
+	/**
+	 * @param table índice da tabela
+	 * @return tabela que contém esta, ou -1 se ela não estiver aninhada
+	 */
+	public int getParent(int table) {
+		return data[table * FIELDS + PARENT];
+	}
+
+	/**
+	 * @param table índice da tabela
+	 * @return profundidade de aninhamento (zero para as tabelas de fora)
+	 */
+	public int getDepth(int table) {
+		return data[table * FIELDS + DEPTH];
+	}
+
+	/**
+	 * @param table índice da tabela, ou -1 para as tabelas de fora
+	 * @return quantidade de tabelas diretamente aninhadas
+	 */
+	public int getChildCount(int table) {
+		return childStart[table + 2] - childStart[table + 1];
+	}
+
+	/**
+	 * @param table índice da tabela, ou -1 para as tabelas de fora
+	 * @param index posição da tabela aninhada
+	 * @return índice da tabela aninhada, ou -1 se não existir
+	 */
+	public int getChild(int table, int index) {
+		return index >= 0 && index < getChildCount(table) ? children[childStart[table + 1] + index] : -1;
+	}
+
+	/**
+	 * Função que localiza uma tabela pelo caminho de aninhamento (e.g.,
+	 * <code>find(2, 0)</code> é a primeira tabela dentro da terceira tabela de
+	 * fora)
+	 *
+	 * @param path posições em cada nível
+	 * @return índice da tabela, ou -1 se não existir
+	 */
+	public int find(int... path) {
+		int t = -1;
+		for (int i : path)
+			if ((t = getChild(t, i)) < 0)
+				return -1;
+		return t;
+	}
+
+	/**
+	 * Função que localiza uma tabela pelo atributo <code>id</code>
+	 *
+	 * @param id identificador da tabela
+	 * @return índice da tabela, ou -1 se não existir
+	 */
+	public int findById(String id) {
+		Integer t = ids.get(id);
+		return t == null ? -1 : t;
+	}
+
+	/**
+	 * Função que retorna os limites de uma tabela no mesmo formato de
+	 * {@link br.com.pereiraeng.core.StringUtils#getLimits(String, int, int, int, java.util.regex.Pattern, java.util.regex.Pattern)}
+	 *
+	 * @param table índice da tabela
+	 * @return vetor com o início e o fim da tabela, ou <code>null</code> se ela
+	 *         não existir
+	 */
+	public int[] getLimits(int table) {
+		if (table < 0 || table >= size)
+			return null;
+		return new int[] { getStart(table), getEnd(table) };
+	}
+}
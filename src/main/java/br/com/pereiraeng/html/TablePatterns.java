@@ -0,0 +1,26 @@
+package br.com.pereiraeng.html;
+
+import java.util.regex.Pattern;
+
+/**
+ * Padrões (expressões regulares) das tabelas. Como os de {@link TextPatterns},
+ * só são compilados quando usados pela primeira vez, e continuam acessíveis
+ * como <code>HTML.PATTERN_...</code>.
+ */
+interface TablePatterns {
+
+	/**
+	 * Padrão de uma tabela inteira. Por ser não guloso, corta as tabelas que
+	 * contenham outras tabelas na primeira etiqueta de fechamento interna; para
+	 * tabelas aninhadas, ver {@link TableLocator}.
+	 */
+	Pattern PATTERN_TABLE = Pattern.compile(HTML.TABLE_OPENING_TAG + ".*?" + HTML.TABLE_CLOSING_TAG,
+			Pattern.DOTALL),
+			PATTERN_ROW = Pattern.compile(HTML.ROW_OPENING_TAG + ".*?" + HTML.ROW_CLOSING_TAG, Pattern.DOTALL),
+			PATTERN_COLUMN = Pattern.compile(HTML.COLUMN, Pattern.DOTALL);
+
+	Pattern PATTERN_TABLE_OPENING_TAG = Pattern.compile(HTML.TABLE_OPENING_TAG),
+			PATTERN_TABLE_CLOSING_TAG = Pattern.compile(HTML.TABLE_CLOSING_TAG),
+			PATTERN_ROW_OPENING_TAG = Pattern.compile(HTML.ROW_OPENING_TAG),
+			PATTERN_ROW_CLOSING_TAG = Pattern.compile(HTML.ROW_CLOSING_TAG);
+}
@@ -0,0 +1,261 @@
+package br.com.pereiraeng.html;
+
+import java.util.Arrays;
+
+/**
+ * Linhas e células de uma tabela, lidas do código com o {@link HTMLTokenizer}
+ * e com o mesmo controle de aninhamento do {@link TableLocator}: as linhas e
+ * células das tabelas aninhadas (dentro de uma célula) não entram na contagem,
+ * e as células e linhas não fechadas terminam onde começa a próxima (ou no fim
+ * da tabela). Para cada célula guardam-se as posições de início e fim da
+ * etiqueta inteira e do seu conteúdo.
+ */
+final class TableRows implements TokenHandler {
+
+	private static final int START = 0, CONTENT_START = 1, CONTENT_END = 2, END = 3;
+
+	private static final int FIELDS = 4;
+
+	/**
+	 * tamanho dos trechos lidos por {@link #find(CharSequence, int)}, que para de
+	 * ler o código no fim da tabela procurada
+	 */
+	private static final int WINDOW = 64 * 1024;
+
+	private int[] cells = new int[32 * FIELDS];
+
+	private int cellCount;
+
+	/**
+	 * primeira célula de cada linha (a posição <code>rowCount</code> é o fim da
+	 * última)
+	 */
+	private int[] rowStart = new int[17];
+
+	private int rowCount;
+
+	/**
+	 * tabelas abertas: -1 antes da tabela (só em {@link #find(CharSequence, int)}),
+	 * 0 dentro dela e mais que 0 dentro de uma tabela aninhada
+	 */
+	private int depth;
+
+	/**
+	 * tabelas que faltam para a procurada (só em {@link #find(CharSequence, int)})
+	 */
+	private int skip;
+
+	private boolean rowOpen, cellOpen, done;
+
+	private TableRows(int depth, int skip) {
+		this.depth = depth;
+		this.skip = skip;
+	}
+
+	/**
+	 * Função que lê as linhas de uma tabela já localizada
+	 *
+	 * @param html   código HTML
+	 * @param tables índice das tabelas do código
+	 * @param table  índice da tabela
+	 * @return linhas, ou <code>null</code> se a tabela não existir
+	 */
+	static TableRows of(CharSequence html, TableLocator tables, int table) {
+		if (table < 0 || table >= tables.size())
+			return null;
+		TableRows out = new TableRows(0, 0);
+		int end = tables.getContentEnd(table);
+		HTMLTokenizer.tokenize(html, tables.getContentStart(table), end, out);
+		out.close(end, end);
+		return out;
+	}
+
+	/**
+	 * Função que procura uma tabela (numerada como no {@link TableLocator}) e lê
+	 * as suas linhas, numa única passada que termina no fim da tabela
+	 *
+	 * @param html       código HTML
+	 * @param tableIndex índice da tabela
+	 * @return linhas, ou <code>null</code> se a tabela não existir
+	 */
+	static TableRows find(CharSequence html, int tableIndex) {
+		if (tableIndex < 0)
+			return null;
+		TableRows out = new TableRows(-1, tableIndex);
+		int n = html.length(), p = 0, window = WINDOW;
+		while (!out.done && p < n) {
+			int to = (int) Math.min(n, (long) p + window);
+			int q = HTMLTokenizer.tokenize(html, p, to, out, to < n);
+			if (q == p)
+				// etiqueta ou comentário maior que o trecho
+				window = (int) Math.min(Integer.MAX_VALUE, 2L * window);
+			else {
+				p = q;
+				window = WINDOW;
+			}
+		}
+		if (out.depth < 0)
+			return null;
+		if (!out.done)
+			out.close(n, n); // tabela não fechada
+		return out;
+	}
+
+	// ============================== LEITURA ==============================
+
+	@Override
+	public void startTag(CharSequence src, int start, int nameStart, int nameEnd, int attrStart, int attrEnd,
+			int end, boolean selfClosing) {
+		if (done)
+			return;
+		if (HTMLTokenizer.regionMatches(src, nameStart, nameEnd, "table")) {
+			if (depth < 0) {
+				// antes da tabela procurada
+				if (skip-- == 0) {
+					depth = 0;
+					if (selfClosing)
+						done = true;
+				}
+			} else if (!selfClosing)
+				depth++;
+			return;
+		}
+		if (depth != 0)
+			return;
+		if (HTMLTokenizer.regionMatches(src, nameStart, nameEnd, "tr")) {
+			close(start, start);
+			openRow();
+		} else if (HTMLTokenizer.regionMatches(src, nameStart, nameEnd, "td")
+				|| HTMLTokenizer.regionMatches(src, nameStart, nameEnd, "th")) {
+			closeCell(start, start);
+			if (!rowOpen)
+				openRow(); // célula fora de <tr>
+			if (cellCount * FIELDS == cells.length)
+				cells = Arrays.copyOf(cells, cells.length * 2);
+			int o = cellCount++ * FIELDS;
+			cells[o + START] = start;
+			cells[o + CONTENT_START] = end;
+			cells[o + CONTENT_END] = cells[o + END] = end;
+			cellOpen = !selfClosing;
+		} else if (HTMLTokenizer.regionMatches(src, nameStart, nameEnd, "thead")
+				|| HTMLTokenizer.regionMatches(src, nameStart, nameEnd, "tbody")
+				|| HTMLTokenizer.regionMatches(src, nameStart, nameEnd, "tfoot"))
+			close(start, start);
+	}
+
+	@Override
+	public void endTag(CharSequence src, int start, int nameStart, int nameEnd, int end) {
+		if (done || depth < 0)
+			return;
+		if (HTMLTokenizer.regionMatches(src, nameStart, nameEnd, "table")) {
+			if (depth == 0) {
+				close(start, start);
+				done = true;
+			} else
+				depth--;
+			return;
+		}
+		if (depth != 0)
+			return;
+		if (HTMLTokenizer.regionMatches(src, nameStart, nameEnd, "td")
+				|| HTMLTokenizer.regionMatches(src, nameStart, nameEnd, "th"))
+			closeCell(start, end);
+		else if (HTMLTokenizer.regionMatches(src, nameStart, nameEnd, "tr")
+				|| HTMLTokenizer.regionMatches(src, nameStart, nameEnd, "thead")
+				|| HTMLTokenizer.regionMatches(src, nameStart, nameEnd, "tbody")
+				|| HTMLTokenizer.regionMatches(src, nameStart, nameEnd, "tfoot"))
+			close(start, start);
+	}
+
+	@Override
+	public void text(CharSequence src, int start, int end) {
+	}
+
+	@Override
+	public void comment(CharSequence src, int start, int end) {
+	}
+
+	private void openRow() {
+		if (rowCount + 1 == rowStart.length)
+			rowStart = Arrays.copyOf(rowStart, rowStart.length * 2);
+		rowStart[rowCount] = cellCount;
+		rowOpen = true;
+	}
+
+	/**
+	 * Função que fecha a célula aberta
+	 *
+	 * @param contentEnd fim do conteúdo
+	 * @param end        fim da célula
+	 */
+	private void closeCell(int contentEnd, int end) {
+		if (!cellOpen)
+			return;
+		int o = (cellCount - 1) * FIELDS;
+		cells[o + CONTENT_END] = contentEnd;
+		cells[o + END] = end;
+		cellOpen = false;
+	}
+
+	/**
+	 * Função que fecha a célula e a linha abertas
+	 */
+	private void close(int contentEnd, int end) {
+		closeCell(contentEnd, end);
+		if (rowOpen) {
+			rowStart[++rowCount] = cellCount;
+			rowOpen = false;
+		}
+	}
+
+	// ============================== CONSULTA ==============================
+
+	int getRowCount() {
+		return rowCount;
+	}
+
+	/**
+	 * @param row índice da linha
+	 * @return quantidade de células da linha
+	 */
+	int getCellCount(int row) {
+		return rowStart[row + 1] - rowStart[row];
+	}
+
+	/**
+	 * Função que retorna o código de uma célula, com as etiquetas
+	 * <code>&lt;td&gt;</code> ou <code>&lt;th&gt;</code>
+	 *
+	 * @param html   código HTML
+	 * @param row    índice da linha
+	 * @param column índice da coluna
+	 * @return código da célula, ou <code>null</code> se a linha ou a coluna não
+	 *         existirem
+	 */
+	String getCell(CharSequence html, int row, int column) {
+		int o = offset(row, column);
+		return o < 0 ? null : html.subSequence(cells[o + START], cells[o + END]).toString();
+	}
+
+	/**
+	 * Função que retorna o conteúdo de uma célula, sem as etiquetas
+	 * <code>&lt;td&gt;</code> ou <code>&lt;th&gt;</code> (mas com as etiquetas de
+	 * dentro)
+	 *
+	 * @param html   código HTML
+	 * @param row    índice da linha
+	 * @param column índice da coluna
+	 * @return conteúdo da célula, ou <code>null</code> se a linha ou a coluna não
+	 *         existirem
+	 */
+	String getContent(CharSequence html, int row, int column) {
+		int o = offset(row, column);
+		return o < 0 ? null : html.subSequence(cells[o + CONTENT_START], cells[o + CONTENT_END]).toString();
+	}
+
+	private int offset(int row, int column) {
+		if (row < 0 || row >= rowCount || column < 0 || column >= getCellCount(row))
+			return -1;
+		return (rowStart[row] + column) * FIELDS;
+	}
+}
@@ -0,0 +1,332 @@
+package br.com.pereiraeng.html;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Esquema de uma tabela: os nomes das colunas, lidos das linhas de cabeçalho
+ * do começo da tabela (as linhas de <code>&lt;thead&gt;</code> e as linhas só
+ * com células <code>&lt;th&gt;</code>), com um mapa nome → índice da coluna.
+ * As colunas são as da {@link TableGrid grade} da tabela, de modo que
+ * <code>rowspan</code> e <code>colspan</code> são respeitados: o nome de cada
+ * coluna é o da célula de cabeçalho mais baixa que a cobre e não está vazia
+ * (sem etiquetas e com os espaços normalizados), e uma célula com <code>colspan</code> dá seu nome a
+ * todas as colunas que cobre (o nome aponta para a primeira delas).
+ * <p>
+ * Os esquemas podem ser guardados num {@link Cache}, indexados pelo código
+ * das linhas de cabeçalho: os documentos seguintes com o mesmo leiaute (e.g.,
+ * as páginas de um mesmo relatório) reaproveitam o esquema sem ler os nomes de
+ * novo. Os esquemas são imutáveis.
+ */
+public final class TableSchema {
+
+	/**
+	 * Esquema de uma tabela sem cabeçalho
+	 */
+	public static final TableSchema NONE = new TableSchema(new String[0], 0, new char[0]);
+
+	private final String[] names;
+
+	private final Map<String, Integer> indices;
+
+	private final int headerRows;
+
+	/**
+	 * código das linhas de cabeçalho
+	 */
+	private final char[] layout;
+
+	private TableSchema(String[] names, int headerRows, char[] layout) {
+		this.names = names;
+		this.headerRows = headerRows;
+		this.layout = layout;
+		this.indices = new HashMap<>(names.length * 2);
+		for (int i = 0; i < names.length; i++)
+			indices.putIfAbsent(names[i], i);
+	}
+
+	/**
+	 * @return quantidade de colunas com nome
+	 */
+	public int getColumnCount() {
+		return names.length;
+	}
+
+	/**
+	 * @param column índice da coluna
+	 * @return nome da coluna
+	 */
+	public String getName(int column) {
+		return names[column];
+	}
+
+	public String[] getNames() {
+		return names.clone();
+	}
+
+	/**
+	 * @return quantidade de linhas de cabeçalho no começo da tabela
+	 */
+	public int getHeaderRows() {
+		return headerRows;
+	}
+
+	/**
+	 * @param name nome da coluna (os espaços são normalizados)
+	 * @return índice da coluna, ou -1 se não houver coluna com esse nome
+	 */
+	public int indexOf(String name) {
+		Integer i = indices.get(name);
+		if (i == null)
+			i = indices.get(normalize(name));
+		return i == null ? -1 : i;
+	}
+
+	/**
+	 * @param columnNames nomes das colunas
+	 * @return índices das colunas (-1 para os nomes que não existem)
+	 */
+	public int[] indicesOf(String... columnNames) {
+		int[] out = new int[columnNames.length];
+		for (int i = 0; i < columnNames.length; i++)
+			out[i] = indexOf(columnNames[i]);
+		return out;
+	}
+
+	@Override
+	public String toString() {
+		return Arrays.toString(names);
+	}
+
+	// ============================== LEITURA ==============================
+
+	/**
+	 * Função que lê o esquema de uma tabela
+	 *
+	 * @param doc   documento
+	 * @param rows  nós das linhas da tabela
+	 * @param grid  grade da tabela, no modo {@link TableGrid.SpanMode#REPEAT}
+	 * @param cache esquemas já lidos (<code>null</code> para ler sempre)
+	 * @return esquema
+	 */
+	static TableSchema of(HTMLDocument doc, int[] rows, TableGrid grid, Cache cache) {
+		int header = headerRows(doc, rows);
+		if (header == 0)
+			return NONE;
+		long s0 = doc.getPosition(rows[0], NodeStore.START), e0 = doc.getPosition(rows[header - 1], NodeStore.END);
+		CharSequence src = doc.window(s0, e0);
+		int start = (int) (s0 - doc.windowStart(s0)), end = (int) (e0 - s0) + start;
+		long hash = 0xcbf29ce484222325L;
+		for (int i = start; i < end; i++)
+			hash = (hash ^ src.charAt(i)) * 0x100000001b3L;
+
+		if (cache != null) {
+			TableSchema s = cache.get(hash);
+			if (s != null && s.sameLayout(src, start, end)) {
+				cache.hits++;
+				return s;
+			}
+			cache.misses++;
+		}
+
+		// cada coluna recebe o nome da célula de cabeçalho mais baixa que a cobre
+		// (as células vazias não dão nome)
+		int n = grid.getColumnCount();
+		String[] names = new String[n];
+		for (int c = 0; c < n; c++)
+			for (int r = header - 1; r >= 0 && names[c] == null; r--) {
+				int cell = grid.getCell(r, c);
+				if (cell >= 0) {
+					String name = normalize(HTML.convertHTMLSpeChar(doc.getText(cell)));
+					if (!name.isEmpty())
+						names[c] = name;
+				}
+			}
+		// colunas à direita sem cabeçalho
+		while (n > 0 && names[n - 1] == null)
+			n--;
+		for (int c = 0; c < n; c++)
+			if (names[c] == null)
+				names[c] = "";
+		char[] layout = new char[end - start];
+		for (int i = start; i < end; i++)
+			layout[i - start] = src.charAt(i);
+		TableSchema s = new TableSchema(Arrays.copyOf(names, n), header, layout);
+		if (cache != null)
+			cache.put(hash, s);
+		return s;
+	}
+
+	/**
+	 * Função que conta as linhas de cabeçalho do começo da tabela
+	 */
+	private static int headerRows(HTMLDocument doc, int[] rows) {
+		int thead = doc.nameId("thead"), th = doc.nameId("th");
+		int n = 0;
+		for (int row : rows) {
+			boolean header = thead >= 0 && doc.getNameId(doc.getParent(row)) == thead;
+			if (!header && th >= 0) {
+				int[] cells = doc.getCells(row);
+				header = cells.length > 0;
+				for (int c : cells)
+					if (doc.getNameId(c) != th) {
+						header = false;
+						break;
+					}
+			}
+			if (!header)
+				break;
+			n++;
+		}
+		return n;
+	}
+
+	private boolean sameLayout(CharSequence src, int start, int end) {
+		if (end - start != layout.length)
+			return false;
+		for (int i = 0; i < layout.length; i++)
+			if (layout[i] != src.charAt(start + i))
+				return false;
+		return true;
+	}
+
+	/**
+	 * Função que tira os espaços das pontas e troca cada sequência de espaços
+	 * (inclusive o espaço não separável) por um só
+	 */
+	static String normalize(String s) {
+		StringBuilder sb = new StringBuilder(s.length());
+		boolean space = false;
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c <= ' ' || c == '\u00A0')
+				space = sb.length() > 0;
+			else {
+				if (space)
+					sb.append(' ');
+				space = false;
+				sb.append(c);
+			}
+		}
+		return sb.length() == s.length() ? s : sb.toString();
+	}
+
+	// ============================== CACHE ==============================
+
+	/**
+	 * Esquemas já lidos, indexados pela dispersão (FNV-1a de 64 bits) do código
+	 * das linhas de cabeçalho; o código é conferido a cada acerto, de modo que
+	 * uma colisão só custa uma nova leitura. Quando o cache está cheio, cada
+	 * esquema novo toma o lugar de um antigo, escolhido pelo algoritmo do relógio
+	 * (segunda chance): um ponteiro percorre as posições em círculo, poupando uma
+	 * vez os esquemas usados desde a última passagem, de modo que os leiautes
+	 * frequentes ficam no cache. O cache pode ser compartilhado entre
+	 * <i>threads</i>: a consulta não usa trava, e a inclusão usa uma
+	 * {@link ReentrantLock} (e não <code>synchronized</code>, que prenderia as
+	 * <i>threads</i> virtuais); os contadores de acertos são aproximados.
+	 */
+	public static final class Cache {
+
+		/**
+		 * posição de um esquema no relógio
+		 */
+		private static final class Slot {
+
+			private final long key;
+
+			private final TableSchema schema;
+
+			/**
+			 * usado desde a última passagem do ponteiro
+			 */
+			private volatile boolean used;
+
+			private Slot(long key, TableSchema schema) {
+				this.key = key;
+				this.schema = schema;
+			}
+		}
+
+		private final ConcurrentHashMap<Long, Slot> schemas = new ConcurrentHashMap<>();
+
+		private final Slot[] clock;
+
+		private final ReentrantLock lock = new ReentrantLock();
+
+		private int hand, count;
+
+		private int hits, misses;
+
+		/**
+		 * @param capacity quantidade máxima de esquemas guardados
+		 */
+		public Cache(int capacity) {
+			if (capacity < 1)
+				throw new IllegalArgumentException(Integer.toString(capacity));
+			this.clock = new Slot[capacity];
+		}
+
+		public int size() {
+			return schemas.size();
+		}
+
+		/**
+		 * @return quantidade de esquemas reaproveitados
+		 */
+		public int getHits() {
+			return hits;
+		}
+
+		/**
+		 * @return quantidade de esquemas lidos
+		 */
+		public int getMisses() {
+			return misses;
+		}
+
+		public void clear() {
+			lock.lock();
+			try {
+				schemas.clear();
+				Arrays.fill(clock, null);
+				hand = count = 0;
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		private TableSchema get(long key) {
+			Slot slot = schemas.get(key);
+			if (slot == null)
+				return null;
+			slot.used = true;
+			return slot.schema;
+		}
+
+		private void put(long key, TableSchema schema) {
+			lock.lock();
+			try {
+				if (schemas.containsKey(key))
+					return; // guardado por outra thread (ou colisão)
+				Slot slot = new Slot(key, schema);
+				if (count < clock.length)
+					clock[count++] = slot;
+				else {
+					while (clock[hand].used) {
+						clock[hand].used = false;
+						hand = (hand + 1) % clock.length;
+					}
+					schemas.remove(clock[hand].key);
+					clock[hand] = slot;
+					hand = (hand + 1) % clock.length;
+				}
+				schemas.put(key, slot);
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+}
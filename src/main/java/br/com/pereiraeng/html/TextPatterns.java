@@ -0,0 +1,35 @@
+package br.com.pereiraeng.html;
+
+import java.util.regex.Pattern;
+
+/**
+ * Padrões (expressões regulares) de comentários, grupos de formatação, links e
+ * caracteres especiais. Ficam numa interface implementada por {@link HTML},
+ * e não na própria classe, para que só sejam compilados quando usados pela
+ * primeira vez: carregar {@link HTML} não inicializa as interfaces que ela
+ * implementa. Continuam acessíveis como <code>HTML.PATTERN_...</code>.
+ */
+interface TextPatterns {
+
+	Pattern PATTERN_COMMENT_OPENING_TAG = Pattern.compile(HTML.COMMENT_OPENING_TAG);
+
+	Pattern PATTERN_COMMENT_CLOSING_TAG = Pattern.compile(HTML.COMMENT_CLOSING_TAG);
+
+	/**
+	 * Padrão do interior xml
+	 */
+	Pattern PATTERN_CONTENT = Pattern.compile(">.*<", Pattern.DOTALL);
+
+	// sub e sup
+
+	Pattern PATTERN_SUB = HTML.getGroupPattern("sub"), PATTERN_SUP = HTML.getGroupPattern("sup");
+
+	// link
+
+	Pattern PATTERN_LINK = Pattern.compile("<(a|A) ((href)|(HREF))=\".+?\">.+?</(a|A)>");
+
+	// caracteres especiais
+
+	Pattern PATTERN_UNICODE = Pattern.compile("&#([xX]\\p{XDigit}+|\\d+);"),
+			PATTERN_SPECIAL = Pattern.compile("&\\p{Alnum}+;");
+}
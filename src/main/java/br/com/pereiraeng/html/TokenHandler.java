@@ -0,0 +1,55 @@
+package br.com.pereiraeng.html;
+
+/**
+ * Interface dos receptores dos eventos gerados pelo {@link HTMLTokenizer}. Todos
+ * os argumentos são posições na sequência de caracteres fornecida, de modo que
+ * nenhum objeto é criado durante a leitura.
+ */
+public interface TokenHandler {
+
+	/**
+	 * Função chamada para cada trecho de texto entre etiquetas
+	 *
+	 * @param src   sequência de caracteres lida
+	 * @param start posição do primeiro caractere do texto
+	 * @param end   posição seguinte ao último caractere do texto
+	 */
+	public void text(CharSequence src, int start, int end);
+
+	/**
+	 * Função chamada para cada etiqueta de abertura (e.g., <code>&lt;td&gt;</code>)
+	 *
+	 * @param src         sequência de caracteres lida
+	 * @param start       posição do caractere '&lt;'
+	 * @param nameStart   posição do primeiro caractere do nome
+	 * @param nameEnd     posição seguinte ao último caractere do nome
+	 * @param attrStart   posição do início dos atributos
+	 * @param attrEnd     posição seguinte ao fim dos atributos
+	 * @param end         posição seguinte ao caractere '&gt;'
+	 * @param selfClosing <code>true</code> se a etiqueta terminar em '/&gt;'
+	 */
+	public void startTag(CharSequence src, int start, int nameStart, int nameEnd, int attrStart, int attrEnd, int end,
+			boolean selfClosing);
+
+	/**
+	 * Função chamada para cada etiqueta de fechamento (e.g.,
+	 * <code>&lt;/td&gt;</code>)
+	 *
+	 * @param src       sequência de caracteres lida
+	 * @param start     posição do caractere '&lt;'
+	 * @param nameStart posição do primeiro caractere do nome
+	 * @param nameEnd   posição seguinte ao último caractere do nome
+	 * @param end       posição seguinte ao caractere '&gt;'
+	 */
+	public void endTag(CharSequence src, int start, int nameStart, int nameEnd, int end);
+
+	/**
+	 * Função chamada para comentários, declarações (<code>&lt;!DOCTYPE&gt;</code>)
+	 * e instruções de processamento
+	 *
+	 * @param src   sequência de caracteres lida
+	 * @param start posição do caractere '&lt;'
+	 * @param end   posição seguinte ao caractere '&gt;'
+	 */
+	public void comment(CharSequence src, int start, int end);
+}
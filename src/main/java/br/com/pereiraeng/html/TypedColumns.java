@@ -0,0 +1,270 @@
+package br.com.pereiraeng.html;
+
+import java.util.BitSet;
+import java.util.Locale;
+
+/**
+ * Classe que extrai colunas de tabelas HTML diretamente em vetores de tipos
+ * primitivos, convertendo o conteúdo das células com um {@link CellParser} sem
+ * passar por <code>String</code>s intermediárias. As células vazias, ausentes
+ * ou não numéricas (e.g., o cabeçalho) são marcadas num {@link BitSet} de
+ * valores faltantes.
+ */
+public final class TypedColumns {
+
+	private TypedColumns() {
+	}
+
+	/**
+	 * Coluna de números reais (valores faltantes são {@link Double#NaN})
+	 */
+	public static final class Doubles {
+
+		private final double[] values;
+
+		private final BitSet missing;
+
+		Doubles(double[] values, BitSet missing) {
+			this.values = values;
+			this.missing = missing;
+		}
+
+		public int size() {
+			return values.length;
+		}
+
+		public double get(int row) {
+			return values[row];
+		}
+
+		public boolean isMissing(int row) {
+			return missing.get(row);
+		}
+
+		public double[] getValues() {
+			return values;
+		}
+
+		public BitSet getMissing() {
+			return missing;
+		}
+	}
+
+	/**
+	 * Coluna de números inteiros (valores faltantes são zero)
+	 */
+	public static final class Longs {
+
+		private final long[] values;
+
+		private final BitSet missing;
+
+		Longs(long[] values, BitSet missing) {
+			this.values = values;
+			this.missing = missing;
+		}
+
+		public int size() {
+			return values.length;
+		}
+
+		public long get(int row) {
+			return values[row];
+		}
+
+		public boolean isMissing(int row) {
+			return missing.get(row);
+		}
+
+		public long[] getValues() {
+			return values;
+		}
+
+		public BitSet getMissing() {
+			return missing;
+		}
+	}
+
+	/**
+	 * Coluna de números inteiros de 32 bits (valores faltantes são zero)
+	 */
+	public static final class Ints {
+
+		private final int[] values;
+
+		private final BitSet missing;
+
+		Ints(int[] values, BitSet missing) {
+			this.values = values;
+			this.missing = missing;
+		}
+
+		public int size() {
+			return values.length;
+		}
+
+		public int get(int row) {
+			return values[row];
+		}
+
+		public boolean isMissing(int row) {
+			return missing.get(row);
+		}
+
+		public int[] getValues() {
+			return values;
+		}
+
+		public BitSet getMissing() {
+			return missing;
+		}
+	}
+
+	// ============================== EXTRAÇÃO ==============================
+
+	/**
+	 * Função que extrai uma coluna de números reais
+	 *
+	 * @param doc         documento
+	 * @param tableIndex  índice da tabela
+	 * @param columnIndex índice da coluna
+	 * @param locale      localidade dos separadores decimal e de milhar
+	 * @return coluna, com uma posição por linha da tabela, ou <code>null</code> se
+	 *         a tabela não existir
+	 */
+	public static Doubles getDoubles(HTMLDocument doc, int tableIndex, int columnIndex, Locale locale) {
+		int[] cells = getColumnCells(doc, tableIndex, columnIndex);
+		if (cells == null)
+			return null;
+		CellParser parser = new CellParser(locale);
+		int[] range = new int[2];
+		double[] values = new double[cells.length];
+		BitSet missing = new BitSet(cells.length);
+		for (int i = 0; i < cells.length; i++) {
+			if (cells[i] >= 0)
+				values[i] = parser.parseDouble(content(doc, cells[i], range), range[0], range[1]);
+			if (cells[i] < 0 || !parser.isValid()) {
+				values[i] = Double.NaN;
+				missing.set(i);
+			}
+		}
+		return new Doubles(values, missing);
+	}
+
+	/**
+	 * Função que extrai uma coluna de números inteiros
+	 *
+	 * @param doc         documento
+	 * @param tableIndex  índice da tabela
+	 * @param columnIndex índice da coluna
+	 * @param locale      localidade dos separadores decimal e de milhar
+	 * @return coluna, com uma posição por linha da tabela, ou <code>null</code> se
+	 *         a tabela não existir
+	 */
+	public static Longs getLongs(HTMLDocument doc, int tableIndex, int columnIndex, Locale locale) {
+		int[] cells = getColumnCells(doc, tableIndex, columnIndex);
+		if (cells == null)
+			return null;
+		CellParser parser = new CellParser(locale);
+		int[] range = new int[2];
+		long[] values = new long[cells.length];
+		BitSet missing = new BitSet(cells.length);
+		for (int i = 0; i < cells.length; i++) {
+			if (cells[i] >= 0)
+				values[i] = parser.parseLong(content(doc, cells[i], range), range[0], range[1]);
+			if (cells[i] < 0 || !parser.isValid())
+				missing.set(i);
+		}
+		return new Longs(values, missing);
+	}
+
+	/**
+	 * Função que extrai uma coluna de números inteiros de 32 bits
+	 *
+	 * @param doc         documento
+	 * @param tableIndex  índice da tabela
+	 * @param columnIndex índice da coluna
+	 * @param locale      localidade dos separadores decimal e de milhar
+	 * @return coluna, com uma posição por linha da tabela, ou <code>null</code> se
+	 *         a tabela não existir
+	 */
+	public static Ints getInts(HTMLDocument doc, int tableIndex, int columnIndex, Locale locale) {
+		int[] cells = getColumnCells(doc, tableIndex, columnIndex);
+		if (cells == null)
+			return null;
+		CellParser parser = new CellParser(locale);
+		int[] range = new int[2];
+		int[] values = new int[cells.length];
+		BitSet missing = new BitSet(cells.length);
+		for (int i = 0; i < cells.length; i++) {
+			if (cells[i] >= 0)
+				values[i] = parser.parseInt(content(doc, cells[i], range), range[0], range[1]);
+			if (cells[i] < 0 || !parser.isValid())
+				missing.set(i);
+		}
+		return new Ints(values, missing);
+	}
+
+	/**
+	 * Função que extrai uma coluna de datas
+	 *
+	 * @param doc         documento
+	 * @param tableIndex  índice da tabela
+	 * @param columnIndex índice da coluna
+	 * @param pattern     padrão da data (ver
+	 *                    {@link CellParser#parseEpochDay(CharSequence, int, int, String)})
+	 * @return coluna de dias contados a partir de 1970-01-01, com uma posição por
+	 *         linha da tabela, ou <code>null</code> se a tabela não existir
+	 */
+	public static Longs getEpochDays(HTMLDocument doc, int tableIndex, int columnIndex, String pattern) {
+		int[] cells = getColumnCells(doc, tableIndex, columnIndex);
+		if (cells == null)
+			return null;
+		CellParser parser = new CellParser('.', ',');
+		int[] range = new int[2];
+		long[] values = new long[cells.length];
+		BitSet missing = new BitSet(cells.length);
+		for (int i = 0; i < cells.length; i++) {
+			if (cells[i] >= 0)
+				values[i] = parser.parseEpochDay(content(doc, cells[i], range), range[0], range[1],
+						pattern);
+			if (cells[i] < 0 || !parser.isValid())
+				missing.set(i);
+		}
+		return new Longs(values, missing);
+	}
+
+	/**
+	 * Função que retorna os nós das células de uma coluna
+	 *
+	 * @return um nó por linha (-1 se a linha não tiver essa coluna), ou
+	 *         <code>null</code> se a tabela não existir
+	 */
+	/**
+	 * Função que retorna a sequência de caracteres com o conteúdo de uma célula
+	 * (ver {@link HTMLDocument#window(long, long)})
+	 *
+	 * @param range vetor que recebe as posições inicial e final do conteúdo na
+	 *              sequência
+	 * @return sequência de caracteres
+	 */
+	private static CharSequence content(HTMLDocument doc, int cell, int[] range) {
+		long s = doc.getPosition(cell, NodeStore.CONTENT_START), e = doc.getPosition(cell, NodeStore.CONTENT_END);
+		range[0] = (int) (s - doc.windowStart(s));
+		range[1] = range[0] + (int) (e - s);
+		return doc.window(s, e);
+	}
+
+	private static int[] getColumnCells(HTMLDocument doc, int tableIndex, int columnIndex) {
+		int table = doc.getTable(tableIndex);
+		if (table < 0)
+			return null;
+		int[] rows = doc.getRows(table);
+		int[] out = new int[rows.length];
+		for (int i = 0; i < rows.length; i++) {
+			int[] cells = doc.getCells(rows[i]);
+			out[i] = columnIndex < cells.length ? cells[columnIndex] : -1;
+		}
+		return out;
+	}
+}
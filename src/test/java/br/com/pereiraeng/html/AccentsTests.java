@@ -0,0 +1,29 @@
+package br.com.pereiraeng.html;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+class AccentsTests {
+
+	private static final String TEXT = "A\u00E7\u00E3o \u00E9 P\u00F4r \u00C0 \u00FCber \u00E5 \u0160 \u1EBD";
+
+	@Test
+	void testEntities() {
+		String html = HTML.accent2HTML(TEXT);
+		assertEquals("A&ccedil;&atilde;o &eacute; P&ocirc;r &Agrave; &uuml;ber &aring; &Scaron; \u1EBD", html);
+		assertEquals(TEXT, HTML.convertHTMLaccent(html));
+		assertEquals("&amp; &Xacute; &eacute", HTML.convertHTMLaccent("&amp; &Xacute; &eacute"));
+		assertEquals("A&#x00E7;&#x00E3;o", HTML.accent2HTML2("A\u00E7\u00E3o"));
+		assertEquals("\u015F \u0151", HTML.convertHTMLSpeChar("&scedil; &odblac;"));
+		String plain = "sem acentos";
+		assertSame(plain, HTML.accent2HTML(plain));
+	}
+
+	@Test
+	void testFold() {
+		assertEquals("Acao e Por A uber a S e", HTML.foldAccents(TEXT));
+		assertEquals("Lodz Oresund", HTML.foldAccents("\u0141\u00F3d\u017A \u00D8resund"));
+	}
+}
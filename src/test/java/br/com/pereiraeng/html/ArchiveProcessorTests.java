@@ -0,0 +1,138 @@
+package br.com.pereiraeng.html;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class ArchiveProcessorTests {
+
+	/**
+	 * Escreve o índice do documento e o conteúdo da primeira célula
+	 */
+	public static class FirstCell implements ArchiveProcessor.Task {
+
+		@Override
+		public void process(int document, HTMLDocument doc, Writer out) throws IOException {
+			out.write(document + "\t" + doc.getCellContent(0, 0, 0) + "\n");
+		}
+	}
+
+	private static String page(int i) {
+		return "<!DOCTYPE html><html><body><table><tr><td>c\u00E9lula " + i + "</td></tr></table></body></HTML>";
+	}
+
+	@Test
+	void testIndex() throws IOException {
+		Path file = Files.createTempFile("archive", ".html");
+		try {
+			StringBuilder sb = new StringBuilder();
+			for (int i = 0; i < 50; i++)
+				sb.append(page(i)).append("\r\n");
+			sb.append("<p>resto");
+			Files.write(file, sb.toString().getBytes(StandardCharsets.UTF_8));
+
+			// janela pequena: documentos cortados entre janelas e maiores que elas
+			for (int window : new int[] { 64, 300, 1 << 20 }) {
+				ArchiveIndex index = ArchiveIndex.build(file, window);
+				assertEquals(51, index.size());
+				assertEquals(0, index.getStart(0));
+				assertEquals(page(0).getBytes(StandardCharsets.UTF_8).length, index.getEnd(0));
+				assertEquals(index.getEnd(0) + 2, index.getStart(1));
+			}
+
+			ArchiveIndex index = ArchiveIndex.build(file);
+			int[] shards = index.split(4);
+			assertEquals(5, shards.length);
+			assertEquals(0, shards[0]);
+			assertEquals(51, shards[4]);
+			for (int i = 1; i < shards.length; i++)
+				assertTrue(Math.abs(shards[i] - shards[i - 1] - 13) <= 1);
+			int[] one = index.split(100);
+			assertEquals(52, one.length);
+			for (int i = 0; i < one.length; i++)
+				assertEquals(i, one[i]);
+
+			Path copy = Files.createTempFile("archive", ".idx");
+			try {
+				index.write(copy);
+				ArchiveIndex read = ArchiveIndex.read(copy);
+				assertEquals(index.size(), read.size());
+				assertEquals(index.getEnd(50), read.getEnd(50));
+			} finally {
+				Files.delete(copy);
+			}
+
+			StringWriter out = new StringWriter();
+			try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+				ArchiveProcessor.processShard(ch, index, 10, 12, new FirstCell(), out);
+			}
+			assertEquals("10\tc\u00E9lula 10\n11\tc\u00E9lula 11\n", out.toString());
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	void testWarc() throws IOException {
+		Path file = Files.createTempFile("archive", ".warc");
+		try {
+			StringBuilder sb = new StringBuilder();
+			for (int i = 0; i < 3; i++) {
+				String http = "HTTP/1.1 200 OK\r\nContent-Type: text/html\r\n\r\n" + page(i);
+				sb.append(warc("request", "GET / HTTP/1.1\r\n\r\n"));
+				sb.append(warc("response", http));
+			}
+			sb.append(warc("resource", page(3)));
+			Files.write(file, sb.toString().getBytes(StandardCharsets.ISO_8859_1));
+
+			ArchiveIndex index = ArchiveIndex.build(file);
+			assertEquals(4, index.size());
+			StringWriter out = new StringWriter();
+			try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+				ArchiveProcessor.processShard(ch, index, 0, 4, new FirstCell(), out);
+			}
+			assertEquals("0\tc\u00E9lula 0\n1\tc\u00E9lula 1\n2\tc\u00E9lula 2\n3\tc\u00E9lula 3\n", out.toString());
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	private static String warc(String type, String content) {
+		return "WARC/1.0\r\nWARC-Type: " + type + "\r\nContent-Length: " + content.length() + "\r\n\r\n" + content
+				+ "\r\n\r\n";
+	}
+
+	@Test
+	void testRun() throws IOException {
+		Path file = Files.createTempFile("archive", ".html"), output = Files.createTempFile("archive", ".txt");
+		try {
+			StringBuilder sb = new StringBuilder(), expected = new StringBuilder();
+			for (int i = 0; i < 40; i++) {
+				sb.append(page(i));
+				expected.append(i).append("\tc\u00E9lula ").append(i).append('\n');
+			}
+			Files.write(file, sb.toString().getBytes(StandardCharsets.UTF_8));
+
+			ArchiveIndex index = ArchiveProcessor.builder().processes(2).shardsPerProcess(3).build().run(file,
+					FirstCell.class, output);
+			assertEquals(40, index.size());
+			List<String> lines = Files.readAllLines(output, StandardCharsets.UTF_8);
+			assertEquals(40, lines.size());
+			assertEquals(expected.toString(), String.join("\n", lines) + "\n");
+		} finally {
+			Files.delete(file);
+			Files.delete(output);
+		}
+	}
+}
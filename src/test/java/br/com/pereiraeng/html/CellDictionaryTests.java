@@ -0,0 +1,65 @@
+package br.com.pereiraeng.html;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class CellDictionaryTests {
+
+	private static final String TABLE = "<table><tr><td>SP</td><td>BRL</td></tr><tr><td>RJ</td><td>BRL</td></tr>"
+			+ "<tr><td>SP</td><td></td></tr><tr><td>S\u00E3o</td></tr></table>";
+
+	@Test
+	void testColumnsContent() {
+		HTMLDocument doc = HTMLDocument.parse(TABLE);
+		List<String[]> rows = doc.getColumnsContentL(true, new CellDictionary(), 0);
+		assertEquals(doc.getColumnsContentL(true, 0).size(), rows.size());
+		assertSame(rows.get(0)[0], rows.get(2)[0]);
+		assertSame(rows.get(0)[1], rows.get(1)[1]);
+		assertNull(rows.get(2)[1]);
+	}
+
+	@Test
+	void testEncoded() {
+		CellDictionary dict = new CellDictionary();
+		CellDictionary.Columns c = HTMLDocument.parse(TABLE).getEncodedColumns(true, dict, 0);
+		assertEquals(4, c.getRowCount());
+		assertEquals(2, c.getColumnCount());
+		assertArrayEquals(new int[] { 0, 1, 0, 2 }, c.getCodes(0));
+		assertArrayEquals(new int[] { 3, 3, CellDictionary.NULL, CellDictionary.NULL }, c.getCodes(1));
+		assertEquals("S\u00E3o", c.get(3, 0));
+		assertEquals(4, dict.size());
+
+		// dicionário compartilhado
+		CellDictionary.Columns d = HTMLDocument.parse(TABLE).getEncodedColumns(true, dict, 0, 1);
+		assertEquals(1, d.getColumnCount());
+		assertEquals(3, d.getCode(0, 0));
+		assertEquals(4, dict.size());
+	}
+
+	@Test
+	void testMapped() throws IOException {
+		Path file = Files.createTempFile("dictionary", ".html");
+		try {
+			Files.write(file, TABLE.getBytes(StandardCharsets.UTF_8));
+			CellDictionary dict = new CellDictionary();
+			HTMLDocument doc = HTMLDocument.open(file, StandardCharsets.UTF_8);
+			CellDictionary.Columns c = doc.getEncodedColumns(true, dict, 0);
+			assertEquals("S\u00E3o", c.get(3, 0));
+			assertEquals(c.getCode(3, 0), dict.code("S\u00E3o"));
+			assertEquals(c.getCode(0, 1), dict.code("BRL"));
+			doc.close();
+		} finally {
+			Files.delete(file);
+		}
+	}
+}
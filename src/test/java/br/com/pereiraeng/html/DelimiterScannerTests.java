@@ -0,0 +1,53 @@
+package br.com.pereiraeng.html;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class DelimiterScannerTests {
+
+	@Test
+	void testAgainstNaive() {
+		Random rnd = new Random(7);
+		char[] alphabet = { 'a', '<', '>', '&', '\u0001', '\u00ff', ' ' };
+		for (int n = 0; n < 300; n++) {
+			char[] chars = new char[rnd.nextInt(40)];
+			for (int i = 0; i < chars.length; i++)
+				chars[i] = rnd.nextInt(4) == 0 ? alphabet[rnd.nextInt(alphabet.length)] : 'x';
+			String s = new String(chars);
+			ByteBuffer bb = ByteBuffer.wrap(s.getBytes(StandardCharsets.ISO_8859_1));
+			if (rnd.nextBoolean())
+				bb.order(ByteOrder.LITTLE_ENDIAN);
+			CharSequence[] sources = { s, new MappedText(bb, StandardCharsets.ISO_8859_1),
+					new CharArrayText(chars, chars.length), new StringBuilder(s) };
+
+			int from = chars.length == 0 ? 0 : rnd.nextInt(chars.length);
+			int to = from + rnd.nextInt(chars.length - from + 1);
+			for (CharSequence src : sources) {
+				assertEquals(naive(s, from, to, '<', '<'), DelimiterScanner.indexOf(src, '<', from, to));
+				assertEquals(naive(s, from, to, '\u0001', '\u0001'), DelimiterScanner.indexOf(src, '\u0001', from, to));
+				assertEquals(naive(s, from, to, '<', '&'), DelimiterScanner.indexOfAny(src, '<', '&', from, to));
+			}
+		}
+	}
+
+	@Test
+	void testTokenizeMapped() {
+		String html = "<table><tr><td>texto longo antes do delimitador &amp; 1</td></tr></table>";
+		MappedText mt = new MappedText(ByteBuffer.wrap(html.getBytes(StandardCharsets.ISO_8859_1)),
+				StandardCharsets.ISO_8859_1);
+		assertEquals("texto longo antes do delimitador &amp; 1", HTMLDocument.parse(mt).getCellContent(0, 0, 0));
+	}
+
+	private static int naive(String s, int from, int to, char a, char b) {
+		for (int i = from; i < to; i++)
+			if (s.charAt(i) == a || s.charAt(i) == b)
+				return i;
+		return -1;
+	}
+}
@@ -0,0 +1,125 @@
+package br.com.pereiraeng.html;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+class ExtractionServiceTests {
+
+	@Test
+	void testExtractAll() throws Exception {
+		List<Callable<Reader>> sources = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			String html = "<table><tr><td>" + i + "</td></tr></table>";
+			sources.add(() -> new StringReader(html));
+		}
+		try (ExtractionService service = ExtractionService.create(4)) {
+			List<String> out = service.extractAll(sources, doc -> doc.getCellContent(0, 0, 0));
+			for (int i = 0; i < 50; i++)
+				assertEquals(String.valueOf(i), out.get(i));
+		}
+	}
+
+	/**
+	 * Extração que junta o texto das células <code>&lt;td&gt;</code>
+	 */
+	private static class Cells implements ExtractionService.StreamExtraction<List<String>> {
+
+		private final List<String> out = new ArrayList<>();
+
+		private StringBuilder cell;
+
+		@Override
+		public void startTag(CharSequence src, int start, int nameStart, int nameEnd, int attrStart, int attrEnd,
+				int end, boolean selfClosing) {
+			if (HTMLTokenizer.regionMatches(src, nameStart, nameEnd, "td"))
+				cell = new StringBuilder();
+		}
+
+		@Override
+		public void endTag(CharSequence src, int start, int nameStart, int nameEnd, int end) {
+			if (cell != null && HTMLTokenizer.regionMatches(src, nameStart, nameEnd, "td")) {
+				out.add(cell.toString());
+				cell = null;
+			}
+		}
+
+		@Override
+		public void text(CharSequence src, int start, int end) {
+			if (cell != null)
+				cell.append(src, start, end);
+		}
+
+		@Override
+		public void comment(CharSequence src, int start, int end) {
+		}
+
+		@Override
+		public List<String> finish() {
+			return out;
+		}
+	}
+
+	@Test
+	void testStream() throws Exception {
+		// leitor que entrega poucos caracteres por vez, cortando etiquetas e entidades
+		String html = "<table><tr><td class='a'>1 &amp; 2</td><!-- x --><td>\u00e9</td></tr></table>";
+		Callable<Reader> slow = () -> new StringReader(html) {
+			@Override
+			public int read(char[] cbuf, int off, int len) throws java.io.IOException {
+				return super.read(cbuf, off, Math.min(len, 3));
+			}
+		};
+		assertEquals(Arrays.asList("1 &amp; 2", "\u00e9"), ExtractionService.stream(slow, new Cells()));
+
+		// documento maior que o bloco de leitura
+		StringBuilder sb = new StringBuilder("<table>");
+		for (int i = 0; i < 20000; i++)
+			sb.append("<tr><td>").append(i).append("</td></tr>");
+		String big = sb.append("</table>").toString();
+		List<Callable<Reader>> sources = new ArrayList<>();
+		for (int i = 0; i < 8; i++)
+			sources.add(() -> new StringReader(big));
+		try (ExtractionService service = ExtractionService.create(4)) {
+			for (List<String> cells : service.streamAll(sources, Cells::new)) {
+				assertEquals(20000, cells.size());
+				assertEquals("19999", cells.get(19999));
+			}
+		}
+	}
+
+	@Test
+	void testCloseInterrupted() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		ExtractionService service = ExtractionService.create(1);
+		Future<String> f = service.submit(() -> {
+			started.countDown();
+			Thread.sleep(60 * 60 * 1000L);
+			return new StringReader("");
+		}, doc -> "x");
+		started.await();
+		// interrompida, a espera cancela as tarefas e mantém a interrupção
+		Thread.currentThread().interrupt();
+		service.close();
+		assertTrue(Thread.interrupted());
+		assertTrue(f.isDone());
+	}
+
+	@Test
+	void testConvertAndToHTML() {
+		assertEquals("a < b & é &foo; €", HTML.convertHTMLSpeChar("a &lt; b &amp; &#233; &foo; &#x20AC;"));
+		assertEquals("<table>\n<tr><td>1</td><td>2</td></tr>\n</table>",
+				HTML.toHTML(new Vector<>(Arrays.asList(new Vector<>(Arrays.asList(1, 2))))));
+	}
+}
@@ -0,0 +1,48 @@
+package br.com.pereiraeng.html;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.awt.Color;
+import java.awt.font.TextAttribute;
+import java.text.AttributedCharacterIterator;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import br.com.pereiraeng.html.FormattedText.Run;
+
+class FormattedTextTests {
+
+	@Test
+	void testParse() {
+		List<Run> runs = FormattedText
+				.parse("H<sub>2</sub>O &amp; <span style=\"color: Red\">x<sup>2<sup>n</sup></sup></span><b>!</b>");
+		assertEquals(7, runs.size());
+		assertEquals("H", runs.get(0).getText());
+		assertEquals(-1, runs.get(1).getScript());
+		assertEquals("O & ", runs.get(2).getText());
+		assertEquals("Red", runs.get(3).getStyle().get("color"));
+		assertEquals(1, runs.get(4).getScript());
+		assertEquals("n", runs.get(5).getText());
+		assertEquals(2, runs.get(5).getScript());
+		assertEquals("Red", runs.get(5).getStyle().get("color"));
+
+		String html = FormattedText.toHTML(runs);
+		assertEquals("H<sub>2</sub>O &amp; <span style=\"color: Red;\">x<sup>2<sup>n</sup></sup></span>!", html);
+		assertEquals(runs, FormattedText.parse(html));
+	}
+
+	@Test
+	void testAttributedString() {
+		AttributedCharacterIterator it = FormattedText
+				.toAttributedString("a<big><span style='color: Red'>b</span></big><sup>c</sup>", 10f).getIterator();
+		assertEquals('a', it.first());
+		assertEquals(Collections.emptyMap(), it.getAttributes());
+		it.next();
+		assertEquals(12f, (Float) it.getAttribute(TextAttribute.SIZE), 1e-6);
+		assertEquals(Color.RED, it.getAttribute(TextAttribute.FOREGROUND));
+		it.next();
+		assertEquals(TextAttribute.SUPERSCRIPT_SUPER, it.getAttribute(TextAttribute.SUPERSCRIPT));
+	}
+}
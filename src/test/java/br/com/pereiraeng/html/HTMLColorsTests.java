@@ -0,0 +1,30 @@
+package br.com.pereiraeng.html;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.awt.Color;
+
+import org.junit.jupiter.api.Test;
+
+class HTMLColorsTests {
+
+	@Test
+	void testNearestName() {
+		assertEquals("DarkSlateGray", HTMLColors.nearestName(new Color(0x2F4F4F)));
+		assertEquals("Red", HTMLColors.nearestName(new Color(250, 3, 2)));
+		assertEquals("Gray", HTMLColors.nearestName(0xFF7F7F7F));
+		assertEquals("Navy", HTMLColors.nearestName(0x000082));
+		assertEquals("Orange", HTMLColors.nearestName(0xFFA703));
+	}
+
+	@Test
+	void testBatch() {
+		int[] pixels = { 0x80FE0101, 0xFFFFFFFF, 0x00010203 };
+		String[] names = new String[3];
+		HTMLColors.nearestNames(pixels, 0, 3, names);
+		assertArrayEquals(new String[] { "Red", "White", "Black" }, names);
+		HTMLColors.snapToNamed(pixels, 0, 3);
+		assertArrayEquals(new int[] { 0x80FF0000, 0xFFFFFFFF, 0x00000000 }, pixels);
+	}
+}
@@ -0,0 +1,133 @@
+package br.com.pereiraeng.html;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+class HTMLDocumentTests {
+
+	private static final String TABLE = "<table><tr><th>A<th>B</tr><tr><td>1</td><td><b>2</b> x</td></tr>"
+			+ "<tr><td><table><tr><td>in</td></tr></table></td><td>z</td></tr></table>";
+
+	@Test
+	void testTables() {
+		HTMLDocument doc = HTMLDocument.parse(HTML.getHead() + TABLE + HTML.TAIL);
+		assertEquals(2, doc.getTableCount());
+		assertEquals("2 x", doc.getCellContent(0, 1, 1));
+		assertEquals("in", doc.getCellContent(1, 0, 0));
+		assertEquals(3, doc.getColumnsContentL(true, 0).size());
+		assertArrayEquals(new String[] { "1", "<b>2</b> x" }, doc.getColumnsContent(true, 0)[1]);
+	}
+
+	@Test
+	void testOffHeap() {
+		HTMLDocument heap = HTMLDocument.parse(TABLE);
+		HTMLDocument direct = HTMLDocument.parse(TABLE, OffHeapNodeStore.direct());
+		assertEquals(heap.size(), direct.size());
+		assertEquals(heap.getCellContent(0, 2, 1), direct.getCellContent(0, 2, 1));
+		direct.close();
+		assertThrows(IllegalStateException.class, () -> direct.getCellContent(0, 2, 1));
+	}
+
+	@Test
+	void testMapped() throws IOException {
+		HTMLDocument heap = HTMLDocument.parse(TABLE);
+		Path file = Files.createTempFile("nodes", ".bin");
+		try {
+			// arquivo reaproveitado: os nós novos começam zerados
+			byte[] garbage = new byte[1 << 20];
+			Arrays.fill(garbage, (byte) 0x55);
+			Files.write(file, garbage);
+			HTMLDocument mapped = HTMLDocument.parse(TABLE, OffHeapNodeStore.mapped(file, true));
+			assertEquals(heap.size(), mapped.size());
+			assertEquals(heap.getCellContent(0, 2, 1), mapped.getCellContent(0, 2, 1));
+			assertEquals(heap.getFirstChild(heap.size() - 1), mapped.getFirstChild(mapped.size() - 1));
+			mapped.close();
+			mapped.close();
+			assertFalse(Files.exists(file));
+			assertThrows(IllegalStateException.class, () -> mapped.getCellContent(0, 2, 1));
+		} finally {
+			Files.deleteIfExists(file);
+		}
+
+		heap.close();
+		assertThrows(IllegalStateException.class, () -> heap.getCellContent(0, 2, 1));
+	}
+
+	@Test
+	void testPositions() throws IOException {
+		// posições de mais de 32 bits, com os bits altos no campo HIGH
+		NodeStore store = new HeapNodeStore();
+		int n = store.add();
+		store.setPosition(n, NodeStore.START, 5L << 32 | 7);
+		store.setPosition(n, NodeStore.ATTR_END, 31L << 32 | 0xFFFFFFFFL);
+		store.setPosition(n, NodeStore.END, 3_000_000_000L);
+		assertEquals(5L << 32 | 7, store.getPosition(n, NodeStore.START));
+		assertEquals(31L << 32 | 0xFFFFFFFFL, store.getPosition(n, NodeStore.ATTR_END));
+		assertEquals(3_000_000_000L, store.getPosition(n, NodeStore.END));
+		assertEquals(0, store.getPosition(n, NodeStore.CONTENT_START));
+		store.setPosition(n, NodeStore.START, 9);
+		assertEquals(9, store.getPosition(n, NodeStore.START));
+		assertEquals(31L << 32 | 0xFFFFFFFFL, store.getPosition(n, NodeStore.ATTR_END));
+		assertThrows(IllegalArgumentException.class, () -> store.setPosition(n, NodeStore.END, 1L << 37));
+
+		// arquivo mapeado em janelas
+		Path file = Files.createTempFile("segmented", ".html");
+		try {
+			Files.write(file, "<p>abc</p>".getBytes(StandardCharsets.US_ASCII));
+			try (SegmentedText text = SegmentedText.map(file, StandardCharsets.US_ASCII)) {
+				assertEquals(10, text.length());
+				assertEquals('b', text.charAt(4));
+				assertEquals("abc", text.decode(3, 6));
+				assertEquals(0, text.windowStart(3));
+				assertEquals(10, text.window(10, 10).length());
+			}
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	@Test
+	void testAttributes() {
+		HTMLDocument doc = HTMLDocument.parse("<p data-x='1' Class=\"a b\" hidden id=k>x</p>"
+				+ "<p id=k class='a b' data-x=\"1\" hidden>y</p><p class='a'>z</p>");
+		int[] ps = doc.getElements("p");
+		assertEquals(4, doc.getAttributeCount(ps[0]));
+		assertEquals("class", doc.getAttributeName(ps[0], 1));
+		assertEquals("a b", doc.getAttribute(ps[0], "class"));
+		assertEquals("", doc.getAttribute(ps[0], "hidden"));
+		assertEquals("k", doc.getAttributeValue(ps[0], 3));
+		// os nomes dos atributos ficam numa tabela própria
+		int names = doc.getNames().size();
+		int dataX = doc.getAttributeNameId(ps[0], 0);
+		assertEquals(names, doc.getNames().size());
+		assertEquals(-1, doc.getNames().get("data-x"));
+		assertEquals("data-x", doc.getAttributeNames().getName(dataX));
+		assertEquals(dataX, doc.getAttributeNames().get("data-x"));
+		assertEquals(0, doc.getAttributeIndex(ps[0], dataX));
+		assertEquals(2, doc.getAttributeIndex(ps[1], dataX));
+		assertEquals(-1, doc.getAttributeIndex(ps[2], dataX));
+		assertThrows(IndexOutOfBoundsException.class, () -> doc.getAttributeValue(ps[0], 4));
+		assertEquals(1, doc.getIntAttribute(ps[1], "data-x", 0));
+		assertNull(doc.getAttribute(ps[2], "id"));
+		assertTrue(doc.sameAttributes(ps[0], ps[1]));
+		assertFalse(doc.sameAttributes(ps[0], ps[2]));
+		assertTrue(doc.sameAttributes(ps[2], ps[2]));
+		// mesmos nomes, valores diferentes (fora de ordem)
+		HTMLDocument other = HTMLDocument.parse("<i a=1 b=2>x</i><i b=2 a=3>y</i><i b=2 a=1>z</i>");
+		int[] is = other.getElements("i");
+		assertFalse(other.sameAttributes(is[0], is[1]));
+		assertTrue(other.sameAttributes(is[0], is[2]));
+	}
+}
@@ -0,0 +1,116 @@
+package br.com.pereiraeng.html;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+
+class HTMLInputTests {
+
+	private static final String BODY = "<html><body><table><tr><td>a\u00E7\u00E3o \u20AC</td></tr></table></body></html>";
+
+	private static final byte[] UTF8_BOM = { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF };
+
+	private static Charset sniff(byte[] b) {
+		return HTMLInput.sniff(b, 0, b.length);
+	}
+
+	@Test
+	void testSniff() {
+		assertEquals(StandardCharsets.UTF_8, sniff(new byte[] { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF, '<' }));
+		assertEquals(StandardCharsets.UTF_16LE, sniff(new byte[] { (byte) 0xFF, (byte) 0xFE, '<', 0 }));
+		assertEquals(HTMLInput.WINDOWS_1252, sniff("<head><META CHARSET=\"ISO-8859-1\">".getBytes()));
+		assertEquals(StandardCharsets.UTF_8, sniff("<meta charset='utf-8'>".getBytes()));
+		assertEquals(Charset.forName("iso-8859-2"), sniff(
+				"<meta http-equiv=\"Content-Type\" content=\"text/html; charset=iso-8859-2\">".getBytes()));
+		assertNull(sniff("<meta charset=\"nada\"><p>x".getBytes()));
+		assertNull(sniff("<p>x".getBytes()));
+
+		// fora do primeiro KB
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < HTMLInput.SNIFF_LENGTH; i++)
+			sb.append(' ');
+		assertNull(sniff((sb + "<meta charset=\"utf-8\">").getBytes()));
+
+		byte[] latin = "<p>caf\u00E9".getBytes(StandardCharsets.ISO_8859_1);
+		assertEquals(HTMLInput.WINDOWS_1252, HTMLInput.detect(latin, 0, latin.length));
+		byte[] utf8 = "<p>caf\u00E9".getBytes(StandardCharsets.UTF_8);
+		assertEquals(StandardCharsets.UTF_8, HTMLInput.detect(utf8, 0, utf8.length));
+	}
+
+	@Test
+	void testDecode() throws IOException {
+		// windows-1252 declarado (0x80 = euro)
+		String meta = "<meta charset=\"windows-1252\">" + BODY;
+		byte[] b = meta.getBytes(HTMLInput.WINDOWS_1252);
+		assertEquals(meta, HTMLInput.decode(b, 0, b.length).toString());
+
+		// UTF-8 com BOM (removida) e caractere fora do plano básico
+		String s = BODY + "\uD83D\uDE00";
+		byte[] bom = concat(UTF8_BOM, s.getBytes(StandardCharsets.UTF_8));
+		assertEquals(s, HTMLInput.decode(bom, 0, bom.length).toString());
+
+		// UTF-16 com BOM
+		byte[] w = ("\uFEFF" + BODY).getBytes(StandardCharsets.UTF_16BE);
+		assertEquals(BODY, HTMLInput.decode(w, 0, w.length).toString());
+
+		// UTF-8 inválido
+		byte[] bad = { '<', 'p', '>', (byte) 0xC3, '(', (byte) 0xE2, (byte) 0x82, 'x' };
+		assertEquals(HTMLInput.WINDOWS_1252, HTMLInput.detect(bad, 0, bad.length));
+		assertEquals("<p>\uFFFD(\uFFFDx", utf8(bad));
+		byte[] valid = { '<', 'p', '>', (byte) 0xC3, (byte) 0xA9, (byte) 0xE2, (byte) 0x82 };
+		assertEquals("<p>\u00E9\uFFFD", utf8(valid));
+
+		// documento maior que o vetor de leitura
+		StringBuilder sb = new StringBuilder("<table>");
+		for (int i = 0; i < 5000; i++)
+			sb.append("<tr><td>\u00E9").append(i).append("</td></tr>");
+		sb.append("</table>");
+		byte[] big = sb.toString().getBytes(StandardCharsets.UTF_8);
+		HTMLDocument doc = HTMLDocument.parse(new ByteArrayInputStream(big));
+		assertEquals(1, doc.getTableCount());
+		assertEquals("\u00E94999", doc.getCellContent(0, 4999, 0));
+	}
+
+	@Test
+	void testOpen() throws IOException {
+		Path file = Files.createTempFile("input", ".html");
+		try {
+			Files.write(file, ("<meta charset=\"iso-8859-1\">" + BODY).getBytes(StandardCharsets.ISO_8859_1));
+			try (HTMLDocument doc = HTMLDocument.open(file)) {
+				assertEquals("a\u00E7\u00E3o ?", doc.getCellContent(0, 0, 0));
+			}
+
+			Files.write(file, concat(UTF8_BOM, BODY.getBytes(StandardCharsets.UTF_8)));
+			try (HTMLDocument doc = HTMLDocument.open(file)) {
+				assertEquals("a\u00E7\u00E3o \u20AC", doc.getCellContent(0, 0, 0));
+			}
+
+			Files.write(file, concat(new byte[] { (byte) 0xFF, (byte) 0xFE }, BODY.getBytes(StandardCharsets.UTF_16LE)));
+			try (HTMLDocument doc = HTMLDocument.open(file)) {
+				assertEquals("a\u00E7\u00E3o \u20AC", doc.getCellContent(0, 0, 0));
+			}
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	private static String utf8(byte[] b) throws IOException {
+		return CharArrayText.read(HTMLInput.newReader(new ByteArrayInputStream(b), StandardCharsets.UTF_8), 16)
+				.toString();
+	}
+
+	private static byte[] concat(byte[] a, byte[] b) {
+		byte[] out = new byte[a.length + b.length];
+		System.arraycopy(a, 0, out, 0, a.length);
+		System.arraycopy(b, 0, out, a.length, b.length);
+		return out;
+	}
+}
@@ -0,0 +1,37 @@
+package br.com.pereiraeng.html;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class HTMLMinifierTests {
+
+	@Test
+	void testMinify() {
+		assertEquals("<i><b>ab</b></i> c <span style=color:red;font-size:10px>xy</span>",
+				HTMLMinifier.minify("<i><b>a</b></i><i><b>b</b></i>   c  <!-- x -->"
+						+ "<span style=\"color: red; font-size: 10px;\">x</span><SPAN style='color: red;font-size:10px'>y</span>"));
+		assertEquals("<!DOCTYPE html><ul><li>a<li class=\"x y\">b</ul><pre>  a\n b </pre>",
+				HTMLMinifier.minify("<!DOCTYPE html>\n<ul>\n  <li>a</li>\n  <li class='x y'>b</li>\n</ul>\n"
+						+ "<pre>  a\n b </pre>\n"));
+	}
+
+	@Test
+	void testSelfClosing() {
+		assertEquals("<div>a</div><p>b<br>c", HTMLMinifier.minify("<div/>a</div><p>b<br/>c"));
+		assertEquals("<p>a<span>b</span>", HTMLMinifier.minify("<p>a<span/>b</span></p>"));
+		// dentro de svg e math, a barra fecha o elemento
+		assertEquals("<svg><circle r=1 /><rect width=2 /></svg>x",
+				HTMLMinifier.minify("<svg><circle r=1/><rect width=2/></svg>x"));
+		assertEquals("<math><mi/><mo x=\"a b\"/></math><div>a</div>",
+				HTMLMinifier.minify("<math><mi/><mo x='a b'/></math><div/>a</div>"));
+	}
+
+	@Test
+	void testTable() {
+		String html = "<table id=\"t\">\n<tr>\n<td> 1 </td>\n<td>2</td>\n</tr>\n<tr><td>3</td><td>4</td></tr>\n</table>";
+		String min = HTMLMinifier.minify(html);
+		assertEquals("<table id=t><tr><td>1<td>2<tr><td>3<td>4</table>", min);
+		assertEquals("4", HTMLDocument.parse(min).getCellContent(0, 1, 1));
+	}
+}
@@ -0,0 +1,45 @@
+package br.com.pereiraeng.html;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class HTMLRopeTests {
+
+	@Test
+	void testRope() throws Exception {
+		List<List<String>> table = Arrays.asList(Arrays.asList("a", "b"), Arrays.asList("\u00E7", "d"));
+		HTMLRope rope = new HTMLRope().append(HTML.getHead()).appendTable(table).append(HTML.TAIL);
+		StringBuilder sb = new StringBuilder(HTML.getHead());
+		HTML.toHTML(new ArrayList<>(table), sb);
+		assertEquals(sb.append(HTML.TAIL).toString(), rope.toString());
+	}
+
+	@Test
+	void testChannel() throws Exception {
+		// partes montadas em paralelo
+		List<HTMLRope> parts = IntStream.range(0, 200).parallel().mapToObj(i -> {
+			HTMLRope r = new HTMLRope();
+			for (int j = 0; j < 500; j++)
+				r.append("<p>").append(Integer.toString(i * 1000 + j)).append(" \u00E1\u00E9\u20AC</p>\n");
+			return r;
+		}).collect(Collectors.toList());
+		HTMLRope rope = new HTMLRope().append(HTML.getHead()).append(HTMLRope.concat(parts)).append(HTML.TAIL);
+		String expected = rope.toString();
+		assertEquals(expected.length(), rope.length());
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		long n = rope.writeTo(Channels.newChannel(bytes), StandardCharsets.UTF_8);
+		assertEquals(expected, new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+		assertEquals(bytes.size(), n);
+	}
+}
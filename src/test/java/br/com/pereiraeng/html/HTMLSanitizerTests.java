@@ -0,0 +1,49 @@
+package br.com.pereiraeng.html;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class HTMLSanitizerTests {
+
+	@Test
+	void testSanitize() {
+		List<String> removed = new ArrayList<>();
+		HTMLSanitizer s = new HTMLSanitizer(SanitizerPolicy.BASIC, (c, n) -> removed.add(c + ":" + n));
+		assertEquals("<p>a &lt; b <b>c</b></p><a>x</a><a href=\"https://a.b/?x=1&amp;y=2\">y</a>",
+				s.sanitize("<P onclick='f()'>a < b <b>c</b><script>alert(1)</script><!-- c --></i></p>"
+						+ "<a href=\" jav&#x61;script:alert(1)\">x</a><a href='https://a.b/?x=1&amp;y=2'>y"));
+		assertTrue(removed.contains("ATTRIBUTE:p.onclick"));
+		assertTrue(removed.contains("CONTENT:script"));
+		assertTrue(removed.contains("URL:a.href"));
+		assertTrue(removed.contains("COMMENT:null"));
+	}
+
+	@Test
+	void testChunkBoundaries() throws Exception {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 2000; i++)
+			sb.append("<td title=\"t").append(i).append("\">&amp;").append(i).append("<!-- x --></td><br/>");
+		String html = sb.toString();
+		HTMLSanitizer s = new HTMLSanitizer(SanitizerPolicy.BASIC);
+
+		// leitor que devolve poucos caracteres por vez
+		Reader slow = new StringReader(html) {
+			@Override
+			public int read(char[] cbuf, int off, int len) throws IOException {
+				return super.read(cbuf, off, Math.min(len, 7));
+			}
+		};
+		StringWriter out = new StringWriter();
+		s.sanitize(slow, out);
+		assertEquals(html.replace("<!-- x -->", "").replace("<br/>", "<br>"), out.toString());
+	}
+}
@@ -0,0 +1,70 @@
+package br.com.pereiraeng.html;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+
+class HTMLSnapshotTests {
+
+	private static final String TABLE = "<table><tr><th>A<th>B</tr><tr><td>1</td><td><b>2</b> x</td></tr>"
+			+ "<tr><td><table><tr><td>in\u00E9</td></tr></table></td><td>z</td></tr></table>";
+
+	@Test
+	void testRoundTrip() throws IOException {
+		Path file = Files.createTempFile("snapshot", ".bin");
+		try {
+			HTMLDocument doc = HTMLDocument.parse(TABLE);
+			HTMLSnapshot.write(doc, file);
+			HTMLDocument read = HTMLSnapshot.read(file);
+			assertEquals(doc.size(), read.size());
+			assertEquals(2, read.getTableCount());
+			assertEquals("2 x", read.getCellContent(0, 1, 1));
+			assertEquals("in\u00E9", read.getCellContent(1, 0, 0));
+			assertThrows(UnsupportedOperationException.class, () -> read.getStore().set(0, 0, 0));
+			read.close();
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	void testMapped() throws IOException {
+		Path html = Files.createTempFile("snapshot", ".html"), file = Files.createTempFile("snapshot", ".bin");
+		try {
+			Files.write(html, TABLE.getBytes(StandardCharsets.ISO_8859_1));
+			HTMLDocument doc = HTMLDocument.open(html, StandardCharsets.ISO_8859_1);
+			HTMLSnapshot.write(doc, file);
+			doc.close();
+			HTMLDocument read = HTMLSnapshot.read(file);
+			assertEquals("in\u00E9", read.getCellContent(1, 0, 0));
+			read.close();
+		} finally {
+			Files.delete(html);
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	void testCorrupted() throws IOException {
+		Path file = Files.createTempFile("snapshot", ".bin");
+		try {
+			HTMLSnapshot.write(HTMLDocument.parse(TABLE), file);
+			byte[] b = Files.readAllBytes(file);
+			b[b.length - 3] ^= 1;
+			Files.write(file, b);
+			assertThrows(IOException.class, () -> HTMLSnapshot.read(file));
+			HTMLSnapshot.read(file, false).close();
+			b[4] = 9;
+			Files.write(file, b);
+			assertThrows(IOException.class, () -> HTMLSnapshot.read(file, false));
+		} finally {
+			Files.delete(file);
+		}
+	}
+}
@@ -2,6 +2,8 @@ package br.com.pereiraeng.html;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
+import javax.swing.tree.DefaultMutableTreeNode;
+
 import org.junit.jupiter.api.Test;
 
 class HTMLtests {
@@ -12,4 +14,78 @@ class HTMLtests {
 		assertEquals("<!DOCTYPE html>\n<html>\n<head>\n<title></title>\n</head>\n<body>\n", head);
 	}
 
+	@Test
+	void testOtimizar() {
+		DefaultMutableTreeNode body = new DefaultMutableTreeNode(new String[] { "body", null });
+		String[][] spans = { { "span", "style=\"color: red; font-size: 2px;\"" },
+				{ "span", "style='font-size: 2px; color: red'" }, { "span", "style=color:blue;" } };
+		for (String[] s : spans) {
+			DefaultMutableTreeNode n = new DefaultMutableTreeNode(s);
+			n.add(new DefaultMutableTreeNode(s[1]));
+			body.add(n);
+		}
+		HTML.otimizarHTML(body);
+		assertEquals(2, body.getChildCount());
+		assertEquals(2, body.getChildAt(0).getChildCount());
+		assertEquals("style=color:blue;", ((String[]) ((DefaultMutableTreeNode) body.getChildAt(1)).getUserObject())[1]);
+	}
+
+	@Test
+	void testOtimizarOutrosAtributos() {
+		// outros atributos diferentes: os nós ficam separados, sem perder nada
+		DefaultMutableTreeNode body = body(new String[] { "span", "style=\"color: red; font-size: 2px;\" class=\"x\"" },
+				new String[] { "span", "style=\"color: red;\" class=\"y\"" });
+		HTML.otimizarHTML(body);
+		assertEquals(2, body.getChildCount());
+		assertEquals("style=\"color: red; font-size: 2px;\" class=\"x\"", attrib(body.getChildAt(0)));
+		assertEquals("style=\"color: red;\" class=\"y\"", attrib(body.getChildAt(1)));
+
+		// outros atributos iguais: ficam na intersecção
+		body = body(new String[] { "span", "style=\"color: red; font-size: 2px;\" class=\"x\"" },
+				new String[] { "span", "style='color: red' class=x" });
+		HTML.otimizarHTML(body);
+		assertEquals(1, body.getChildCount());
+		DefaultMutableTreeNode common = (DefaultMutableTreeNode) body.getChildAt(0);
+		assertEquals("style=\"color: red;\" class=\"x\"", attrib(common));
+		assertEquals("style=\"font-size: 2px;\"", attrib(common.getChildAt(0)));
+	}
+
+	@Test
+	void testTree() {
+		DefaultMutableTreeNode p = HTML.getTreeHTML(HTML.getHead()
+				+ "<p>x<span class=\"k\">a</span><span class=\"k\">b</span><b style='color:red'>c</b></p>" + HTML.TAIL);
+		assertEquals("html", ((String[]) p.getUserObject())[0]);
+		p = (DefaultMutableTreeNode) p.getChildAt(1).getChildAt(0);
+		assertEquals("p", ((String[]) p.getUserObject())[0]);
+		assertEquals(4, p.getChildCount());
+		assertEquals("x", ((DefaultMutableTreeNode) p.getChildAt(0)).getUserObject());
+		assertEquals("class=\"k\"", attrib(p.getChildAt(1)));
+		assertEquals("a", ((DefaultMutableTreeNode) p.getChildAt(1).getChildAt(0)).getUserObject());
+		assertEquals("class=\"k\"", attrib(p.getChildAt(2)));
+		assertEquals("b", ((DefaultMutableTreeNode) p.getChildAt(2).getChildAt(0)).getUserObject());
+		assertEquals("style='color:red'", attrib(p.getChildAt(3)));
+		assertEquals("c", ((DefaultMutableTreeNode) p.getChildAt(3).getChildAt(0)).getUserObject());
+
+		// elementos vazios sem filhos e br como quebra de linha
+		p = HTML.getTreeHTML("<div>a<br>b<img src=x.png>c</div>");
+		assertEquals(3, p.getChildCount());
+		assertEquals("a\n\nb", ((DefaultMutableTreeNode) p.getChildAt(0)).getUserObject());
+		assertEquals("src=x.png", attrib(p.getChildAt(1)));
+		assertEquals(0, p.getChildAt(1).getChildCount());
+		assertEquals("c", ((DefaultMutableTreeNode) p.getChildAt(2)).getUserObject());
+	}
+
+	private static DefaultMutableTreeNode body(String[]... spans) {
+		DefaultMutableTreeNode body = new DefaultMutableTreeNode(new String[] { "body", null });
+		for (String[] s : spans) {
+			DefaultMutableTreeNode n = new DefaultMutableTreeNode(s);
+			n.add(new DefaultMutableTreeNode(s[1]));
+			body.add(n);
+		}
+		return body;
+	}
+
+	private static String attrib(Object node) {
+		return ((String[]) ((DefaultMutableTreeNode) node).getUserObject())[1];
+	}
 }
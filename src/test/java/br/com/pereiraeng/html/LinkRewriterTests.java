@@ -0,0 +1,43 @@
+package br.com.pereiraeng.html;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class LinkRewriterTests {
+
+	@Test
+	void testRewrite() {
+		Map<String, String> links = new HashMap<>();
+		links.put("http://a.com", "https://b.com");
+		links.put("http://a.com/old.html", "new.html");
+		links.put("img/x.png", "cdn/\"x\".png");
+		LinkRewriter r = LinkRewriter.compile(links);
+
+		assertEquals("<a href=\"https://b.com/y.html\">http://a.com</a><a HREF='new.html'>z</a>",
+				r.rewrite("<a href=\"http://a.com/y.html\">http://a.com</a><a HREF='http://a.com/old.html'>z</a>"));
+		assertEquals("<img alt=img/x.png src=\"cdn/&quot;x&quot;.png\"><!-- <a href=\"http://a.com\"> -->",
+				r.rewrite("<img alt=img/x.png src=img/x.png><!-- <a href=\"http://a.com\"> -->"));
+		assertEquals("<a href=\"x?u=https://b.com&v=https://b.com\">", r.rewrite("<a href=\"x?u=http://a.com&v=http://a.com\">"));
+	}
+
+	@Test
+	void testManyUrls() {
+		Map<String, String> links = new HashMap<>();
+		for (int i = 0; i < 5000; i++)
+			links.put("http://site/" + i + ".html", "/p/" + i);
+		LinkRewriter r = LinkRewriter.compile(links);
+		StringBuilder sb = new StringBuilder(), expected = new StringBuilder();
+		for (int i = 0; i < 5000; i += 7) {
+			sb.append("<p><a href=\"http://site/").append(i).append(".html\">").append(i).append("</a>");
+			expected.append("<p><a href=\"/p/").append(i).append("\">").append(i).append("</a>");
+		}
+		assertEquals(expected.toString(), r.rewrite(sb.toString()));
+		assertTrue(HTML.getLinkPattern("http://site/1.html", null).matcher("<a href=\"http://site/1.html\">").find());
+		assertTrue(!HTML.getLinkPattern("http://site/1.html", null).matcher("<a href=\"http://site/1xhtml\">").find());
+	}
+}
@@ -0,0 +1,89 @@
+package br.com.pereiraeng.html;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import javax.swing.tree.DefaultMutableTreeNode;
+
+import org.junit.jupiter.api.Test;
+
+class ParseLimitsTests {
+
+	@Test
+	void testDepth() {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 100; i++)
+			sb.append("<div>");
+		sb.append("x");
+		ParseLimitExceededException e = assertThrows(ParseLimitExceededException.class,
+				() -> HTMLDocument.parse(sb, ParseLimits.builder().maxDepth(10).build()));
+		assertEquals(ParseLimitExceededException.Limit.DEPTH, e.getLimit());
+		assertEquals(50, e.getPosition());
+
+		HTMLDocument doc = (HTMLDocument) e.getPartialResult();
+		assertEquals(11, doc.size());
+		assertEquals(50, doc.getEnd(10));
+
+		assertEquals(102, HTMLDocument.parse(sb, ParseLimits.builder().maxDepth(100).build()).size());
+	}
+
+	@Test
+	void testNodesAndInput() {
+		String html = "<table><tr><td>1</td><td>2</td></tr><tr><td>3</td><td>4</td></tr></table>";
+		ParseLimitExceededException e = assertThrows(ParseLimitExceededException.class,
+				() -> HTMLDocument.parse(html, ParseLimits.builder().maxNodes(8).build()));
+		assertEquals(ParseLimitExceededException.Limit.NODES, e.getLimit());
+		HTMLDocument doc = (HTMLDocument) e.getPartialResult();
+		assertEquals(8, doc.size());
+		assertEquals("2", doc.getCellContent(0, 0, 1));
+
+		e = assertThrows(ParseLimitExceededException.class,
+				() -> HTMLDocument.parse(html, ParseLimits.builder().maxInputLength(10).build()));
+		assertEquals(ParseLimitExceededException.Limit.INPUT_SIZE, e.getLimit());
+	}
+
+	@Test
+	void testCancel() {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 10000; i++)
+			sb.append("<p>a</p>");
+		ParseLimitExceededException e = assertThrows(ParseLimitExceededException.class,
+				() -> HTMLDocument.parse(sb, ParseLimits.builder().cancelWhen(() -> true).build()));
+		assertEquals(ParseLimitExceededException.Limit.CANCELLED, e.getLimit());
+		assertTrue(e.getPosition() < 8 * ParseLimits.CHECK_INTERVAL);
+
+		Thread.currentThread().interrupt();
+		try {
+			e = assertThrows(ParseLimitExceededException.class,
+					() -> HTMLDocument.parse(sb, ParseLimits.builder().timeout(1, TimeUnit.MINUTES).build()));
+			assertEquals(ParseLimitExceededException.Limit.CANCELLED, e.getLimit());
+		} finally {
+			Thread.interrupted();
+		}
+	}
+
+	@Test
+	void testGuard() {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 5000; i++)
+			sb.append('a');
+		// retrocesso quadrático
+		Pattern p = Pattern.compile(".*a.*b");
+		ParseLimitExceededException e = assertThrows(ParseLimitExceededException.class,
+				() -> p.matcher(ParseLimits.builder().maxSteps(100000).build().guard(sb)).find());
+		assertEquals(ParseLimitExceededException.Limit.STEPS, e.getLimit());
+
+		String html = HTML.getHead() + "<p>a<b>b</b><i>c</i></p>" + HTML.TAIL;
+		e = assertThrows(ParseLimitExceededException.class,
+				() -> HTML.getTreeHTML(html, ParseLimits.builder().maxNodes(3).build()));
+		assertEquals(ParseLimitExceededException.Limit.NODES, e.getLimit());
+		DefaultMutableTreeNode root = (DefaultMutableTreeNode) e.getPartialResult();
+		assertEquals(HTML.getHTMLfromTree(HTML.getTreeHTML(html)),
+				HTML.getHTMLfromTree(HTML.getTreeHTML(html, ParseLimits.builder().maxNodes(100).build())));
+		assertTrue(root.getChildCount() > 0);
+	}
+}
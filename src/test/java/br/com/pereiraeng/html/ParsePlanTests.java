@@ -0,0 +1,53 @@
+package br.com.pereiraeng.html;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class ParsePlanTests {
+
+	private static final String PAGE = "<html><body><p>intro <a href='/x'>x</a></p>"
+			+ "<table><tr><td>a0<td>b0</table>"
+			+ "<div><table><tr><td>a1</td><td><table><tr><td>in</td></tr></table></td></tr></table></div>"
+			+ "<table><tr><td>a3</td></tr></table><ul><li><a href='/y'>y</a><li>z</ul></body></html>";
+
+	@Test
+	void testTables() {
+		HTMLDocument full = HTMLDocument.parse(PAGE);
+		HTMLDocument doc = HTMLDocument.parse(PAGE, ParsePlan.builder().tables(1).build());
+		assertEquals(2, doc.getTableCount());
+		assertEquals(full.getCellContent(1, 0, 0), doc.getCellContent(0, 0, 0));
+		assertEquals("in", doc.getCellContent(1, 0, 0));
+		assertTrue(doc.size() < full.size() / 2);
+		// a leitura para depois da tabela pedida
+		assertEquals(0, doc.getElements("li").length);
+
+		HTMLDocument two = HTMLDocument.parse(PAGE, ParsePlan.builder().tables(0, 3).build());
+		assertEquals(2, two.getTableCount());
+		assertEquals("b0", two.getCellContent(0, 0, 1));
+		assertEquals("a3", two.getCellContent(1, 0, 0));
+	}
+
+	@Test
+	void testElements() {
+		HTMLDocument doc = HTMLDocument.parse(PAGE, ParsePlan.builder().elements("A").text(false).build());
+		int[] links = doc.getElements("a");
+		assertEquals(2, links.length);
+		assertEquals("/y", doc.getAttribute(links[1], "href"));
+		assertEquals("y", doc.getText(links[1]));
+		assertEquals(-1, doc.getFirstChild(links[0]));
+		assertArrayEquals(new int[] { 0, 0 }, new int[] { doc.getParent(links[0]), doc.getParent(links[1]) });
+		assertEquals(links[1], doc.getNextSibling(links[0]));
+	}
+
+	@Test
+	void testDepth() {
+		HTMLDocument full = HTMLDocument.parse(PAGE);
+		HTMLDocument doc = HTMLDocument.parse(PAGE, ParsePlan.builder().elements("table").depth(0, 2).build());
+		assertEquals(2, doc.getTableCount());
+		assertEquals("a3", doc.getCellContent(1, 0, 0));
+		assertEquals(full.size(), HTMLDocument.parse(PAGE, ParsePlan.ALL).size());
+	}
+}
@@ -0,0 +1,90 @@
+package br.com.pereiraeng.html;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+
+/**
+ * Medida do tempo até a primeira chamada de algumas funções da biblioteca, cada
+ * uma numa JVM nova (e.g., <code>java -cp ... StartupBenchmark 10</code>).
+ * Para cada função, mostram-se as medianas do tempo total do processo, do tempo
+ * da primeira chamada e da quantidade de classes carregadas.
+ */
+public class StartupBenchmark {
+
+	private static final String[] PROBES = { "getHead", "fromHTML", "convertHTMLSpeChar", "getCellContent",
+			"color2html", "getTreeHTML" };
+
+	public static void main(String[] args) throws Exception {
+		if (args.length == 2 && "probe".equals(args[0])) {
+			probe(args[1]);
+			return;
+		}
+		int runs = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+		String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+		String cp = System.getProperty("java.class.path");
+
+		System.out.printf("%-20s %10s %12s %8s%n", "função", "total (ms)", "chamada (ms)", "classes");
+		for (String probe : PROBES) {
+			long[] total = new long[runs], call = new long[runs], classes = new long[runs];
+			for (int i = 0; i < runs; i++) {
+				long t0 = System.nanoTime();
+				Process p = new ProcessBuilder(java, "-Djava.awt.headless=true", "-cp", cp,
+						StartupBenchmark.class.getName(), "probe", probe).redirectErrorStream(true).start();
+				String line;
+				try (BufferedReader r = new BufferedReader(new InputStreamReader(p.getInputStream()))) {
+					line = r.readLine();
+				}
+				p.waitFor();
+				total[i] = (System.nanoTime() - t0) / 1000000;
+				String[] f = line.split(" ");
+				call[i] = Long.parseLong(f[0]) / 1000;
+				classes[i] = Long.parseLong(f[1]);
+			}
+			System.out.printf("%-20s %10d %12.3f %8d%n", probe, median(total), median(call) / 1000., median(classes));
+		}
+	}
+
+	/**
+	 * Função executada na JVM nova: faz a primeira chamada e escreve o tempo
+	 * gasto (ns) e a quantidade de classes carregadas
+	 */
+	private static void probe(String name) throws Exception {
+		Callable<Object> c = call(name);
+		long t0 = System.nanoTime();
+		Object out = c.call();
+		long t = System.nanoTime() - t0;
+		if (out == null)
+			throw new IllegalStateException(name);
+		System.out.println(t + " " + ManagementFactory.getClassLoadingMXBean().getLoadedClassCount());
+	}
+
+	private static Callable<Object> call(String name) {
+		String html = "<table><tr><td>a &amp; b</td></tr></table>";
+		switch (name) {
+		case "getHead":
+			return () -> HTML.getHead();
+		case "fromHTML":
+			return () -> HTML.fromHTML("a<br>b&nbsp;c");
+		case "convertHTMLSpeChar":
+			return () -> HTML.convertHTMLSpeChar(html);
+		case "getCellContent":
+			return () -> HTML.getCellContent(html, 0, 0, 0);
+		case "color2html":
+			return () -> HTML.color2html(HTML.html2color("Red"));
+		case "getTreeHTML":
+			return () -> HTML.getHTMLfromTree(HTML.getTreeHTML(HTML.getHead() + "<p>a</p>" + HTML.TAIL));
+		default:
+			throw new IllegalArgumentException(name);
+		}
+	}
+
+	private static long median(long[] v) {
+		long[] s = v.clone();
+		Arrays.sort(s);
+		return s[s.length / 2];
+	}
+}
@@ -0,0 +1,44 @@
+package br.com.pereiraeng.html;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class StyleTableTests {
+
+	@Test
+	void testInterning() {
+		StyleTable t = new StyleTable();
+		StyleSet a = t.parse("color: red; font-size: 2px;");
+		StyleSet b = t.parse(" font-size: 2px ;color: red");
+		assertSame(a, b);
+		assertEquals(2, a.size());
+		assertEquals("color: red; font-size: 2px;", b.toString());
+		assertSame(t.getEmpty(), t.parse(" ; "));
+	}
+
+	@Test
+	void testOperations() {
+		StyleTable t = new StyleTable();
+		StyleSet a = t.parse("color: red; font-size: 2px; margin: 0");
+		StyleSet b = t.parse("margin: 0; color: blue");
+		assertSame(t.parse("margin: 0"), t.intersection(a, b));
+		assertSame(t.parse("color: red; font-size: 2px"), t.difference(a, b));
+		assertSame(t.getEmpty(), t.difference(a, a));
+		StyleSet u = t.union(a, b);
+		assertEquals(4, u.size());
+		assertTrue(u.containsAll(a) && u.containsAll(b));
+		assertThrows(IllegalArgumentException.class, () -> new StyleTable().union(a, b));
+
+		// muitas declarações (mais de uma palavra de bits)
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 100; i++)
+			sb.append("w").append(i).append(": 1;");
+		StyleSet big = t.parse(sb.toString());
+		assertEquals(100, big.size());
+		assertSame(t.parse("w99: 1"), t.intersection(big, t.parse("w99: 1; x: 2")));
+	}
+}
@@ -0,0 +1,51 @@
+package br.com.pereiraeng.html;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class TableDiffTests {
+
+	private static final String OLD = "<table><tr><th>Ativo</th><th>Pre\u00E7o</th></tr>"
+			+ "<tr><td>PETR4</td><td>38,10</td></tr><tr><td>VALE3</td><td>61,02</td></tr>"
+			+ "<tr><td>ITUB4</td><td>33,50</td></tr></table>";
+
+	private static final String NEW = "<table><tr><th>Ativo</th><th>Pre\u00E7o</th></tr>"
+			+ "<tr><td>VALE3</td><td>61,02</td></tr><tr><td>PETR4</td><td>38,25</td></tr>"
+			+ "<tr><td>BBAS3</td><td>27,80</td></tr></table>";
+
+	@Test
+	void testKeys() {
+		TableDiff d = TableDiff.compare(HTMLDocument.parse(OLD), 0, HTMLDocument.parse(NEW), 0, true, 0);
+		assertArrayEquals(new int[] { 3 }, d.getInserted());
+		assertArrayEquals(new int[] { 3 }, d.getDeleted());
+		assertArrayEquals(new int[] { 1 }, d.getChangedOld());
+		assertArrayEquals(new int[] { 2 }, d.getChangedNew());
+		assertArrayEquals(new String[] { "PETR4", "38,25" }, d.getNewRow(2));
+		assertArrayEquals(new String[] { "PETR4", "38,10" }, d.getOldRow(1));
+	}
+
+	@Test
+	void testWholeRows() {
+		TableDiff d = TableDiff.compare(HTMLDocument.parse(OLD), 0, HTMLDocument.parse(NEW), 0, true);
+		assertArrayEquals(new int[] { 2, 3 }, d.getInserted());
+		assertArrayEquals(new int[] { 1, 3 }, d.getDeleted());
+		assertArrayEquals(new int[0], d.getChangedOld());
+		assertTrue(TableDiff.compare(HTMLDocument.parse(OLD), 0, HTMLDocument.parse(OLD), 0, false).isEmpty());
+		assertNull(TableDiff.compare(HTMLDocument.parse(OLD), 1, HTMLDocument.parse(NEW), 0, true));
+	}
+
+	@Test
+	void testDuplicateKeys() {
+		String a = "<table><tr><td>x</td><td>1</td></tr><tr><td>x</td><td>2</td></tr></table>";
+		String b = "<table><tr><td>x</td><td>1</td></tr><tr><td>x</td><td>3</td></tr>"
+				+ "<tr><td>x</td><td>4</td></tr></table>";
+		TableDiff d = TableDiff.compare(HTMLDocument.parse(a), 0, HTMLDocument.parse(b), 0, true, 0);
+		assertArrayEquals(new int[] { 1 }, d.getChangedOld());
+		assertArrayEquals(new int[] { 1 }, d.getChangedNew());
+		assertArrayEquals(new int[] { 2 }, d.getInserted());
+		assertArrayEquals(new int[0], d.getDeleted());
+	}
+}
@@ -0,0 +1,33 @@
+package br.com.pereiraeng.html;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import org.junit.jupiter.api.Test;
+
+class TableGridTests {
+
+	private static final String TABLE = "<table><tr><td rowspan=\"2\">A</td><td colspan='2'>B</td></tr>"
+			+ "<tr><td>C</td><td>D</td></tr><tr><td>E</td><td>F</td><td rowspan=0>G</td></tr>"
+			+ "<tr><td>H</td><td>I</td></tr></table>";
+
+	@Test
+	void testRepeat() {
+		String[][] grid = HTML.getGridContent(TABLE, true, 0, TableGrid.SpanMode.REPEAT);
+		assertArrayEquals(new String[] { "A", "B", "B" }, grid[0]);
+		assertArrayEquals(new String[] { "A", "C", "D" }, grid[1]);
+		assertArrayEquals(new String[] { "E", "F", "G" }, grid[2]);
+		assertArrayEquals(new String[] { "H", "I", "G" }, grid[3]);
+	}
+
+	@Test
+	void testBlank() {
+		TableGrid grid = TableGrid.of(HTMLDocument.parse(TABLE), 0, TableGrid.SpanMode.BLANK);
+		assertEquals(4, grid.getRowCount());
+		assertEquals(3, grid.getColumnCount());
+		assertEquals(-1, grid.getCell(0, 2));
+		assertEquals("C", grid.getText(1, 1));
+		assertFalse(grid.isOrigin(3, 2));
+	}
+}
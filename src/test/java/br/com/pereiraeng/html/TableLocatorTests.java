@@ -0,0 +1,57 @@
+package br.com.pereiraeng.html;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+class TableLocatorTests {
+
+	private static final String HTML_CODE = "<table id=\"a\"><tr><td>1</td></tr></table>"
+			+ "<table><tr><td><table id='b'><tr><td>x</td></tr></table></td><td>y</td></tr></table>";
+
+	@Test
+	void testLocate() {
+		TableLocator tables = TableLocator.locate(HTML_CODE);
+		assertEquals(3, tables.size());
+		assertEquals(1, tables.getParent(2));
+		assertEquals(1, tables.getDepth(2));
+		assertEquals(2, tables.find(1, 0));
+		assertEquals(2, tables.findById("b"));
+		assertEquals(HTML_CODE.length(), tables.getEnd(1));
+	}
+
+	@Test
+	void testNestedContent() {
+		TableLocator tables = TableLocator.locate(HTML_CODE);
+		assertEquals("y", HTML.getCellContent(HTML_CODE, tables, 1, 0, 1));
+		assertEquals("x", HTML.getCellContent(HTML_CODE, tables, tables.findById("b"), 0, 0));
+	}
+
+	@Test
+	void testNestedRows() {
+		// a tabela de dentro tem duas linhas e duas células, que não contam para a
+		// de fora
+		String html = "<!-- <table> --><table><tr><td>a</td><td><table><tr><td>x<td>y</tr><tr><td>z</td></tr>"
+				+ "</table></td><td>b</td></tr>\n<tr><th>c<td>d</table><p><table><tr><td>q</td></tr></table>";
+		TableLocator tables = TableLocator.locate(html);
+		assertEquals("b", HTML.getCellContent(html, 0, 0, 2));
+		assertEquals("b", HTML.getCellContent(html, tables, 0, 0, 2));
+		assertEquals("xyz", HTML.getCellContent(html, 0, 0, 1));
+		assertEquals("d", HTML.getCellContent(html, 0, 1, 1));
+		assertNull(HTML.getCellContent(html, 0, 2, 0));
+		assertEquals("y", HTML.getCellContent(html, 1, 0, 1));
+		assertEquals("q", HTML.getCellContent(html, 2, 0, 0));
+		assertNull(HTML.getCellContent(html, 3, 0, 0));
+
+		assertArrayEquals(new String[] { "<td>a</td>", "<th>c" }, HTML.getColumnContent(html, 0, 0));
+		String[][] all = HTML.getColumnsContent(html, true, 0);
+		assertEquals(2, all.length);
+		assertEquals(3, all[0].length);
+		assertEquals("b", all[0][2]);
+		assertArrayEquals(new String[] { "c", "d" }, all[1]);
+		assertArrayEquals(all[1], HTML.getColumnsContent(html, tables, true, 0)[1]);
+		assertArrayEquals(new String[] { "d", null }, HTML.getColumnsContent(html, true, 0, 1, 5)[1]);
+	}
+}
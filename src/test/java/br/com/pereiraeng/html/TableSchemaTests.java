@@ -0,0 +1,125 @@
+package br.com.pereiraeng.html;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+class TableSchemaTests {
+
+	private static String report(String... values) {
+		StringBuilder sb = new StringBuilder("<p>x</p><table><thead><tr><th colspan=\"2\">Grupo</th><th></th></tr>"
+				+ "<tr><th>Nome</th><th> Data\n de&nbsp;in&iacute;cio </th><th><b>Valor</b></th></tr></thead><tbody>");
+		for (int i = 0; i < values.length; i++)
+			sb.append("<tr><td>n").append(i).append("</td><td>d").append(i).append("</td><td>").append(values[i])
+					.append("</td></tr>");
+		return sb.append("</tbody></table>").toString();
+	}
+
+	@Test
+	void testSchema() {
+		HTMLDocument doc = HTMLDocument.parse(report("1", "2"));
+		TableSchema schema = doc.getSchema(0, null);
+		assertEquals(2, schema.getHeaderRows());
+		assertArrayEquals(new String[] { "Nome", "Data de in\u00EDcio", "Valor" }, schema.getNames());
+		assertEquals(1, schema.indexOf("Data de in\u00EDcio"));
+		assertEquals(1, schema.indexOf("  Data  de in\u00EDcio"));
+		assertEquals(-1, schema.indexOf("nome"));
+		assertNull(doc.getSchema(1, null));
+
+		// linhas só de th, sem thead, e colspan
+		doc = HTMLDocument.parse("<table><tr><th colspan=2>A</th><th>B</th></tr><tr><td>1<td>2<td>3</tr></table>");
+		schema = doc.getSchema(0, null);
+		assertEquals(1, schema.getHeaderRows());
+		assertArrayEquals(new String[] { "A", "A", "B" }, schema.getNames());
+		assertEquals(0, schema.indexOf("A"));
+
+		// cabeçalho de duas linhas, com rowspan e colspan
+		doc = HTMLDocument.parse("<table><tr><th rowspan=2>Nome</th><th colspan=2>Per\u00EDodo</th></tr>"
+				+ "<tr><th>In\u00EDcio</th><th>Fim</th></tr><tr><td>a<td>1<td>2</tr></table>");
+		schema = doc.getSchema(0, null);
+		assertEquals(2, schema.getHeaderRows());
+		assertArrayEquals(new String[] { "Nome", "In\u00EDcio", "Fim" }, schema.getNames());
+		assertEquals(-1, schema.indexOf("Per\u00EDodo"));
+
+		// sem cabeçalho
+		doc = HTMLDocument.parse("<table><tr><td>1</td></tr></table>");
+		assertSame(TableSchema.NONE, doc.getSchema(0, null));
+	}
+
+	@Test
+	void testNamedColumns() {
+		HTMLDocument doc = HTMLDocument.parse(report("10", "20", "30"));
+		String[][] out = doc.getNamedColumnsContent(true, null, 0, "Valor", "Nome", "Nada");
+		assertEquals(3, out.length);
+		assertArrayEquals(new String[] { "10", "n0", null }, out[0]);
+		assertArrayEquals(new String[] { "30", "n2", null }, out[2]);
+		assertEquals(3, doc.getNamedColumnsContent(true, null, 0).length);
+		assertNull(doc.getNamedColumnsContent(true, null, 3, "Valor"));
+
+		// mesmos resultados da extração por índices
+		String[][] byIndex = doc.getColumnsContent(true, 0, 2, 0);
+		assertArrayEquals(byIndex[2], new String[] { out[0][0], out[0][1] });
+
+		// colspan e rowspan nas linhas de dados
+		doc = HTMLDocument.parse("<table><tr><th rowspan=2>Nome</th><th colspan=2>Per\u00EDodo</th><th>Valor</th></tr>"
+				+ "<tr><th>In\u00EDcio</th><th>Fim</th><th></th></tr>"
+				+ "<tr><td rowspan=2>a<td colspan=2>2019<td>1</tr><tr><td>2020<td>2021<td>2</tr></table>");
+		out = doc.getNamedColumnsContent(true, null, 0, "Valor", "Fim", "Nome", "In\u00EDcio");
+		assertArrayEquals(new String[] { "1", "2019", "a", "2019" }, out[0]);
+		assertArrayEquals(new String[] { "2", "2021", "a", "2020" }, out[1]);
+
+		out = HTML.getNamedColumnsContent("<table id=a></table>" + report("7"), true, 1, "Nome", "Valor");
+		assertArrayEquals(new String[] { "n0", "7" }, out[0]);
+	}
+
+	@Test
+	void testCache() {
+		TableSchema.Cache cache = new TableSchema.Cache(16);
+		TableSchema first = HTMLDocument.parse(report("1")).getSchema(0, cache);
+		TableSchema second = HTMLDocument.parse(report("2", "3")).getSchema(0, cache);
+		assertSame(first, second);
+		assertEquals(1, cache.getHits());
+		assertEquals(1, cache.getMisses());
+		assertEquals(1, cache.size());
+
+		// outro leiaute
+		TableSchema other = HTMLDocument.parse("<table><tr><th>X</th></tr></table>").getSchema(0, cache);
+		assertArrayEquals(new String[] { "X" }, other.getNames());
+		assertEquals(2, cache.size());
+
+		// cache cheio: o esquema novo toma o lugar de um antigo
+		TableSchema.Cache small = new TableSchema.Cache(1);
+		HTMLDocument.parse(report("1")).getSchema(0, small);
+		HTMLDocument.parse("<table><tr><th>X</th></tr></table>").getSchema(0, small);
+		assertEquals(1, small.size());
+		HTMLDocument.parse("<table><tr><th>X</th></tr></table>").getSchema(0, small);
+		assertEquals(1, small.getHits());
+
+		// relógio: o leiaute usado desde a última passagem fica, o outro sai
+		TableSchema.Cache two = new TableSchema.Cache(2);
+		String a = "<table><tr><th>A</th></tr></table>", b = "<table><tr><th>B</th></tr></table>",
+				c = "<table><tr><th>C</th></tr></table>";
+		HTMLDocument.parse(a).getSchema(0, two);
+		HTMLDocument.parse(b).getSchema(0, two);
+		HTMLDocument.parse(a).getSchema(0, two); // acerto
+		HTMLDocument.parse(c).getSchema(0, two); // B sai
+		assertEquals(2, two.size());
+		assertEquals(1, two.getHits());
+		HTMLDocument.parse(a).getSchema(0, two);
+		HTMLDocument.parse(c).getSchema(0, two);
+		assertEquals(3, two.getHits());
+		HTMLDocument.parse(b).getSchema(0, two);
+		assertEquals(4, two.getMisses());
+
+		// muitos leiautes, como num cache comum a todo o processo
+		TableSchema.Cache shared = new TableSchema.Cache(4);
+		for (int i = 0; i < 100; i++)
+			HTML.getNamedColumnsContent("<table><tr><th>" + i + "</th></tr></table>", true, shared, 0);
+		assertEquals(4, shared.size());
+		HTML.getNamedColumnsContent("<table><tr><th>99</th></tr></table>", true, shared, 0);
+		assertEquals(1, shared.getHits());
+	}
+}
@@ -0,0 +1,69 @@
+package br.com.pereiraeng.html;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.Locale;
+
+import org.junit.jupiter.api.Test;
+
+class TypedColumnsTests {
+
+	private static final String TABLE = "<table><tr><th>Valor</th><th>Qtd</th><th>Data</th></tr>"
+			+ "<tr><td>1.234,56</td><td>1.000</td><td>05/03/2024</td></tr>"
+			+ "<tr><td><b>R$&nbsp;-7,5</b></td><td> 42 </td><td>1/2/2020</td></tr>"
+			+ "<tr><td>12,5%</td><td>n/d</td><td></td></tr></table>";
+
+	@Test
+	void testDoubles() {
+		TypedColumns.Doubles c = HTML.getDoubleColumn(TABLE, 0, 0, CellParser.BRAZIL);
+		assertEquals(4, c.size());
+		assertTrue(c.isMissing(0));
+		assertEquals(1234.56, c.get(1));
+		assertEquals(-7.5, c.get(2));
+		assertEquals(0.125, c.get(3));
+	}
+
+	@Test
+	void testLongsAndDates() {
+		HTMLDocument doc = HTMLDocument.parse(TABLE);
+		TypedColumns.Ints q = TypedColumns.getInts(doc, 0, 1, CellParser.BRAZIL);
+		assertEquals(1000, q.get(1));
+		assertEquals(42, q.get(2));
+		assertTrue(q.isMissing(3));
+		TypedColumns.Longs d = TypedColumns.getEpochDays(doc, 0, 2, "dd/MM/yyyy");
+		assertEquals(LocalDate.of(2024, 3, 5).toEpochDay(), d.get(1));
+		assertEquals(LocalDate.of(2020, 2, 1).toEpochDay(), d.get(2));
+		assertFalse(d.isMissing(2));
+		assertTrue(d.isMissing(3));
+	}
+
+	@Test
+	void testParser() {
+		CellParser p = new CellParser(Locale.US);
+		assertEquals(-1234.5, p.parseDouble("(1,234.5)", 0, 9));
+		assertEquals(1500.0, p.parseDouble("1.5E3", 0, 5));
+		p.parseDouble("1.2.3", 0, 5);
+		assertFalse(p.isValid());
+
+		// prefixos de moeda conhecidos
+		assertEquals(12.5, parse(p, "US$ 12.5"));
+		assertEquals(-3.0, parse(p, "\u20AC-3"));
+		assertEquals(7.0, parse(p, " EUR 7"));
+		assertEquals(1234L, p.parseLong("R$1,234", 0, 7));
+		assertTrue(p.isValid());
+
+		// outras letras antes do número
+		for (String s : new String[] { "Total 2019", "abc12", "Q3 5", "EURO 5", "x$ 1" }) {
+			assertTrue(Double.isNaN(parse(p, s)), s);
+			p.parseLong(s, 0, s.length());
+			assertFalse(p.isValid(), s);
+		}
+	}
+
+	private static double parse(CellParser p, String s) {
+		return p.parseDouble(s, 0, s.length());
+	}
+}